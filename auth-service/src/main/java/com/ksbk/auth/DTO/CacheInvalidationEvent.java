@@ -0,0 +1,24 @@
+package com.ksbk.auth.DTO;
+
+import com.ksbk.auth.entity.CacheEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by {@code CacheInvalidationBus} for a batch of changes committed by other replicas.
+ * With {@code flush} set, changes may have been missed and every cache must be dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationEvent {
+    private List<Invalidation> invalidations;
+    private boolean flush;
+
+    /** Users have no version column; their invalidations carry version 0. */
+    public record Invalidation(CacheEntity entity, long id, long version) {
+    }
+}
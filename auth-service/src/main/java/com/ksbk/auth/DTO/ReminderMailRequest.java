@@ -0,0 +1,16 @@
+package com.ksbk.auth.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderMailRequest {
+    private Long userId;
+    private Long noteId;
+    private String title;
+    private String dueAt;
+    private String remindAt;
+}
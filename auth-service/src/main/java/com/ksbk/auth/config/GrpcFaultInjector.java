@@ -0,0 +1,49 @@
+package com.ksbk.auth.config;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local fault injection for the gRPC API, to watch the callers' timeouts, hedging and circuit
+ * breakers at work without breaking a real instance. With {@code app.grpc.faults.enabled=true}
+ * a share of the calls is delayed by {@code delay-ms} and another share fails with UNAVAILABLE.
+ * Never enable it outside a test stack.
+ */
+public class GrpcFaultInjector implements ServerInterceptor {
+
+    private final long delayMs;
+
+    private final double delayRate;
+
+    private final double errorRate;
+
+    public GrpcFaultInjector(long delayMs, double delayRate, double errorRate) {
+        this.delayMs = delayMs;
+        this.delayRate = delayRate;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < errorRate) {
+            call.close(Status.UNAVAILABLE.withDescription("Injected fault"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        if (random.nextDouble() < delayRate) {
+            // Runs on the server's virtual thread executor, so sleeping only holds this call.
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return next.startCall(call, headers);
+    }
+}
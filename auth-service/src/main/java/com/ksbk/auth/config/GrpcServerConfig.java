@@ -0,0 +1,120 @@
+package com.ksbk.auth.config;
+
+import com.ksbk.auth.service.TokenRevocationGrpcService;
+import com.ksbk.auth.service.UserDirectoryGrpcService;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The internal gRPC server on {@code app.grpc.port}, next to the HTTP port. It is meant for the
+ * other services on the compose network only and is not published or routed by the gateway.
+ * <p>
+ * Started as a lifecycle bean, after the context is refreshed, so the CDS training run of the
+ * Docker build does not bind the port. Calls run on virtual threads because they block on JDBC.
+ */
+@Configuration
+public class GrpcServerConfig implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcServerConfig.class);
+
+    private final UserDirectoryGrpcService userDirectoryGrpcService;
+
+    private final TokenRevocationGrpcService tokenRevocationGrpcService;
+
+    @Value("${app.grpc.port:9092}")
+    private int port;
+
+    @Value("${app.grpc.max-connection-idle-ms:300000}")
+    private long maxConnectionIdleMs;
+
+    @Value("${app.grpc.shutdown-grace-ms:5000}")
+    private long shutdownGraceMs;
+
+    @Value("${app.grpc.faults.enabled:false}")
+    private boolean faultsEnabled;
+
+    @Value("${app.grpc.faults.delay-ms:300}")
+    private long faultDelayMs;
+
+    @Value("${app.grpc.faults.delay-rate:0}")
+    private double faultDelayRate;
+
+    @Value("${app.grpc.faults.error-rate:0}")
+    private double faultErrorRate;
+
+    private ExecutorService executor;
+
+    private volatile Server server;
+
+    public GrpcServerConfig(UserDirectoryGrpcService userDirectoryGrpcService,
+                            TokenRevocationGrpcService tokenRevocationGrpcService) {
+        this.userDirectoryGrpcService = userDirectoryGrpcService;
+        this.tokenRevocationGrpcService = tokenRevocationGrpcService;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        ServerServiceDefinition userDirectory = userDirectoryGrpcService.bindService();
+        if (faultsEnabled) {
+            logger.warn("gRPC fault injection is on: {} of calls delayed by {} ms, {} failed",
+                    faultDelayRate, faultDelayMs, faultErrorRate);
+            userDirectory = ServerInterceptors.intercept(userDirectory,
+                    new GrpcFaultInjector(faultDelayMs, faultDelayRate, faultErrorRate));
+        }
+        try {
+            server = NettyServerBuilder.forPort(port)
+                    .addService(userDirectory)
+                    .addService(tokenRevocationGrpcService)
+                    .executor(executor)
+                    // Clients keep one channel open and ping it; allow that instead of closing it with GOAWAY.
+                    .permitKeepAliveTime(10, TimeUnit.SECONDS)
+                    .permitKeepAliveWithoutCalls(true)
+                    .maxConnectionIdle(maxConnectionIdleMs, TimeUnit.MILLISECONDS)
+                    .build()
+                    .start();
+            logger.info("gRPC server listening on port {}", port);
+        } catch (IOException e) {
+            executor.shutdownNow();
+            throw new UncheckedIOException("Failed to start the gRPC server on port " + port, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        Server running = server;
+        if (running == null) {
+            return;
+        }
+        server = null;
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(shutdownGraceMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("gRPC calls still running after {} ms, cancelling them", shutdownGraceMs);
+                running.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            running.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
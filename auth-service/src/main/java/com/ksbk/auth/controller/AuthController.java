@@ -7,11 +7,15 @@ import com.ksbk.auth.DTO.UserDTO;
 import com.ksbk.auth.DTO.JwtResponse;
 import com.ksbk.auth.service.AuthService;
 import com.ksbk.auth.entity.User;
+import com.ksbk.auth.entity.UserDetailsImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -70,6 +74,24 @@ public class AuthController {
         }
     }
 
+    @Operation(summary = "User logout", description = "Revoke the access token of the request and the refresh token; "
+            + "services reject the access token within seconds")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long userId = userDetails.getUser().getId();
+        try {
+            authService.logout(userId, (String) authentication.getCredentials());
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            logger.error("Logout failed for user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "Password update request")
     @PostMapping("/forgot-password")
     public ResponseEntity<String> forgotPassword(@RequestBody PasswordResetRequest request)
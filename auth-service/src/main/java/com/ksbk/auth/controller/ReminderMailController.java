@@ -0,0 +1,38 @@
+package com.ksbk.auth.controller;
+
+import com.ksbk.auth.DTO.ReminderMailRequest;
+import com.ksbk.auth.service.ReminderMailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/reminders")
+@Tag(name = "Reminder Mail Controller", description = "Mails note reminders on behalf of notes-service (admin only)")
+public class ReminderMailController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderMailController.class);
+
+    private final ReminderMailService reminderMailService;
+
+    public ReminderMailController(ReminderMailService reminderMailService) {
+        this.reminderMailService = reminderMailService;
+    }
+
+    @Operation(summary = "Send reminder mails", description = "Mail a batch of fired note reminders to their owners")
+    @PostMapping("/email")
+    public ResponseEntity<Void> sendReminderMails(@RequestBody List<ReminderMailRequest> reminders) {
+        try {
+            reminderMailService.sendReminders(reminders);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            logger.error("Failed to send {} reminder mails: {}", reminders.size(), e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ksbk.auth.controller;
+
+import com.ksbk.auth.DTO.UsageRollupPoint;
+import com.ksbk.auth.entity.RollupGranularity;
+import com.ksbk.auth.entity.UsageMetric;
+import com.ksbk.auth.service.UsageRollups;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/analytics/users")
+@Tag(name = "Usage Analytics Controller", description = "Hourly and daily sign-up and sign-in rollups (admin only)")
+public class UsageAnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageAnalyticsController.class);
+
+    private final UsageRollups usageRollups;
+
+    public UsageAnalyticsController(UsageRollups usageRollups) {
+        this.usageRollups = usageRollups;
+    }
+
+    @Operation(summary = "Get rollups", description = "Buckets of one metric in [from, to), e.g. "
+            + "metric=SIGN_UP&granularity=DAY&from=2025-01-01T00:00&to=2025-02-01T00:00")
+    @GetMapping
+    public ResponseEntity<List<UsageRollupPoint>> getRollups(
+            @RequestParam UsageMetric metric,
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(usageRollups.range(metric, granularity, from, to));
+        } catch (IllegalArgumentException e) {
+            logger.info("Rejected rollup query {} {} {} - {}: {}", metric, granularity, from, to, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Rollup query {} {} {} - {} failed: {}", metric, granularity, from, to, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
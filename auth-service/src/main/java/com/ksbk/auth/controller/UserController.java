@@ -3,8 +3,8 @@ package com.ksbk.auth.controller;
 import com.ksbk.auth.DTO.UserDTO;
 import com.ksbk.auth.entity.User;
 import com.ksbk.auth.DTO.UserResponse;
-import com.ksbk.auth.repository.UserRepository;
 import com.ksbk.auth.service.MinioService;
+import com.ksbk.auth.service.UserProfileCache;
 import com.ksbk.auth.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,17 +12,20 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.InputStream;
 import java.net.URLConnection;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -34,30 +37,34 @@ import java.util.List;
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    /** Lets the gateway's response cache serve repeated profile and avatar reads. */
+    private static final CacheControl PUBLIC_PROFILE_CACHE = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
+
     private final UserService userService;
 
     private final MinioService minioService;
 
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
 
-    public UserController(UserService userService, MinioService minioService, UserRepository userRepository) {
+    public UserController(UserService userService, MinioService minioService, UserProfileCache userProfileCache) {
         this.userService = userService;
         this.minioService = minioService;
-        this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
     }
 
-    @Operation(summary = "Get user", description = "Get user by id")
+    @Operation(summary = "Get user", description = "Get user by id; send If-None-Match with the profile's ETag "
+            + "to get 304 when it has not changed")
     @GetMapping("/{userId}")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable Long userId) {
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long userId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try{
-            User user = userService.getUserById(userId);
-            UserResponse dto = new UserResponse();
-            dto.setId(user.getId());
-            dto.setUsername(user.getUsername());
-            dto.setEmail(user.getEmail());
-            dto.setAvatarUrl(user.getAvatarUrl());
-            logger.info("Retrieved user with id: {}, username: {}", userId, user.getUsername());
-            return ResponseEntity.ok(dto);
+            UserProfileCache.CachedProfile cached = userProfileCache.get(userId);
+            if (matchesETag(ifNoneMatch, cached.eTag())) {
+                logger.debug("Profile of user {} not modified", userId);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.eTag()).cacheControl(PUBLIC_PROFILE_CACHE).build();
+            }
+            logger.debug("Retrieved user with id: {}, username: {}", userId, cached.profile().getUsername());
+            return ResponseEntity.ok().eTag(cached.eTag()).cacheControl(PUBLIC_PROFILE_CACHE).body(cached.profile());
         }catch (Exception e)
         {
             logger.error("Failed to get user with id {}: {}", userId, e.getMessage(), e);
@@ -117,10 +124,7 @@ public class UserController {
         {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String currentUsername = authentication.getName();
-            User currentUser = userRepository.findByUsername(currentUsername).orElseThrow(() -> {
-                logger.error("User not found with username: {}", currentUsername);
-                return new UsernameNotFoundException("User not found with username: " + currentUsername);
-            });
+            UserResponse currentUser = userProfileCache.getByUsername(currentUsername).profile();
             Long userId = currentUser.getId();
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
             String originalFilename = file.getOriginalFilename();
@@ -159,6 +163,7 @@ public class UserController {
                 byte[] bytes = is.readAllBytes();
                 logger.info("Successfully retrieved avatar for user {}", userId);
                 return ResponseEntity.ok()
+                        .cacheControl(PUBLIC_PROFILE_CACHE)
                         .contentType(MediaType.parseMediaType(contentType))
                         .body(bytes);
             }
@@ -170,4 +175,21 @@ public class UserController {
                 "Failed to fetch avatar: " + e.getMessage());
         }
     }
+
+    /** Whether an If-None-Match value such as {@code "abc"}, {@code W/"abc"}, a list of them or {@code *} matches. */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
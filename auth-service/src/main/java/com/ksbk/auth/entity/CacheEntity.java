@@ -0,0 +1,6 @@
+package com.ksbk.auth.entity;
+
+/** What a cross-replica cache invalidation refers to. */
+public enum CacheEntity {
+    USER
+}
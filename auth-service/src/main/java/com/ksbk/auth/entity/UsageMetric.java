@@ -0,0 +1,6 @@
+package com.ksbk.auth.entity;
+
+public enum UsageMetric {
+    SIGN_UP,
+    SIGN_IN
+}
@@ -1,7 +1,11 @@
 package com.ksbk.auth.filter;
 
+import com.ksbk.auth.entity.User;
+import com.ksbk.auth.entity.UserDetailsImpl;
+import com.ksbk.auth.entity.UserRole;
 import com.ksbk.auth.service.UserDetailsServiceImpl;
 import com.ksbk.auth.utils.JwtUtils;
+import com.ksbk.common.utils.GatewayIdentity;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,22 +28,35 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
 
-    public JwtAuthFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsService) {
+    private final GatewayIdentity gatewayIdentity;
+
+    public JwtAuthFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsService, GatewayIdentity gatewayIdentity) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.gatewayIdentity = gatewayIdentity;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try{
+            // Behind the gateway the token has already been verified; the signed identity spares
+            // both the JWT parse and the user lookup.
+            GatewayIdentity.Identity identity = gatewayIdentity.verify(request::getHeader);
             String jwt = parseJwt(request);
-            if(jwt != null && jwtUtils.validateAccessToken(jwt)){
+            if(identity != null){
+                UserDetails userDetails = new UserDetailsImpl(toUser(identity));
+                // The credentials carry the token's jti, for logout.
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, identity.tokenId(), userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } else if(jwt != null && jwtUtils.validateAccessToken(jwt)){
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        userDetails, jwtUtils.getTokenIdFromJwtToken(jwt), userDetails.getAuthorities());
 
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -52,6 +69,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private User toUser(GatewayIdentity.Identity identity) {
+        User user = new User();
+        user.setId(identity.userId());
+        user.setUsername(identity.username());
+        user.setRole(identity.roles().contains(UserRole.ADMIN.getAuthority()) ? UserRole.ADMIN : UserRole.USER);
+        return user;
+    }
+
     private String parseJwt(HttpServletRequest request)
     {
         String headerAuth = request.getHeader("Authorization");
@@ -0,0 +1,77 @@
+package com.ksbk.auth.filter;
+
+import com.ksbk.auth.entity.UserDetailsImpl;
+import com.ksbk.common.config.RateLimitProperties;
+import com.ksbk.common.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs right after {@link JwtAuthFilter}: authenticated requests are limited per user, anonymous
+ * ones per client address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitProperties properties;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = resolveKey(request);
+        long retryAfterMs = rateLimiter.tryAcquire(key, costOf(request));
+        if (retryAfterMs > 0) {
+            logger.debug("Rate limited {} on {} {} for {} ms", key, request.getMethod(), request.getRequestURI(), retryAfterMs);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl user) {
+            return "user:" + user.getUser().getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private int costOf(HttpServletRequest request) {
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if ((rule.getMethod() == null || rule.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(rule.getPath(), request.getRequestURI())) {
+                return rule.getCost();
+            }
+        }
+        return 1;
+    }
+}
@@ -2,12 +2,33 @@ package com.ksbk.auth.repository;
 
 import com.ksbk.auth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.avatarUrl AS avatarUrl FROM User u WHERE u.id = :id")
+    Optional<UserProfileRow> findProfileById(@Param("id") Long id);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.avatarUrl AS avatarUrl FROM User u WHERE u.username = :username")
+    Optional<UserProfileRow> findProfileByUsername(@Param("username") String username);
+
+    /** The public profile columns only, without the password and token columns. */
+    interface UserProfileRow {
+        Long getId();
+        String getUsername();
+        String getEmail();
+        String getAvatarUrl();
+    }
 }
@@ -3,6 +3,7 @@ package com.ksbk.auth.service;
 import com.ksbk.auth.DTO.UserDTO;
 import com.ksbk.auth.entity.UserDetailsImpl;
 import com.ksbk.auth.DTO.JwtResponse;
+import com.ksbk.auth.entity.UsageMetric;
 import com.ksbk.auth.entity.User;
 import com.ksbk.auth.entity.UserRole;
 import com.ksbk.auth.exception.InvalidRefreshTokenException;
@@ -24,6 +25,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -42,14 +44,21 @@ public class AuthService {
 
     private final EmailService emailService;
 
+    private final UsageRollups usageRollups;
+
+    private final TokenRevocationService tokenRevocationService;
+
     public AuthService(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder,
-                       AuthenticationManager authenticationManager, JwtUtils jwtUtils, EmailService emailService) {
+                       AuthenticationManager authenticationManager, JwtUtils jwtUtils, EmailService emailService,
+                       UsageRollups usageRollups, TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
         this.emailService = emailService;
+        this.usageRollups = usageRollups;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     public User signUp(UserDTO userDTO) throws UserAlreadyExistException, UserEmailAlreadyExistException {
@@ -72,6 +81,7 @@ public class AuthService {
             user.setRole(UserRole.USER);
 
             User savedUser = userRepository.save(user);
+            usageRollups.record(UsageMetric.SIGN_UP, null, 1);
             logger.info("User registered successfully: {}", savedUser.getUsername());
             return savedUser;
         } catch (Exception e) {
@@ -93,12 +103,12 @@ public class AuthService {
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            String accessToken = jwtUtils.generateAccessToken(authentication);
-            String refreshToken = jwtUtils.generateRefreshToken(authentication);
-
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             User user = userDetails.getUser();
 
+            String accessToken = issueAccessToken(authentication, user.getId());
+            String refreshToken = jwtUtils.generateRefreshToken(authentication);
+
             user.setRefreshToken(refreshToken);
             user.setRefreshTokenExpiry(
                     LocalDateTime.now().plusSeconds(jwtUtils.getRefreshExpiration() / 1000)
@@ -112,6 +122,7 @@ public class AuthService {
             jwtResponse.setEmail(user.getEmail());
             jwtResponse.setRoles(Collections.singletonList(user.getRole().name()));
 
+            usageRollups.record(UsageMetric.SIGN_IN, null, 1);
             logger.info("User authenticated successfully: {}", user.getUsername());
             return jwtResponse;
         } catch (Exception e) {
@@ -150,14 +161,14 @@ public class AuthService {
 
             UserDetailsImpl userDetails = new UserDetailsImpl(user);
             Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails.getUsername(),
+                    userDetails,
                     null,
                     userDetails.getAuthorities()
             );
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            String newAccessToken = jwtUtils.generateAccessToken(authentication);
+            String newAccessToken = issueAccessToken(authentication, user.getId());
             String newRefreshToken = jwtUtils.generateRefreshToken(authentication);
 
             user.setRefreshToken(newRefreshToken);
@@ -181,6 +192,25 @@ public class AuthService {
         }
     }
 
+    /** Revokes the access token the request was made with and drops the user's refresh token. */
+    public void logout(Long userId, String tokenId) {
+        logger.debug("Logging out user {}", userId);
+        try {
+            if (tokenId != null) {
+                tokenRevocationService.revoke(tokenId, userId);
+            }
+            userRepository.findById(userId).ifPresent(user -> {
+                user.setRefreshToken(null);
+                user.setRefreshTokenExpiry(null);
+                userRepository.save(user);
+            });
+            logger.info("User {} logged out", userId);
+        } catch (Exception e) {
+            logger.error("Error logging out user {}: {}", userId, e.getMessage(), e);
+            throw e;
+        }
+    }
+
     public void requestPasswordReset(String email) {
         logger.info("Password reset requested for email: {}", email);
 
@@ -247,6 +277,7 @@ public class AuthService {
             user.setRefreshTokenExpiry(null);
 
             userRepository.save(user);
+            tokenRevocationService.revokeAll(user.getId());
             logger.info("Password reset successfully for user: {}", email);
         } catch (Exception e) {
             logger.error("Error resetting password: {}", e.getMessage(), e);
@@ -284,6 +315,11 @@ public class AuthService {
             throw e;
         }
     }
-}
-
 
+    private String issueAccessToken(Authentication authentication, Long userId) {
+        String tokenId = UUID.randomUUID().toString();
+        String accessToken = jwtUtils.generateAccessToken(authentication, tokenId);
+        tokenRevocationService.recordIssued(tokenId, userId, System.currentTimeMillis() + jwtUtils.getAccessExpiration());
+        return accessToken;
+    }
+}
@@ -0,0 +1,186 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.DTO.CacheInvalidationEvent;
+import com.ksbk.auth.entity.CacheEntity;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tells the other auth-service replicas which cached data a transaction changed, over Postgres
+ * LISTEN/NOTIFY.
+ * <p>
+ * {@link #publish} sends a short message with {@code pg_notify} in the caller's transaction, so
+ * it is delivered when, and only if, the transaction commits. Every replica listens on its own
+ * connection to the primary, outside the pool. Notifications are collected for
+ * {@code app.cache-bus.batch-window-ms}, deduplicated and published locally as one
+ * {@link CacheInvalidationEvent}; messages sent by this replica are skipped.
+ * <p>
+ * Postgres does not keep notifications for a listener that is not connected, so whenever the
+ * listener (re)connects, the caches are flushed entirely instead.
+ */
+@Service
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    /** Tells this replica's own messages apart from the others'. */
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final String channel;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    @Value("${app.cache-bus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache-bus.batch-window-ms:50}")
+    private int batchWindowMs;
+
+    /** How long the listener waits for notifications before it checks that its connection is alive. */
+    @Value("${app.cache-bus.idle-check-ms:10000}")
+    private int idleCheckMs;
+
+    @Value("${app.cache-bus.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                DataSourceProperties dataSourceProperties,
+                                @Value("${app.cache-bus.channel:auth_cache_invalidation}") String channel) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("app.cache-bus.channel must be a lower-case SQL identifier: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+    }
+
+    /** Tells the other replicas that the entity changed. Runs in the caller's transaction. */
+    public void publish(CacheEntity entity, long id, long version) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.query(NOTIFY_SQL, rs -> { }, channel, origin + " " + entity + " " + id + " " + version);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Cross-replica cache invalidation is disabled");
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("cache-invalidation").start(this::listen);
+    }
+
+    /** The listener notices within {@code idle-check-ms} and closes its connection. */
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.getUrl(),
+                    dataSourceProperties.getUsername(), dataSourceProperties.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                logger.info("Listening for cache invalidations on {}", channel);
+                // Anything committed while not listening is lost.
+                eventPublisher.publishEvent(new CacheInvalidationEvent(List.of(), true));
+
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(idleCheckMs);
+                    if (received == null || received.length == 0) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    List<PGNotification> batch = new ArrayList<>(List.of(received));
+                    long deadline = System.currentTimeMillis() + batchWindowMs;
+                    for (long remaining = batchWindowMs; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                        PGNotification[] more = notifications.getNotifications((int) remaining);
+                        if (more != null) {
+                            batch.addAll(List.of(more));
+                        }
+                    }
+                    dispatch(batch);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation listener failed, reconnecting in {} ms: {}", reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        logger.info("Stopped listening for cache invalidations");
+    }
+
+    /** Publishes the batch with one invalidation per entity, the one with the highest version. */
+    private void dispatch(List<PGNotification> batch) {
+        Map<String, CacheInvalidationEvent.Invalidation> latest = new LinkedHashMap<>();
+        for (PGNotification notification : batch) {
+            String[] fields = notification.getParameter().split(" ");
+            if (fields.length != 4 || fields[0].equals(origin)) {
+                continue;
+            }
+            try {
+                CacheInvalidationEvent.Invalidation invalidation = new CacheInvalidationEvent.Invalidation(
+                        CacheEntity.valueOf(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+                latest.merge(fields[1] + " " + fields[2], invalidation,
+                        (previous, next) -> next.version() >= previous.version() ? next : previous);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Ignoring malformed cache invalidation '{}'", notification.getParameter());
+            }
+        }
+        if (!latest.isEmpty()) {
+            logger.debug("Applying {} cache invalidations from other replicas", latest.size());
+            eventPublisher.publishEvent(new CacheInvalidationEvent(new ArrayList<>(latest.values()), false));
+        }
+    }
+}
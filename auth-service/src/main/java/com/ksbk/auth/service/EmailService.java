@@ -5,6 +5,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @AllArgsConstructor
 public class EmailService {
@@ -21,4 +23,11 @@ public class EmailService {
 
         mailSender.send(mail);
     }
+
+    /** Sends all mails over a single SMTP connection. */
+    public void sendMails(List<SimpleMailMessage> mails)
+    {
+        mails.forEach(mail -> mail.setFrom("example@example.com"));
+        mailSender.send(mails.toArray(SimpleMailMessage[]::new));
+    }
 }
\ No newline at end of file
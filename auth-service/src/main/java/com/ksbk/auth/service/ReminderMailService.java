@@ -0,0 +1,73 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.DTO.ReminderMailRequest;
+import com.ksbk.auth.entity.User;
+import com.ksbk.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mails note reminders fired by notes-service. A batch is resolved to addresses with one
+ * user lookup and sent over one SMTP connection.
+ */
+@Service
+public class ReminderMailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderMailService.class);
+
+    private final UserRepository userRepository;
+
+    private final EmailService emailService;
+
+    public ReminderMailService(UserRepository userRepository, EmailService emailService) {
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+    }
+
+    public int sendReminders(List<ReminderMailRequest> reminders) {
+        List<Long> userIds = reminders.stream().map(ReminderMailRequest::getUserId).distinct().toList();
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<SimpleMailMessage> mails = reminders.stream()
+                .map(reminder -> toMail(reminder, users.get(reminder.getUserId())))
+                .filter(Objects::nonNull)
+                .toList();
+        if (mails.isEmpty()) {
+            return 0;
+        }
+        try {
+            emailService.sendMails(mails);
+            logger.info("Sent {} reminder mails", mails.size());
+            return mails.size();
+        } catch (Exception e) {
+            logger.error("Failed to send {} reminder mails: {}", mails.size(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private SimpleMailMessage toMail(ReminderMailRequest reminder, User user) {
+        if (user == null || user.getEmail() == null) {
+            logger.warn("No address for reminder of note {}: user {} not found", reminder.getNoteId(), reminder.getUserId());
+            return null;
+        }
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setTo(user.getEmail());
+        mail.setSubject("Reminder: " + reminder.getTitle());
+        mail.setText("Reminder\n" +
+                "--------\n\n" +
+                "Your note \"" + reminder.getTitle() + "\" has a reminder for " + reminder.getRemindAt() + ".\n" +
+                (reminder.getDueAt() != null ? "It is due " + reminder.getDueAt() + ".\n" : "") +
+                "\nThank you,\n" +
+                "Your Application Team");
+        return mail;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.api.RevocationCursor;
+import com.ksbk.auth.api.RevokedToken;
+import com.ksbk.auth.api.RevokedTokensRequest;
+import com.ksbk.auth.api.RevokedTokensResponse;
+import com.ksbk.auth.api.TokenRevocationsGrpc;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/** Serves {@code revoked_tokens} to the services that replicate it, see {@link TokenRevocationService}. */
+@Service
+public class TokenRevocationGrpcService extends TokenRevocationsGrpc.TokenRevocationsImplBase {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${app.grpc.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    public TokenRevocationGrpcService(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @Override
+    public void getRevokedTokens(RevokedTokensRequest request, StreamObserver<RevokedTokensResponse> responseObserver) {
+        int limit = request.getLimit() > 0 ? Math.min(request.getLimit(), maxBatchSize) : maxBatchSize;
+        try {
+            // Read the clock first: a revocation committed while the query runs is then still
+            // newer than the time the caller continues from.
+            long serverTime = tokenRevocationService.currentTimeMs();
+            List<TokenRevocationService.RevokedToken> tokens = request.hasAfter()
+                    ? tokenRevocationService.revokedAfter(request.getAfter().getRevokedAtUs(), request.getAfter().getJti(), limit)
+                    : tokenRevocationService.revokedSince(request.getSinceMs(), limit);
+            RevokedTokensResponse.Builder response = RevokedTokensResponse.newBuilder()
+                    .setServerTimeMs(serverTime)
+                    .setTruncated(tokens.size() == limit);
+            for (TokenRevocationService.RevokedToken token : tokens) {
+                response.addTokens(RevokedToken.newBuilder()
+                        .setJti(token.jti())
+                        .setExpiresAtMs(token.expiresAtMs())
+                        .setRevokedAtMs(token.revokedAtUs() / 1000));
+            }
+            if (!tokens.isEmpty()) {
+                TokenRevocationService.RevokedToken last = tokens.get(tokens.size() - 1);
+                response.setNextCursor(RevocationCursor.newBuilder()
+                        .setRevokedAtUs(last.revokedAtUs())
+                        .setJti(last.jti()));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ksbk.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Revocation of access tokens before they expire. Every issued access token is recorded with
+ * its jti; logout revokes one token, a password reset or account deletion revokes all unexpired
+ * tokens of the user. Services that verify tokens locally replicate {@code revoked_tokens} by
+ * {@code revoked_at} through the gRPC API and check the jti of each request in memory.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String RECORD_ISSUED_SQL =
+            "INSERT INTO issued_access_tokens (jti, user_id, expires_at) VALUES (?, ?, ?)";
+
+    private static final String REVOKE_SQL =
+            "INSERT INTO revoked_tokens (jti, expires_at) " +
+            "SELECT jti, expires_at FROM issued_access_tokens WHERE jti = ? AND user_id = ? AND expires_at > now() " +
+            "ON CONFLICT (jti) DO NOTHING";
+
+    private static final String REVOKE_ALL_SQL =
+            "INSERT INTO revoked_tokens (jti, expires_at) " +
+            "SELECT jti, expires_at FROM issued_access_tokens WHERE user_id = ? AND expires_at > now() " +
+            "ON CONFLICT (jti) DO NOTHING";
+
+    private static final String REVOKED_SINCE_SQL =
+            "SELECT jti, expires_at, revoked_at FROM revoked_tokens WHERE revoked_at > ? AND expires_at > now() " +
+            "ORDER BY revoked_at, jti LIMIT ?";
+
+    /** Keyset page after (revoked_at, jti); spelled out so the revoked_at index still applies. */
+    private static final String REVOKED_AFTER_SQL =
+            "SELECT jti, expires_at, revoked_at FROM revoked_tokens " +
+            "WHERE revoked_at >= ? AND (revoked_at > ? OR jti > ?) AND expires_at > now() " +
+            "ORDER BY revoked_at, jti LIMIT ?";
+
+    /** {@code revokedAtUs} is the stored microsecond precision, which the keyset cursor needs. */
+    public record RevokedToken(String jti, long expiresAtMs, long revokedAtUs) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void recordIssued(String jti, Long userId, long expiresAtMs) {
+        jdbcTemplate.update(RECORD_ISSUED_SQL, jti, userId, new Timestamp(expiresAtMs));
+    }
+
+    /** Revokes one token of the user; a token that is unknown, expired or someone else's is ignored. */
+    public boolean revoke(String jti, Long userId) {
+        boolean revoked = jdbcTemplate.update(REVOKE_SQL, jti, userId) > 0;
+        logger.info("Access token {} of user {} {}", jti, userId, revoked ? "revoked" : "was not revocable");
+        return revoked;
+    }
+
+    public int revokeAll(Long userId) {
+        int revoked = jdbcTemplate.update(REVOKE_ALL_SQL, userId);
+        logger.info("Revoked {} access tokens of user {}", revoked, userId);
+        return revoked;
+    }
+
+    /** The database's clock, which {@code revoked_at} is written with. */
+    public long currentTimeMs() {
+        return jdbcTemplate.queryForObject("SELECT now()", Timestamp.class).getTime();
+    }
+
+    public List<RevokedToken> revokedSince(long sinceMs, int limit) {
+        return jdbcTemplate.query(REVOKED_SINCE_SQL, this::mapRevokedToken, new Timestamp(sinceMs), limit);
+    }
+
+    /** Tokens after the given one in (revoked_at, jti) order. */
+    public List<RevokedToken> revokedAfter(long revokedAtUs, String jti, int limit) {
+        Timestamp revokedAt = Timestamp.from(Instant.EPOCH.plus(revokedAtUs, ChronoUnit.MICROS));
+        return jdbcTemplate.query(REVOKED_AFTER_SQL, this::mapRevokedToken, revokedAt, revokedAt, jti, limit);
+    }
+
+    private RevokedToken mapRevokedToken(ResultSet rs, int rowNum) throws SQLException {
+        Instant revokedAt = rs.getTimestamp("revoked_at").toInstant();
+        return new RevokedToken(
+                rs.getString("jti"),
+                rs.getTimestamp("expires_at").getTime(),
+                ChronoUnit.MICROS.between(Instant.EPOCH, revokedAt));
+    }
+
+    @Scheduled(fixedDelayString = "${app.revocation.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        try {
+            int issued = jdbcTemplate.update("DELETE FROM issued_access_tokens WHERE expires_at < now()");
+            int revoked = jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < now()");
+            logger.debug("Purged {} issued and {} revoked expired access tokens", issued, revoked);
+        } catch (Exception e) {
+            logger.error("Failed to purge expired access tokens: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.DTO.UsageRollupPoint;
+import com.ksbk.auth.entity.RollupGranularity;
+import com.ksbk.auth.entity.UsageMetric;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hourly and daily usage rollups in {@code usage_rollups}, maintained incrementally from the
+ * sign-up and sign-in paths instead of being derived from the users table at query time.
+ * <p>
+ * Writes only bump an in-memory counter per metric, dimension and hour. Every
+ * {@code app.analytics.flush-interval-ms} the counters are drained and added to both the hour
+ * and the day bucket with one batched upsert; the upsert is additive, so any number of instances
+ * can flush into the same rows. A failed flush puts the drained deltas back for the next attempt.
+ * Counts not flushed yet are lost if the process dies, so rollups are close, not exact.
+ */
+@Service
+public class UsageRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageRollups.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String ADD_SQL =
+            "INSERT INTO usage_rollups (granularity, metric, bucket_start, dimension, value) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, metric, bucket_start, dimension) DO UPDATE SET value = usage_rollups.value + EXCLUDED.value";
+
+    private static final String RANGE_SQL =
+            "SELECT metric, dimension, bucket_start, value FROM usage_rollups " +
+            "WHERE granularity = ? AND metric = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start, dimension";
+
+    /** Same order as the primary key, so concurrent flushes lock rows in the same order. */
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::metric)
+            .thenComparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::dimension);
+
+    private record RollupKey(RollupGranularity granularity, UsageMetric metric, LocalDateTime bucketStart,
+                             String dimension) {
+    }
+
+    private final Map<RollupKey, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.analytics.max-points:5000}")
+    private long maxPoints;
+
+    public UsageRollups(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void record(UsageMetric metric, String dimension, long delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        RollupKey key = new RollupKey(RollupGranularity.HOUR, metric,
+                RollupGranularity.HOUR.bucketStart(LocalDateTime.now()), dimension != null ? dimension : "");
+        counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    /** Buckets of one metric in {@code [from, to)}, oldest first. Reads only {@code usage_rollups}. */
+    public List<UsageRollupPoint> range(UsageMetric metric, RollupGranularity granularity,
+                                        LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (granularity.bucketsBetween(from, to) > maxPoints) {
+            throw new IllegalArgumentException("Range spans more than " + maxPoints + " " + granularity + " buckets");
+        }
+        return jdbcTemplate.query(RANGE_SQL,
+                (rs, rowNum) -> new UsageRollupPoint(
+                        rs.getString("metric"),
+                        rs.getString("dimension"),
+                        rs.getTimestamp("bucket_start").toLocalDateTime().format(DATE_FORMAT),
+                        rs.getLong("value")),
+                granularity.name(), metric.name(), Timestamp.valueOf(granularity.bucketStart(from)), Timestamp.valueOf(to));
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        Map<RollupKey, Long> drained = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.getAndSet(0);
+            if (delta != 0) {
+                drained.put(key, delta);
+            }
+        });
+        // Writers only touch the current hour; older counters that stayed empty can go.
+        LocalDateTime staleBefore = RollupGranularity.HOUR.bucketStart(LocalDateTime.now()).minusHours(1);
+        counters.entrySet().removeIf(entry ->
+                entry.getKey().bucketStart().isBefore(staleBefore) && entry.getValue().get() == 0);
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            int rows = upsert(withDayBuckets(drained));
+            logger.debug("Flushed {} usage counters into {} rollup rows", drained.size(), rows);
+        } catch (Exception e) {
+            logger.error("Failed to flush {} usage counters, keeping them for the next flush: {}",
+                    drained.size(), e.getMessage(), e);
+            drained.forEach((key, delta) -> counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private int upsert(Map<RollupKey, Long> values) {
+        List<Object[]> rows = values.entrySet().stream()
+                .map(entry -> new Object[]{
+                        entry.getKey().granularity().name(),
+                        entry.getKey().metric().name(),
+                        Timestamp.valueOf(entry.getKey().bucketStart()),
+                        entry.getKey().dimension(),
+                        entry.getValue()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_SQL, rows));
+        return rows.size();
+    }
+
+    private static Map<RollupKey, Long> withDayBuckets(Map<RollupKey, Long> hourly) {
+        Map<RollupKey, Long> all = new TreeMap<>(KEY_ORDER);
+        hourly.forEach((key, value) -> {
+            all.merge(key, value, Long::sum);
+            RollupKey day = new RollupKey(RollupGranularity.DAY, key.metric(),
+                    RollupGranularity.DAY.bucketStart(key.bucketStart()), key.dimension());
+            all.merge(day, value, Long::sum);
+        });
+        return all;
+    }
+}
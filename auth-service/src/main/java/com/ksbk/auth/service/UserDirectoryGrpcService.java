@@ -0,0 +1,113 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.DTO.UserResponse;
+import com.ksbk.auth.api.ExistingUsersRequest;
+import com.ksbk.auth.api.ExistingUsersResponse;
+import com.ksbk.auth.api.GetUserRequest;
+import com.ksbk.auth.api.GetUsersRequest;
+import com.ksbk.auth.api.User;
+import com.ksbk.auth.api.UserDirectoryGrpc;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The internal user lookups served on the gRPC port. Same data as {@code GET /api/user/{id}},
+ * but batch lookups and existence checks cost one query instead of one HTTP call per user.
+ */
+@Service
+public class UserDirectoryGrpcService extends UserDirectoryGrpc.UserDirectoryImplBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryGrpcService.class);
+
+    private final UserService userService;
+
+    private final UserProfileCache userProfileCache;
+
+    @Value("${app.grpc.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    public UserDirectoryGrpcService(UserService userService, UserProfileCache userProfileCache) {
+        this.userService = userService;
+        this.userProfileCache = userProfileCache;
+    }
+
+    @Override
+    public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+        try {
+            responseObserver.onNext(toMessage(userProfileCache.get(request.getUserId()).profile()));
+            responseObserver.onCompleted();
+        } catch (UsernameNotFoundException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getUsers(GetUsersRequest request, StreamObserver<User> responseObserver) {
+        Set<Long> ids = new LinkedHashSet<>(request.getUserIdsList());
+        if (ids.size() > maxBatchSize) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + maxBatchSize + " ids per call").asRuntimeException());
+            return;
+        }
+        try {
+            ServerCallStreamObserver<User> call = (ServerCallStreamObserver<User>) responseObserver;
+            for (com.ksbk.auth.entity.User user : userService.getUsersByIds(ids)) {
+                if (call.isCancelled()) {
+                    logger.debug("Batch lookup of {} users cancelled by the client", ids.size());
+                    return;
+                }
+                call.onNext(toMessage(user));
+            }
+            call.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void existingUsers(ExistingUsersRequest request, StreamObserver<ExistingUsersResponse> responseObserver) {
+        Set<Long> ids = new LinkedHashSet<>(request.getUserIdsList());
+        if (ids.size() > maxBatchSize) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + maxBatchSize + " ids per call").asRuntimeException());
+            return;
+        }
+        try {
+            List<Long> existing = ids.isEmpty() ? List.of() : userService.getExistingUserIds(ids);
+            responseObserver.onNext(ExistingUsersResponse.newBuilder().addAllUserIds(existing).build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    /** Proto3 strings cannot be null; a missing avatar is sent as an empty string. */
+    private static User toMessage(com.ksbk.auth.entity.User user) {
+        return toMessage(user.getId(), user.getUsername(), user.getEmail(), user.getAvatarUrl());
+    }
+
+    private static User toMessage(UserResponse profile) {
+        return toMessage(profile.getId(), profile.getUsername(), profile.getEmail(), profile.getAvatarUrl());
+    }
+
+    private static User toMessage(Long id, String username, String email, String avatarUrl) {
+        return User.newBuilder()
+                .setId(id)
+                .setUsername(username)
+                .setEmail(email)
+                .setAvatarUrl(avatarUrl != null ? avatarUrl : "")
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.ksbk.auth.service;
+
+import com.ksbk.auth.DTO.CacheInvalidationEvent;
+import com.ksbk.auth.DTO.UserResponse;
+import com.ksbk.auth.entity.CacheEntity;
+import com.ksbk.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of public user profiles by id, with an index by username.
+ * <p>
+ * A miss loads only the profile columns, never the password and token columns, and computes the
+ * profile's ETag once. {@link UserService} invalidates a user after every change to the profile;
+ * inside a transaction the entry is dropped again after commit, so a load that read the old row
+ * in the meantime is not kept. Changes made by other instances arrive through the
+ * {@link CacheInvalidationBus}; entries also expire after {@code app.profile-cache.ttl-ms}.
+ */
+@Service
+public class UserProfileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+
+    /** A cached profile. The profile is shared between requests and must not be modified. */
+    public record CachedProfile(UserResponse profile, String eTag, long loadedAt) {
+    }
+
+    private final Map<Long, CachedProfile> byId = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> idByUsername = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation; a load that overlapped one is returned but not cached. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final UserRepository userRepository;
+
+    @Value("${app.profile-cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.profile-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    public UserProfileCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * The user's profile. Must not run inside a read-only transaction: a miss has to read the
+     * primary, or a replica behind a recent change would put the old profile back in the cache.
+     */
+    public CachedProfile get(Long userId) {
+        CachedProfile cached = byId.get(userId);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        long seen = invalidations.get();
+        UserRepository.UserProfileRow row = userRepository.findProfileById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        return put(row, seen);
+    }
+
+    public CachedProfile getByUsername(String username) {
+        Long userId = idByUsername.get(username);
+        CachedProfile cached = userId != null ? byId.get(userId) : null;
+        if (cached != null && !isExpired(cached) && username.equals(cached.profile().getUsername())) {
+            return cached;
+        }
+        long seen = invalidations.get();
+        UserRepository.UserProfileRow row = userRepository.findProfileByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return put(row, seen);
+    }
+
+    /** Drops the user now and, when called in a transaction, once more after it commits. */
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFlush()) {
+            invalidations.incrementAndGet();
+            byId.clear();
+            idByUsername.clear();
+            return;
+        }
+        for (CacheInvalidationEvent.Invalidation invalidation : event.getInvalidations()) {
+            if (invalidation.entity() == CacheEntity.USER) {
+                evict(invalidation.id());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.profile-cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        byId.values().removeIf(cached -> {
+            if (!isExpired(cached)) {
+                return false;
+            }
+            idByUsername.remove(cached.profile().getUsername(), cached.profile().getId());
+            return true;
+        });
+    }
+
+    private CachedProfile put(UserRepository.UserProfileRow row, long seen) {
+        UserResponse profile = new UserResponse();
+        profile.setId(row.getId());
+        profile.setUsername(row.getUsername());
+        profile.setEmail(row.getEmail());
+        profile.setAvatarUrl(row.getAvatarUrl());
+        CachedProfile loaded = new CachedProfile(profile, eTag(profile), System.currentTimeMillis());
+
+        if (byId.size() >= maxEntries) {
+            evictExpired();
+        }
+        if (byId.size() < maxEntries && invalidations.get() == seen) {
+            byId.put(profile.getId(), loaded);
+            idByUsername.put(profile.getUsername(), profile.getId());
+            logger.debug("Cached profile of user {}", profile.getId());
+        }
+        return loaded;
+    }
+
+    private void evict(Long userId) {
+        invalidations.incrementAndGet();
+        CachedProfile cached = byId.remove(userId);
+        if (cached != null) {
+            idByUsername.remove(cached.profile().getUsername(), userId);
+        }
+    }
+
+    private boolean isExpired(CachedProfile cached) {
+        return System.currentTimeMillis() - cached.loadedAt() > ttlMs;
+    }
+
+    private static String eTag(UserResponse profile) {
+        String content = profile.getId() + "\n" + profile.getUsername() + "\n" + profile.getEmail() + "\n" + profile.getAvatarUrl();
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -1,6 +1,7 @@
 package com.ksbk.auth.service;
 
 import com.ksbk.auth.DTO.UserDTO;
+import com.ksbk.auth.entity.CacheEntity;
 import com.ksbk.auth.entity.User;
 import com.ksbk.auth.DTO.UserResponse;
 import com.ksbk.auth.mapper.UserMapper;
@@ -13,6 +14,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -25,12 +27,24 @@ public class UserService {
 
     private final MinioService minioService;
 
-    public UserService(UserRepository userRepository, UserMapper userMapper, MinioService minioService) {
+    private final TokenRevocationService tokenRevocationService;
+
+    private final UserProfileCache userProfileCache;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public UserService(UserRepository userRepository, UserMapper userMapper, MinioService minioService,
+                       TokenRevocationService tokenRevocationService, UserProfileCache userProfileCache,
+                       CacheInvalidationBus cacheInvalidationBus) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.minioService = minioService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userProfileCache = userProfileCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(Long userId) {
         logger.debug("Attempting to get user by id: {}", userId);
         try {
@@ -47,6 +61,32 @@ public class UserService {
         }
     }
 
+    /** Users with the given ids; unknown ids are skipped. */
+    @Transactional(readOnly = true)
+    public List<User> getUsersByIds(Collection<Long> userIds) {
+        logger.debug("Attempting to get {} users by id", userIds.size());
+        try {
+            List<User> users = userRepository.findAllById(userIds);
+            logger.debug("Found {} of {} requested users", users.size(), userIds.size());
+            return users;
+        } catch (Exception e) {
+            logger.error("Error getting {} users by id: {}", userIds.size(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /** The subset of the given ids that belong to existing users, without loading the users. */
+    @Transactional(readOnly = true)
+    public List<Long> getExistingUserIds(Collection<Long> userIds) {
+        try {
+            return userRepository.findExistingIds(userIds);
+        } catch (Exception e) {
+            logger.error("Error checking existence of {} users: {}", userIds.size(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Transactional
     public User updateUser(UserDTO userDTO, Long userId) {
         logger.info("Attempting to update user with id: {}, new data: {}", userId, userDTO);
         try {
@@ -61,6 +101,8 @@ public class UserService {
             user.setAvatarUrl(userDTO.getAvatarUrl());
 
             User updatedUser = userRepository.save(user);
+            userProfileCache.invalidate(userId);
+            cacheInvalidationBus.publish(CacheEntity.USER, userId, 0);
             logger.info("Successfully updated user with id: {}", userId);
             return updatedUser;
         } catch (Exception e) {
@@ -69,6 +111,7 @@ public class UserService {
         }
     }
 
+    @Transactional
     public void deleteUser(Long userId) {
         logger.info("Attempting to delete user with id: {}", userId);
         try {
@@ -87,6 +130,9 @@ public class UserService {
             }
 
             userRepository.delete(user);
+            userProfileCache.invalidate(userId);
+            cacheInvalidationBus.publish(CacheEntity.USER, userId, 0);
+            tokenRevocationService.revokeAll(userId);
             logger.info("Successfully deleted user with id: {}", userId);
         } catch (Exception e) {
             logger.error("Error deleting user with id {}: {}", userId, e.getMessage(), e);
@@ -94,6 +140,7 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUser() {
         logger.debug("Attempting to get all users");
         try {
@@ -134,6 +181,8 @@ public class UserService {
 
             user.setAvatarUrl(newAvatarPath);
             userRepository.save(user);
+            userProfileCache.invalidate(user.getId());
+            cacheInvalidationBus.publish(CacheEntity.USER, user.getId(), 0);
             logger.info("Successfully updated avatar for user: {}", username);
         } catch (Exception e) {
             logger.error("Error updating avatar: {}", e.getMessage(), e);
@@ -141,6 +190,7 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
     public String getAvatar(Long userId) {
         logger.debug("Attempting to get avatar for user: {}", userId);
         try {
@@ -39,10 +39,12 @@ public class JwtUtils {
     private SecretKey refreshTokenKey() {return  Keys.hmacShaKeyFor(jwtRefreshSecret.getBytes());}
     private SecretKey resetTokenKey() {return Keys.hmacShaKeyFor(jwtResetSecret.getBytes());}
 
-    public String generateAccessToken(Authentication authentication) {
+    /** {@code tokenId} becomes the jti claim, by which the token can be revoked before it expires. */
+    public String generateAccessToken(Authentication authentication, String tokenId) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
         return Jwts.builder()
+                .id(tokenId)
                 .subject(userPrincipal.getUsername())
                 .claim("user_id", userPrincipal.getUser().getId())
                 .issuedAt(new Date())
@@ -83,6 +85,15 @@ public class JwtUtils {
                 .getSubject();
     }
 
+    public String getTokenIdFromJwtToken(String token) {
+        return Jwts.parser()
+                .verifyWith(accessTokenKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getId();
+    }
+
     public String getEmailFromJwtToken(String token) {
         return Jwts.parser()
                 .verifyWith(resetTokenKey())
@@ -132,4 +143,8 @@ public class JwtUtils {
     public long getRefreshExpiration() {
         return jwtRefreshExpirationMs;
     }
+
+    public long getAccessExpiration() {
+        return jwtAccessExpirationMs;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.ksbk.gateway.filter;
+
+import com.ksbk.common.utils.GatewayIdentity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the access token once at the edge and replaces it, for the services, with signed
+ * identity headers. Identity headers sent by the client are always stripped. A request with an
+ * invalid or expired token is answered with 401 here and never reaches a service; a request
+ * without a token is forwarded anonymously.
+ */
+@Component
+public class JwtVerificationFilter implements GlobalFilter, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerificationFilter.class);
+
+    private final JwtParser jwtParser;
+
+    private final GatewayIdentity gatewayIdentity;
+
+    public JwtVerificationFilter(@Value("${app.jwtAccessSecret}") String jwtAccessSecret, GatewayIdentity gatewayIdentity) {
+        this.jwtParser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtAccessSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.gatewayIdentity = gatewayIdentity;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        ServerHttpRequest.Builder forwarded = request.mutate()
+                .headers(headers -> GatewayIdentity.HEADERS.forEach(headers::remove));
+
+        if (header != null && header.startsWith("Bearer ")) {
+            Claims claims;
+            try {
+                claims = jwtParser.parseSignedClaims(header.substring(7)).getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Rejected access token for {} {}: {}", request.getMethod(), request.getPath(), e.getMessage());
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                return exchange.getResponse().setComplete();
+            }
+            Long userId = claims.get("user_id", Long.class);
+            if (userId != null && gatewayIdentity.isEnabled()) {
+                Map<String, String> identity = gatewayIdentity.sign(
+                        new GatewayIdentity.Identity(userId, claims.getSubject(), roles(claims), claims.getId()));
+                forwarded.headers(headers -> identity.forEach(headers::set));
+            }
+        }
+        return chain.filter(exchange.mutate().request(forwarded.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /** auth-service serialises the user's authorities as [{"authority": "ROLE_USER"}]. */
+    private List<String> roles(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> roles)) {
+            return List.of();
+        }
+        return roles.stream()
+                .map(role -> role instanceof Map<?, ?> map ? map.get("authority") : role)
+                .filter(authority -> authority != null)
+                .map(Object::toString)
+                .toList();
+    }
+}
@@ -0,0 +1,11 @@
+package com.ksbk.gateway;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class gatewayApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(gatewayApplication.class, args);
+    }
+}
@@ -0,0 +1,53 @@
+#!/bin/bash
+# Latency and CPU of notes-service -> auth-service user lookups over gRPC and over the Feign/REST client.
+#
+#   TOKEN=<admin access token> ./measure-auth-transport.sh
+#   CALLS=20000 CONCURRENCY="1 16 64" USER_IDS=1,2,3,4,5,6,7,8 ./measure-auth-transport.sh
+#
+# The calls are made inside notes-service by POST /api/admin/auth-transport/benchmark, so the numbers
+# are the client's own: p50/p90/p99 per call and notes-service CPU per call. With docker available,
+# auth-service CPU per call is added from the CPU time of its JVM (pid 1 of the container).
+# Each concurrency level is run with a single user per call and with all of USER_IDS per call
+# (one streaming call over gRPC, one request per user over REST). Expects the compose stack to be running.
+
+set -euo pipefail
+
+: "${TOKEN:?admin access token required}"
+CALLS=${CALLS:-10000}
+CONCURRENCY=${CONCURRENCY:-"1 16 64"}
+USER_IDS=${USER_IDS:-1,2,3,4,5,6,7,8,9,10}
+NOTES=${NOTES:-http://localhost:8081}
+AUTH_CONTAINER=${AUTH_CONTAINER:-auth-service}
+
+auth_cpu_ticks() {
+    if command -v docker >/dev/null && docker inspect "$AUTH_CONTAINER" >/dev/null 2>&1; then
+        docker exec "$AUTH_CONTAINER" cat /proc/1/stat | awk '{ print $14 + $15 }'
+    fi
+}
+
+field() {
+    sed -n "s/.*\"$1\":\([0-9.]*\).*/\1/p"
+}
+
+printf '%-9s %6s %5s %9s %8s %8s %8s %10s %10s %6s\n' \
+    transport users conc "calls/s" "p50 us" "p90 us" "p99 us" "cpu us/c" "auth us/c" errors
+for users in "${USER_IDS%%,*}" "$USER_IDS"; do
+    count=$(tr ',' '\n' <<< "$users" | wc -l)
+    for concurrency in $CONCURRENCY; do
+        for transport in GRPC REST; do
+            before=$(auth_cpu_ticks)
+            report=$(curl -sf -X POST -H "Authorization: Bearer $TOKEN" \
+                "$NOTES/api/admin/auth-transport/benchmark?transport=$transport&userIds=$users&calls=$CALLS&concurrency=$concurrency")
+            after=$(auth_cpu_ticks)
+            auth_per_call=-
+            if [ -n "$before" ] && [ -n "$after" ]; then
+                # Clock ticks are 10 ms; the warm-up tenth of the calls is included in the delta.
+                auth_per_call=$(awk -v d=$((after - before)) -v c="$CALLS" 'BEGIN { printf "%.1f", d * 10000 / (c * 1.1) }')
+            fi
+            printf '%-9s %6s %5s %9.0f %8s %8s %8s %10.1f %10s %6s\n' "$transport" "$count" "$concurrency" \
+                "$(field callsPerSecond <<< "$report")" "$(field p50Micros <<< "$report")" \
+                "$(field p90Micros <<< "$report")" "$(field p99Micros <<< "$report")" \
+                "$(field cpuMicrosPerCall <<< "$report")" "$auth_per_call" "$(field errors <<< "$report")"
+        done
+    done
+done
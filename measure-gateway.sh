@@ -0,0 +1,50 @@
+#!/bin/bash
+# Latency of the same requests sent straight to the services and through the gateway.
+#
+#   TOKEN=<access token> ./measure-gateway.sh          # 200 requests per path, p50/p95/p99
+#   REQUESTS=1000 USER_ID=5 ./measure-gateway.sh
+#
+# Paths measured:
+#   /api/user/$USER_ID   cacheable profile read; via the gateway repeats come from its response cache
+#   /api/notes           authenticated read; the gateway verifies the token once and the service
+#                        trusts the signed identity headers instead of parsing the JWT again
+# Without TOKEN only the profile read is measured. Expects the compose stack to be running.
+
+set -euo pipefail
+
+REQUESTS=${REQUESTS:-200}
+USER_ID=${USER_ID:-1}
+GATEWAY=${GATEWAY:-http://localhost:8080}
+AUTH=${AUTH:-http://localhost:8082}
+NOTES=${NOTES:-http://localhost:8081}
+
+percentiles() {
+    sort -n | awk '{ v[NR] = $1 } END {
+        printf "%8d %8.1f %8.1f %8.1f\n", NR, v[int(NR * 0.50) + (NR * 0.50 > int(NR * 0.50))],
+            v[int(NR * 0.95) + (NR * 0.95 > int(NR * 0.95))], v[int(NR * 0.99) + (NR * 0.99 > int(NR * 0.99))] }'
+}
+
+measure() {
+    local label=$1 url=$2
+    local args=(-s -o /dev/null -w '%{http_code} %{time_total}\n')
+    [ -n "${TOKEN:-}" ] && args+=(-H "Authorization: Bearer $TOKEN")
+
+    local code
+    code=$(curl "${args[@]}" "$url" | cut -d' ' -f1)
+    if [ "$code" != 200 ]; then
+        echo "$label: $url answered $code, skipped" >&2
+        return
+    fi
+    printf '%-22s ' "$label"
+    for _ in $(seq 1 "$REQUESTS"); do
+        curl "${args[@]}" "$url"
+    done | awk '{ print $2 * 1000 }' | percentiles
+}
+
+printf '%-22s %8s %8s %8s %8s\n' path requests p50_ms p95_ms p99_ms
+measure "user direct" "$AUTH/api/user/$USER_ID"
+measure "user via gateway" "$GATEWAY/api/user/$USER_ID"
+if [ -n "${TOKEN:-}" ]; then
+    measure "notes direct" "$NOTES/api/notes"
+    measure "notes via gateway" "$GATEWAY/api/notes"
+fi
@@ -0,0 +1,115 @@
+#!/bin/bash
+# Side-by-side load test of the servlet notes-service and notes-service-reactive.
+#
+#   TOKEN=<access token> ./measure-reactive.sh
+#   CONCURRENCY="200 1000 4000" REQUESTS=20000 PATHS="list create" TOKEN=... ./measure-reactive.sh
+#
+# Both builds share the database, so run it against a stack started with
+#   docker-compose --profile reactive up -d
+# For every build, path and concurrency level the script reports:
+#   rps               completed requests per second
+#   p50_ms / p99_ms   latency of the completed requests
+#   errors            responses other than 2xx, timeouts included
+#   rss_idle_mb       container memory before the run
+#   rss_peak_mb       highest container memory sampled during the run
+#   threads_peak      highest JVM thread count sampled during the run
+#   kb_per_conn       (rss_peak - rss_idle) / concurrency, the memory an in-flight request costs
+# Paths: "list" is GET /api/notes, "create" is POST /api/notes (one auth-service call each).
+# Load is generated with parallel curl (7.66+); one curl process drives at most 250 connections.
+
+set -euo pipefail
+
+TOKEN=${TOKEN:?set TOKEN to an access token}
+CONCURRENCY=${CONCURRENCY:-"100 500 2000"}
+REQUESTS=${REQUESTS:-10000}
+PATHS=${PATHS:-"list create"}
+SERVLET=${SERVLET:-http://localhost:8081}
+REACTIVE=${REACTIVE:-http://localhost:8083}
+PER_PROCESS=250
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+rss_mb() {
+    docker stats --no-stream --format '{{.MemUsage}}' "$1" | awk '{
+        v = $1; unit = v; gsub(/[0-9.]/, "", unit); gsub(/[^0-9.]/, "", v)
+        if (unit == "GiB") v *= 1024; else if (unit == "KiB") v /= 1024; else if (unit == "B") v /= 1048576
+        printf "%.1f\n", v }'
+}
+
+threads() {
+    docker exec "$1" sh -c 'ls /proc/1/task | wc -l'
+}
+
+# Samples memory and threads of a container until the marker file disappears.
+sample() {
+    local container=$1 marker=$2 out=$3
+    while [ -f "$marker" ]; do
+        echo "$(rss_mb "$container") $(threads "$container")" >> "$out"
+        sleep 1
+    done
+}
+
+load() {
+    local url=$1 path=$2 concurrency=$3
+    local processes=$(( (concurrency + PER_PROCESS - 1) / PER_PROCESS ))
+    local parallel=$(( concurrency / processes ))
+    local per_process=$(( REQUESTS / processes ))
+    local args=(-s -Z --parallel-immediate --parallel-max "$parallel" --max-time 30
+                -H "Authorization: Bearer $TOKEN" -w '%{http_code} %{time_total}\n')
+    if [ "$path" = create ]; then
+        args+=(-X POST -H 'Content-Type: application/json'
+               -d '{"title":"load test","description":"created by measure-reactive.sh"}')
+    fi
+
+    : > "$WORK/config"
+    for _ in $(seq 1 "$per_process"); do
+        printf 'url = "%s/api/notes"\noutput = "/dev/null"\n' "$url" >> "$WORK/config"
+    done
+    for _ in $(seq 1 "$processes"); do
+        curl "${args[@]}" -K "$WORK/config" &
+    done
+    wait
+}
+
+measure() {
+    local label=$1 url=$2 container=$3 path=$4 concurrency=$5
+    local idle marker="$WORK/running" samples="$WORK/samples"
+    idle=$(rss_mb "$container")
+    : > "$samples"
+    touch "$marker"
+    sample "$container" "$marker" "$samples" &
+    local sampler=$!
+
+    local start end
+    start=$(date +%s%3N)
+    load "$url" "$path" "$concurrency" > "$WORK/results"
+    end=$(date +%s%3N)
+    rm -f "$marker"
+    wait "$sampler"
+
+    local peak threads_peak
+    peak=$(awk 'BEGIN { m = 0 } $1 > m { m = $1 } END { print m }' "$samples")
+    threads_peak=$(awk 'BEGIN { m = 0 } $2 > m { m = $2 } END { print m }' "$samples")
+    local n errors p50 p99
+    awk '$1 ~ /^2/ { print $2 * 1000 }' "$WORK/results" | sort -n > "$WORK/latencies"
+    n=$(wc -l < "$WORK/latencies")
+    errors=$(awk '$1 !~ /^2/' "$WORK/results" | wc -l)
+    p50=$(awk -v n="$n" 'NR == int(n * 0.50) + 1' "$WORK/latencies")
+    p99=$(awk -v n="$n" 'NR == int(n * 0.99) + 1' "$WORK/latencies")
+    awk -v label="$label" -v path="$path" -v c="$concurrency" -v ms=$((end - start)) -v n="$n" \
+        -v p50="${p50:-0}" -v p99="${p99:-0}" -v errors="$errors" \
+        -v idle="$idle" -v peak="$peak" -v threads="$threads_peak" 'BEGIN {
+            per = peak > idle ? (peak - idle) * 1024 / c : 0
+            printf "%-9s %-7s %6d %8.0f %8.1f %8.1f %7d %11.1f %11.1f %12d %11.1f\n",
+                label, path, c, n * 1000 / ms, p50, p99, errors, idle, peak, threads, per }'
+}
+
+printf '%-9s %-7s %6s %8s %8s %8s %7s %11s %11s %12s %11s\n' \
+    build path conns rps p50_ms p99_ms errors rss_idle_mb rss_peak_mb threads_peak kb_per_conn
+for path in $PATHS; do
+    for concurrency in $CONCURRENCY; do
+        measure servlet "$SERVLET" notes-service "$path" "$concurrency"
+        measure reactive "$REACTIVE" notes-service-reactive "$path" "$concurrency"
+    done
+done
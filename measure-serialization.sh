@@ -0,0 +1,50 @@
+#!/bin/bash
+# Payload size and serialization cost of list responses as JSON, gzip-JSON, CBOR and Smile.
+#
+#   TOKEN=<admin access token> ./measure-serialization.sh
+#   ITEMS="1 20 100 1000" ITERATIONS=5000 ./measure-serialization.sh
+#
+# The encoding is timed inside notes-service by POST /api/admin/serialization/benchmark, with the
+# mappers behind its message converters, over generated NoteResponse and UserResponse lists:
+#   bytes / b/item    encoded size of the whole list and per item
+#   x json            size relative to plain JSON
+#   ser us / de us    encode and decode time of the whole list
+# GZIP_JSON is JSON gzipped at the default level, as Tomcat's response compression does it.
+# Then the first page of GET /api/notes is fetched with every Accept value, with and without
+# Accept-Encoding: gzip, and the bytes on the wire are printed; responses under 2 KB and the
+# binary encodings are not compressed (server.compression.*). Expects the compose stack to be running.
+
+set -euo pipefail
+
+: "${TOKEN:?admin access token required}"
+ITEMS=${ITEMS:-"1 20 100 1000"}
+ITERATIONS=${ITERATIONS:-2000}
+NOTES=${NOTES:-http://localhost:8081}
+
+field() {
+    sed -n "s/.*\"$1\":\"\{0,1\}\([0-9A-Z_.]*\).*/\1/p"
+}
+
+printf '%-6s %6s %-10s %9s %8s %7s %10s %10s\n' payload items format bytes "b/item" "x json" "ser us" "de us"
+for payload in NOTES USERS; do
+    for items in $ITEMS; do
+        curl -sf -X POST -H "Authorization: Bearer $TOKEN" \
+            "$NOTES/api/admin/serialization/benchmark?payload=$payload&items=$items&iterations=$ITERATIONS" \
+            | sed 's/},{/}\n{/g' | while read -r report; do
+                printf '%-6s %6s %-10s %9s %8.1f %7.2f %10.1f %10.1f\n' "$payload" "$items" \
+                    "$(field format <<< "$report")" "$(field bytes <<< "$report")" \
+                    "$(field bytesPerItem <<< "$report")" "$(field sizeToJson <<< "$report")" \
+                    "$(field serializeMicros <<< "$report")" "$(field deserializeMicros <<< "$report")"
+            done
+    done
+done
+
+echo
+printf '%-28s %-9s %9s\n' accept encoding "wire bytes"
+for accept in application/json application/cbor application/x-jackson-smile; do
+    for encoding in identity gzip; do
+        bytes=$(curl -sf -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" \
+            -H "Accept: $accept" -H "Accept-Encoding: $encoding" "$NOTES/api/notes")
+        printf '%-28s %-9s %9s\n' "$accept" "$encoding" "$bytes"
+    done
+done
@@ -0,0 +1,75 @@
+#!/bin/bash
+# Startup-time and first-request-latency measurement for one compose service.
+#
+#   ./measure-startup.sh notes-service            # 5 cold starts, median is reported
+#   RUNS=10 MAX_STARTUP_MS=8000 ./measure-startup.sh auth-service
+#
+# Every run recreates the container, so each start is cold. Reported per run:
+#   ready_ms      container start until the probe path first answers
+#   spring_ms     "Started ... in N seconds" as logged by Spring Boot
+#   first_req_ms  latency of that first answered request
+#   warm_req_ms   latency of the same request right after
+# With MAX_STARTUP_MS or MAX_FIRST_REQUEST_MS set the script exits non-zero when the
+# median exceeds it, so it can run as a regression gate.
+
+set -euo pipefail
+
+SERVICE=${1:?usage: $0 <compose-service>}
+RUNS=${RUNS:-5}
+PROBE_PATH=${PROBE_PATH:-/v3/api-docs}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+case "$SERVICE" in
+    auth-service) PORT=${PORT:-8082} ;;
+    notes-service) PORT=${PORT:-8081} ;;
+    *) PORT=${PORT:?set PORT for $SERVICE} ;;
+esac
+URL="http://localhost:${PORT}${PROBE_PATH}"
+
+now_ms() { date +%s%3N; }
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+docker compose build -q "$SERVICE"
+docker compose up -d --wait $(docker compose config --services | grep -E '^(db[0-9]+|minio|mailhog)$')
+
+ready=(); spring=(); first=(); warm=()
+printf '%-4s %10s %10s %13s %12s\n' run ready_ms spring_ms first_req_ms warm_req_ms
+for run in $(seq 1 "$RUNS"); do
+    docker compose rm -sf "$SERVICE" > /dev/null 2>&1
+    start=$(now_ms)
+    docker compose up -d --no-deps "$SERVICE" > /dev/null 2>&1
+
+    until first_s=$(curl -s -o /dev/null -f -w '%{time_total}' "$URL"); do
+        if (( $(now_ms) - start > TIMEOUT_S * 1000 )); then
+            echo "$SERVICE did not answer $URL within ${TIMEOUT_S}s" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    ready_ms=$(( $(now_ms) - start ))
+    warm_s=$(curl -s -o /dev/null -w '%{time_total}' "$URL")
+    spring_s=$(docker compose logs "$SERVICE" | grep -oE 'Started .* in [0-9.]+ seconds' | tail -1 | grep -oE '[0-9.]+ seconds' | cut -d' ' -f1)
+
+    ready+=("$ready_ms")
+    spring+=("$(awk -v s="${spring_s:-0}" 'BEGIN { print int(s * 1000) }')")
+    first+=("$(awk -v s="$first_s" 'BEGIN { print int(s * 1000) }')")
+    warm+=("$(awk -v s="$warm_s" 'BEGIN { print int(s * 1000) }')")
+    printf '%-4s %10s %10s %13s %12s\n' "$run" "${ready[-1]}" "${spring[-1]}" "${first[-1]}" "${warm[-1]}"
+done
+
+ready_median=$(printf '%s\n' "${ready[@]}" | median)
+first_median=$(printf '%s\n' "${first[@]}" | median)
+printf '%-4s %10s %10s %13s %12s\n' med "$ready_median" \
+    "$(printf '%s\n' "${spring[@]}" | median)" "$first_median" "$(printf '%s\n' "${warm[@]}" | median)"
+
+status=0
+if [ -n "${MAX_STARTUP_MS:-}" ] && (( ready_median > MAX_STARTUP_MS )); then
+    echo "Startup regression: median ${ready_median}ms > ${MAX_STARTUP_MS}ms" >&2
+    status=1
+fi
+if [ -n "${MAX_FIRST_REQUEST_MS:-}" ] && (( first_median > MAX_FIRST_REQUEST_MS )); then
+    echo "First-request regression: median ${first_median}ms > ${MAX_FIRST_REQUEST_MS}ms" >&2
+    status=1
+fi
+exit $status
@@ -10,11 +10,14 @@ import javax.validation.constraints.Size;
 @Data
 public class NoteRequest {
     @NotBlank
-    @Size(min = 3, max = 100)
+    @Size(min = 3, max = 200)
     private String title;
 
     @NotBlank
     @Size(min= 5)
     private String description;
 
+    /** Markdown body; null keeps the stored body on update. */
+    private String body;
+
 }
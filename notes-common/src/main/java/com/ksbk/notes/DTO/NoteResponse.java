@@ -0,0 +1,21 @@
+package com.ksbk.notes.DTO;
+
+import com.ksbk.notes.entity.ENoteStatus;
+import lombok.Data;
+
+@Data
+public class NoteResponse {
+    private Long id;
+    private String title;
+    private String description;
+    private Long userId;
+    private String createdAt;
+    private String updatedAt;
+    private Long version;
+    private ENoteStatus noteStatus;
+    private String dueAt;
+    private String remindAt;
+    private Long bodySize;
+    /** Filled only when a single note is fetched; lists carry just {@code bodySize}. */
+    private String body;
+}
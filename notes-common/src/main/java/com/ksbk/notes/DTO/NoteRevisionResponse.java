@@ -0,0 +1,14 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class NoteRevisionResponse {
+    private Integer revision;
+    private boolean snapshot;
+    private String createdAt;
+    private String title;
+    private String description;
+    /** Null when the revision predates body history. */
+    private String body;
+}
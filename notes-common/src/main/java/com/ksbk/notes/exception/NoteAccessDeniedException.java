@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteAccessDeniedException extends Exception{
+    public NoteAccessDeniedException(Long message){super(String.valueOf(message));}
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteBodyTooLargeException extends Exception{
+    public NoteBodyTooLargeException(Long message){super(String.valueOf(message));}
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteRevisionNotFoundException extends Exception{
+    public NoteRevisionNotFoundException(Integer message){super(String.valueOf(message));}
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteVersionConflictException extends Exception{
+    public NoteVersionConflictException(Long message){super(String.valueOf(message));}
+}
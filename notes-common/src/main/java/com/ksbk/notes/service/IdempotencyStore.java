@@ -0,0 +1,115 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the outcome of requests sent with an {@code Idempotency-Key} so a retried create
+ * gets the original response back instead of inserting a second note.
+ * <p>
+ * Each entry keeps only a 64-bit fingerprint of the request body and the response, and expires
+ * after {@code notes.idempotency.ttl-ms}. While the first request is still running its key is
+ * held by a placeholder, so a concurrent retry is rejected rather than executed twice.
+ */
+@Service
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    public enum Outcome { ACQUIRED, REPLAY, IN_PROGRESS, MISMATCH }
+
+    public record Claim(Outcome outcome, NoteResponse response) {
+    }
+
+    private record Entry(long fingerprint, long expiresAt, NoteResponse response) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${notes.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${notes.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    public Claim claim(Long userId, String key, long fingerprint) {
+        long now = System.currentTimeMillis();
+        String storeKey = userId + ":" + key;
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                logger.warn("Idempotency store is full ({} keys); processing key {} without deduplication", maxEntries, key);
+                return new Claim(Outcome.ACQUIRED, null);
+            }
+        }
+
+        Entry placeholder = new Entry(fingerprint, now + ttlMs, null);
+        Entry[] existing = new Entry[1];
+        entries.compute(storeKey, (k, current) -> {
+            if (current == null || current.expiresAt() < now) {
+                return placeholder;
+            }
+            existing[0] = current;
+            return current;
+        });
+
+        Entry current = existing[0];
+        if (current == null) {
+            return new Claim(Outcome.ACQUIRED, null);
+        }
+        if (current.fingerprint() != fingerprint) {
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        if (current.response() == null) {
+            return new Claim(Outcome.IN_PROGRESS, null);
+        }
+        return new Claim(Outcome.REPLAY, current.response());
+    }
+
+    public void complete(Long userId, String key, long fingerprint, NoteResponse response) {
+        entries.computeIfPresent(userId + ":" + key, (k, current) ->
+                current.fingerprint() == fingerprint && current.response() == null
+                        ? new Entry(fingerprint, System.currentTimeMillis() + ttlMs, response)
+                        : current);
+    }
+
+    /** Frees the key after a failed request so the client can retry it. */
+    public void release(Long userId, String key, long fingerprint) {
+        entries.computeIfPresent(userId + ":" + key, (k, current) ->
+                current.fingerprint() == fingerprint && current.response() == null ? null : current);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() < now);
+    }
+
+    public static long fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                if (part != null) {
+                    digest.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
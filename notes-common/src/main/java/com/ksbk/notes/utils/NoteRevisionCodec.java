@@ -0,0 +1,183 @@
+package com.ksbk.notes.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary encoding of note revisions. A snapshot stores the full title, description and body; a
+ * delta stores, per field, only the changed middle part between the common prefix and suffix of
+ * the previous and the new value. Both forms are deflate-compressed.
+ * <p>
+ * The body is the last field and is optional on read: revisions written before bodies were kept
+ * decode with a null body, meaning it is unknown, and stay unknown until the next snapshot.
+ */
+public final class NoteRevisionCodec {
+
+    private static final byte UNCHANGED = 0;
+    private static final byte REPLACE = 1;
+    private static final byte SPLICE = 2;
+
+    private NoteRevisionCodec() {
+    }
+
+    /** @param body the note body, or null if the revision predates body history */
+    public record Content(String title, String description, String body) {
+    }
+
+    public static byte[] encodeSnapshot(Content content) {
+        return write(out -> {
+            writeNullableString(out, content.title());
+            writeNullableString(out, content.description());
+            // Written as a delta op so snapshots from before body history, which end here, still decode.
+            out.writeByte(REPLACE);
+            writeNullableString(out, content.body());
+        });
+    }
+
+    public static byte[] encodeDelta(Content previous, Content current) {
+        return write(out -> {
+            writeFieldDelta(out, previous.title(), current.title());
+            writeFieldDelta(out, previous.description(), current.description());
+            writeFieldDelta(out, previous.body(), current.body());
+        });
+    }
+
+    public static Content decodeSnapshot(byte[] payload) {
+        try (DataInputStream in = open(payload)) {
+            String title = readNullableString(in);
+            String description = readNullableString(in);
+            return new Content(title, description, in.read() < 0 ? null : readNullableString(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Content applyDelta(Content base, byte[] payload) {
+        try (DataInputStream in = open(payload)) {
+            String title = applyFieldDelta(in, base.title());
+            String description = applyFieldDelta(in, base.description());
+            return new Content(title, description, applyBodyDelta(in, base.body()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFieldDelta(DataOutputStream out, String previous, String current) throws IOException {
+        if (previous == null ? current == null : previous.equals(current)) {
+            out.writeByte(UNCHANGED);
+            return;
+        }
+        if (previous == null || current == null) {
+            out.writeByte(REPLACE);
+            writeNullableString(out, current);
+            return;
+        }
+        int max = Math.min(previous.length(), current.length());
+        int prefix = 0;
+        while (prefix < max && previous.charAt(prefix) == current.charAt(prefix)) {
+            prefix++;
+        }
+        // Never cut a surrogate pair: a lone surrogate in the middle part would not survive UTF-8.
+        if (prefix > 0 && Character.isHighSurrogate(current.charAt(prefix - 1))) {
+            prefix--;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && previous.charAt(previous.length() - 1 - suffix) == current.charAt(current.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(current.charAt(current.length() - suffix))) {
+            suffix--;
+        }
+        out.writeByte(SPLICE);
+        out.writeInt(prefix);
+        out.writeInt(suffix);
+        writeNullableString(out, current.substring(prefix, current.length() - suffix));
+    }
+
+    private static String applyFieldDelta(DataInputStream in, String base) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case UNCHANGED:
+                return base;
+            case REPLACE:
+                return readNullableString(in);
+            case SPLICE:
+                int prefix = in.readInt();
+                int suffix = in.readInt();
+                String middle = readNullableString(in);
+                return base.substring(0, prefix) + middle + base.substring(base.length() - suffix);
+            default:
+                throw new IllegalStateException("Unknown revision delta op: " + op);
+        }
+    }
+
+    /**
+     * Like {@link #applyFieldDelta}, but a missing op (an older delta) keeps the base, and a splice
+     * onto an unknown body leaves it unknown.
+     */
+    private static String applyBodyDelta(DataInputStream in, String base) throws IOException {
+        int op = in.read();
+        if (op < 0 || op == UNCHANGED) {
+            return base;
+        }
+        if (op == REPLACE) {
+            return readNullableString(in);
+        }
+        if (op == SPLICE) {
+            int prefix = in.readInt();
+            int suffix = in.readInt();
+            String middle = readNullableString(in);
+            return base == null ? null : base.substring(0, prefix) + middle + base.substring(base.length() - suffix);
+        }
+        throw new IllegalStateException("Unknown revision delta op: " + op);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] write(FieldWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream open(byte[] payload) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
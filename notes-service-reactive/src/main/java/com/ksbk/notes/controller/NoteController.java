@@ -0,0 +1,316 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.NoteRequest;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
+import com.ksbk.notes.service.IdempotencyStore;
+import com.ksbk.notes.service.NoteService;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Same routes, status codes and headers as notes-service's NoteController, served from the
+ * event loop.
+ */
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Notes Controller", description = "The notes controller allows you to call methods to work with notes")
+public class NoteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteController.class);
+
+    private final NoteService noteService;
+
+    private final IdempotencyStore idempotencyStore;
+
+    public NoteController(NoteService noteService, IdempotencyStore idempotencyStore) {
+        this.noteService = noteService;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Operation(summary = "Create note", description = "Retries carrying the same Idempotency-Key return the original response")
+    @PostMapping
+    public Mono<ResponseEntity<NoteResponse>> createNote(@AuthenticationPrincipal Long userId, @RequestBody NoteRequest request,
+                                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        logger.info("User {} is creating a new note with title: {}", userId, request.getTitle());
+
+        long fingerprint = IdempotencyStore.fingerprint(request.getTitle(), request.getDescription(), request.getBody());
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            IdempotencyStore.Claim claim = idempotencyStore.claim(userId, idempotencyKey, fingerprint);
+            switch (claim.outcome()) {
+                case REPLAY -> {
+                    logger.info("User {} retried create with key {}; replaying note {}", userId, idempotencyKey, claim.response().getId());
+                    return Mono.just(withETag(ResponseEntity.ok(), claim.response().getVersion())
+                            .header("Idempotent-Replayed", "true")
+                            .body(claim.response()));
+                }
+                case IN_PROGRESS -> {
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                }
+                case MISMATCH -> {
+                    logger.warn("User {} reused idempotency key {} with a different payload", userId, idempotencyKey);
+                    return Mono.just(ResponseEntity.unprocessableEntity().build());
+                }
+                case ACQUIRED -> {
+                }
+            }
+        }
+
+        return noteService.createNote(userId, request)
+                .map(response -> {
+                    if (idempotencyKey != null) {
+                        idempotencyStore.complete(userId, idempotencyKey, fingerprint, response);
+                    }
+                    logger.info("User {} successfully created note with id: {}", userId, response.getId());
+                    return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+                })
+                .onErrorResume(e -> {
+                    if (idempotencyKey != null) {
+                        idempotencyStore.release(userId, idempotencyKey, fingerprint);
+                    }
+                    if (e instanceof NoteBodyTooLargeException) {
+                        logger.info("User {} sent a note body over the {} byte limit", userId, e.getMessage());
+                        return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+                    }
+                    logger.error("Failed to create note for user {}: {}", userId, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Update note", description = "Update note by id; send If-Match with the note's ETag to reject stale edits")
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<NoteResponse>> updateNote(@AuthenticationPrincipal Long userId, @PathVariable Long id,
+                                                         @RequestBody NoteRequest request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("User {} is updating note with id: {}", userId, id);
+        return Mono.fromCallable(() -> Optional.ofNullable(parseETag(ifMatch)))
+                .flatMap(expectedVersion -> noteService.updateNote(userId, id, request, expectedVersion.orElse(null)))
+                .map(response -> {
+                    logger.info("User {} successfully updated note with id: {}", userId, id);
+                    return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+                })
+                .onErrorResume(NoteNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(NoteAccessDeniedException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build()))
+                .onErrorResume(NoteBodyTooLargeException.class, e -> {
+                    logger.info("User {} sent a body for note {} over the {} byte limit", userId, id, e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+                })
+                .onErrorResume(NoteVersionConflictException.class, e -> Mono.just(
+                        withETag(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED), Long.valueOf(e.getMessage())).build()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                    logger.info("Concurrent update of note {} by user {} lost the race", id, userId);
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                })
+                .onErrorResume(NumberFormatException.class, e -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to update note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Delete note", description = "Delete note by id; send If-Match with the note's ETag to reject stale deletes")
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteNote(@AuthenticationPrincipal Long userId, @PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("User {} is deleting note with id: {}", userId, id);
+        return Mono.fromCallable(() -> Optional.ofNullable(parseETag(ifMatch)))
+                .flatMap(expectedVersion -> noteService.deleteNote(userId, id, expectedVersion.orElse(null)))
+                .then(Mono.fromCallable(() -> {
+                    logger.info("User {} successfully deleted note with id: {}", userId, id);
+                    return ResponseEntity.noContent().<Void>build();
+                }))
+                .onErrorResume(NoteNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(NoteVersionConflictException.class, e -> Mono.just(
+                        withETag(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED), Long.valueOf(e.getMessage())).build()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                    logger.info("Concurrent delete of note {} by user {} lost the race", id, userId);
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                })
+                .onErrorResume(NumberFormatException.class, e -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to delete note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Get note", description = "Get note by id")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<NoteResponse>> getNote(@AuthenticationPrincipal Long userId, @PathVariable Long id) {
+        logger.debug("User {} is requesting note with id: {}", userId, id);
+        return noteService.getNoteById(userId, id)
+                .map(noteResponse -> {
+                    logger.info("User {} retrieved note with id: {}", userId, id);
+                    return withETag(ResponseEntity.ok(), noteResponse.getVersion()).body(noteResponse);
+                })
+                .onErrorResume(NoteNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to get note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Get note body", description = "The note body as UTF-8 markdown, honouring a single byte Range")
+    @GetMapping("/{id}/body")
+    public Mono<ResponseEntity<byte[]>> getNoteBody(@AuthenticationPrincipal Long userId, @PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+        return noteService.getNoteBodySize(userId, id)
+                .flatMap(size -> {
+                    long start = 0;
+                    long end = size - 1;
+                    boolean partial = false;
+
+                    if (rangeHeader != null && size > 0) {
+                        List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                        if (!ranges.isEmpty()) {
+                            HttpRange range = ranges.get(0);
+                            start = range.getRangeStart(size);
+                            end = range.getRangeEnd(size);
+                            partial = true;
+                        }
+                    }
+
+                    long first = start;
+                    boolean isPartial = partial;
+                    return noteService.readNoteBody(userId, id, first, end - first + 1).map(body -> {
+                        ResponseEntity.BodyBuilder builder = ResponseEntity.status(isPartial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                                .contentType(new MediaType("text", "markdown", StandardCharsets.UTF_8))
+                                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+                        if (isPartial) {
+                            builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + (first + body.length - 1) + "/" + size);
+                        }
+                        logger.debug("User {} read bytes {}-{}/{} of the body of note {}", userId, first, first + body.length - 1, size, id);
+                        return builder.body(body);
+                    });
+                })
+                .onErrorResume(NoteNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    logger.warn("Unsatisfiable range '{}' for the body of note {}", rangeHeader, id);
+                    return Mono.just(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build());
+                })
+                .onErrorResume(e -> {
+                    logger.error("Failed to get body of note {} for user {}: {}", id, userId, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Get all notes", description = "Get all notes by user")
+    @GetMapping
+    public Mono<ResponseEntity<List<NoteResponse>>> getAllUserNotes(@AuthenticationPrincipal Long userId){
+        logger.debug("User {} is requesting all notes", userId);
+        return noteService.getAllUserNotes(userId)
+                .collectList()
+                .map(responses -> {
+                    logger.info("User {} retrieved {} notes", userId, responses.size());
+                    return ResponseEntity.ok(responses);
+                })
+                .onErrorResume(e -> {
+                    logger.error("Failed to get all notes for user {}: {}", userId, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Search note", description = "Search note by query(title or description)")
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<NoteResponse>>> searchNotes(@AuthenticationPrincipal Long userId, @RequestParam String query) {
+        logger.debug("User {} is searching notes with query: '{}'", userId, query);
+        return noteService.searchNotes(userId, query)
+                .collectList()
+                .map(responses -> {
+                    logger.info("User {} found {} notes matching query '{}'", userId, responses.size(), query);
+                    return ResponseEntity.ok(responses);
+                })
+                .onErrorResume(e -> {
+                    logger.error("Search failed for user {} (query='{}'): {}", userId, query, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Get note revisions", description = "List the revision history of a note")
+    @GetMapping("/{id}/revisions")
+    public Mono<ResponseEntity<List<NoteRevisionResponse>>> getNoteRevisions(@AuthenticationPrincipal Long userId, @PathVariable Long id) {
+        logger.debug("User {} is requesting revisions of note {}", userId, id);
+        return noteService.getNoteRevisions(userId, id)
+                .collectList()
+                .map(responses -> {
+                    logger.info("User {} retrieved {} revisions of note {}", userId, responses.size(), id);
+                    return ResponseEntity.ok(responses);
+                })
+                .onErrorResume(NoteNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to get revisions for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Get note revision", description = "Get the content of a note at a given revision")
+    @GetMapping("/{id}/revisions/{revision}")
+    public Mono<ResponseEntity<NoteRevisionResponse>> getNoteRevision(@AuthenticationPrincipal Long userId, @PathVariable Long id,
+                                                                      @PathVariable Integer revision) {
+        logger.debug("User {} is requesting revision {} of note {}", userId, revision, id);
+        return noteService.getNoteRevision(userId, id, revision)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> e instanceof NoteNotFoundException || e instanceof NoteRevisionNotFoundException,
+                        e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to get revision {} for user {} (noteId={}): {}", revision, userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @Operation(summary = "Restore note revision", description = "Restore a note to a previous revision")
+    @PostMapping("/{id}/revisions/{revision}/restore")
+    public Mono<ResponseEntity<NoteResponse>> restoreNoteRevision(@AuthenticationPrincipal Long userId, @PathVariable Long id,
+                                                                  @PathVariable Integer revision) {
+        logger.info("User {} is restoring note {} to revision {}", userId, id, revision);
+        return noteService.restoreNoteRevision(userId, id, revision)
+                .map(response -> {
+                    logger.info("User {} restored note {} to revision {}", userId, id, revision);
+                    return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+                })
+                .onErrorResume(e -> e instanceof NoteNotFoundException || e instanceof NoteRevisionNotFoundException,
+                        e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(e -> {
+                    logger.error("Failed to restore revision {} for user {} (noteId={}): {}", revision, userId, id, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version != null ? builder.eTag(String.valueOf(version)) : builder;
+    }
+
+    /** Reads the note version out of an If-Match value such as {@code "3"} or {@code W/"3"}. */
+    private static Long parseETag(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        return Long.valueOf(value.replace("\"", ""));
+    }
+}
@@ -0,0 +1,65 @@
+package com.ksbk.notes.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * The {@code notes} row as mapped by Spring Data R2DBC. The schema is owned by notes-service and
+ * its Liquibase changelog; this module only reads and writes it.
+ */
+@Data
+@NoArgsConstructor
+@Table("notes")
+public class Note {
+
+    @Id
+    private Long id;
+
+    @Column("title")
+    private String title;
+
+    @Column("description")
+    private String description;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column("note_status")
+    private ENoteStatus noteStatus = ENoteStatus.CREATED;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("revision")
+    private Integer revision;
+
+    /** Null until the first insert, which is how Spring Data tells a new note from a loaded one. */
+    @Version
+    @Column("version")
+    private Long version;
+
+    @Column("due_at")
+    private LocalDateTime dueAt;
+
+    @Column("remind_at")
+    private LocalDateTime remindAt;
+
+    /** Written only by the reminder dispatcher of notes-service. */
+    @ReadOnlyProperty
+    @Column("reminded_at")
+    private LocalDateTime remindedAt;
+
+    /** Size of the body in UTF-8 bytes; the body itself lives in {@code note_body_chunks}, see NoteBodyStore. */
+    @Column("body_size")
+    private Long bodySize = 0L;
+}
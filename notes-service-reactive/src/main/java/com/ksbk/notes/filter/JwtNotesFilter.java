@@ -0,0 +1,95 @@
+package com.ksbk.notes.filter;
+
+import com.ksbk.common.utils.GatewayIdentity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux counterpart of notes-service's JwtNotesFilter: trusts the gateway's signed identity
+ * headers, otherwise verifies the bearer token itself. The authentication is put into the
+ * Reactor context instead of a thread-local.
+ * <p>
+ * Not a bean on purpose; WebFlux would otherwise also run it outside the security chain.
+ */
+public class JwtNotesFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtNotesFilter.class);
+
+    private final GatewayIdentity gatewayIdentity;
+
+    private final SecretKey key;
+
+    public JwtNotesFilter(GatewayIdentity gatewayIdentity, String jwtAccessSecret) {
+        this.gatewayIdentity = gatewayIdentity;
+        this.key = Keys.hmacShaKeyFor(jwtAccessSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        UsernamePasswordAuthenticationToken authentication = authenticate(exchange.getRequest());
+        if (authentication == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(ServerHttpRequest request) {
+        // Behind the gateway the token has already been verified; trust its signed identity instead.
+        GatewayIdentity.Identity identity = gatewayIdentity.verify(request.getHeaders()::getFirst);
+        if (identity != null) {
+            List<GrantedAuthority> authorities = identity.roles().stream()
+                    .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                    .toList();
+            return new UsernamePasswordAuthenticationToken(identity.userId(), null, authorities);
+        }
+
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(key)
+                    .build()
+                    .parseSignedClaims(header.substring(7))
+                    .getPayload();
+            Long userId = claims.get("user_id", Long.class);
+            return userId != null ? new UsernamePasswordAuthenticationToken(userId, null, getAuthorities(claims)) : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Rejected access token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** auth-service serialises the user's authorities as [{"authority": "ROLE_USER"}]. */
+    private List<GrantedAuthority> getAuthorities(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> roles)) {
+            return List.of();
+        }
+        return roles.stream()
+                .map(role -> role instanceof Map<?, ?> map ? map.get("authority") : role)
+                .filter(authority -> authority != null)
+                .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority.toString()))
+                .toList();
+    }
+}
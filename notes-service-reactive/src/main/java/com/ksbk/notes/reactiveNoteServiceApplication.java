@@ -0,0 +1,13 @@
+package com.ksbk.notes;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class reactiveNoteServiceApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(reactiveNoteServiceApplication.class, args);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.Note;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface NoteRepository extends ReactiveCrudRepository<Note, Long> {
+    Flux<Note> findByUserId(Long userId);
+    Mono<Note> findByIdAndUserId(Long noteId, Long userId);
+
+    @Query("SELECT * FROM notes WHERE user_id = :userId AND (LOWER(title) " +
+            "LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(description) " +
+            "LIKE LOWER(CONCAT('%', :query, '%')))")
+    Flux<Note> searchByUserAndQuery(@Param("userId") Long userId, @Param("query") String query);
+}
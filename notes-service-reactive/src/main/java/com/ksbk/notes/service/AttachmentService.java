@@ -0,0 +1,108 @@
+package com.ksbk.notes.service;
+
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes note attachments, on the {@code note_attachments} layout and object names of
+ * notes-service's AttachmentStorageService. Uploads go through notes-service only.
+ */
+@Service
+public class AttachmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentService.class);
+
+    private static final String PARTS_SUFFIX = ".parts/";
+
+    private static final String DELETE_NOTE_ATTACHMENTS_SQL =
+            "DELETE FROM note_attachments WHERE note_id = :noteId AND user_id = :userId " +
+            "RETURNING id, object_name, total_chunks";
+
+    private record StoredAttachment(Long id, String objectName, int totalChunks) {
+    }
+
+    @Value("${minio.bucket}")
+    private String bucket;
+
+    private final DatabaseClient databaseClient;
+
+    private final MinioClient minioClient;
+
+    public AttachmentService(DatabaseClient databaseClient, MinioClient minioClient) {
+        this.databaseClient = databaseClient;
+        this.minioClient = minioClient;
+    }
+
+    /**
+     * Drops the rows of every attachment of the note, finished or not. The objects are removed
+     * once the caller's transaction commits, so a rolled back delete keeps its files.
+     */
+    public Mono<Void> deleteNoteAttachments(Long userId, Long noteId) {
+        return databaseClient.sql(DELETE_NOTE_ATTACHMENTS_SQL)
+                .bind("noteId", noteId)
+                .bind("userId", userId)
+                .map(row -> new StoredAttachment(row.get("id", Long.class), row.get("object_name", String.class),
+                        row.get("total_chunks", Integer.class)))
+                .all()
+                .collectList()
+                .filter(attachments -> !attachments.isEmpty())
+                .flatMap(attachments -> {
+                    logger.info("Deleting {} attachments of note {}", attachments.size(), noteId);
+                    return TransactionSynchronizationManager.forCurrentTransaction()
+                            .doOnNext(synchronizations -> synchronizations.registerSynchronization(new TransactionSynchronization() {
+                                @Override
+                                public Mono<Void> afterCommit() {
+                                    return removeObjects(attachments);
+                                }
+                            }))
+                            .then()
+                            .onErrorResume(NoTransactionException.class, e -> removeObjects(attachments));
+                });
+    }
+
+    /** A failure only leaves orphaned objects behind; the rows are already gone. */
+    private Mono<Void> removeObjects(List<StoredAttachment> attachments) {
+        return Mono.fromRunnable(() -> {
+                    for (StoredAttachment attachment : attachments) {
+                        try {
+                            remove(attachment);
+                        } catch (Exception e) {
+                            logger.error("Failed to remove objects of attachment {}: {}", attachment.id(), e.getMessage(), e);
+                        }
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    /** The MinIO client blocks, so this runs on the bounded elastic scheduler. */
+    private void remove(StoredAttachment attachment) throws Exception {
+        List<DeleteObject> objects = new ArrayList<>(attachment.totalChunks() + 1);
+        objects.add(new DeleteObject(attachment.objectName()));
+        for (int i = 0; i < attachment.totalChunks(); i++) {
+            objects.add(new DeleteObject(attachment.objectName() + PARTS_SUFFIX + String.format("%05d", i)));
+        }
+        Iterable<Result<DeleteError>> errors = minioClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(bucket).objects(objects).build());
+        for (Result<DeleteError> error : errors) {
+            DeleteError deleteError = error.get();
+            logger.warn("Failed to delete {} from MinIO: {}", deleteError.objectName(), deleteError.message());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.UserResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking replacement for notes-service's Feign client: the lookup holds no thread while
+ * auth-service answers.
+ */
+@Service
+public class AuthServiceClient {
+
+    private final WebClient webClient;
+
+    private final Duration timeout;
+
+    public AuthServiceClient(WebClient.Builder builder,
+                             @Value("${auth.service.url}") String authServiceUrl,
+                             @Value("${auth.service.timeout-ms:2000}") long timeoutMs) {
+        this.webClient = builder.baseUrl(authServiceUrl).build();
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    /** @return the user, or empty when auth-service does not know the id */
+    public Mono<UserResponse> getUserById(Long userId) {
+        return webClient.get()
+                .uri("/api/user/{userId}", userId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                        return response.releaseBody().then(Mono.empty());
+                    }
+                    return response.statusCode().isError()
+                            ? response.createError()
+                            : response.bodyToMono(UserResponse.class);
+                })
+                .timeout(timeout);
+    }
+}
@@ -0,0 +1,220 @@
+package com.ksbk.notes.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reactive port of notes-service's NoteBodyStore, on the same {@code note_body_chunks} layout:
+ * chunks of {@code notes.body.chunk-size} bytes, deflated above {@code notes.body.compress-threshold}
+ * when that helps, rewritten only when their checksum changed.
+ * <p>
+ * Deflating and inflating run on the parallel scheduler so a large body does not stall the event
+ * loop that serves other connections.
+ */
+@Service
+public class NoteBodyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteBodyStore.class);
+
+    private static final String CHECKSUMS_SQL =
+            "SELECT chunk_index, raw_size, checksum FROM note_body_chunks WHERE note_id = :noteId";
+
+    private static final String UPSERT_CHUNK_SQL =
+            "INSERT INTO note_body_chunks (note_id, chunk_index, raw_size, compressed, checksum, content) " +
+            "VALUES (:noteId, :chunkIndex, :rawSize, :compressed, :checksum, :content) " +
+            "ON CONFLICT (note_id, chunk_index) DO UPDATE SET " +
+            "raw_size = EXCLUDED.raw_size, compressed = EXCLUDED.compressed, " +
+            "checksum = EXCLUDED.checksum, content = EXCLUDED.content";
+
+    private static final String DELETE_FROM_SQL =
+            "DELETE FROM note_body_chunks WHERE note_id = :noteId AND chunk_index >= :fromIndex";
+
+    private static final String READ_SQL =
+            "SELECT chunk_index, raw_size, compressed, content FROM note_body_chunks " +
+            "WHERE note_id = :noteId AND chunk_index BETWEEN :first AND :last ORDER BY chunk_index";
+
+    private record StoredChunk(int rawSize, long checksum) {
+    }
+
+    private record Chunk(int index, int rawSize, boolean compressed, long checksum, byte[] content) {
+    }
+
+    private record ReadChunk(int index, int rawSize, boolean compressed, byte[] content) {
+    }
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${notes.body.chunk-size:262144}")
+    private int chunkSize;
+
+    @Value("${notes.body.compress-threshold:1024}")
+    private int compressThreshold;
+
+    @Value("${notes.body.max-size:10485760}")
+    private long maxSize;
+
+    public NoteBodyStore(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public static byte[] encode(String body) {
+        return body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** Replaces the stored body of a note. Runs in the caller's transaction. */
+    public Mono<Void> write(Long noteId, byte[] body) {
+        int chunks = (int) ((body.length + (long) chunkSize - 1) / chunkSize);
+        return databaseClient.sql(CHECKSUMS_SQL)
+                .bind("noteId", noteId)
+                .map(row -> Map.entry(row.get("chunk_index", Integer.class),
+                        new StoredChunk(row.get("raw_size", Integer.class), row.get("checksum", Long.class))))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(stored -> Mono.fromCallable(() -> changedChunks(body, chunks, stored))
+                        .subscribeOn(Schedulers.parallel())
+                        .flatMap(changed -> Flux.fromIterable(changed)
+                                .concatMap(chunk -> databaseClient.sql(UPSERT_CHUNK_SQL)
+                                        .bind("noteId", noteId)
+                                        .bind("chunkIndex", chunk.index())
+                                        .bind("rawSize", chunk.rawSize())
+                                        .bind("compressed", chunk.compressed())
+                                        .bind("checksum", chunk.checksum())
+                                        .bind("content", chunk.content())
+                                        .fetch()
+                                        .rowsUpdated())
+                                .then(stored.size() > chunks ? deleteFrom(noteId, chunks) : Mono.empty())
+                                .doOnSuccess(ignored -> logger.debug(
+                                        "Stored body of note {}: {} bytes in {} chunks, rewrote {} chunks",
+                                        noteId, body.length, chunks, changed.size()))));
+    }
+
+    /** The whole body; {@code size} is the note's {@code bodySize}. */
+    public Mono<String> read(Long noteId, long size) {
+        if (size <= 0) {
+            return Mono.just("");
+        }
+        return readRange(noteId, 0, size).map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /** {@code length} bytes of the UTF-8 body starting at {@code offset}; the range must lie inside the body. */
+    public Mono<byte[]> readRange(Long noteId, long offset, long length) {
+        if (length <= 0) {
+            return Mono.just(new byte[0]);
+        }
+        int first = (int) (offset / chunkSize);
+        int last = (int) ((offset + length - 1) / chunkSize);
+        return databaseClient.sql(READ_SQL)
+                .bind("noteId", noteId)
+                .bind("first", first)
+                .bind("last", last)
+                .map(row -> new ReadChunk(row.get("chunk_index", Integer.class), row.get("raw_size", Integer.class),
+                        Boolean.TRUE.equals(row.get("compressed", Boolean.class)), row.get("content", byte[].class)))
+                .all()
+                .collectList()
+                .publishOn(Schedulers.parallel())
+                .map(read -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+                    for (ReadChunk chunk : read) {
+                        byte[] raw = chunk.compressed() ? inflate(chunk.content(), chunk.rawSize()) : chunk.content();
+                        long chunkStart = (long) chunk.index() * chunkSize;
+                        int from = (int) Math.max(0, offset - chunkStart);
+                        int to = (int) Math.min(raw.length, offset + length - chunkStart);
+                        out.write(raw, from, to - from);
+                    }
+                    return out.toByteArray();
+                });
+    }
+
+    public Mono<Void> delete(Long noteId) {
+        return deleteFrom(noteId, 0);
+    }
+
+    private Mono<Void> deleteFrom(Long noteId, int fromIndex) {
+        return databaseClient.sql(DELETE_FROM_SQL)
+                .bind("noteId", noteId)
+                .bind("fromIndex", fromIndex)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private List<Chunk> changedChunks(byte[] body, int chunks, Map<Integer, StoredChunk> stored) {
+        List<Chunk> changed = new ArrayList<>();
+        for (int index = 0; index < chunks; index++) {
+            byte[] raw = Arrays.copyOfRange(body, index * chunkSize, Math.min(body.length, (index + 1) * chunkSize));
+            long checksum = checksum(raw);
+            StoredChunk existing = stored.get(index);
+            if (existing != null && existing.rawSize() == raw.length && existing.checksum() == checksum) {
+                continue;
+            }
+            byte[] compressed = raw.length > compressThreshold ? deflate(raw) : null;
+            boolean useCompressed = compressed != null && compressed.length < raw.length;
+            changed.add(new Chunk(index, raw.length, useCompressed, checksum, useCompressed ? compressed : raw));
+        }
+        return changed;
+    }
+
+    private static long checksum(byte[] raw) {
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        return crc.getValue();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] content, int rawSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content);
+            byte[] raw = new byte[rawSize];
+            int read = 0;
+            while (read < rawSize && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, rawSize - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated chunk");
+                }
+                read += inflated;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt note body chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.entity.ESharePermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of the notes shared with each user, as in notes-service: checking access to
+ * someone else's note is a map lookup, not a query per request.
+ * <p>
+ * Shares are only changed through notes-service, which bumps the version in
+ * {@code note_acl_versions} of every user a change affects. Entries loaded at an older version are
+ * dropped by polling the versions changed in the last few seconds; entries unused for
+ * {@code notes.shares.cache.idle-ms} are dropped as well.
+ */
+@Service
+public class NotePermissionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotePermissionCache.class);
+
+    private static final String LOAD_VERSION_SQL = "SELECT version FROM note_acl_versions WHERE user_id = :userId";
+
+    private static final String LOAD_GRANTS_SQL =
+            "SELECT s.note_id, s.owner_id, s.permission FROM note_shares s " +
+            "WHERE s.grantee_type = 'USER' AND s.grantee_id = :userId AND s.owner_id <> :userId " +
+            "UNION ALL " +
+            "SELECT s.note_id, s.owner_id, s.permission FROM note_shares s JOIN note_group_members m ON m.group_id = s.grantee_id " +
+            "WHERE s.grantee_type = 'GROUP' AND m.user_id = :userId AND s.owner_id <> :userId";
+
+    private static final String CHANGED_VERSIONS_SQL =
+            "SELECT user_id, version FROM note_acl_versions WHERE changed_at > now() - :windowMs * interval '1 millisecond'";
+
+    /** Access of a user to a note of someone else. */
+    public record Grant(Long ownerId, ESharePermission permission) {
+    }
+
+    private final Map<Long, UserGrants> grants = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation; a load that overlapped one is returned but not cached. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final DatabaseClient databaseClient;
+
+    private final TransactionalOperator loadOperator;
+
+    private volatile long lastPollStartedAt;
+
+    @Value("${notes.shares.cache.max-users:50000}")
+    private int maxUsers;
+
+    @Value("${notes.shares.cache.idle-ms:600000}")
+    private long idleMs;
+
+    @Value("${notes.shares.cache.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    public NotePermissionCache(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        // Own transaction, with one snapshot for the version and the grants.
+        DefaultTransactionDefinition definition =
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        definition.setReadOnly(true);
+        this.loadOperator = TransactionalOperator.create(transactionManager, definition);
+    }
+
+    /** The user's grant on a note owned by someone else, or empty when it is not shared with them. */
+    public Mono<Grant> grant(Long userId, Long noteId) {
+        return get(userId).mapNotNull(entry -> entry.grants.get(noteId));
+    }
+
+    /** Runs on a scheduler thread, so it waits for the poll to finish before the next one is scheduled. */
+    @Scheduled(fixedDelayString = "${notes.shares.cache.poll-interval-ms:1000}")
+    public void pollVersions() {
+        long start = System.currentTimeMillis();
+        long window = start - (lastPollStartedAt > 0 ? lastPollStartedAt : start) + pollOverlapMs;
+        databaseClient.sql(CHANGED_VERSIONS_SQL)
+                .bind("windowMs", window)
+                .map(row -> Map.entry(row.get("user_id", Long.class), row.get("version", Long.class)))
+                .all()
+                .doOnNext(changed -> {
+                    UserGrants entry = grants.get(changed.getKey());
+                    if (entry != null && entry.version < changed.getValue()) {
+                        invalidations.incrementAndGet();
+                        grants.remove(changed.getKey(), entry);
+                    }
+                })
+                .then()
+                .doOnSuccess(ignored -> lastPollStartedAt = start)
+                .onErrorResume(e -> {
+                    logger.error("Failed to poll note ACL versions: {}", e.getMessage(), e);
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    @Scheduled(fixedDelayString = "${notes.shares.cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        grants.values().removeIf(entry -> entry.lastAccessAt < cutoff);
+    }
+
+    private Mono<UserGrants> get(Long userId) {
+        return Mono.defer(() -> {
+            UserGrants cached = grants.get(userId);
+            if (cached != null) {
+                cached.lastAccessAt = System.currentTimeMillis();
+                return Mono.just(cached);
+            }
+            long seen = invalidations.get();
+            return load(userId).map(entry -> {
+                if (grants.size() >= maxUsers) {
+                    evictLeastRecentlyUsed();
+                }
+                if (invalidations.get() != seen) {
+                    return entry;
+                }
+                UserGrants raced = grants.putIfAbsent(userId, entry);
+                return raced != null ? raced : entry;
+            });
+        });
+    }
+
+    private Mono<UserGrants> load(Long userId) {
+        UserGrants entry = new UserGrants();
+        Mono<Void> version = databaseClient.sql(LOAD_VERSION_SQL)
+                .bind("userId", userId)
+                .map(row -> row.get("version", Long.class))
+                .one()
+                .doOnNext(stored -> entry.version = stored)
+                .then();
+        Mono<Void> shares = databaseClient.sql(LOAD_GRANTS_SQL)
+                .bind("userId", userId)
+                .map(row -> Map.entry(row.get("note_id", Long.class), new Grant(row.get("owner_id", Long.class),
+                        ESharePermission.valueOf(row.get("permission", String.class)))))
+                .all()
+                .doOnNext(share -> entry.grants.merge(share.getKey(), share.getValue(),
+                        (a, b) -> a.permission() == ESharePermission.WRITE ? a : b))
+                .then();
+        return version.then(shares)
+                .as(loadOperator::transactional)
+                .then(Mono.fromSupplier(() -> {
+                    logger.debug("Loaded note grants of user {} at version {}: {} notes", userId, entry.version, entry.grants.size());
+                    return entry;
+                }));
+    }
+
+    private void evictLeastRecentlyUsed() {
+        evictIdle();
+        int excess = grants.size() - maxUsers + 1;
+        if (excess <= 0) {
+            return;
+        }
+        grants.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(grants::remove);
+    }
+
+    /** Grants of one user. Filled in by the load only, so reads need no locking. */
+    private static final class UserGrants {
+        private final Map<Long, Grant> grants = new HashMap<>();
+        private long version;
+        private volatile long lastAccessAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,186 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.utils.NoteRevisionCodec;
+import com.ksbk.notes.utils.NoteRevisionCodec.Content;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reactive port of notes-service's NoteRevisionService, writing the same {@code note_revisions}
+ * rows, so history stays continuous whichever deployment edited the note.
+ * <p>
+ * {@link #recordRevision} captures the previous values and bumps the note's counter when it is
+ * called, before the caller applies the new values; the returned Mono reads the stored body if the
+ * revision needs it and writes the rows, so it must run before the new body is written.
+ */
+@Service
+public class NoteRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO note_revisions (note_id, revision, snapshot, payload, created_at) " +
+            "VALUES (:noteId, :revision, :snapshot, :payload, :createdAt)";
+
+    private static final String SUMMARIES_SQL =
+            "SELECT revision, snapshot, created_at FROM note_revisions WHERE note_id = :noteId ORDER BY revision DESC";
+
+    private static final String WINDOW_SQL =
+            "SELECT revision, snapshot, payload, created_at FROM note_revisions " +
+            "WHERE note_id = :noteId AND revision BETWEEN :from AND :to ORDER BY revision";
+
+    private static final String LAST_SNAPSHOT_SQL =
+            "SELECT revision FROM note_revisions WHERE note_id = :noteId AND snapshot AND revision <= :revision " +
+            "ORDER BY revision DESC LIMIT 1";
+
+    private static final String DELETE_SQL = "DELETE FROM note_revisions WHERE note_id = :noteId";
+
+    @Value("${notes.revisions.snapshot-interval:10}")
+    private int snapshotInterval;
+
+    private final DatabaseClient databaseClient;
+
+    private final NoteBodyStore noteBodyStore;
+
+    public NoteRevisionService(DatabaseClient databaseClient, NoteBodyStore noteBodyStore) {
+        this.databaseClient = databaseClient;
+        this.noteBodyStore = noteBodyStore;
+    }
+
+    /** Revision 0 of a note just inserted with {@code revision = 0} and {@code body}. */
+    public Mono<Void> recordInitialRevision(Note note, String body) {
+        return save(note.getId(), 0, true, NoteRevisionCodec.encodeSnapshot(
+                new Content(note.getTitle(), note.getDescription(), body)));
+    }
+
+    /**
+     * Records the transition of {@code note} to the new title, description and body and bumps its
+     * revision counter. Notes created before history existed start with a snapshot.
+     * <p>
+     * The stored body is only read when the revision needs it: for a snapshot that keeps the body,
+     * or for a delta that changes it. Otherwise both sides are left empty and the delta records no change.
+     *
+     * @param newBody the new body, or null if it is not changing
+     */
+    public Mono<Void> recordRevision(Note note, String newTitle, String newDescription, String newBody) {
+        boolean initial = note.getRevision() == null;
+        int revision = (initial ? 0 : note.getRevision()) + 1;
+        boolean snapshot = revision % snapshotInterval == 0;
+        boolean readBody = initial || (snapshot ? newBody == null : newBody != null);
+        String previousTitle = note.getTitle();
+        String previousDescription = note.getDescription();
+        Mono<String> previousBody = readBody ? noteBodyStore.read(note.getId(), note.getBodySize()) : Mono.just("");
+        note.setRevision(revision);
+
+        return previousBody.flatMap(body -> {
+            Content previous = new Content(previousTitle, previousDescription, body);
+            Content current = new Content(newTitle, newDescription, newBody != null ? newBody : body);
+            byte[] payload = snapshot
+                    ? NoteRevisionCodec.encodeSnapshot(current)
+                    : NoteRevisionCodec.encodeDelta(previous, current);
+            logger.debug("Recording revision {} of note {} ({}, {} bytes)",
+                    revision, note.getId(), snapshot ? "snapshot" : "delta", payload.length);
+            Mono<Void> written = save(note.getId(), revision, snapshot, payload);
+            return initial
+                    ? save(note.getId(), 0, true, NoteRevisionCodec.encodeSnapshot(previous)).then(written)
+                    : written;
+        });
+    }
+
+    public Flux<RevisionSummary> getRevisions(Long noteId) {
+        return databaseClient.sql(SUMMARIES_SQL)
+                .bind("noteId", noteId)
+                .map(row -> new RevisionSummary(row.get("revision", Integer.class),
+                        Boolean.TRUE.equals(row.get("snapshot", Boolean.class)),
+                        row.get("created_at", LocalDateTime.class)))
+                .all();
+    }
+
+    /**
+     * Rebuilds a revision from the closest preceding snapshot. Snapshots are written every
+     * {@code snapshotInterval} revisions, so at most that many rows are read and applied.
+     */
+    public Mono<RevisionContent> reconstruct(Long noteId, int revision) {
+        return window(noteId, Math.max(0, revision - snapshotInterval + 1), revision)
+                .flatMap(window -> {
+                    if (window.isEmpty() || window.get(window.size() - 1).revision() != revision) {
+                        return Mono.error(new NoteRevisionNotFoundException(revision));
+                    }
+                    for (int i = window.size() - 1; i >= 0; i--) {
+                        if (window.get(i).snapshot()) {
+                            return Mono.just(apply(window, i));
+                        }
+                    }
+                    logger.debug("No snapshot within interval for note {} revision {}, widening lookup", noteId, revision);
+                    return databaseClient.sql(LAST_SNAPSHOT_SQL)
+                            .bind("noteId", noteId)
+                            .bind("revision", revision)
+                            .map(row -> row.get("revision", Integer.class))
+                            .one()
+                            .switchIfEmpty(Mono.error(() -> new NoteRevisionNotFoundException(revision)))
+                            .flatMap(base -> window(noteId, base, revision))
+                            .map(widened -> apply(widened, 0));
+                });
+    }
+
+    public Mono<Void> deleteRevisions(Long noteId) {
+        return databaseClient.sql(DELETE_SQL)
+                .bind("noteId", noteId)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private Mono<List<StoredRevision>> window(Long noteId, int from, int to) {
+        return databaseClient.sql(WINDOW_SQL)
+                .bind("noteId", noteId)
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> new StoredRevision(row.get("revision", Integer.class),
+                        Boolean.TRUE.equals(row.get("snapshot", Boolean.class)),
+                        row.get("payload", byte[].class),
+                        row.get("created_at", LocalDateTime.class)))
+                .all()
+                .collectList();
+    }
+
+    private RevisionContent apply(List<StoredRevision> window, int start) {
+        Content content = NoteRevisionCodec.decodeSnapshot(window.get(start).payload());
+        for (int i = start + 1; i < window.size(); i++) {
+            content = NoteRevisionCodec.applyDelta(content, window.get(i).payload());
+        }
+        StoredRevision last = window.get(window.size() - 1);
+        return new RevisionContent(new RevisionSummary(last.revision(), last.snapshot(), last.createdAt()), content);
+    }
+
+    private Mono<Void> save(Long noteId, int revision, boolean snapshot, byte[] payload) {
+        return databaseClient.sql(INSERT_SQL)
+                .bind("noteId", noteId)
+                .bind("revision", revision)
+                .bind("snapshot", snapshot)
+                .bind("payload", payload)
+                .bind("createdAt", LocalDateTime.now())
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private record StoredRevision(int revision, boolean snapshot, byte[] payload, LocalDateTime createdAt) {
+    }
+
+    public record RevisionSummary(int revision, boolean snapshot, LocalDateTime createdAt) {
+    }
+
+    public record RevisionContent(RevisionSummary revision, Content content) {
+    }
+}
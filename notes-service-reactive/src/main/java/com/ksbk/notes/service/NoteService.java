@@ -0,0 +1,26 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteRequest;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same operations as notes-service's NoteService. The checked exceptions declared there
+ * (NoteNotFoundException, NoteVersionConflictException, ...) are signalled as errors of the
+ * returned publishers.
+ */
+public interface NoteService {
+    Mono<NoteResponse> createNote(Long userId, NoteRequest request);
+    Mono<NoteResponse> updateNote(Long userId, Long noteId, NoteRequest request, Long expectedVersion);
+    Mono<Void> deleteNote(Long userId, Long noteId, Long expectedVersion);
+    Mono<NoteResponse> getNoteById(Long userId, Long noteId);
+    Mono<Long> getNoteBodySize(Long userId, Long noteId);
+    Mono<byte[]> readNoteBody(Long userId, Long noteId, long offset, long length);
+    Flux<NoteResponse> getAllUserNotes(Long userId);
+    Flux<NoteResponse> searchNotes(Long userId, String query);
+    Flux<NoteRevisionResponse> getNoteRevisions(Long userId, Long noteId);
+    Mono<NoteRevisionResponse> getNoteRevision(Long userId, Long noteId, Integer revision);
+    Mono<NoteResponse> restoreNoteRevision(Long userId, Long noteId, Integer revision);
+}
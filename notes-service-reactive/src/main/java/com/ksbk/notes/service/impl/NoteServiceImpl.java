@@ -0,0 +1,375 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.NoteRequest;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
+import com.ksbk.notes.entity.ESharePermission;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
+import com.ksbk.notes.mapper.NoteMapper;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.service.AttachmentService;
+import com.ksbk.notes.service.AuthServiceClient;
+import com.ksbk.notes.service.NoteBodyStore;
+import com.ksbk.notes.service.NotePermissionCache;
+import com.ksbk.notes.service.NoteRevisionService;
+import com.ksbk.notes.service.NoteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+@Service
+public class NoteServiceImpl implements NoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String DELETE_TAGS_SQL = "DELETE FROM note_tags WHERE note_id = :noteId";
+
+    /**
+     * Drops the shares of a note and bumps the ACL version of every user they reached, so the
+     * permission caches of notes-service instances drop their entries on the next poll.
+     */
+    private static final String DELETE_SHARES_SQL =
+            "WITH deleted AS (DELETE FROM note_shares WHERE note_id = :noteId RETURNING grantee_type, grantee_id), " +
+            "affected AS (SELECT grantee_id AS user_id FROM deleted WHERE grantee_type = 'USER' " +
+            "UNION SELECT m.user_id FROM deleted d JOIN note_group_members m ON m.group_id = d.grantee_id " +
+            "WHERE d.grantee_type = 'GROUP') " +
+            "INSERT INTO note_acl_versions (user_id, version, changed_at) " +
+            "SELECT user_id, nextval('note_acl_version_seq'), clock_timestamp() FROM affected ORDER BY user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET version = EXCLUDED.version, changed_at = EXCLUDED.changed_at";
+
+    private final NoteRepository noteRepository;
+
+    private final NoteMapper noteMapper;
+
+    private final AuthServiceClient authServiceClient;
+
+    private final NoteRevisionService noteRevisionService;
+
+    private final NoteBodyStore noteBodyStore;
+
+    private final AttachmentService attachmentService;
+
+    private final NotePermissionCache notePermissionCache;
+
+    private final DatabaseClient databaseClient;
+
+    /** Every method runs its database work through one of these, around the whole chain. */
+    private final TransactionalOperator transactionalOperator;
+
+    private final TransactionalOperator readOnlyOperator;
+
+    public NoteServiceImpl(NoteRepository noteRepository, NoteMapper noteMapper, AuthServiceClient authServiceClient,
+                           NoteRevisionService noteRevisionService, NoteBodyStore noteBodyStore,
+                           AttachmentService attachmentService, NotePermissionCache notePermissionCache,
+                           DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.authServiceClient = authServiceClient;
+        this.noteRevisionService = noteRevisionService;
+        this.noteBodyStore = noteBodyStore;
+        this.attachmentService = attachmentService;
+        this.notePermissionCache = notePermissionCache;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+        this.readOnlyOperator = TransactionalOperator.create(transactionManager, readOnly);
+    }
+
+    /**
+     * The auth-service lookup runs before the transaction starts, so a slow answer does not hold
+     * a pooled connection.
+     */
+    @Override
+    public Mono<NoteResponse> createNote(Long userId, NoteRequest request) {
+        logger.info("Creating note for user ID: {}", userId);
+        logger.debug("Note request data - title: {}, description: {}",
+                request.getTitle(), request.getDescription());
+
+        return Mono.fromCallable(() -> encodeBody(request.getBody()))
+                .flatMap(body -> authServiceClient.getUserById(userId)
+                        .switchIfEmpty(Mono.error(() -> {
+                            logger.warn("User not found during note creation: {}", userId);
+                            return new UsernameNotFoundException("User not found");
+                        }))
+                        .flatMap(user -> {
+                            Note note = new Note();
+                            note.setTitle(request.getTitle());
+                            note.setDescription(request.getDescription());
+                            note.setCreatedAt(LocalDateTime.now());
+                            note.setUserId(userId);
+                            note.setRevision(0);
+                            note.setBodySize((long) body.length);
+
+                            return noteRepository.save(note)
+                                    .flatMap(savedNote -> (body.length > 0
+                                            ? noteBodyStore.write(savedNote.getId(), body) : Mono.<Void>empty())
+                                            .then(noteRevisionService.recordInitialRevision(savedNote,
+                                                    new String(body, StandardCharsets.UTF_8)))
+                                            .thenReturn(savedNote))
+                                    .as(transactionalOperator::transactional);
+                        }))
+                .map(savedNote -> {
+                    logger.info("Note created successfully. Note ID: {}, User ID: {}", savedNote.getId(), userId);
+                    return noteMapper.noteToNoteResponse(savedNote);
+                })
+                .doOnError(e -> logger.error("Failed to create note for user {}: {}", userId, e.getMessage(), e));
+    }
+
+    @Override
+    public Mono<NoteResponse> updateNote(Long userId, Long noteId, NoteRequest request, Long expectedVersion) {
+        logger.info("Updating note. Note ID: {}, User ID: {}", noteId, userId);
+        logger.debug("Update data - title: {}, description: {}",
+                request.getTitle(), request.getDescription());
+
+        return Mono.fromCallable(() -> Optional.ofNullable(request.getBody() != null ? encodeBody(request.getBody()) : null))
+                .flatMap(body -> getWritableNote(noteId, userId)
+                        .flatMap(note -> checkVersion(note, expectedVersion))
+                        .flatMap(note -> applyUpdate(note, request.getTitle(), request.getDescription(), body.orElse(null)))
+                        .as(transactionalOperator::transactional))
+                .doOnSuccess(response -> logger.info("Note updated successfully. Note ID: {}", noteId))
+                .doOnError(e -> {
+                    if (e instanceof NoteNotFoundException) {
+                        logger.warn("Note not found during update. Note ID: {}, User ID: {}", noteId, userId);
+                    } else if (e instanceof NoteVersionConflictException) {
+                        logger.info("Stale update rejected. Note ID: {}, expected version: {}", noteId, expectedVersion);
+                    } else if (e instanceof NoteAccessDeniedException) {
+                        logger.warn("User {} has no write access to note {}", userId, noteId);
+                    } else {
+                        logger.error("Failed to update note {} for user {}: {}", noteId, userId, e.getMessage(), e);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Void> deleteNote(Long userId, Long noteId, Long expectedVersion) {
+        logger.info("Deleting note. Note ID: {}, User ID: {}", noteId, userId);
+
+        return getNoteByIdAndUser(noteId, userId)
+                .flatMap(note -> checkVersion(note, expectedVersion))
+                .flatMap(note -> noteRevisionService.deleteRevisions(noteId)
+                        .then(execute(DELETE_TAGS_SQL, noteId))
+                        .then(execute(DELETE_SHARES_SQL, noteId))
+                        .then(noteBodyStore.delete(noteId))
+                        .then(attachmentService.deleteNoteAttachments(userId, noteId))
+                        .then(noteRepository.delete(note)))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(ignored -> logger.info("Note deleted successfully. Note ID: {}", noteId))
+                .doOnError(e -> {
+                    if (e instanceof NoteNotFoundException) {
+                        logger.warn("Note not found during deletion. Note ID: {}, User ID: {}", noteId, userId);
+                    } else if (e instanceof NoteVersionConflictException) {
+                        logger.info("Stale delete rejected. Note ID: {}, expected version: {}", noteId, expectedVersion);
+                    } else {
+                        logger.error("Failed to delete note {} for user {}: {}", noteId, userId, e.getMessage(), e);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<NoteResponse> getNoteById(Long userId, Long noteId) {
+        logger.debug("Fetching note. Note ID: {}, User ID: {}", noteId, userId);
+
+        return getReadableNote(noteId, userId)
+                .flatMap(note -> noteBodyStore.read(noteId, note.getBodySize()).map(body -> {
+                    NoteResponse response = noteMapper.noteToNoteResponse(note);
+                    response.setBody(body);
+                    return response;
+                }))
+                .as(readOnlyOperator::transactional)
+                .doOnSuccess(response -> logger.info("Note retrieved successfully. Note ID: {}", noteId))
+                .doOnError(e -> {
+                    if (!(e instanceof NoteNotFoundException)) {
+                        logger.error("Failed to fetch note {} for user {}: {}", noteId, userId, e.getMessage(), e);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Long> getNoteBodySize(Long userId, Long noteId) {
+        return getReadableNote(noteId, userId)
+                .map(Note::getBodySize)
+                .as(readOnlyOperator::transactional);
+    }
+
+    @Override
+    public Mono<byte[]> readNoteBody(Long userId, Long noteId, long offset, long length) {
+        return getReadableNote(noteId, userId).flatMap(note -> {
+            long end = Math.min(offset + length, note.getBodySize());
+            logger.debug("Reading bytes {}-{} of the body of note {}", offset, end, noteId);
+            return noteBodyStore.readRange(noteId, offset, end - offset);
+        }).as(readOnlyOperator::transactional);
+    }
+
+    @Override
+    public Flux<NoteResponse> getAllUserNotes(Long userId) {
+        logger.debug("Fetching all notes for user ID: {}", userId);
+
+        return noteRepository.findByUserId(userId)
+                .map(noteMapper::noteToNoteResponse)
+                .as(readOnlyOperator::transactional)
+                .doOnError(e -> logger.error("Failed to fetch notes for user {}: {}", userId, e.getMessage(), e));
+    }
+
+    @Override
+    public Flux<NoteResponse> searchNotes(Long userId, String query) {
+        logger.debug("Searching notes for user ID: {}, query: '{}'", userId, query);
+
+        return noteRepository.searchByUserAndQuery(userId, query)
+                .map(noteMapper::noteToNoteResponse)
+                .as(readOnlyOperator::transactional)
+                .doOnError(e -> logger.error("Search failed for user {} (query='{}'): {}", userId, query, e.getMessage(), e));
+    }
+
+    @Override
+    public Flux<NoteRevisionResponse> getNoteRevisions(Long userId, Long noteId) {
+        logger.debug("Fetching revisions. Note ID: {}, User ID: {}", noteId, userId);
+        return getNoteByIdAndUser(noteId, userId)
+                .flatMapMany(note -> noteRevisionService.getRevisions(noteId))
+                .map(summary -> {
+                    NoteRevisionResponse response = new NoteRevisionResponse();
+                    response.setRevision(summary.revision());
+                    response.setSnapshot(summary.snapshot());
+                    response.setCreatedAt(summary.createdAt().format(DATE_FORMAT));
+                    return response;
+                })
+                .as(readOnlyOperator::transactional);
+    }
+
+    @Override
+    public Mono<NoteRevisionResponse> getNoteRevision(Long userId, Long noteId, Integer revision) {
+        logger.debug("Fetching revision {}. Note ID: {}, User ID: {}", revision, noteId, userId);
+        return getNoteByIdAndUser(noteId, userId)
+                .flatMap(note -> noteRevisionService.reconstruct(noteId, revision))
+                .map(content -> {
+                    NoteRevisionResponse response = new NoteRevisionResponse();
+                    response.setRevision(revision);
+                    response.setSnapshot(content.revision().snapshot());
+                    response.setCreatedAt(content.revision().createdAt().format(DATE_FORMAT));
+                    response.setTitle(content.content().title());
+                    response.setDescription(content.content().description());
+                    response.setBody(content.content().body());
+                    return response;
+                })
+                .as(readOnlyOperator::transactional);
+    }
+
+    @Override
+    public Mono<NoteResponse> restoreNoteRevision(Long userId, Long noteId, Integer revision) {
+        logger.info("Restoring revision {}. Note ID: {}, User ID: {}", revision, noteId, userId);
+
+        return getNoteByIdAndUser(noteId, userId)
+                .flatMap(note -> noteRevisionService.reconstruct(noteId, revision)
+                        .flatMap(content -> {
+                            String body = content.content().body();
+                            if (body == null) {
+                                logger.info("Revision {} of note {} predates body history, keeping the current body", revision, noteId);
+                            }
+                            return applyUpdate(note, content.content().title(), content.content().description(),
+                                    body != null ? NoteBodyStore.encode(body) : null);
+                        })
+                        .doOnSuccess(response -> logger.info("Note {} restored to revision {} as revision {}",
+                                noteId, revision, note.getRevision())))
+                .as(transactionalOperator::transactional);
+    }
+
+    /** @param body the new UTF-8 body, or null to keep the stored one */
+    private Mono<NoteResponse> applyUpdate(Note note, String title, String description, byte[] body) {
+        Mono<Void> revision = noteRevisionService.recordRevision(note, title, description,
+                body != null ? new String(body, StandardCharsets.UTF_8) : null);
+        note.setTitle(title);
+        note.setDescription(description);
+        note.setUpdatedAt(LocalDateTime.now());
+        Mono<Void> bodyWrite = Mono.empty();
+        if (body != null) {
+            bodyWrite = noteBodyStore.write(note.getId(), body);
+            note.setBodySize((long) body.length);
+        }
+
+        // The UPDATE is conditional on the version read, so a concurrent writer fails it with
+        // OptimisticLockingFailureException and the response carries the new version.
+        return revision.then(bodyWrite)
+                .then(noteRepository.save(note))
+                .map(noteMapper::noteToNoteResponse);
+    }
+
+    private byte[] encodeBody(String body) throws NoteBodyTooLargeException {
+        byte[] encoded = NoteBodyStore.encode(body);
+        if (encoded.length > noteBodyStore.getMaxSize()) {
+            throw new NoteBodyTooLargeException(noteBodyStore.getMaxSize());
+        }
+        return encoded;
+    }
+
+    /**
+     * Fails fast when the client edited an older version. A concurrent writer that slips in
+     * between this check and the UPDATE is still caught by the {@code @Version} column.
+     */
+    private Mono<Note> checkVersion(Note note, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            return Mono.error(new NoteVersionConflictException(note.getVersion()));
+        }
+        return Mono.just(note);
+    }
+
+    /**
+     * The note if the user owns it or it is shared with them, looked up by its owner and id.
+     * Sharing is resolved from {@link NotePermissionCache}. Notes the user may not read are
+     * reported as not found, so their existence is not revealed.
+     */
+    private Mono<Note> getReadableNote(Long noteId, Long userId) {
+        return notePermissionCache.grant(userId, noteId)
+                .map(NotePermissionCache.Grant::ownerId)
+                .defaultIfEmpty(userId)
+                .flatMap(ownerId -> noteRepository.findByIdAndUserId(noteId, ownerId))
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
+                    return new NoteNotFoundException(noteId);
+                }));
+    }
+
+    private Mono<Note> getWritableNote(Long noteId, Long userId) {
+        return notePermissionCache.grant(userId, noteId)
+                .flatMap(grant -> grant.permission() == ESharePermission.WRITE
+                        ? Mono.just(grant.ownerId())
+                        : Mono.<Long>error(new NoteAccessDeniedException(noteId)))
+                .defaultIfEmpty(userId)
+                .flatMap(ownerId -> noteRepository.findByIdAndUserId(noteId, ownerId))
+                .switchIfEmpty(Mono.error(() -> new NoteNotFoundException(noteId)));
+    }
+
+    private Mono<Note> getNoteByIdAndUser(Long noteId, Long userId) {
+        logger.trace("Looking for note ID: {} belonging to user ID: {}", noteId, userId);
+        return noteRepository.findByIdAndUserId(noteId, userId)
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
+                    return new NoteNotFoundException(noteId);
+                }));
+    }
+
+    private Mono<Void> execute(String sql, Long noteId) {
+        return databaseClient.sql(sql)
+                .bind("noteId", noteId)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+}
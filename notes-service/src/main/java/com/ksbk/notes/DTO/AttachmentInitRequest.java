@@ -0,0 +1,17 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
+
+@Data
+public class AttachmentInitRequest {
+    @NotBlank
+    private String fileName;
+
+    private String contentType;
+
+    @Positive
+    private Long size;
+}
@@ -0,0 +1,17 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class AttachmentResponse {
+    private Long id;
+    private Long noteId;
+    private String fileName;
+    private String contentType;
+    private Long size;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private String status;
+    private String createdAt;
+    private String completedAt;
+}
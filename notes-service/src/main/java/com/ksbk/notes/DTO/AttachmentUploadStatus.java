@@ -0,0 +1,14 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AttachmentUploadStatus {
+    private Long attachmentId;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private List<Integer> receivedChunks;
+    private List<Integer> missingChunks;
+}
@@ -0,0 +1,20 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class AuthTransportBenchmarkReport {
+    private String transport;
+    private Integer usersPerCall;
+    private Integer calls;
+    private Integer concurrency;
+    private Integer errors;
+    private Long wallMs;
+    private Double callsPerSecond;
+    private Long p50Micros;
+    private Long p90Micros;
+    private Long p99Micros;
+    private Long maxMicros;
+    private Long cpuMs;
+    private Double cpuMicrosPerCall;
+}
@@ -0,0 +1,24 @@
+package com.ksbk.notes.DTO;
+
+import com.ksbk.notes.entity.ECacheEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by {@code CacheInvalidationBus} for a batch of changes committed by other replicas.
+ * With {@code flush} set, changes may have been missed and every cache must be dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationEvent {
+    private List<Invalidation> invalidations;
+    private boolean flush;
+
+    /** {@code ownerId} is the user whose data changed. Id 0 stands for any number of the owner's entities. */
+    public record Invalidation(ECacheEntity entity, long id, long version, long ownerId) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class ImportJobResponse {
+    private Long id;
+    private String status;
+    private Long processedLines;
+    private Long importedCount;
+    private Long skippedCount;
+    private String errorMessage;
+    private String createdAt;
+    private String updatedAt;
+}
@@ -0,0 +1,18 @@
+package com.ksbk.notes.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Published by {@code NoteShareServiceImpl} when the set of notes shared with some users changes,
+ * and delivered to listeners after the surrounding transaction commits.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteAclChangeEvent {
+    private Set<Long> userIds;
+}
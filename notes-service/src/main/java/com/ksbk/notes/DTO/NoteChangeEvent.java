@@ -0,0 +1,35 @@
+package com.ksbk.notes.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ksbk.notes.entity.ENoteEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Published by {@code NoteServiceImpl} for every note mutation and delivered to listeners
+ * after the surrounding transaction commits. {@code note} is null for deletions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteChangeEvent {
+    private ENoteEventType type;
+    private Long noteId;
+    private Long userId;
+    private NoteResponse note;
+
+    /**
+     * The users the note is shared with, resolved in the publishing transaction; for deletions,
+     * the ones it was shared with, whose shares are gone by the time the event is delivered.
+     * Null for reminders, which only reach the owner. Never sent to clients.
+     */
+    @JsonIgnore
+    private Set<Long> sharedWith;
+
+    public NoteChangeEvent(ENoteEventType type, Long noteId, Long userId, NoteResponse note) {
+        this(type, noteId, userId, note, null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a tag/status filter. {@code total} counts every match, {@code nextAfterId} is
+ * passed back as {@code afterId} to get the next page and is null on the last one.
+ */
+@Data
+public class NoteFilterResponse {
+    private List<NoteResponse> notes;
+    private long total;
+    private Long nextAfterId;
+}
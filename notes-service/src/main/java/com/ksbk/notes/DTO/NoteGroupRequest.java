@@ -0,0 +1,8 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class NoteGroupRequest {
+    private String name;
+}
@@ -0,0 +1,13 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class NoteGroupResponse {
+    private Long id;
+    private String name;
+    private List<Long> memberIds;
+    private String createdAt;
+}
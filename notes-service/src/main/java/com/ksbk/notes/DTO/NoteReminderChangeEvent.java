@@ -0,0 +1,20 @@
+package com.ksbk.notes.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@code NoteReminderServiceImpl} when a reminder is set or cleared and delivered
+ * to listeners after the surrounding transaction commits. {@code remindAt} is null when cleared.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteReminderChangeEvent {
+    private Long noteId;
+    private Long userId;
+    private LocalDateTime remindAt;
+}
@@ -0,0 +1,12 @@
+package com.ksbk.notes.DTO;
+
+import com.ksbk.notes.entity.EShareGrantee;
+import com.ksbk.notes.entity.ESharePermission;
+import lombok.Data;
+
+@Data
+public class NoteShareRequest {
+    private EShareGrantee granteeType;
+    private Long granteeId;
+    private ESharePermission permission;
+}
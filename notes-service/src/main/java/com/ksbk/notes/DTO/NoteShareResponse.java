@@ -0,0 +1,13 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class NoteShareResponse {
+    private Long id;
+    private Long noteId;
+    private String granteeType;
+    private Long granteeId;
+    private String permission;
+    private String createdAt;
+}
@@ -0,0 +1,19 @@
+package com.ksbk.notes.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published by {@code NoteTagServiceImpl} when a tag is attached to or removed from a note,
+ * and delivered to listeners after the surrounding transaction commits.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteTagChangeEvent {
+    private Long noteId;
+    private Long userId;
+    private String tag;
+    private boolean added;
+}
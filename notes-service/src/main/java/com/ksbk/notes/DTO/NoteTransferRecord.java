@@ -0,0 +1,21 @@
+package com.ksbk.notes.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of an NDJSON export/import file.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class NoteTransferRecord {
+    private Long id;
+    private String title;
+    private String description;
+    private String body;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
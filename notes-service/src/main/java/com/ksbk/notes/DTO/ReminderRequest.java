@@ -0,0 +1,15 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Due date and reminder time of a note, as ISO-8601 timestamps with offset.
+ * When only {@code dueAt} is given the reminder fires at the due date.
+ */
+@Data
+public class ReminderRequest {
+    private OffsetDateTime dueAt;
+    private OffsetDateTime remindAt;
+}
@@ -0,0 +1,16 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class SerializationBenchmarkReport {
+    private String payload;
+    private String format;
+    private Integer items;
+    private Integer iterations;
+    private Integer bytes;
+    private Double bytesPerItem;
+    private Double sizeToJson;
+    private Double serializeMicros;
+    private Double deserializeMicros;
+}
@@ -0,0 +1,13 @@
+package com.ksbk.notes.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagCountResponse {
+    private String tag;
+    private long count;
+}
@@ -0,0 +1,18 @@
+package com.ksbk.notes.DTO;
+
+import lombok.Data;
+
+@Data
+public class UsageBackfillStatus {
+    private String status;
+    private String from;
+    private String to;
+    /** Shard being scanned, or scanned last. */
+    private String shard;
+    private Long scannedUpToId;
+    private Long maxId;
+    private Long bucketsWritten;
+    private String errorMessage;
+    private String startedAt;
+    private String finishedAt;
+}
@@ -0,0 +1,15 @@
+package com.ksbk.notes.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageRollupPoint {
+    private String metric;
+    private String dimension;
+    private String bucketStart;
+    private long value;
+}
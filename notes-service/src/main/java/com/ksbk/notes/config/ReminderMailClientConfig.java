@@ -0,0 +1,23 @@
+package com.ksbk.notes.config;
+
+import com.ksbk.common.utils.GatewayIdentity;
+import feign.RequestInterceptor;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+
+/**
+ * Feign configuration of {@code ReminderMailClient}. Reminder mails are sent from a scheduler
+ * thread without a user token, so the call carries a signed service identity with the ADMIN
+ * role instead. Deliberately not a {@code @Configuration}: it must only apply to that client.
+ */
+public class ReminderMailClientConfig {
+
+    private static final GatewayIdentity.Identity SERVICE_IDENTITY =
+            new GatewayIdentity.Identity(0L, "notes-service", List.of("ROLE_ADMIN"));
+
+    @Bean
+    public RequestInterceptor reminderMailIdentityInterceptor(GatewayIdentity gatewayIdentity) {
+        return requestTemplate -> gatewayIdentity.sign(SERVICE_IDENTITY).forEach(requestTemplate::header);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ksbk.notes.config;
+
+import com.ksbk.notes.service.DependencyGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    @Bean(destroyMethod = "close")
+    public DependencyGuard authServiceGuard(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        return new DependencyGuard("auth-service", properties.forDependency("auth-service"), meterRegistry);
+    }
+}
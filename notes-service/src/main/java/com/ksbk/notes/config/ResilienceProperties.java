@@ -0,0 +1,65 @@
+package com.ksbk.notes.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <pre>
+ * notes.resilience.dependencies.auth-service.max-concurrent-calls=32
+ * notes.resilience.dependencies.auth-service.failure-rate-threshold=50
+ * notes.resilience.dependencies.auth-service.hedge-quantile=0.95
+ * </pre>
+ * Settings of the {@link com.ksbk.notes.service.DependencyGuard} of each remote dependency;
+ * a dependency without an entry gets the defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "notes.resilience")
+public class ResilienceProperties {
+
+    private Map<String, Dependency> dependencies = new HashMap<>();
+
+    public Dependency forDependency(String name) {
+        return dependencies.getOrDefault(name, new Dependency());
+    }
+
+    @Data
+    public static class Dependency {
+
+        /** Bulkhead: calls in flight at once; hedged attempts count too. */
+        private int maxConcurrentCalls = 32;
+
+        /** How long a call may wait for a free slot before it is rejected. */
+        private long maxWaitMs = 20;
+
+        /** Upper bound of a hedged call, both attempts included; single attempts rely on the transport's timeouts. */
+        private long callTimeoutMs = 1500;
+
+        /** Circuit breaker: outcomes of the last {@code windowSize} calls are counted. */
+        private int windowSize = 50;
+
+        private int minimumCalls = 20;
+
+        /** Percentage of failed or slow calls in the window that opens the circuit. */
+        private int failureRateThreshold = 50;
+
+        private long slowCallMs = 1000;
+
+        private long openMs = 5000;
+
+        /** Trial calls let through when an open circuit's time is up; all must succeed to close it. */
+        private int halfOpenCalls = 3;
+
+        private boolean hedgeEnabled = true;
+
+        /** A hedged call starts a second attempt once the first has run this quantile of recent latencies. */
+        private double hedgeQuantile = 0.95;
+
+        private long minHedgeDelayMs = 5;
+
+        /** Hedge delay until enough latencies have been seen. */
+        private long initialHedgeDelayMs = 100;
+    }
+}
@@ -1,6 +1,7 @@
 package com.ksbk.notes.config;
 
 import com.ksbk.notes.filter.JwtNotesFilter;
+import com.ksbk.notes.filter.RateLimitFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -22,8 +23,11 @@ public class SecurityConfig {
 
     private final JwtNotesFilter jwtNotesFilter;
 
-    public SecurityConfig(JwtNotesFilter jwtNotesFilter) {
+    private final RateLimitFilter rateLimitFilter;
+
+    public SecurityConfig(JwtNotesFilter jwtNotesFilter, RateLimitFilter rateLimitFilter) {
         this.jwtNotesFilter = jwtNotesFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -32,16 +36,20 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                         .requestMatchers("/api/notes/**").permitAll()
                         .requestMatchers(
                                 "/swagger-ui.html",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
-                                "/v3/api-docs.yaml"
+                                "/v3/api-docs.yaml",
+                                "/actuator/health"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtNotesFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtNotesFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtNotesFilter.class);
 
         return http.build();
     }
@@ -50,8 +58,11 @@ public class SecurityConfig {
     CorsConfigurationSource corsConfigurationSource(){
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
-        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Range", "Last-Event-ID",
+                "If-Match", "If-None-Match", "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("Content-Range", "Accept-Ranges", "Content-Disposition", "ETag",
+                "Retry-After"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,174 @@
+package com.ksbk.notes.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Decides which shard the current thread works on. A request works on the shard of its user;
+ * code that has no user, or needs another user's shard, names the shard explicitly with
+ * {@link #onShard} or runs once per shard with {@link #forEachShard}.
+ * <p>
+ * Without sharding there is a single shard, {@value #PRIMARY}, and both just run the callback.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String PRIMARY = "primary";
+
+    private static final TransactionDefinition SUSPEND =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+
+    @FunctionalInterface
+    public interface ShardCallback<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final ThreadLocal<String> pinned = new ThreadLocal<>();
+
+    private final NavigableMap<Long, String> shardsByMinUserId = new TreeMap<>();
+
+    private final List<String> shards = new ArrayList<>();
+
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    public ShardRouter(ObjectProvider<ShardingProperties> shardingProperties,
+                       ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionManager = transactionManager;
+        ShardingProperties sharding = shardingProperties.getIfAvailable();
+        if (sharding != null && sharding.isEnabled()) {
+            for (int i = 0; i < sharding.getShards().size(); i++) {
+                shards.add(shardName(i));
+                shardsByMinUserId.put(sharding.getShards().get(i).getMinUserId(), shardName(i));
+            }
+        }
+        if (shards.isEmpty()) {
+            shards.add(PRIMARY);
+        }
+    }
+
+    /** Pool name of the i-th entry of {@code app.sharding.shards}. */
+    public static String shardName(int index) {
+        return "shard-" + index;
+    }
+
+    public boolean isSharded() {
+        return !shardsByMinUserId.isEmpty();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String shardOf(long userId) {
+        Map.Entry<Long, String> entry = shardsByMinUserId.floorEntry(userId);
+        return entry != null ? entry.getValue() : shards.get(0);
+    }
+
+    /** The shard named by {@link #onShard}, else the authenticated user's, else the first one. */
+    public String currentShard() {
+        String shard = pinned.get();
+        if (shard != null) {
+            return shard;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Long userId) {
+            return shardOf(userId);
+        }
+        return shards.get(0);
+    }
+
+    /**
+     * Runs the callback against the given shard. A transaction the caller is in stays on its own
+     * shard and is suspended meanwhile, so the callback gets connections of its own; anything it
+     * needs to do atomically it runs in a transaction of its own.
+     */
+    public <T, E extends Exception> T onShard(String shard, ShardCallback<T, E> callback) throws E {
+        if (!isSharded()) {
+            return callback.call();
+        }
+        String previous = pinned.get();
+        pinned.set(shard);
+        try {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return callback.call();
+            }
+            PlatformTransactionManager manager = transactionManager.getObject();
+            TransactionStatus suspended = manager.getTransaction(SUSPEND);
+            boolean completed = false;
+            try {
+                T result = callback.call();
+                completed = true;
+                manager.commit(suspended);
+                return result;
+            } finally {
+                if (!completed) {
+                    manager.rollback(suspended);
+                }
+            }
+        } finally {
+            if (previous != null) {
+                pinned.set(previous);
+            } else {
+                pinned.remove();
+            }
+        }
+    }
+
+    public <T, E extends Exception> T onUserShard(long userId, ShardCallback<T, E> callback) throws E {
+        return onShard(shardOf(userId), callback);
+    }
+
+    /**
+     * Runs the callback in the caller's transaction when the user's data lives on the current
+     * shard, else in a transaction of its own on the user's shard. For work a request does on data
+     * of another user, such as a note shared with it.
+     */
+    public <T, E extends Exception> T inUserShardTransaction(long userId, boolean readOnly,
+                                                             ShardCallback<T, E> callback) throws E {
+        String shard = shardOf(userId);
+        if (!isSharded() || shard.equals(currentShard())) {
+            return callback.call();
+        }
+        return onShard(shard, () -> {
+            DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+            definition.setReadOnly(readOnly);
+            PlatformTransactionManager manager = transactionManager.getObject();
+            TransactionStatus status = manager.getTransaction(definition);
+            boolean completed = false;
+            try {
+                T result = callback.call();
+                completed = true;
+                manager.commit(status);
+                return result;
+            } finally {
+                if (!completed) {
+                    manager.rollback(status);
+                }
+            }
+        });
+    }
+
+    /** Runs the job once per shard, in shard order. A job failing on one shard should catch and go on. */
+    public void forEachShard(Consumer<String> job) {
+        for (String shard : shards) {
+            onShard(shard, () -> {
+                job.accept(shard);
+                return null;
+            });
+        }
+    }
+}
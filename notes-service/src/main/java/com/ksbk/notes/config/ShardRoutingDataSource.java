@@ -0,0 +1,22 @@
+package com.ksbk.notes.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Picks the database that owns the current user's id range, as decided by {@link ShardRouter}.
+ * All note queries are scoped by user id, so a request only ever touches one shard. Work without
+ * an authenticated user (scheduled jobs, background tasks) names its shard through the router.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardRouter shardRouter;
+
+    public ShardRoutingDataSource(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return shardRouter.currentShard();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ksbk.notes.config;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the changelog to each shard in turn, passing the shard's index as the
+ * {@code shard.index} changelog parameter. Startup fails on the first shard that fails to migrate.
+ */
+class ShardedLiquibase extends SpringLiquibase {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedLiquibase.class);
+
+    private final List<? extends DataSource> shards;
+
+    ShardedLiquibase(List<? extends DataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        Map<String, String> common = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            Map<String, String> shardParameters = new HashMap<>(common);
+            shardParameters.put("shard.index", String.valueOf(i));
+            setChangeLogParameters(shardParameters);
+            setDataSource(shards.get(i));
+            logger.info("Migrating {}", ShardRouter.shardName(i));
+            super.afterPropertiesSet();
+        }
+    }
+}
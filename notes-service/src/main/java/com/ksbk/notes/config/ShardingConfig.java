@@ -0,0 +1,106 @@
+package com.ksbk.notes.config;
+
+import com.ksbk.common.service.impl.JdbcRateLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application-level sharding of notes by user id range, for datasets that outgrow one node.
+ * Every shard is a full notes database (partitioned or not); the router only decides which one
+ * serves the current request. Not combinable with replica routing.
+ * <p>
+ * The changelog is applied to every shard, with the shard's position in {@code app.sharding.shards}
+ * as the {@code shard.index} parameter; it gives each shard its own range of note ids. Shards are
+ * therefore only ever appended to the list, never reordered.
+ */
+@Configuration
+@EnableConfigurationProperties({ShardingProperties.class, LiquibaseProperties.class})
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    private final List<HikariDataSource> shardPools = new ArrayList<>();
+
+    public ShardingConfig(@Value("${app.datasource.replicas.enabled:false}") boolean replicasEnabled) {
+        if (replicasEnabled) {
+            throw new IllegalStateException("app.sharding.enabled and app.datasource.replicas.enabled cannot be combined");
+        }
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardingProperties properties, DataSourceProperties defaults, ShardRouter shardRouter) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled=true requires at least one app.sharding.shards entry");
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(ShardRouter.shardName(i));
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername() != null ? shard.getUsername() : defaults.getUsername());
+            pool.setPassword(shard.getPassword() != null ? shard.getPassword() : defaults.getPassword());
+            pool.setMaximumPoolSize(properties.getPoolSize());
+            shardPools.add(pool);
+
+            targets.put(pool.getPoolName(), pool);
+            logger.info("Shard {} serves user ids from {} ({})", pool.getPoolName(), shard.getMinUserId(), shard.getUrl());
+        }
+
+        ShardRoutingDataSource router = new ShardRoutingDataSource(shardRouter);
+        router.setTargetDataSources(targets);
+        router.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(router);
+    }
+
+    /** A user's rate limit bucket lives on the user's shard and anonymous ones on the first, so every shard is swept. */
+    @Bean
+    public JdbcRateLimiter.SweepScope rateLimitSweepScope(ShardRouter shardRouter) {
+        return shardRouter::forEachShard;
+    }
+
+    /** Replaces Boot's Liquibase bean, which would only migrate the shard unauthenticated work is routed to. */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.liquibase", name = "enabled", matchIfMissing = true)
+    public SpringLiquibase liquibase(DataSource dataSource, LiquibaseProperties properties) {
+        ShardedLiquibase liquibase = new ShardedLiquibase(shardPools);
+        liquibase.setChangeLog(properties.getChangeLog());
+        liquibase.setClearCheckSums(properties.isClearChecksums());
+        liquibase.setContexts(properties.getContexts());
+        liquibase.setLabelFilter(properties.getLabelFilter());
+        liquibase.setDefaultSchema(properties.getDefaultSchema());
+        liquibase.setLiquibaseSchema(properties.getLiquibaseSchema());
+        liquibase.setDatabaseChangeLogTable(properties.getDatabaseChangeLogTable());
+        liquibase.setDatabaseChangeLogLockTable(properties.getDatabaseChangeLogLockTable());
+        liquibase.setDropFirst(properties.isDropFirst());
+        liquibase.setShouldRun(properties.isEnabled());
+        liquibase.setChangeLogParameters(properties.getParameters());
+        return liquibase;
+    }
+
+    @PreDestroy
+    public void closeShards() {
+        shardPools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ksbk.notes.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>
+ * app.sharding.enabled=true
+ * app.sharding.shards[0].min-user-id=0
+ * app.sharding.shards[0].url=jdbc:postgresql://db2:5432/notes
+ * app.sharding.shards[1].min-user-id=1000000
+ * app.sharding.shards[1].url=jdbc:postgresql://db3:5432/notes
+ * </pre>
+ * Each shard owns the user ids from its {@code min-user-id} up to the next shard's.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    private int poolSize = 10;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private long minUserId;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,195 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.AttachmentInitRequest;
+import com.ksbk.notes.DTO.AttachmentResponse;
+import com.ksbk.notes.DTO.AttachmentUploadStatus;
+import com.ksbk.notes.entity.NoteAttachment;
+import com.ksbk.notes.exception.AttachmentNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.service.AttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes/{noteId}/attachments")
+@Tag(name = "Attachments Controller", description = "The attachments controller allows you to upload, download and delete note attachments")
+public class AttachmentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentController.class);
+
+    private final AttachmentService attachmentService;
+
+    public AttachmentController(AttachmentService attachmentService) {
+        this.attachmentService = attachmentService;
+    }
+
+    @Operation(summary = "Start attachment upload", description = "Registers an attachment and returns the chunk layout to upload")
+    @PostMapping
+    public ResponseEntity<AttachmentResponse> initUpload(@PathVariable Long noteId, @RequestBody AttachmentInitRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            AttachmentResponse response = attachmentService.initUpload(userId, noteId, request);
+            return ResponseEntity.ok(response);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid attachment upload for note {} by user {}: {}", noteId, userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to start attachment upload for user {} (noteId={}): {}", userId, noteId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Upload chunk", description = "Uploads one fixed-size chunk; re-sending a chunk overwrites it")
+    @PutMapping(value = "/{attachmentId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> uploadChunk(@PathVariable Long noteId, @PathVariable Long attachmentId,
+                                            @PathVariable int index, HttpServletRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try (InputStream body = request.getInputStream()) {
+            attachmentService.uploadChunk(userId, noteId, attachmentId, index, body, request.getContentLengthLong());
+            return ResponseEntity.noContent().build();
+        } catch (AttachmentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.warn("Rejected chunk {} of attachment {}: {}", index, attachmentId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to upload chunk {} of attachment {}: {}", index, attachmentId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Upload status", description = "Lists received and missing chunks so an interrupted upload can resume")
+    @GetMapping("/{attachmentId}/status")
+    public ResponseEntity<AttachmentUploadStatus> getUploadStatus(@PathVariable Long noteId, @PathVariable Long attachmentId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(attachmentService.getUploadStatus(userId, noteId, attachmentId));
+        } catch (AttachmentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to get upload status of attachment {}: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Complete upload", description = "Assembles the uploaded chunks into the final attachment")
+    @PostMapping("/{attachmentId}/complete")
+    public ResponseEntity<AttachmentResponse> completeUpload(@PathVariable Long noteId, @PathVariable Long attachmentId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(attachmentService.completeUpload(userId, noteId, attachmentId));
+        } catch (AttachmentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            logger.warn("Cannot complete attachment {}: {}", attachmentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            logger.error("Failed to complete attachment {}: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get note attachments")
+    @GetMapping
+    public ResponseEntity<List<AttachmentResponse>> getNoteAttachments(@PathVariable Long noteId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(attachmentService.getNoteAttachments(userId, noteId));
+        } catch (Exception e) {
+            logger.error("Failed to get attachments for user {} (noteId={}): {}", userId, noteId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Download attachment", description = "Streams the attachment, honouring a single byte Range")
+    @GetMapping("/{attachmentId}")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable Long noteId, @PathVariable Long attachmentId,
+                                                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            NoteAttachment attachment = attachmentService.getCompletedAttachment(userId, noteId, attachmentId);
+            long size = attachment.getSize();
+            long start = 0;
+            long end = size - 1;
+            boolean partial = false;
+
+            if (rangeHeader != null) {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (!ranges.isEmpty()) {
+                    HttpRange range = ranges.get(0);
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                    partial = true;
+                }
+            }
+            if (start >= size || start > end) {
+                logger.warn("Unsatisfiable range '{}' for attachment {}", rangeHeader, attachmentId);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size).build();
+            }
+
+            long length = end - start + 1;
+            InputStream stream = attachmentService.openRange(attachment, start, length);
+            StreamingResponseBody body = outputStream -> {
+                try (InputStream in = stream) {
+                    in.transferTo(outputStream);
+                }
+            };
+
+            String contentType = attachment.getContentType() != null
+                    ? attachment.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .contentLength(length)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(attachment.getFileName(), StandardCharsets.UTF_8).build().toString());
+            if (partial) {
+                builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            logger.info("User {} downloading attachment {} (bytes {}-{}/{})", userId, attachmentId, start, end, size);
+            return builder.body(body);
+        } catch (AttachmentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsatisfiable range '{}' for attachment {}", rangeHeader, attachmentId);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        } catch (Exception e) {
+            logger.error("Failed to download attachment {}: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Delete attachment")
+    @DeleteMapping("/{attachmentId}")
+    public ResponseEntity<Void> deleteAttachment(@PathVariable Long noteId, @PathVariable Long attachmentId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            attachmentService.deleteAttachment(userId, noteId, attachmentId);
+            return ResponseEntity.noContent().build();
+        } catch (AttachmentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to delete attachment {}: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.AuthTransportBenchmarkReport;
+import com.ksbk.notes.entity.EAuthTransport;
+import com.ksbk.notes.service.AuthTransportBenchmark;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/auth-transport")
+@Tag(name = "Auth Transport Controller", description = "Latency and CPU of auth-service lookups over gRPC and REST (admin only)")
+public class AuthTransportBenchmarkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthTransportBenchmarkController.class);
+
+    private static final int MAX_CALLS = 100_000;
+
+    private static final int MAX_CONCURRENCY = 256;
+
+    private static final int MAX_USERS_PER_CALL = 1000;
+
+    private final AuthTransportBenchmark authTransportBenchmark;
+
+    public AuthTransportBenchmarkController(AuthTransportBenchmark authTransportBenchmark) {
+        this.authTransportBenchmark = authTransportBenchmark;
+    }
+
+    @Operation(summary = "Run benchmark", description = "Look up the given users calls times over one transport, "
+            + "e.g. transport=GRPC&userIds=1,2,3&calls=10000&concurrency=32; one run at a time")
+    @PostMapping("/benchmark")
+    public ResponseEntity<AuthTransportBenchmarkReport> runBenchmark(@RequestParam EAuthTransport transport,
+                                                                     @RequestParam List<Long> userIds,
+                                                                     @RequestParam(defaultValue = "10000") int calls,
+                                                                     @RequestParam(defaultValue = "16") int concurrency) {
+        if (userIds.isEmpty() || userIds.size() > MAX_USERS_PER_CALL || calls < 1 || calls > MAX_CALLS
+                || concurrency < 1 || concurrency > MAX_CONCURRENCY) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Admin {} started an auth transport benchmark: {} x{} users, {} calls, concurrency {}",
+                SecurityContextHolder.getContext().getAuthentication().getName(), transport, userIds.size(), calls, concurrency);
+        try {
+            AuthTransportBenchmarkReport report = authTransportBenchmark.run(transport, userIds, calls, concurrency);
+            return report != null ? ResponseEntity.ok(report) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.internalServerError().build();
+        } catch (Exception e) {
+            logger.error("Auth transport benchmark failed: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
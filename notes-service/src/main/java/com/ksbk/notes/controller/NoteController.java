@@ -2,16 +2,29 @@ package com.ksbk.notes.controller;
 
 import com.ksbk.notes.DTO.NoteRequest;
 import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
+import com.ksbk.notes.service.IdempotencyStore;
+import com.ksbk.notes.service.NoteAutosaveBuffer;
 import com.ksbk.notes.service.NoteService;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
 import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -23,53 +36,162 @@ public class NoteController {
 
     private final NoteService noteService;
 
-    public NoteController(NoteService noteService) {
+    private final IdempotencyStore idempotencyStore;
+
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+
+    public NoteController(NoteService noteService, IdempotencyStore idempotencyStore, NoteAutosaveBuffer noteAutosaveBuffer) {
         this.noteService = noteService;
+        this.idempotencyStore = idempotencyStore;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
     }
 
-    @Operation(summary = "Create note")
+    @Operation(summary = "Create note", description = "Retries carrying the same Idempotency-Key return the original response")
     @PostMapping
-    public ResponseEntity<NoteResponse> createNote(@RequestBody NoteRequest request){
+    public ResponseEntity<NoteResponse> createNote(@RequestBody NoteRequest request,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.info("User {} is creating a new note with title: {}", userId, request.getTitle());
+
+        long fingerprint = IdempotencyStore.fingerprint(request.getTitle(), request.getDescription(), request.getBody());
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+                return ResponseEntity.badRequest().build();
+            }
+            IdempotencyStore.Claim claim = idempotencyStore.claim(userId, idempotencyKey, fingerprint);
+            switch (claim.outcome()) {
+                case REPLAY -> {
+                    logger.info("User {} retried create with key {}; replaying note {}", userId, idempotencyKey, claim.response().getId());
+                    return withETag(ResponseEntity.ok(), claim.response().getVersion())
+                            .header("Idempotent-Replayed", "true")
+                            .body(claim.response());
+                }
+                case IN_PROGRESS -> {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                }
+                case MISMATCH -> {
+                    logger.warn("User {} reused idempotency key {} with a different payload", userId, idempotencyKey);
+                    return ResponseEntity.unprocessableEntity().build();
+                }
+                case ACQUIRED -> {
+                }
+            }
+        }
+
         try{
             NoteResponse response = noteService.createNote(userId, request);
+            if (idempotencyKey != null) {
+                idempotencyStore.complete(userId, idempotencyKey, fingerprint, response);
+            }
             logger.info("User {} successfully created note with id: {}", userId, response.getId());
-            return ResponseEntity.ok(response);
+            return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+        }catch (NoteBodyTooLargeException e)
+        {
+            if (idempotencyKey != null) {
+                idempotencyStore.release(userId, idempotencyKey, fingerprint);
+            }
+            logger.info("User {} sent a note body over the {} byte limit", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
         }catch (Exception e)
         {
+            if (idempotencyKey != null) {
+                idempotencyStore.release(userId, idempotencyKey, fingerprint);
+            }
             logger.error("Failed to create note for user {}: {}", userId, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    @Operation(summary = "Update note", description = "Update note by id")
+    @Operation(summary = "Update note", description = "Update note by id; send If-Match with the note's ETag to reject stale edits")
     @PutMapping("/{id}")
-    public ResponseEntity<NoteResponse> updateNote(@PathVariable Long id, @RequestBody NoteRequest request) throws NoteNotFoundException {
+    public ResponseEntity<NoteResponse> updateNote(@PathVariable Long id, @RequestBody NoteRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.info("User {} is updating note with id: {}", userId, id);
         try{
-            NoteResponse response = noteService.updateNote(userId, id, request);
+            noteAutosaveBuffer.flush(id);
+            NoteResponse response = noteService.updateNote(userId, id, request, parseETag(ifMatch));
             logger.info("User {} successfully updated note with id: {}", userId, id);
-            return ResponseEntity.ok(response);
-        }catch (Exception e)
+            return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (NoteAccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (NoteBodyTooLargeException e) {
+            logger.info("User {} sent a body for note {} over the {} byte limit", userId, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (NoteVersionConflictException e) {
+            return withETag(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED), Long.valueOf(e.getMessage())).build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.info("Concurrent update of note {} by user {} lost the race", id, userId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e)
         {
             logger.error("Failed to update note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    @Operation(summary = "Delete note", description = "Delete note by id")
+    @Operation(summary = "Autosave note", description = "Save the fields sent, keeping the others; send If-Match with "
+            + "the note's ETag to reject stale edits. The first autosave of a burst is written at once and answered "
+            + "with 200; later ones within notes.autosave.window-ms are answered with 202 and written together when "
+            + "the window ends")
+    @PatchMapping("/{id}/autosave")
+    public ResponseEntity<NoteResponse> autosaveNote(@PathVariable Long id, @RequestBody NoteRequest request,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.debug("User {} is autosaving note {}", userId, id);
+        try {
+            NoteResponse response = noteAutosaveBuffer.autosave(userId, id, request, parseETag(ifMatch));
+            if (response == null) {
+                return ResponseEntity.accepted().build();
+            }
+            return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (NoteAccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (NoteBodyTooLargeException e) {
+            logger.info("User {} autosaved a body for note {} over the {} byte limit", userId, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (NoteVersionConflictException e) {
+            return withETag(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED), Long.valueOf(e.getMessage())).build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.info("Concurrent autosave of note {} by user {} lost the race", id, userId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e)
+        {
+            logger.error("Failed to autosave note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Delete note", description = "Delete note by id; send If-Match with the note's ETag to reject stale deletes")
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteNote(@PathVariable Long id) throws NoteNotFoundException {
+    public ResponseEntity<Void> deleteNote(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.info("User {} is deleting note with id: {}", userId, id);
         try
         {
-            noteService.deleteNote(userId, id);
+            noteService.deleteNote(userId, id, parseETag(ifMatch));
+            noteAutosaveBuffer.discard(id);
             logger.info("User {} successfully deleted note with id: {}", userId, id);
             return ResponseEntity.noContent().build();
-        }catch (Exception e)
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (NoteVersionConflictException e) {
+            return withETag(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED), Long.valueOf(e.getMessage())).build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.info("Concurrent delete of note {} by user {} lost the race", id, userId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e)
         {
             logger.error("Failed to delete note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -78,26 +200,73 @@ public class NoteController {
 
     @Operation(summary = "Get note", description = "Get note by id")
     @GetMapping("/{id}")
-    public ResponseEntity<NoteResponse> getNote(@PathVariable Long id) throws NoteNotFoundException {
+    public ResponseEntity<NoteResponse> getNote(@PathVariable Long id) {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.debug("User {} is requesting note with id: {}", userId, id);
         try{
+            noteAutosaveBuffer.flush(id);
             NoteResponse noteResponse = noteService.getNoteById(userId, id);
             logger.info("User {} retrieved note with id: {}", userId, id);
-            return ResponseEntity.ok(noteResponse);
-        }catch (Exception e)
+            return withETag(ResponseEntity.ok(), noteResponse.getVersion()).body(noteResponse);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e)
         {
             logger.error("Failed to get note for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @Operation(summary = "Get note body", description = "The note body as UTF-8 markdown, honouring a single byte Range")
+    @GetMapping("/{id}/body")
+    public ResponseEntity<byte[]> getNoteBody(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            noteAutosaveBuffer.flush(id);
+            long size = noteService.getNoteBodySize(userId, id);
+            long start = 0;
+            long end = size - 1;
+            boolean partial = false;
+
+            if (rangeHeader != null && size > 0) {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (!ranges.isEmpty()) {
+                    HttpRange range = ranges.get(0);
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                    partial = true;
+                }
+            }
+
+            byte[] body = noteService.readNoteBody(userId, id, start, end - start + 1);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                    .contentType(new MediaType("text", "markdown", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (partial) {
+                builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + body.length - 1) + "/" + size);
+            }
+            logger.debug("User {} read bytes {}-{}/{} of the body of note {}", userId, start, start + body.length - 1, size, id);
+            return builder.body(body);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsatisfiable range '{}' for the body of note {}", rangeHeader, id);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        } catch (Exception e)
+        {
+            logger.error("Failed to get body of note {} for user {}: {}", id, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "Get all notes", description = "Get all notes by user")
     @GetMapping
     public ResponseEntity<List<NoteResponse>> getAllUserNotes(){
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.debug("User {} is requesting all notes", userId);
         try {
+            noteAutosaveBuffer.flushUser(userId);
             List<NoteResponse> responses = noteService.getAllUserNotes(userId);
             logger.info("User {} retrieved {} notes", userId, responses.size());
             return ResponseEntity.ok(responses);
@@ -114,6 +283,7 @@ public class NoteController {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         logger.debug("User {} is searching notes with query: '{}'", userId, query);
         try {
+            noteAutosaveBuffer.flushUser(userId);
             List<NoteResponse> responses = noteService.searchNotes(userId, query);
             logger.info("User {} found {} notes matching query '{}'", userId, responses.size(), query);
             return ResponseEntity.ok(responses);
@@ -123,4 +293,75 @@ public class NoteController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get note revisions", description = "List the revision history of a note")
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<List<NoteRevisionResponse>> getNoteRevisions(@PathVariable Long id) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.debug("User {} is requesting revisions of note {}", userId, id);
+        try {
+            noteAutosaveBuffer.flush(id);
+            List<NoteRevisionResponse> responses = noteService.getNoteRevisions(userId, id);
+            logger.info("User {} retrieved {} revisions of note {}", userId, responses.size(), id);
+            return ResponseEntity.ok(responses);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e)
+        {
+            logger.error("Failed to get revisions for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get note revision", description = "Get the content of a note at a given revision")
+    @GetMapping("/{id}/revisions/{revision}")
+    public ResponseEntity<NoteRevisionResponse> getNoteRevision(@PathVariable Long id, @PathVariable Integer revision) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.debug("User {} is requesting revision {} of note {}", userId, revision, id);
+        try {
+            noteAutosaveBuffer.flush(id);
+            return ResponseEntity.ok(noteService.getNoteRevision(userId, id, revision));
+        } catch (NoteNotFoundException | NoteRevisionNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e)
+        {
+            logger.error("Failed to get revision {} for user {} (noteId={}): {}", revision, userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Restore note revision", description = "Restore a note to a previous revision")
+    @PostMapping("/{id}/revisions/{revision}/restore")
+    public ResponseEntity<NoteResponse> restoreNoteRevision(@PathVariable Long id, @PathVariable Integer revision) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is restoring note {} to revision {}", userId, id, revision);
+        try {
+            noteAutosaveBuffer.flush(id);
+            NoteResponse response = noteService.restoreNoteRevision(userId, id, revision);
+            logger.info("User {} restored note {} to revision {}", userId, id, revision);
+            return withETag(ResponseEntity.ok(), response.getVersion()).body(response);
+        } catch (NoteNotFoundException | NoteRevisionNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e)
+        {
+            logger.error("Failed to restore revision {} for user {} (noteId={}): {}", revision, userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version != null ? builder.eTag(String.valueOf(version)) : builder;
+    }
+
+    /** Reads the note version out of an If-Match value such as {@code "3"} or {@code W/"3"}. */
+    private static Long parseETag(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        return Long.valueOf(value.replace("\"", ""));
+    }
 }
@@ -0,0 +1,36 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.service.NoteEventBroadcaster;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Note Events Controller", description = "Server-Sent Events stream of the user's note changes")
+public class NoteEventController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventController.class);
+
+    private final NoteEventBroadcaster noteEventBroadcaster;
+
+    public NoteEventController(NoteEventBroadcaster noteEventBroadcaster) {
+        this.noteEventBroadcaster = noteEventBroadcaster;
+    }
+
+    @Operation(summary = "Subscribe to note changes",
+            description = "Emits created/updated/deleted events. Send Last-Event-ID on reconnect to replay missed events; " +
+                    "a 'resync' event means the client must refetch its notes")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} subscribed to note events", userId);
+        return noteEventBroadcaster.subscribe(userId, lastEventId != null ? lastEventId : lastEventIdParam);
+    }
+}
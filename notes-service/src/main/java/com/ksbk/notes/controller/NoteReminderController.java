@@ -0,0 +1,69 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.ReminderRequest;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.service.NoteReminderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Note Reminders Controller", description = "Set due dates and reminders on notes")
+public class NoteReminderController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteReminderController.class);
+
+    private final NoteReminderService noteReminderService;
+
+    public NoteReminderController(NoteReminderService noteReminderService) {
+        this.noteReminderService = noteReminderService;
+    }
+
+    @Operation(summary = "Set reminder", description = "Set the due date and reminder time of a note; "
+            + "the reminder is pushed to open event streams and mailed when it fires")
+    @PutMapping("/{id}/reminder")
+    public ResponseEntity<NoteResponse> setReminder(@PathVariable Long id, @RequestBody ReminderRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is setting a reminder on note {}", userId, id);
+        try {
+            NoteResponse response = noteReminderService.setReminder(userId, id, request);
+            return ResponseEntity.ok().eTag(String.valueOf(response.getVersion())).body(response);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            logger.info("Rejected reminder on note {} of user {}: {}", id, userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            logger.error("Failed to set reminder for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Clear reminder", description = "Remove the due date and reminder of a note")
+    @DeleteMapping("/{id}/reminder")
+    public ResponseEntity<NoteResponse> clearReminder(@PathVariable Long id) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is clearing the reminder of note {}", userId, id);
+        try {
+            NoteResponse response = noteReminderService.clearReminder(userId, id);
+            return ResponseEntity.ok().eTag(String.valueOf(response.getVersion())).body(response);
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            logger.error("Failed to clear reminder for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
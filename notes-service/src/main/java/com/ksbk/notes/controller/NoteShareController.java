@@ -0,0 +1,194 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.NoteGroupRequest;
+import com.ksbk.notes.DTO.NoteGroupResponse;
+import com.ksbk.notes.DTO.NoteShareRequest;
+import com.ksbk.notes.DTO.NoteShareResponse;
+import com.ksbk.notes.exception.DependencyUnavailableException;
+import com.ksbk.notes.exception.NoteGroupNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteShareNotFoundException;
+import com.ksbk.notes.service.NoteShareService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Note Sharing Controller", description = "Share notes with users and groups")
+public class NoteShareController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteShareController.class);
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final NoteShareService noteShareService;
+
+    public NoteShareController(NoteShareService noteShareService) {
+        this.noteShareService = noteShareService;
+    }
+
+    @Operation(summary = "Get note shares", description = "List who a note is shared with")
+    @GetMapping("/{id}/shares")
+    public ResponseEntity<List<NoteShareResponse>> getNoteShares(@PathVariable Long id) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(noteShareService.getNoteShares(userId, id));
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to get shares of note {} for user {}: {}", id, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Share note", description = "Grant a user or a group READ or WRITE access; "
+            + "sharing again with the same grantee changes the permission")
+    @PutMapping("/{id}/shares")
+    public ResponseEntity<NoteShareResponse> shareNote(@PathVariable Long id, @RequestBody NoteShareRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is sharing note {} with {} {} ({})", userId, id,
+                request.getGranteeType(), request.getGranteeId(), request.getPermission());
+        try {
+            return ResponseEntity.ok(noteShareService.shareNote(userId, id, request));
+        } catch (NoteNotFoundException | NoteGroupNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Concurrent share of note {} with {} {} lost the race", id, request.getGranteeType(), request.getGranteeId());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (DependencyUnavailableException e) {
+            logger.warn("Could not check grantee {} of note {}: {}", request.getGranteeId(), id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            logger.error("Failed to share note {} of user {}: {}", id, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Revoke share", description = "Remove one share of a note")
+    @DeleteMapping("/{id}/shares/{shareId}")
+    public ResponseEntity<Void> unshareNote(@PathVariable Long id, @PathVariable Long shareId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is revoking share {} of note {}", userId, shareId, id);
+        try {
+            noteShareService.unshareNote(userId, id, shareId);
+            return ResponseEntity.noContent().build();
+        } catch (NoteNotFoundException | NoteShareNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to revoke share {} of note {} for user {}: {}", shareId, id, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Shared with me", description = "Notes of other users shared with the current user, ordered by id; "
+            + "pass nextAfterId as afterId for the next page")
+    @GetMapping("/shared")
+    public ResponseEntity<NoteFilterResponse> getSharedNotes(@RequestParam(required = false) Long afterId,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            NoteFilterResponse response = noteShareService.getSharedNotes(userId, afterId, limit);
+            logger.debug("User {} listed {} of {} shared notes", userId, response.getNotes().size(), response.getTotal());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to list shared notes for user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get groups", description = "List the groups owned by the current user with their members")
+    @GetMapping("/groups")
+    public ResponseEntity<List<NoteGroupResponse>> getGroups() {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(noteShareService.getGroups(userId));
+        } catch (Exception e) {
+            logger.error("Failed to get groups of user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Create group")
+    @PostMapping("/groups")
+    public ResponseEntity<NoteGroupResponse> createGroup(@RequestBody NoteGroupRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is creating group '{}'", userId, request.getName());
+        try {
+            return ResponseEntity.ok(noteShareService.createGroup(userId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to create group for user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Delete group", description = "Delete a group and every share made to it")
+    @DeleteMapping("/groups/{groupId}")
+    public ResponseEntity<Void> deleteGroup(@PathVariable Long groupId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is deleting group {}", userId, groupId);
+        try {
+            noteShareService.deleteGroup(userId, groupId);
+            return ResponseEntity.noContent().build();
+        } catch (NoteGroupNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to delete group {} of user {}: {}", groupId, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Add group member")
+    @PutMapping("/groups/{groupId}/members/{memberId}")
+    public ResponseEntity<NoteGroupResponse> addGroupMember(@PathVariable Long groupId, @PathVariable Long memberId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is adding user {} to group {}", userId, memberId, groupId);
+        try {
+            return ResponseEntity.ok(noteShareService.addGroupMember(userId, groupId, memberId));
+        } catch (NoteGroupNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (DependencyUnavailableException e) {
+            logger.warn("Could not check user {} before adding them to group {}: {}", memberId, groupId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            logger.error("Failed to add user {} to group {} of user {}: {}", memberId, groupId, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Remove group member")
+    @DeleteMapping("/groups/{groupId}/members/{memberId}")
+    public ResponseEntity<NoteGroupResponse> removeGroupMember(@PathVariable Long groupId, @PathVariable Long memberId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is removing user {} from group {}", userId, memberId, groupId);
+        try {
+            return ResponseEntity.ok(noteShareService.removeGroupMember(userId, groupId, memberId));
+        } catch (NoteGroupNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to remove user {} from group {} of user {}: {}", memberId, groupId, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
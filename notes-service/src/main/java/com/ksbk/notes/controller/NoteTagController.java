@@ -0,0 +1,125 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.TagCountResponse;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteTagLimitExceededException;
+import com.ksbk.notes.service.NoteAutosaveBuffer;
+import com.ksbk.notes.service.NoteTagService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Note Tags Controller", description = "Tag notes and filter them by tag expressions")
+public class NoteTagController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTagController.class);
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final NoteTagService noteTagService;
+
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+
+    public NoteTagController(NoteTagService noteTagService, NoteAutosaveBuffer noteAutosaveBuffer) {
+        this.noteTagService = noteTagService;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
+    }
+
+    @Operation(summary = "Get note tags", description = "List the tags of a note")
+    @GetMapping("/{id}/tags")
+    public ResponseEntity<List<String>> getNoteTags(@PathVariable Long id) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(noteTagService.getNoteTags(userId, id));
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to get tags for user {} (noteId={}): {}", userId, id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Tag note", description = "Attach a tag to a note; tagging twice is a no-op")
+    @PutMapping("/{id}/tags/{tag}")
+    public ResponseEntity<List<String>> addTag(@PathVariable Long id, @PathVariable String tag) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is tagging note {} with '{}'", userId, id, tag);
+        try {
+            return ResponseEntity.ok(noteTagService.addTag(userId, id, tag));
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (NoteTagLimitExceededException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to tag note {} of user {} with '{}': {}", id, userId, tag, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Untag note", description = "Remove a tag from a note")
+    @DeleteMapping("/{id}/tags/{tag}")
+    public ResponseEntity<List<String>> removeTag(@PathVariable Long id, @PathVariable String tag) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is removing tag '{}' from note {}", userId, tag, id);
+        try {
+            return ResponseEntity.ok(noteTagService.removeTag(userId, id, tag));
+        } catch (NoteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to untag note {} of user {} ('{}'): {}", id, userId, tag, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get tags", description = "List all tags of the user with the number of notes carrying each")
+    @GetMapping("/tags")
+    public ResponseEntity<List<TagCountResponse>> getUserTags() {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(noteTagService.getUserTags(userId));
+        } catch (Exception e) {
+            logger.error("Failed to get tags of user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Filter notes", description = "Filter notes by a tag expression such as "
+            + "'work & (urgent | review) & !done' and/or a status, ordered by id; pass nextAfterId as afterId for the next page")
+    @GetMapping("/filter")
+    public ResponseEntity<NoteFilterResponse> filterNotes(@RequestParam(required = false) String tags,
+                                                          @RequestParam(required = false) ENoteStatus status,
+                                                          @RequestParam(required = false) Long afterId,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.debug("User {} is filtering notes by tags '{}' and status {}", userId, tags, status);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            noteAutosaveBuffer.flushUser(userId);
+            NoteFilterResponse response = noteTagService.filterNotes(userId, tags, status, afterId, limit);
+            logger.info("User {} filtered notes by tags '{}' and status {}: {} matches", userId, tags, status, response.getTotal());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.info("Rejected tag filter '{}' of user {}: {}", tags, userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Tag filter failed for user {} (tags='{}'): {}", userId, tags, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.ImportJobResponse;
+import com.ksbk.notes.exception.ImportCapacityExceededException;
+import com.ksbk.notes.exception.ImportJobNotFoundException;
+import com.ksbk.notes.service.NoteAutosaveBuffer;
+import com.ksbk.notes.service.NoteTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Notes Transfer Controller", description = "Bulk export and import of a user's notes")
+public class NoteTransferController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTransferController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final NoteTransferService noteTransferService;
+
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+
+    public NoteTransferController(NoteTransferService noteTransferService, NoteAutosaveBuffer noteAutosaveBuffer) {
+        this.noteTransferService = noteTransferService;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
+    }
+
+    @Operation(summary = "Export notes", description = "Streams all notes of the user as NDJSON or as a zipped Markdown tree")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(@RequestParam(defaultValue = "ndjson") String format) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is exporting notes as {}", userId, format);
+        noteAutosaveBuffer.flushUser(userId);
+
+        if ("markdown".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = outputStream -> noteTransferService.exportMarkdownZip(userId, outputStream);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename("notes.zip").build().toString())
+                    .body(body);
+        }
+        if (!"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = outputStream -> noteTransferService.exportNdjson(userId, outputStream);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("notes.ndjson").build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "Import notes", description = "Imports NDJSON notes in batches; pass jobId to resume an interrupted import")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ImportJobResponse> importNotes(@RequestParam(required = false) Long jobId, HttpServletRequest request) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("User {} is importing notes (jobId={})", userId, jobId);
+        try (InputStream body = request.getInputStream()) {
+            ImportJobResponse response = noteTransferService.importNdjson(userId, jobId, body);
+            logger.info("User {} import job {} finished with status {}", userId, response.getId(), response.getStatus());
+            return ResponseEntity.ok(response);
+        } catch (ImportJobNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ImportCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30").build();
+        } catch (Exception e) {
+            logger.error("Failed to import notes for user {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Import progress", description = "Get progress of an import job")
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable Long jobId) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try {
+            return ResponseEntity.ok(noteTransferService.getImportJob(userId, jobId));
+        } catch (ImportJobNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to get import job {} for user {}: {}", jobId, userId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.SerializationBenchmarkReport;
+import com.ksbk.notes.entity.ESerializationPayload;
+import com.ksbk.notes.service.SerializationBenchmark;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/serialization")
+@Tag(name = "Serialization Controller", description = "Payload size and encoding cost of JSON, gzip, CBOR and Smile (admin only)")
+public class SerializationBenchmarkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializationBenchmarkController.class);
+
+    private static final int MAX_ITEMS = 10_000;
+
+    private static final int MAX_ITERATIONS = 100_000;
+
+    private final SerializationBenchmark serializationBenchmark;
+
+    public SerializationBenchmarkController(SerializationBenchmark serializationBenchmark) {
+        this.serializationBenchmark = serializationBenchmark;
+    }
+
+    @Operation(summary = "Run benchmark", description = "Encode and decode a list of items notes or users iterations times "
+            + "in every format, e.g. payload=NOTES&items=100&iterations=2000; one run at a time")
+    @PostMapping("/benchmark")
+    public ResponseEntity<List<SerializationBenchmarkReport>> runBenchmark(@RequestParam ESerializationPayload payload,
+                                                                           @RequestParam(defaultValue = "100") int items,
+                                                                           @RequestParam(defaultValue = "2000") int iterations) {
+        if (items < 1 || items > MAX_ITEMS || iterations < 1 || iterations > MAX_ITERATIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Admin {} started a serialization benchmark: {} x{}, {} iterations",
+                SecurityContextHolder.getContext().getAuthentication().getName(), payload, items, iterations);
+        try {
+            List<SerializationBenchmarkReport> reports = serializationBenchmark.run(payload, items, iterations);
+            return reports != null ? ResponseEntity.ok(reports) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            logger.error("Serialization benchmark failed: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.UsageBackfillStatus;
+import com.ksbk.notes.DTO.UsageRollupPoint;
+import com.ksbk.notes.entity.ERollupGranularity;
+import com.ksbk.notes.entity.EUsageMetric;
+import com.ksbk.notes.service.UsageRollupBackfill;
+import com.ksbk.notes.service.UsageRollups;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/analytics/notes")
+@Tag(name = "Usage Analytics Controller", description = "Hourly and daily note usage rollups (admin only)")
+public class UsageAnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageAnalyticsController.class);
+
+    private final UsageRollups usageRollups;
+
+    private final UsageRollupBackfill usageRollupBackfill;
+
+    public UsageAnalyticsController(UsageRollups usageRollups, UsageRollupBackfill usageRollupBackfill) {
+        this.usageRollups = usageRollups;
+        this.usageRollupBackfill = usageRollupBackfill;
+    }
+
+    @Operation(summary = "Get rollups", description = "Buckets of one metric in [from, to), e.g. "
+            + "metric=NOTE_STATUS&dimension=FINISHED&granularity=DAY&from=2025-01-01T00:00&to=2025-02-01T00:00")
+    @GetMapping
+    public ResponseEntity<List<UsageRollupPoint>> getRollups(
+            @RequestParam EUsageMetric metric,
+            @RequestParam(required = false) String dimension,
+            @RequestParam(defaultValue = "HOUR") ERollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(usageRollups.range(metric, dimension, granularity, from, to));
+        } catch (IllegalArgumentException e) {
+            logger.info("Rejected rollup query {} {} {} - {}: {}", metric, granularity, from, to, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Rollup query {} {} {} - {} failed: {}", metric, granularity, from, to, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Start backfill", description = "Rebuild historical rollups for whole days covering [from, to) "
+            + "from the notes table, in chunks, in the background")
+    @PostMapping("/backfill")
+    public ResponseEntity<UsageBackfillStatus> startBackfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        logger.info("Admin {} started a usage rollup backfill for {} - {}",
+                SecurityContextHolder.getContext().getAuthentication().getName(), from, to);
+        try {
+            UsageBackfillStatus status = usageRollupBackfill.start(from, to);
+            if (status == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(usageRollupBackfill.getStatus());
+            }
+            return ResponseEntity.accepted().body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get backfill status", description = "Progress of the last backfill")
+    @GetMapping("/backfill")
+    public ResponseEntity<UsageBackfillStatus> getBackfillStatus() {
+        UsageBackfillStatus status = usageRollupBackfill.getStatus();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+}
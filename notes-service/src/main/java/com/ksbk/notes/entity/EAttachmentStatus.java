@@ -0,0 +1,6 @@
+package com.ksbk.notes.entity;
+
+public enum EAttachmentStatus {
+    UPLOADING,
+    COMPLETED
+}
@@ -0,0 +1,6 @@
+package com.ksbk.notes.entity;
+
+/** What a cross-replica cache invalidation refers to. */
+public enum ECacheEntity {
+    NOTE
+}
@@ -0,0 +1,8 @@
+package com.ksbk.notes.entity;
+
+public enum EImportStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.ksbk.notes.entity;
+
+public enum ENoteEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    REMINDER
+}
@@ -0,0 +1,8 @@
+package com.ksbk.notes.entity;
+
+public enum ESerializationFormat {
+    JSON,
+    GZIP_JSON,
+    CBOR,
+    SMILE
+}
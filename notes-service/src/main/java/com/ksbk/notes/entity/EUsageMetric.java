@@ -0,0 +1,9 @@
+package com.ksbk.notes.entity;
+
+public enum EUsageMetric {
+    NOTE_CREATED,
+    NOTE_UPDATED,
+    NOTE_DELETED,
+    /** A note entered the status given as the dimension. */
+    NOTE_STATUS
+}
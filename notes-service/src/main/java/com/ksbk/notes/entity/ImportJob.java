@@ -0,0 +1,46 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk note import. {@code processedLines} is committed together with every
+ * inserted batch, so an interrupted import can be resumed by re-uploading the same file.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "import_jobs")
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    private EImportStatus status = EImportStatus.RUNNING;
+
+    @Column(name = "processed_lines", nullable = false)
+    private Long processedLines = 0L;
+
+    @Column(name = "imported_count", nullable = false)
+    private Long importedCount = 0L;
+
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount = 0L;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.ksbk.notes.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.PartitionKey;
 
 import java.time.LocalDateTime;
 
@@ -16,7 +17,7 @@ public class Note {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 50)
+    @Column(nullable = false, length = 200)
     private String title;
 
     @Column(length = 250)
@@ -31,6 +32,35 @@ public class Note {
     @Enumerated(EnumType.STRING)
     private ENoteStatus noteStatus = ENoteStatus.CREATED;
 
+    /**
+     * The table is hash partitioned on this column; marking it as the partition key makes
+     * Hibernate add it to UPDATE and DELETE statements so Postgres can prune partitions.
+     */
+    @PartitionKey
     @Column(name = "user_id", nullable = false)
     private Long userId;
+
+    @Column(name = "revision")
+    private Integer revision;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
+    @Column(name = "due_at")
+    private LocalDateTime dueAt;
+
+    @Column(name = "remind_at")
+    private LocalDateTime remindAt;
+
+    /**
+     * Set only by the reminder dispatcher's conditional UPDATE, never written back by Hibernate,
+     * so saving a note loaded before its reminder fired cannot re-arm the reminder.
+     */
+    @Column(name = "reminded_at", insertable = false, updatable = false)
+    private LocalDateTime remindedAt;
+
+    /** Size of the body in UTF-8 bytes; the body itself lives in {@code note_body_chunks}, see NoteBodyStore. */
+    @Column(name = "body_size", nullable = false)
+    private Long bodySize = 0L;
 }
@@ -0,0 +1,55 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Attachment metadata lives in its own table and is not mapped onto {@link Note},
+ * so note listings never join or fetch it. File content is kept in object storage.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_attachments")
+public class NoteAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks;
+
+    @Column(name = "object_name", nullable = false)
+    private String objectName;
+
+    @Enumerated(EnumType.STRING)
+    private EAttachmentStatus status = EAttachmentStatus.UPLOADING;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,21 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@IdClass(NoteGroupMemberId.class)
+@Table(name = "note_group_members")
+public class NoteGroupMember {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+}
@@ -0,0 +1,15 @@
+package com.ksbk.notes.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteGroupMemberId implements Serializable {
+    private Long groupId;
+    private Long userId;
+}
@@ -0,0 +1,60 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a note's history. Every {@code notes.revisions.snapshot-interval}-th revision
+ * stores the full content, the ones in between store a compressed delta against the previous
+ * revision (see {@code NoteRevisionCodec}).
+ * <p>
+ * The id is assigned by the application, and {@link #isNew()} lets Spring Data persist the row
+ * without a preceding SELECT, so the INSERT is simply flushed with the note UPDATE.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@IdClass(NoteRevisionId.class)
+@Table(name = "note_revisions")
+public class NoteRevision implements Persistable<NoteRevisionId> {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Id
+    @Column(name = "revision")
+    private Integer revision;
+
+    @Column(nullable = false)
+    private boolean snapshot;
+
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean newRevision = true;
+
+    @Override
+    public NoteRevisionId getId() {
+        return new NoteRevisionId(noteId, revision);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRevision;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRevision = false;
+    }
+}
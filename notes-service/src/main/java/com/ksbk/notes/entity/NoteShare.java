@@ -0,0 +1,42 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Grants a user, or every member of a group, read or write access to a note.
+ * {@code ownerId} is denormalized from the note so a user's shares can be listed without joining {@code notes}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_shares")
+public class NoteShare {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "grantee_type", nullable = false, length = 8)
+    private EShareGrantee granteeType;
+
+    @Column(name = "grantee_id", nullable = false)
+    private Long granteeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "permission", nullable = false, length = 8)
+    private ESharePermission permission;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
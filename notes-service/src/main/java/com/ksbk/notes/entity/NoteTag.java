@@ -0,0 +1,34 @@
+package com.ksbk.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A tag attached to a note. Tags are normalized to lower case before they are stored.
+ * {@code userId} is denormalized from the note so a user's whole tag set can be loaded
+ * without joining {@code notes}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@IdClass(NoteTagId.class)
+@Table(name = "note_tags")
+public class NoteTag {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Id
+    @Column(name = "tag", length = 50)
+    private String tag;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
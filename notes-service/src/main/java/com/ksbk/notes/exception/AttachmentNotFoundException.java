@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class AttachmentNotFoundException extends Exception{
+    public AttachmentNotFoundException(Long message){super(String.valueOf(message));}
+}
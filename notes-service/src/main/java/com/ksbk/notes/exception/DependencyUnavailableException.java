@@ -0,0 +1,11 @@
+package com.ksbk.notes.exception;
+
+public class DependencyUnavailableException extends RuntimeException {
+    public DependencyUnavailableException(String message) {
+        super(message);
+    }
+
+    public DependencyUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
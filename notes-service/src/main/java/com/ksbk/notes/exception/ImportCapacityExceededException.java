@@ -0,0 +1,7 @@
+package com.ksbk.notes.exception;
+
+public class ImportCapacityExceededException extends RuntimeException {
+    public ImportCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class ImportJobNotFoundException extends Exception{
+    public ImportJobNotFoundException(Long message){super(String.valueOf(message));}
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteGroupNotFoundException extends Exception{
+    public NoteGroupNotFoundException(Long message){super(String.valueOf(message));}
+}
@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteShareNotFoundException extends Exception{
+    public NoteShareNotFoundException(Long message){super(String.valueOf(message));}
+}
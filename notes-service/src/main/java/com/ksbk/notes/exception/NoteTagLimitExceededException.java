@@ -0,0 +1,5 @@
+package com.ksbk.notes.exception;
+
+public class NoteTagLimitExceededException extends Exception{
+    public NoteTagLimitExceededException(Long message){super(String.valueOf(message));}
+}
@@ -1,5 +1,7 @@
 package com.ksbk.notes.filter;
 
+import com.ksbk.common.utils.GatewayIdentity;
+import com.ksbk.notes.service.TokenRevocationList;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
@@ -7,6 +9,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -16,6 +20,8 @@ import org.springframework.beans.factory.annotation.Value;
 import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 
 @Component
@@ -23,14 +29,43 @@ public class JwtNotesFilter extends OncePerRequestFilter {
     @Value("${app.jwtAccessSecret}")
     private String jwtAccessSecret;
 
+    private final GatewayIdentity gatewayIdentity;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    public JwtNotesFilter(GatewayIdentity gatewayIdentity, TokenRevocationList tokenRevocationList) {
+        this.gatewayIdentity = gatewayIdentity;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // Behind the gateway the token has already been verified; trust its signed identity instead.
+        GatewayIdentity.Identity identity = gatewayIdentity.verify(request::getHeader);
         String header = request.getHeader("Authorization");
-        if(header != null && header.startsWith("Bearer ")) {
+        if (identity != null) {
+            if (tokenRevocationList.isRevoked(identity.tokenId())) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            List<GrantedAuthority> authorities = identity.roles().stream()
+                    .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                    .toList();
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(identity.userId(), null, authorities);
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } else if(header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            Long userId = getUserIdFromJwtToken(token);
+            Claims claims = getClaimsFromJwtToken(token);
+            if (tokenRevocationList.isRevoked(claims.getId())) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            Long userId = claims.get("user_id", Long.class);
             if(userId != null){
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userId, null, null);
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userId, null, getAuthorities(claims));
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -38,14 +73,25 @@ public class JwtNotesFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private Long getUserIdFromJwtToken(String token) {
+    private Claims getClaimsFromJwtToken(String token) {
         SecretKey key = Keys.hmacShaKeyFor(jwtAccessSecret.getBytes(StandardCharsets.UTF_8));
-        Claims claims = Jwts.parser()
+        return Jwts.parser()
                 .setSigningKey(key)
                 .build()
                 .parseClaimsJws(token)
                 .getBody();
-        return claims.get("user_id", Long.class);
+    }
+
+    /** auth-service serialises the user's authorities as [{"authority": "ROLE_USER"}]. */
+    private List<GrantedAuthority> getAuthorities(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> roles)) {
+            return List.of();
+        }
+        return roles.stream()
+                .map(role -> role instanceof Map<?, ?> map ? map.get("authority") : role)
+                .filter(authority -> authority != null)
+                .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority.toString()))
+                .toList();
     }
 
 }
@@ -0,0 +1,14 @@
+package com.ksbk.notes.mapper;
+
+import com.ksbk.notes.DTO.AttachmentResponse;
+import com.ksbk.notes.entity.NoteAttachment;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface AttachmentMapper {
+    @Mapping(source = "createdAt", target = "createdAt", dateFormat = "yyyy-MM-dd HH:mm")
+    @Mapping(source = "completedAt", target = "completedAt", dateFormat = "yyyy-MM-dd HH:mm")
+    AttachmentResponse attachmentToAttachmentResponse(NoteAttachment attachment);
+}
@@ -0,0 +1,14 @@
+package com.ksbk.notes.mapper;
+
+import com.ksbk.notes.DTO.ImportJobResponse;
+import com.ksbk.notes.entity.ImportJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ImportJobMapper {
+    @Mapping(source = "createdAt", target = "createdAt", dateFormat = "yyyy-MM-dd HH:mm:ss")
+    @Mapping(source = "updatedAt", target = "updatedAt", dateFormat = "yyyy-MM-dd HH:mm:ss")
+    ImportJobResponse importJobToImportJobResponse(ImportJob job);
+}
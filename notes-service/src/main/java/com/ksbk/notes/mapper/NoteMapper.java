@@ -11,5 +11,7 @@ public interface NoteMapper {
     @Mapping(source = "userId", target = "userId")
     @Mapping(source = "createdAt", target = "createdAt", dateFormat = "yyyy-MM-dd HH:mm")
     @Mapping(source = "updatedAt", target = "updatedAt", dateFormat = "yyyy-MM-dd HH:mm")
+    @Mapping(source = "dueAt", target = "dueAt", dateFormat = "yyyy-MM-dd HH:mm")
+    @Mapping(source = "remindAt", target = "remindAt", dateFormat = "yyyy-MM-dd HH:mm")
     NoteResponse noteToNoteResponse(Note note);
 }
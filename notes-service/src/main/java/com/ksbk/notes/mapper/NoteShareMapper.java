@@ -0,0 +1,18 @@
+package com.ksbk.notes.mapper;
+
+import com.ksbk.notes.DTO.NoteGroupResponse;
+import com.ksbk.notes.DTO.NoteShareResponse;
+import com.ksbk.notes.entity.NoteGroup;
+import com.ksbk.notes.entity.NoteShare;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface NoteShareMapper {
+    @Mapping(source = "createdAt", target = "createdAt", dateFormat = "yyyy-MM-dd HH:mm")
+    NoteShareResponse shareToShareResponse(NoteShare share);
+
+    @Mapping(source = "createdAt", target = "createdAt", dateFormat = "yyyy-MM-dd HH:mm")
+    NoteGroupResponse groupToGroupResponse(NoteGroup group);
+}
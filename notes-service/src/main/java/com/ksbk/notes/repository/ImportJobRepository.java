@@ -0,0 +1,12 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    Optional<ImportJob> findByIdAndUserId(Long id, Long userId);
+}
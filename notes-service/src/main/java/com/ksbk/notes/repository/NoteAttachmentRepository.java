@@ -0,0 +1,14 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.NoteAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteAttachmentRepository extends JpaRepository<NoteAttachment, Long> {
+    List<NoteAttachment> findByNoteIdAndUserId(Long noteId, Long userId);
+    Optional<NoteAttachment> findByIdAndNoteIdAndUserId(Long id, Long noteId, Long userId);
+}
@@ -0,0 +1,40 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.NoteGroupMember;
+import com.ksbk.notes.entity.NoteGroupMemberId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NoteGroupMemberRepository extends JpaRepository<NoteGroupMember, NoteGroupMemberId> {
+
+    @Query("SELECT m.userId FROM NoteGroupMember m WHERE m.groupId = :groupId ORDER BY m.userId")
+    List<Long> findUserIdsByGroupId(@Param("groupId") Long groupId);
+
+    @Query("SELECT m.groupId AS groupId, m.userId AS userId FROM NoteGroupMember m WHERE m.groupId IN :groupIds ORDER BY m.userId")
+    List<MemberRow> findRowsByGroupIdIn(@Param("groupIds") Collection<Long> groupIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO note_group_members (group_id, user_id) VALUES (:groupId, :userId) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM NoteGroupMember m WHERE m.groupId = :groupId AND m.userId = :userId")
+    int deleteMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM NoteGroupMember m WHERE m.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+
+    interface MemberRow {
+        Long getGroupId();
+        Long getUserId();
+    }
+}
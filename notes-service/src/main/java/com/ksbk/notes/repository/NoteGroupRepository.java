@@ -0,0 +1,16 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.NoteGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteGroupRepository extends JpaRepository<NoteGroup, Long> {
+
+    List<NoteGroup> findByOwnerIdOrderById(Long ownerId);
+
+    Optional<NoteGroup> findByIdAndOwnerId(Long id, Long ownerId);
+}
@@ -1,13 +1,20 @@
 package com.ksbk.notes.repository;
 
+import com.ksbk.notes.entity.ENoteStatus;
 import com.ksbk.notes.entity.Note;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
@@ -18,4 +25,26 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
             "LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(n.description) " +
             "LIKE LOWER(CONCAT('%', :query, '%')))")
     List<Note> searchByUserAndQuery(@Param("userId") Long userId, @Param("query") String query);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Note n WHERE n.userId = :userId ORDER BY n.id")
+    Stream<Note> streamByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n FROM Note n WHERE n.userId = :userId AND n.id IN :ids ORDER BY n.id")
+    List<Note> findByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT n.id AS id, n.noteStatus AS noteStatus FROM Note n WHERE n.userId = :userId")
+    List<NoteStatusRow> findStatusRowsByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Note n SET n.remindedAt = NULL WHERE n.id = :noteId AND n.userId = :userId")
+    void rearmReminder(@Param("noteId") Long noteId, @Param("userId") Long userId);
+
+    interface NoteStatusRow {
+        Long getId();
+        ENoteStatus getNoteStatus();
+    }
 }
@@ -0,0 +1,35 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.NoteRevision;
+import com.ksbk.notes.entity.NoteRevisionId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, NoteRevisionId> {
+
+    @Query("SELECT r.revision AS revision, r.snapshot AS snapshot, r.createdAt AS createdAt " +
+            "FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.revision DESC")
+    List<NoteRevisionSummary> findSummariesByNoteId(@Param("noteId") Long noteId);
+
+    List<NoteRevision> findByNoteIdAndRevisionBetweenOrderByRevisionAsc(Long noteId, Integer from, Integer to);
+
+    Optional<NoteRevision> findFirstByNoteIdAndSnapshotTrueAndRevisionLessThanEqualOrderByRevisionDesc(Long noteId, Integer revision);
+
+    @Modifying
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId")
+    void deleteByNoteId(@Param("noteId") Long noteId);
+
+    interface NoteRevisionSummary {
+        Integer getRevision();
+        boolean isSnapshot();
+        LocalDateTime getCreatedAt();
+    }
+}
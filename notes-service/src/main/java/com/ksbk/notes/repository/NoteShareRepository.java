@@ -0,0 +1,30 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.EShareGrantee;
+import com.ksbk.notes.entity.NoteShare;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteShareRepository extends JpaRepository<NoteShare, Long> {
+
+    List<NoteShare> findByNoteIdOrderById(Long noteId);
+
+    Optional<NoteShare> findByIdAndNoteId(Long id, Long noteId);
+
+    Optional<NoteShare> findByNoteIdAndGranteeTypeAndGranteeId(Long noteId, EShareGrantee granteeType, Long granteeId);
+
+    @Modifying
+    @Query("DELETE FROM NoteShare s WHERE s.noteId = :noteId")
+    void deleteByNoteId(@Param("noteId") Long noteId);
+
+    @Modifying
+    @Query("DELETE FROM NoteShare s WHERE s.granteeType = com.ksbk.notes.entity.EShareGrantee.GROUP AND s.granteeId = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+}
@@ -0,0 +1,41 @@
+package com.ksbk.notes.repository;
+
+import com.ksbk.notes.entity.NoteTag;
+import com.ksbk.notes.entity.NoteTagId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NoteTagRepository extends JpaRepository<NoteTag, NoteTagId> {
+
+    @Query("SELECT t.tag FROM NoteTag t WHERE t.noteId = :noteId ORDER BY t.tag")
+    List<String> findTagsByNoteId(@Param("noteId") Long noteId);
+
+    long countByNoteId(Long noteId);
+
+    @Query("SELECT t.noteId AS noteId, t.tag AS tag FROM NoteTag t WHERE t.userId = :userId")
+    List<NoteTagRow> findRowsByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO note_tags (note_id, tag, user_id, created_at) VALUES (:noteId, :tag, :userId, now()) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("noteId") Long noteId, @Param("tag") String tag, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM NoteTag t WHERE t.noteId = :noteId AND t.tag = :tag")
+    int deleteTag(@Param("noteId") Long noteId, @Param("tag") String tag);
+
+    @Modifying
+    @Query("DELETE FROM NoteTag t WHERE t.noteId = :noteId")
+    void deleteByNoteId(@Param("noteId") Long noteId);
+
+    interface NoteTagRow {
+        Long getNoteId();
+        String getTag();
+    }
+}
@@ -0,0 +1,23 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.AttachmentInitRequest;
+import com.ksbk.notes.DTO.AttachmentResponse;
+import com.ksbk.notes.DTO.AttachmentUploadStatus;
+import com.ksbk.notes.entity.NoteAttachment;
+import com.ksbk.notes.exception.AttachmentNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface AttachmentService {
+    AttachmentResponse initUpload(Long userId, Long noteId, AttachmentInitRequest request) throws NoteNotFoundException;
+    void uploadChunk(Long userId, Long noteId, Long attachmentId, int index, InputStream stream, long length) throws Exception;
+    AttachmentUploadStatus getUploadStatus(Long userId, Long noteId, Long attachmentId) throws Exception;
+    AttachmentResponse completeUpload(Long userId, Long noteId, Long attachmentId) throws Exception;
+    List<AttachmentResponse> getNoteAttachments(Long userId, Long noteId);
+    NoteAttachment getCompletedAttachment(Long userId, Long noteId, Long attachmentId) throws AttachmentNotFoundException;
+    InputStream openRange(NoteAttachment attachment, long offset, long length) throws Exception;
+    void deleteAttachment(Long userId, Long noteId, Long attachmentId) throws Exception;
+    void deleteNoteAttachments(Long userId, Long noteId);
+}
@@ -0,0 +1,163 @@
+package com.ksbk.notes.service;
+
+import io.minio.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object storage access for note attachments. Every chunk is written as its own part object,
+ * and the parts are stitched together server side with a multipart compose once the upload is
+ * complete, so no attachment is ever held in the service heap.
+ */
+@Service
+public class AttachmentStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentStorageService.class);
+
+    private static final String PARTS_SUFFIX = ".parts/";
+
+    @Value("${minio.bucket}")
+    private String bucket;
+
+    private final MinioClient minioClient;
+
+    public AttachmentStorageService(MinioClient minioClient) {
+        this.minioClient = minioClient;
+    }
+
+    @PostConstruct
+    public void ensureBucket() {
+        try {
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+                logger.info("Created attachments bucket: {}", bucket);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not verify attachments bucket {}: {}", bucket, e.getMessage());
+        }
+    }
+
+    public void putChunk(String objectName, int index, InputStream stream, long length) throws Exception {
+        String partName = partName(objectName, index);
+        try {
+            logger.debug("Uploading chunk {} of {} ({} bytes)", index, objectName, length);
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(partName)
+                            .stream(stream, length, -1)
+                            .build()
+            );
+        } catch (Exception e) {
+            logger.error("Error uploading chunk to MinIO: {}", partName, e);
+            throw e;
+        }
+    }
+
+    public List<Integer> listChunks(String objectName) throws Exception {
+        try {
+            List<Integer> chunks = new ArrayList<>();
+            Iterable<Result<Item>> results = minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucket)
+                            .prefix(objectName + PARTS_SUFFIX)
+                            .recursive(true)
+                            .build()
+            );
+            for (Result<Item> result : results) {
+                String name = result.get().objectName();
+                chunks.add(Integer.parseInt(name.substring(name.lastIndexOf('/') + 1)));
+            }
+            chunks.sort(null);
+            return chunks;
+        } catch (Exception e) {
+            logger.error("Error listing chunks in MinIO: {}", objectName, e);
+            throw e;
+        }
+    }
+
+    public void compose(String objectName, int totalChunks, String contentType) throws Exception {
+        try {
+            logger.info("Composing {} chunks into {}", totalChunks, objectName);
+            List<ComposeSource> sources = new ArrayList<>(totalChunks);
+            for (int i = 0; i < totalChunks; i++) {
+                sources.add(ComposeSource.builder().bucket(bucket).object(partName(objectName, i)).build());
+            }
+            ComposeObjectArgs.Builder args = ComposeObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectName)
+                    .sources(sources);
+            if (contentType != null) {
+                args.headers(Map.of("Content-Type", contentType));
+            }
+            minioClient.composeObject(args.build());
+        } catch (Exception e) {
+            logger.error("Error composing attachment in MinIO: {}", objectName, e);
+            throw e;
+        }
+    }
+
+    public InputStream getRange(String objectName, long offset, long length) throws Exception {
+        try {
+            logger.debug("Fetching {} bytes at offset {} of {}", length, offset, objectName);
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(objectName)
+                            .offset(offset)
+                            .length(length)
+                            .build()
+            );
+        } catch (Exception e) {
+            logger.error("Error fetching attachment from MinIO: {}", objectName, e);
+            throw e;
+        }
+    }
+
+    public void removeChunks(String objectName, int totalChunks) throws Exception {
+        List<DeleteObject> parts = new ArrayList<>(totalChunks);
+        for (int i = 0; i < totalChunks; i++) {
+            parts.add(new DeleteObject(partName(objectName, i)));
+        }
+        removeAll(parts);
+    }
+
+    public void remove(String objectName, int totalChunks) throws Exception {
+        List<DeleteObject> objects = new ArrayList<>(totalChunks + 1);
+        objects.add(new DeleteObject(objectName));
+        for (int i = 0; i < totalChunks; i++) {
+            objects.add(new DeleteObject(partName(objectName, i)));
+        }
+        removeAll(objects);
+    }
+
+    private void removeAll(List<DeleteObject> objects) throws Exception {
+        try {
+            Iterable<Result<DeleteError>> errors = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder().bucket(bucket).objects(objects).build()
+            );
+            for (Result<DeleteError> error : errors) {
+                DeleteError deleteError = error.get();
+                logger.warn("Failed to delete {} from MinIO: {}", deleteError.objectName(), deleteError.message());
+            }
+        } catch (Exception e) {
+            logger.error("Error deleting objects from MinIO", e);
+            throw e;
+        }
+    }
+
+    private String partName(String objectName, int index) {
+        return objectName + PARTS_SUFFIX + String.format("%05d", index);
+    }
+}
@@ -1,13 +1,256 @@
 package com.ksbk.notes.service;
 
+import com.ksbk.auth.api.ExistingUsersRequest;
+import com.ksbk.auth.api.GetUserRequest;
+import com.ksbk.auth.api.GetUsersRequest;
+import com.ksbk.auth.api.RevocationCursor;
+import com.ksbk.auth.api.RevokedTokensRequest;
+import com.ksbk.auth.api.RevokedTokensResponse;
+import com.ksbk.auth.api.TokenRevocationsGrpc;
+import com.ksbk.auth.api.User;
+import com.ksbk.auth.api.UserDirectoryGrpc;
 import com.ksbk.notes.DTO.UserResponse;
-import com.ksbk.notes.config.FeignClientInterceptorConfig;
-import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-
-@FeignClient(name = "auth-service", url = "http://auth-service:8082", configuration = FeignClientInterceptorConfig.class)
-public interface AuthServiceClient {
-    @GetMapping("/api/user/{userId}")
-    UserResponse getUserById(@PathVariable("userId") Long userId);
-}
\ No newline at end of file
+import com.ksbk.notes.entity.EAuthTransport;
+import com.ksbk.notes.exception.DependencyUnavailableException;
+import feign.FeignException;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User lookups in auth-service.
+ * <p>
+ * By default they go over the internal gRPC API: one long-lived HTTP/2 channel that all calls are
+ * multiplexed on, kept warm by keepalive pings, with a deadline on every call. Batch lookups are
+ * one call streaming the users back, chunked by {@code notes.auth.grpc.max-batch-size} ids.
+ * {@code notes.auth.transport=REST} switches back to the Feign client of the public endpoint,
+ * one HTTP/1.1 request per user.
+ * <p>
+ * Every call goes through the auth-service {@link DependencyGuard}; single-user lookups and
+ * existence checks are hedged. When the guard fails a lookup of the current user, as in
+ * {@code createNote}, the identity already verified from the JWT or the gateway headers stands in
+ * for the profile; other lookups fail with {@link DependencyUnavailableException}.
+ */
+@Service
+public class AuthServiceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthServiceClient.class);
+
+    private final AuthServiceRestClient restClient;
+
+    private final DependencyGuard guard;
+
+    private final EAuthTransport transport;
+
+    private final ManagedChannel channel;
+
+    private final UserDirectoryGrpc.UserDirectoryBlockingStub stub;
+
+    private final TokenRevocationsGrpc.TokenRevocationsBlockingStub revocationsStub;
+
+    @Value("${notes.auth.grpc.deadline-ms:300}")
+    private long deadlineMs;
+
+    @Value("${notes.auth.grpc.batch-deadline-ms:2000}")
+    private long batchDeadlineMs;
+
+    @Value("${notes.auth.grpc.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    public AuthServiceClient(AuthServiceRestClient restClient, DependencyGuard guard,
+                             @Value("${notes.auth.transport:GRPC}") EAuthTransport transport,
+                             @Value("${notes.auth.grpc.target:dns:///auth-service:9092}") String target,
+                             @Value("${notes.auth.grpc.keepalive-ms:30000}") long keepAliveMs,
+                             @Value("${notes.auth.grpc.connect-timeout-ms:250}") int connectTimeoutMs) {
+        this.restClient = restClient;
+        this.guard = guard;
+        this.transport = transport;
+        // Created eagerly but connects lazily, on the first call. With several auth-service addresses
+        // behind the name, round robin lets a hedged attempt land on another instance.
+        this.channel = NettyChannelBuilder.forTarget(target)
+                .usePlaintext()
+                .defaultLoadBalancingPolicy("round_robin")
+                .withOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .keepAliveTime(keepAliveMs, TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(5, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true)
+                .build();
+        this.stub = UserDirectoryGrpc.newBlockingStub(channel);
+        this.revocationsStub = TokenRevocationsGrpc.newBlockingStub(channel);
+        logger.info("Auth-service lookups use {} (gRPC target {})", transport, target);
+    }
+
+    public EAuthTransport getTransport() {
+        return transport;
+    }
+
+    /** The user, or null when there is no such user. */
+    public UserResponse getUserById(Long userId) {
+        try {
+            return getUserById(userId, transport);
+        } catch (DependencyUnavailableException e) {
+            UserResponse identity = verifiedIdentity(userId);
+            if (identity == null) {
+                throw e;
+            }
+            guard.recordFallback();
+            logger.warn("Auth-service lookup of user {} failed ({}), using the verified token identity", userId, e.getMessage());
+            return identity;
+        }
+    }
+
+    public UserResponse getUserById(Long userId, EAuthTransport via) {
+        return guard.callHedged(() -> lookupUser(userId, via));
+    }
+
+    private UserResponse lookupUser(Long userId, EAuthTransport via) {
+        if (via == EAuthTransport.REST) {
+            try {
+                return restClient.getUserById(userId);
+            } catch (FeignException.NotFound | FeignException.BadRequest e) {
+                // The public endpoint answers 400 for an unknown user.
+                return null;
+            }
+        }
+        try {
+            return toResponse(stub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                    .getUser(GetUserRequest.newBuilder().setUserId(userId).build()));
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                return null;
+            }
+            logger.error("gRPC lookup of user {} failed: {}", userId, e.getStatus());
+            throw e;
+        }
+    }
+
+    /** The existing users among the given ids, by id; unknown ids are missing from the map. */
+    public Map<Long, UserResponse> getUsersByIds(Collection<Long> userIds) {
+        return getUsersByIds(userIds, transport);
+    }
+
+    public Map<Long, UserResponse> getUsersByIds(Collection<Long> userIds, EAuthTransport via) {
+        return guard.call(() -> lookupUsers(userIds, via));
+    }
+
+    private Map<Long, UserResponse> lookupUsers(Collection<Long> userIds, EAuthTransport via) {
+        Map<Long, UserResponse> users = new HashMap<>();
+        if (via == EAuthTransport.REST) {
+            for (Long userId : new LinkedHashSet<>(userIds)) {
+                UserResponse user = lookupUser(userId, via);
+                if (user != null) {
+                    users.put(userId, user);
+                }
+            }
+            return users;
+        }
+        for (List<Long> chunk : chunks(userIds)) {
+            try {
+                Iterator<User> stream = stub.withDeadlineAfter(batchDeadlineMs, TimeUnit.MILLISECONDS)
+                        .getUsers(GetUsersRequest.newBuilder().addAllUserIds(chunk).build());
+                stream.forEachRemaining(user -> users.put(user.getId(), toResponse(user)));
+            } catch (StatusRuntimeException e) {
+                logger.error("gRPC batch lookup of {} users failed: {}", chunk.size(), e.getStatus());
+                throw e;
+            }
+        }
+        return users;
+    }
+
+    /** The subset of the given ids that belong to existing users. */
+    public Set<Long> existingUserIds(Collection<Long> userIds) {
+        return guard.callHedged(() -> checkExisting(userIds));
+    }
+
+    private Set<Long> checkExisting(Collection<Long> userIds) {
+        if (transport == EAuthTransport.REST) {
+            return lookupUsers(userIds, transport).keySet();
+        }
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            try {
+                existing.addAll(stub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                        .existingUsers(ExistingUsersRequest.newBuilder().addAllUserIds(chunk).build())
+                        .getUserIdsList());
+            } catch (StatusRuntimeException e) {
+                logger.error("gRPC existence check of {} users failed: {}", chunk.size(), e.getStatus());
+                throw e;
+            }
+        }
+        return existing;
+    }
+
+    public boolean userExists(Long userId) {
+        return existingUserIds(List.of(userId)).contains(userId);
+    }
+
+    /**
+     * Access tokens revoked after {@code sinceMs}, oldest first, at most {@code limit} of them;
+     * with a cursor, the ones after the token it names.
+     * Always over gRPC and not through the guard: it is polled in the background, where a failed
+     * poll is simply retried, and it must not count against the request path's circuit.
+     */
+    public RevokedTokensResponse revokedTokensSince(long sinceMs, RevocationCursor after, int limit) {
+        RevokedTokensRequest.Builder request = RevokedTokensRequest.newBuilder().setSinceMs(sinceMs).setLimit(limit);
+        if (after != null) {
+            request.setAfter(after);
+        }
+        return revocationsStub.withDeadlineAfter(batchDeadlineMs, TimeUnit.MILLISECONDS)
+                .getRevokedTokens(request.build());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!channel.shutdown().awaitTermination(5, TimeUnit.SECONDS)) {
+            channel.shutdownNow();
+        }
+    }
+
+    /** The current user as far as the request's verified token tells, when that is the user asked for. */
+    private static UserResponse verifiedIdentity(Long userId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !userId.equals(authentication.getPrincipal())) {
+            return null;
+        }
+        UserResponse identity = new UserResponse();
+        identity.setId(userId);
+        return identity;
+    }
+
+    private List<List<Long>> chunks(Collection<Long> userIds) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(userIds));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxBatchSize) {
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + maxBatchSize)));
+        }
+        return chunks;
+    }
+
+    private static UserResponse toResponse(User user) {
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setUsername(user.getUsername());
+        response.setEmail(user.getEmail());
+        return response;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.UserResponse;
+import com.ksbk.notes.config.FeignClientInterceptorConfig;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/** The public REST endpoint of auth-service. Used through {@link AuthServiceClient} when {@code notes.auth.transport=REST}. */
+@FeignClient(name = "auth-service", url = "${AUTH_SERVICE_URL:http://auth-service:8082}", configuration = FeignClientInterceptorConfig.class)
+public interface AuthServiceRestClient {
+    @GetMapping(value = "/api/user/{userId}", produces = {"application/cbor", MediaType.APPLICATION_JSON_VALUE})
+    UserResponse getUserById(@PathVariable("userId") Long userId);
+}
@@ -0,0 +1,129 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.AuthTransportBenchmarkReport;
+import com.ksbk.notes.entity.EAuthTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times user lookups against auth-service over one transport, to compare gRPC with the Feign
+ * client inside the running service rather than from outside through the gateway.
+ * <p>
+ * {@code concurrency} virtual threads share the calls; each call looks up all the given users,
+ * with one request per user over REST and one streaming call over gRPC. CPU is this process's
+ * CPU time over the run, so it includes everything else the instance did meanwhile; run it on an
+ * otherwise idle instance. A tenth of the calls are made first as an untimed warm-up.
+ */
+@Service
+public class AuthTransportBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthTransportBenchmark.class);
+
+    private final AuthServiceClient authServiceClient;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AuthTransportBenchmark(AuthServiceClient authServiceClient) {
+        this.authServiceClient = authServiceClient;
+    }
+
+    /** The report, or null when another run is in progress. */
+    public AuthTransportBenchmarkReport run(EAuthTransport transport, List<Long> userIds, int calls, int concurrency)
+            throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            execute(transport, userIds, Math.max(1, calls / 10), concurrency, null, new AtomicInteger());
+            long[] latencies = new long[calls];
+            AtomicInteger errors = new AtomicInteger();
+            long cpuBefore = processCpuTime();
+            long start = System.nanoTime();
+            execute(transport, userIds, calls, concurrency, latencies, errors);
+            long wallNanos = System.nanoTime() - start;
+            long cpuNanos = processCpuTime() - cpuBefore;
+
+            Arrays.sort(latencies);
+            AuthTransportBenchmarkReport report = new AuthTransportBenchmarkReport();
+            report.setTransport(transport.name());
+            report.setUsersPerCall(userIds.size());
+            report.setCalls(calls);
+            report.setConcurrency(concurrency);
+            report.setErrors(errors.get());
+            report.setWallMs(wallNanos / 1_000_000);
+            report.setCallsPerSecond(calls * 1e9 / wallNanos);
+            report.setP50Micros(percentile(latencies, 0.50));
+            report.setP90Micros(percentile(latencies, 0.90));
+            report.setP99Micros(percentile(latencies, 0.99));
+            report.setMaxMicros(latencies[calls - 1] / 1000);
+            report.setCpuMs(cpuNanos / 1_000_000);
+            report.setCpuMicrosPerCall(cpuNanos / 1000.0 / calls);
+            logger.info("Auth transport benchmark: {}", report);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** Makes {@code calls} lookups; records each latency when {@code latencies} is not null. */
+    private void execute(EAuthTransport transport, List<Long> userIds, int calls, int concurrency,
+                         long[] latencies, AtomicInteger errors) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int worker = 0; worker < concurrency; worker++) {
+                futures.add(workers.submit(() -> {
+                    for (int call = next.getAndIncrement(); call < calls; call = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        try {
+                            lookup(transport, userIds);
+                        } catch (Exception e) {
+                            if (errors.incrementAndGet() == 1) {
+                                logger.warn("Auth transport benchmark call failed: {}", e.getMessage());
+                            }
+                        }
+                        if (latencies != null) {
+                            latencies[call] = System.nanoTime() - start;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+    }
+
+    private void lookup(EAuthTransport transport, List<Long> userIds) {
+        if (userIds.size() == 1) {
+            authServiceClient.getUserById(userIds.get(0), transport);
+        } else {
+            authServiceClient.getUsersByIds(userIds, transport);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000;
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
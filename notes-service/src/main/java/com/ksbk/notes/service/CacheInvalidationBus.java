@@ -0,0 +1,207 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.CacheInvalidationEvent;
+import com.ksbk.notes.config.ShardingProperties;
+import com.ksbk.notes.entity.ECacheEntity;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tells the other replicas which cached data a transaction changed, over Postgres LISTEN/NOTIFY.
+ * <p>
+ * {@link #publish} sends a short message with {@code pg_notify} in the caller's transaction, so
+ * it is delivered when, and only if, the transaction commits. Every replica listens on its own
+ * connection, outside the pool, to each database notes are written to: every shard when sharding
+ * is on. Notifications are collected for {@code notes.cache-bus.batch-window-ms}, deduplicated and
+ * published locally as one {@link CacheInvalidationEvent}. Messages sent by this replica are
+ * skipped; its caches already follow the after-commit events.
+ * <p>
+ * Postgres does not keep notifications for a listener that is not connected, so whenever the
+ * listener (re)connects, the caches are flushed entirely instead.
+ */
+@Service
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    private record Target(String name, String url, String username, String password) {
+    }
+
+    /** Tells this replica's own messages apart from the others'. */
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final List<Target> targets = new ArrayList<>();
+
+    private final List<Thread> listeners = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @Value("${notes.cache-bus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notes.cache-bus.batch-window-ms:50}")
+    private int batchWindowMs;
+
+    /** How long the listener waits for notifications before it checks that its connection is alive. */
+    @Value("${notes.cache-bus.idle-check-ms:10000}")
+    private int idleCheckMs;
+
+    @Value("${notes.cache-bus.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    private final String channel;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                DataSourceProperties dataSourceProperties,
+                                ObjectProvider<ShardingProperties> shardingProperties,
+                                @Value("${notes.cache-bus.channel:notes_cache_invalidation}") String channel) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("notes.cache-bus.channel must be a lower-case SQL identifier: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.channel = channel;
+
+        ShardingProperties sharding = shardingProperties.getIfAvailable();
+        if (sharding != null && sharding.isEnabled()) {
+            for (int i = 0; i < sharding.getShards().size(); i++) {
+                ShardingProperties.Shard shard = sharding.getShards().get(i);
+                targets.add(new Target("shard-" + i, shard.getUrl(),
+                        shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.getUsername(),
+                        shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.getPassword()));
+            }
+        } else {
+            targets.add(new Target("primary", dataSourceProperties.getUrl(),
+                    dataSourceProperties.getUsername(), dataSourceProperties.getPassword()));
+        }
+    }
+
+    /** Tells the other replicas that the entity changed. Runs in the caller's transaction. */
+    public void publish(ECacheEntity entity, long id, long version, long ownerId) {
+        if (!enabled) {
+            return;
+        }
+        String payload = origin + " " + entity + " " + id + " " + version + " " + ownerId;
+        jdbcTemplate.query(NOTIFY_SQL, rs -> { }, channel, payload);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Cross-replica cache invalidation is disabled");
+            return;
+        }
+        running = true;
+        for (Target target : targets) {
+            listeners.add(Thread.ofPlatform().daemon().name("cache-invalidation-" + target.name())
+                    .start(() -> listen(target)));
+        }
+    }
+
+    /** The listeners notice within {@code idle-check-ms} and close their connections. */
+    @Override
+    public void stop() {
+        running = false;
+        listeners.forEach(Thread::interrupt);
+        listeners.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen(Target target) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(target.url(), target.username(), target.password())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection listener = connection.unwrap(PGConnection.class);
+                logger.info("Listening for cache invalidations on {} ({})", target.name(), channel);
+                // Anything committed while not listening is lost.
+                eventPublisher.publishEvent(new CacheInvalidationEvent(List.of(), true));
+
+                while (running) {
+                    PGNotification[] received = listener.getNotifications(idleCheckMs);
+                    if (received == null || received.length == 0) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    List<PGNotification> batch = new ArrayList<>(List.of(received));
+                    long deadline = System.currentTimeMillis() + batchWindowMs;
+                    for (long remaining = batchWindowMs; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                        PGNotification[] more = listener.getNotifications((int) remaining);
+                        if (more != null) {
+                            batch.addAll(List.of(more));
+                        }
+                    }
+                    dispatch(batch);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation listener on {} failed, reconnecting in {} ms: {}",
+                        target.name(), reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        logger.info("Stopped listening for cache invalidations on {}", target.name());
+    }
+
+    /** Publishes the batch with one invalidation per entity and owner, the one with the highest version. */
+    private void dispatch(List<PGNotification> batch) {
+        Map<String, CacheInvalidationEvent.Invalidation> latest = new LinkedHashMap<>();
+        for (PGNotification notification : batch) {
+            String[] fields = notification.getParameter().split(" ");
+            if (fields.length != 5 || fields[0].equals(origin)) {
+                continue;
+            }
+            try {
+                CacheInvalidationEvent.Invalidation invalidation = new CacheInvalidationEvent.Invalidation(
+                        ECacheEntity.valueOf(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                        Long.parseLong(fields[4]));
+                latest.merge(fields[1] + " " + fields[2] + " " + fields[4], invalidation,
+                        (previous, next) -> next.version() >= previous.version() ? next : previous);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Ignoring malformed cache invalidation '{}'", notification.getParameter());
+            }
+        }
+        if (!latest.isEmpty()) {
+            logger.debug("Applying {} cache invalidations from other replicas", latest.size());
+            eventPublisher.publishEvent(new CacheInvalidationEvent(new ArrayList<>(latest.values()), false));
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.config.ResilienceProperties;
+import com.ksbk.notes.exception.DependencyUnavailableException;
+import com.ksbk.notes.utils.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Calls to one remote dependency go through its guard, so a slow or failing dependency costs
+ * request threads a bounded amount of time instead of piling them up.
+ * <ul>
+ *     <li>Bulkhead: at most {@code maxConcurrentCalls} attempts in flight, including hedges and
+ *     cancelled attempts still running. A call waits up to {@code maxWaitMs} for a slot and is
+ *     rejected after that.</li>
+ *     <li>Circuit breaker over failed and slow calls, see {@link CircuitBreaker}. While it is open,
+ *     calls fail at once without touching the dependency.</li>
+ *     <li>Hedging for idempotent calls. When the first attempt has not answered within the
+ *     {@code hedgeQuantile} of recent latencies, a second attempt starts and the first answer
+ *     wins. A hedge only starts if the bulkhead has a slot free right away, so hedging never
+ *     queues and stops by itself when the dependency is saturated.</li>
+ * </ul>
+ * Every way a call can fail surfaces as {@link DependencyUnavailableException}; callers decide
+ * on a fallback. Metrics are tagged with the dependency name: {@code resilience.calls} by
+ * outcome, {@code resilience.call.latency}, {@code resilience.hedges} (fired, won),
+ * {@code resilience.circuit.state} (0 closed, 1 open, 2 half-open) and
+ * {@code resilience.bulkhead.available}.
+ */
+public class DependencyGuard implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGuard.class);
+
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private static final long HEDGE_DELAY_REFRESH_MS = 1000;
+
+    private final String name;
+
+    private final ResilienceProperties.Dependency settings;
+
+    private final Semaphore bulkhead;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final ExecutorService attempts = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+
+    private int latencyCount;
+
+    private volatile long hedgeDelayNanos;
+
+    private volatile long hedgeDelayComputedAt;
+
+    private final Counter succeeded;
+
+    private final Counter failed;
+
+    private final Counter rejected;
+
+    private final Counter shortCircuited;
+
+    private final Counter timedOut;
+
+    private final Counter hedgesFired;
+
+    private final Counter hedgesWon;
+
+    private final Counter fallbacks;
+
+    private final Timer latency;
+
+    public DependencyGuard(String name, ResilienceProperties.Dependency settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker(settings.getWindowSize(), settings.getMinimumCalls(),
+                settings.getFailureRateThreshold(), settings.getOpenMs(), settings.getHalfOpenCalls());
+        this.hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getInitialHedgeDelayMs());
+
+        this.succeeded = callCounter(meterRegistry, "success");
+        this.failed = callCounter(meterRegistry, "failure");
+        this.rejected = callCounter(meterRegistry, "rejected");
+        this.shortCircuited = callCounter(meterRegistry, "short_circuited");
+        this.timedOut = callCounter(meterRegistry, "timeout");
+        this.fallbacks = callCounter(meterRegistry, "fallback");
+        this.hedgesFired = Counter.builder("resilience.hedges").tag("dependency", name).tag("outcome", "fired")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("resilience.hedges").tag("dependency", name).tag("outcome", "won")
+                .register(meterRegistry);
+        this.latency = Timer.builder("resilience.call.latency").tag("dependency", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("resilience.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .tag("dependency", name).register(meterRegistry);
+        Gauge.builder("resilience.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("dependency", name).register(meterRegistry);
+    }
+
+    /** Runs one attempt of a call. */
+    public <T> T call(Supplier<T> attempt) {
+        return guarded(attempt, false);
+    }
+
+    /** Runs an idempotent call, with a second attempt when the first is slow. */
+    public <T> T callHedged(Supplier<T> attempt) {
+        return guarded(attempt, settings.isHedgeEnabled());
+    }
+
+    /** Counts a call the caller answered from a fallback after this guard failed it. */
+    public void recordFallback() {
+        fallbacks.increment();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void close() {
+        attempts.shutdownNow();
+    }
+
+    /**
+     * Each attempt holds a bulkhead slot for as long as it runs. A plain attempt gives it back when
+     * it returns; a hedged call hands its slot to the first attempt, see {@link #hedge}.
+     */
+    private <T> T guarded(Supplier<T> attempt, boolean hedged) {
+        try {
+            if (!bulkhead.tryAcquire(settings.getMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new DependencyUnavailableException(name + ": too many calls in flight");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException(name + ": interrupted waiting for a call slot", e);
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            shortCircuited.increment();
+            throw new DependencyUnavailableException(name + ": circuit open");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = hedged ? hedge(attempt) : direct(attempt);
+            long elapsed = System.nanoTime() - start;
+            circuitBreaker.onResult(elapsed > TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallMs()));
+            succeeded.increment();
+            return result;
+        } catch (TimeoutException e) {
+            circuitBreaker.onResult(true);
+            timedOut.increment();
+            throw new DependencyUnavailableException(name + ": no answer within " + settings.getCallTimeoutMs() + " ms", e);
+        } catch (RuntimeException e) {
+            circuitBreaker.onResult(true);
+            failed.increment();
+            throw new DependencyUnavailableException(name + ": " + e.getMessage(), e);
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** A plain attempt runs on the caller's thread; the transport's own timeouts bound it. */
+    private <T> T direct(Supplier<T> attempt) {
+        long start = System.nanoTime();
+        try {
+            T result = attempt.get();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Runs the attempts on their own threads. The first takes over the caller's slot and the hedge
+     * takes one of its own; each releases it when it actually finishes, so an attempt that lost, or
+     * outlived the call, and does not stop on interruption still counts against the bulkhead.
+     */
+    private <T> T hedge(Supplier<T> attempt) throws TimeoutException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        Attempt first = submit(attempt, result, running, false);
+        Attempt second = null;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getCallTimeoutMs());
+        try {
+            try {
+                return result.get(currentHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (bulkhead.tryAcquire()) {
+                    running.incrementAndGet();
+                    hedgesFired.increment();
+                    second = submit(attempt, result, running, true);
+                }
+            }
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } finally {
+            // Whichever attempt lost is cancelled; interrupting it aborts its blocking I/O.
+            cancel(first);
+            if (second != null) {
+                cancel(second);
+            }
+        }
+    }
+
+    /** Starts an attempt that owns one acquired bulkhead slot. */
+    private <T> Attempt submit(Supplier<T> attempt, CompletableFuture<T> result, AtomicInteger running, boolean hedge) {
+        AtomicBoolean started = new AtomicBoolean();
+        try {
+            return new Attempt(attempts.submit(() -> runAttempt(attempt, result, running, hedge, started)), started);
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    /** Interrupts a running attempt; one cancelled before it started gives its slot back here instead. */
+    private void cancel(Attempt attempt) {
+        if (attempt.started().compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+        attempt.future().cancel(true);
+    }
+
+    /** The first success completes the call; it fails only when every attempt has failed. */
+    private <T> void runAttempt(Supplier<T> attempt, CompletableFuture<T> result, AtomicInteger running, boolean hedge,
+                                AtomicBoolean started) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            T value = attempt.get();
+            recordLatency(System.nanoTime() - start);
+            if (result.complete(value) && hedge) {
+                hedgesWon.increment();
+            }
+        } catch (RuntimeException e) {
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            } else {
+                logger.debug("{} attempt failed, waiting for the other one: {}", name, e.getMessage());
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyCount % LATENCY_SAMPLES] = nanos;
+        latencyCount++;
+    }
+
+    /** The hedge quantile of the last {@value #LATENCY_SAMPLES} latencies, recomputed once a second. */
+    private long currentHedgeDelayNanos() {
+        long now = System.currentTimeMillis();
+        if (now - hedgeDelayComputedAt >= HEDGE_DELAY_REFRESH_MS) {
+            long[] sample;
+            synchronized (this) {
+                if (latencyCount < LATENCY_SAMPLES / 10) {
+                    return hedgeDelayNanos;
+                }
+                sample = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+            }
+            Arrays.sort(sample);
+            int index = (int) Math.ceil(settings.getHedgeQuantile() * sample.length) - 1;
+            hedgeDelayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(settings.getMinHedgeDelayMs()),
+                    sample[Math.max(0, Math.min(sample.length - 1, index))]);
+            hedgeDelayComputedAt = now;
+        }
+        return hedgeDelayNanos;
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("resilience.calls").tag("dependency", name).tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** {@code started} is claimed by whichever comes first, the attempt or its cancellation. */
+    private record Attempt(Future<?> future, AtomicBoolean started) {
+    }
+}
@@ -0,0 +1,384 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteRequest;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces autosaves of a note into one write per {@code notes.autosave.window-ms}.
+ * <p>
+ * The first autosave of a burst is written at once, so a missing note or a missing permission
+ * is reported to the client. Later autosaves within the window only merge into the buffered
+ * state of the note, and the state is written once when the window ends. A client that saves
+ * every second while the user types thus writes once per window instead of once per second.
+ * <p>
+ * Writes carry the version the client last saw, as an update with {@code If-Match} does. The
+ * buffered state is written against the version its burst produced, so it never overwrites a
+ * change made elsewhere meanwhile; an autosave based on a version the burst did not produce writes
+ * the buffered state first and is then checked itself. A conflict, a deleted note or a revoked
+ * permission drops the buffered state; any other failure keeps it and retries with backoff.
+ * <p>
+ * Buffered state is written before anything else reads or writes the note on this instance:
+ * {@link #flush} before reads of and other writes to the note, {@link #flushUser} before listing
+ * the user's notes, and {@link #flushAll} on shutdown. A delete {@link #discard}s it instead.
+ */
+@Service
+public class NoteAutosaveBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteAutosaveBuffer.class);
+
+    /** Attempts to write the buffered state of a note on shutdown before it is given up. */
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    /** Note ids of each user's entries, so flushing a user's notes locks only those. */
+    private final Map<Long, Set<Long>> noteIdsByUser = new ConcurrentHashMap<>();
+
+    private final NoteService noteService;
+
+    private final NoteBodyStore noteBodyStore;
+
+    private final Counter autosaves;
+
+    private final Counter writes;
+
+    private volatile boolean closed;
+
+    @Value("${notes.autosave.window-ms:10000}")
+    private long windowMs;
+
+    @Value("${notes.autosave.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${notes.autosave.max-retry-backoff-ms:30000}")
+    private long maxRetryBackoffMs;
+
+    public NoteAutosaveBuffer(NoteService noteService, NoteBodyStore noteBodyStore, MeterRegistry meterRegistry) {
+        this.noteService = noteService;
+        this.noteBodyStore = noteBodyStore;
+        this.autosaves = Counter.builder("notes.autosave.requests").register(meterRegistry);
+        this.writes = Counter.builder("notes.autosave.writes").register(meterRegistry);
+    }
+
+    /**
+     * Saves the patch; null fields keep their values. Returns the written note when the patch was
+     * written at once, or null when it was buffered.
+     *
+     * @param expectedVersion the version the client edited, null to skip the check
+     */
+    public NoteResponse autosave(Long userId, Long noteId, NoteRequest patch, Long expectedVersion)
+            throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException {
+        autosaves.increment();
+        if (patch.getBody() != null && NoteBodyStore.encode(patch.getBody()).length > noteBodyStore.getMaxSize()) {
+            throw new NoteBodyTooLargeException(noteBodyStore.getMaxSize());
+        }
+        if (closed) {
+            return write(userId, noteId, patch, expectedVersion);
+        }
+        while (true) {
+            Pending entry = pending.computeIfAbsent(noteId, id -> new Pending(noteId, userId));
+            entry.lock.lock();
+            try {
+                if (entry.removed) {
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                entry.lastAutosaveAt = now;
+                if (!entry.userId.equals(userId) || !entry.covers(expectedVersion)) {
+                    // Someone else's buffered edits, or ones the client has not built on, go first;
+                    // the patch is then written at once and checked against them.
+                    if (!flushLocked(entry)) {
+                        throw new IllegalStateException("Autosaved state of note " + noteId + " is not written yet");
+                    }
+                    if (entry.removed) {
+                        continue;
+                    }
+                    unindex(entry.userId, noteId);
+                    entry.userId = userId;
+                    entry.written = false;
+                }
+                index(userId, noteId);
+                if (!entry.written) {
+                    try {
+                        NoteResponse response = write(userId, noteId, patch, expectedVersion);
+                        entry.written = true;
+                        entry.seenVersion = response.getVersion();
+                        entry.version = response.getVersion();
+                        return response;
+                    } catch (Exception e) {
+                        remove(entry);
+                        throw e;
+                    }
+                }
+                entry.merge(patch);
+                if (entry.dueAt == 0) {
+                    entry.dueAt = now + windowMs;
+                }
+                return null;
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /** Writes the buffered state of the note, if any. */
+    public void flush(Long noteId) {
+        Pending entry = pending.get(noteId);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                flushLocked(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /** Writes the buffered state of every note the user autosaved. */
+    public void flushUser(Long userId) {
+        for (Long noteId : noteIdsByUser.getOrDefault(userId, Set.of())) {
+            Pending entry = pending.get(noteId);
+            if (entry == null) {
+                continue;
+            }
+            entry.lock.lock();
+            try {
+                if (!entry.removed && entry.userId.equals(userId)) {
+                    flushLocked(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /** Drops the buffered state of a note that is being deleted. */
+    public void discard(Long noteId) {
+        Pending entry = pending.get(noteId);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                remove(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /** Writes the states whose window has ended and forgets notes no longer being edited. */
+    @Scheduled(fixedDelayString = "${notes.autosave.sweep-interval-ms:500}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        for (Pending entry : pending.values()) {
+            entry.lock.lock();
+            try {
+                if (entry.dueAt != 0 && entry.dueAt <= now) {
+                    flushLocked(entry);
+                } else if (entry.dueAt == 0 && now - entry.lastAutosaveAt > windowMs) {
+                    remove(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        closed = true;
+        List<Pending> entries = List.copyOf(pending.values());
+        for (Pending entry : entries) {
+            entry.lock.lock();
+            try {
+                for (int attempt = 1; !flushLocked(entry) && attempt < SHUTDOWN_ATTEMPTS; attempt++) {
+                    sleepUntil(entry.dueAt);
+                }
+                if (entry.dueAt != 0) {
+                    logger.error("Lost autosaved state of note {} by user {}: not writable on shutdown",
+                            entry.noteId, entry.userId);
+                }
+                remove(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Flushed autosaved state of {} notes on shutdown", entries.size());
+        }
+    }
+
+    /**
+     * Writes the buffered state, if any. Returns false when a failure other than a conflict kept it
+     * buffered for another attempt after a backoff.
+     */
+    private boolean flushLocked(Pending entry) {
+        if (entry.dueAt == 0) {
+            return true;
+        }
+        NoteRequest state = entry.take();
+        try {
+            entry.version = write(entry.userId, entry.noteId, state, entry.version).getVersion();
+            entry.failures = 0;
+            return true;
+        } catch (NoteVersionConflictException | NoteNotFoundException | NoteAccessDeniedException | NoteBodyTooLargeException e) {
+            // Changed elsewhere, deleted or no longer writable: the state does not apply any more.
+            // The next autosave is written at once and reports the problem to the client.
+            logger.warn("Dropping autosaved state of note {} by user {}: {}", entry.noteId, entry.userId, e.toString());
+            remove(entry);
+            return true;
+        } catch (Exception e) {
+            // A lost optimistic lock lands here too; the retry then sees the new version and conflicts.
+            entry.failures++;
+            long backoff = Math.min(retryBackoffMs << Math.min(entry.failures - 1, 16), maxRetryBackoffMs);
+            entry.restore(state, System.currentTimeMillis() + backoff);
+            logger.warn("Failed to write autosaved state of note {} by user {} (attempt {}), retrying in {} ms: {}",
+                    entry.noteId, entry.userId, entry.failures, backoff, e.toString());
+            return false;
+        }
+    }
+
+    /** Writes as the editor, so the write is routed like one made in the editor's request. */
+    private NoteResponse write(Long userId, Long noteId, NoteRequest patch, Long expectedVersion)
+            throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(userId, null, List.of()));
+        SecurityContextHolder.setContext(context);
+        try {
+            NoteResponse response = noteService.patchNote(userId, noteId, patch, expectedVersion);
+            writes.increment();
+            return response;
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /** Unindexes before leaving the map, so a successor entry's index is never removed. */
+    private void remove(Pending entry) {
+        entry.removed = true;
+        entry.dueAt = 0;
+        unindex(entry.userId, entry.noteId);
+        pending.remove(entry.noteId, entry);
+    }
+
+    private void index(Long userId, Long noteId) {
+        noteIdsByUser.compute(userId, (id, noteIds) -> {
+            Set<Long> result = noteIds != null ? noteIds : ConcurrentHashMap.newKeySet();
+            result.add(noteId);
+            return result;
+        });
+    }
+
+    private void unindex(Long userId, Long noteId) {
+        noteIdsByUser.computeIfPresent(userId, (id, noteIds) -> {
+            noteIds.remove(noteId);
+            return noteIds.isEmpty() ? null : noteIds;
+        });
+    }
+
+    private static void sleepUntil(long time) {
+        try {
+            Thread.sleep(Math.max(0, time - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Autosave state of one note, guarded by its lock. A lock rather than a monitor, because it is
+     * held across the write and request threads are virtual.
+     */
+    private static final class Pending {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Long noteId;
+        private Long userId;
+        private String title;
+        private String description;
+        private String body;
+        /** Whether this burst's first autosave has been written. */
+        private boolean written;
+        /** Version returned for the burst's first autosave, the oldest one its client may hold. */
+        private Long seenVersion;
+        /** Version of the note after this burst's last write. */
+        private Long version;
+        /** Failed attempts to write the buffered state since the last success. */
+        private int failures;
+        /** When the buffered state is due, 0 when nothing is buffered. */
+        private long dueAt;
+        private long lastAutosaveAt;
+        private boolean removed;
+
+        private Pending(Long noteId, Long userId) {
+            this.noteId = noteId;
+            this.userId = userId;
+        }
+
+        private void merge(NoteRequest patch) {
+            if (patch.getTitle() != null) {
+                title = patch.getTitle();
+            }
+            if (patch.getDescription() != null) {
+                description = patch.getDescription();
+            }
+            if (patch.getBody() != null) {
+                body = patch.getBody();
+            }
+        }
+
+        /**
+         * Every version from the burst's first write on was written by the burst, so a client
+         * holding any of them has seen everything but the buffered fields.
+         */
+        private boolean covers(Long expectedVersion) {
+            return expectedVersion == null
+                    || (seenVersion != null && seenVersion <= expectedVersion && expectedVersion <= version);
+        }
+
+        /** Puts back a state that failed to write; fields autosaved since then win. */
+        private void restore(NoteRequest state, long dueAt) {
+            if (title == null) {
+                title = state.getTitle();
+            }
+            if (description == null) {
+                description = state.getDescription();
+            }
+            if (body == null) {
+                body = state.getBody();
+            }
+            this.dueAt = dueAt;
+        }
+
+        private NoteRequest take() {
+            NoteRequest state = new NoteRequest();
+            state.setTitle(title);
+            state.setDescription(description);
+            state.setBody(body);
+            title = null;
+            description = null;
+            body = null;
+            dueAt = 0;
+            return state;
+        }
+    }
+}
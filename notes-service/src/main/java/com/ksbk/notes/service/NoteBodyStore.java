@@ -0,0 +1,209 @@
+package com.ksbk.notes.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores long note bodies in {@code note_body_chunks}, apart from the note header row, so list
+ * and search queries never read them.
+ * <p>
+ * The UTF-8 body is cut into chunks of {@code notes.body.chunk-size} bytes. A chunk larger than
+ * {@code notes.body.compress-threshold} is deflated when that makes it smaller. A rewrite compares
+ * chunk checksums and only writes the chunks that changed, so appending to a large document does
+ * not rewrite all of it, and a range read fetches and inflates only the chunks it overlaps.
+ */
+@Service
+public class NoteBodyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteBodyStore.class);
+
+    private static final String CHECKSUMS_SQL =
+            "SELECT chunk_index, raw_size, checksum FROM note_body_chunks WHERE note_id = ?";
+
+    private static final String UPSERT_CHUNK_SQL =
+            "INSERT INTO note_body_chunks (note_id, chunk_index, raw_size, compressed, checksum, content) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (note_id, chunk_index) DO UPDATE SET " +
+            "raw_size = EXCLUDED.raw_size, compressed = EXCLUDED.compressed, " +
+            "checksum = EXCLUDED.checksum, content = EXCLUDED.content";
+
+    private static final String DELETE_FROM_SQL = "DELETE FROM note_body_chunks WHERE note_id = ? AND chunk_index >= ?";
+
+    private static final String READ_SQL =
+            "SELECT chunk_index, raw_size, compressed, content FROM note_body_chunks " +
+            "WHERE note_id = ? AND chunk_index BETWEEN ? AND ? ORDER BY chunk_index";
+
+    private record StoredChunk(int rawSize, long checksum) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notes.body.chunk-size:262144}")
+    private int chunkSize;
+
+    @Value("${notes.body.compress-threshold:1024}")
+    private int compressThreshold;
+
+    @Value("${notes.body.max-size:10485760}")
+    private long maxSize;
+
+    public NoteBodyStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static byte[] encode(String body) {
+        return body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** Replaces the stored body of a note. Runs in the caller's transaction. */
+    public void write(Long noteId, byte[] body) {
+        Map<Integer, StoredChunk> stored = new HashMap<>();
+        jdbcTemplate.query(CHECKSUMS_SQL, rs -> {
+            stored.put(rs.getInt("chunk_index"), new StoredChunk(rs.getInt("raw_size"), rs.getLong("checksum")));
+        }, noteId);
+
+        int chunks = (int) ((body.length + (long) chunkSize - 1) / chunkSize);
+        List<Object[]> changed = new ArrayList<>();
+        long storedBytes = 0;
+        for (int index = 0; index < chunks; index++) {
+            byte[] raw = Arrays.copyOfRange(body, index * chunkSize, Math.min(body.length, (index + 1) * chunkSize));
+            long checksum = checksum(raw);
+            StoredChunk existing = stored.get(index);
+            if (existing != null && existing.rawSize() == raw.length && existing.checksum() == checksum) {
+                continue;
+            }
+            Object[] row = chunkRow(noteId, index, raw, checksum);
+            storedBytes += ((byte[]) row[5]).length;
+            changed.add(row);
+        }
+
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_CHUNK_SQL, changed);
+        }
+        if (stored.size() > chunks) {
+            jdbcTemplate.update(DELETE_FROM_SQL, noteId, chunks);
+        }
+        logger.debug("Stored body of note {}: {} bytes in {} chunks, rewrote {} chunks ({} bytes)",
+                noteId, body.length, chunks, changed.size(), storedBytes);
+    }
+
+    /**
+     * Stores the bodies of notes that have none yet, all chunks in one batch. Runs in the caller's
+     * transaction.
+     */
+    public void writeNew(Map<Long, byte[]> bodies) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, byte[]> entry : bodies.entrySet()) {
+            byte[] body = entry.getValue();
+            int chunks = (int) ((body.length + (long) chunkSize - 1) / chunkSize);
+            for (int index = 0; index < chunks; index++) {
+                byte[] raw = Arrays.copyOfRange(body, index * chunkSize, Math.min(body.length, (index + 1) * chunkSize));
+                rows.add(chunkRow(entry.getKey(), index, raw, checksum(raw)));
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_CHUNK_SQL, rows);
+        }
+        logger.debug("Stored the bodies of {} new notes in {} chunks", bodies.size(), rows.size());
+    }
+
+    /** The whole body; {@code size} is the note's {@code bodySize}. */
+    public String read(Long noteId, long size) {
+        if (size <= 0) {
+            return "";
+        }
+        return new String(readRange(noteId, 0, size), StandardCharsets.UTF_8);
+    }
+
+    /** {@code length} bytes of the UTF-8 body starting at {@code offset}; the range must lie inside the body. */
+    public byte[] readRange(Long noteId, long offset, long length) {
+        if (length <= 0) {
+            return new byte[0];
+        }
+        int first = (int) (offset / chunkSize);
+        int last = (int) ((offset + length - 1) / chunkSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+        jdbcTemplate.query(READ_SQL, rs -> {
+            int index = rs.getInt("chunk_index");
+            byte[] content = rs.getBytes("content");
+            byte[] raw = rs.getBoolean("compressed") ? inflate(content, rs.getInt("raw_size")) : content;
+            long chunkStart = (long) index * chunkSize;
+            int from = (int) Math.max(0, offset - chunkStart);
+            int to = (int) Math.min(raw.length, offset + length - chunkStart);
+            out.write(raw, from, to - from);
+        }, noteId, first, last);
+        return out.toByteArray();
+    }
+
+    public void delete(Long noteId) {
+        jdbcTemplate.update(DELETE_FROM_SQL, noteId, 0);
+    }
+
+    /** Parameters of {@link #UPSERT_CHUNK_SQL} for one chunk, deflated when that makes it smaller. */
+    private Object[] chunkRow(Long noteId, int index, byte[] raw, long checksum) {
+        byte[] compressed = raw.length > compressThreshold ? deflate(raw) : null;
+        boolean useCompressed = compressed != null && compressed.length < raw.length;
+        return new Object[]{noteId, index, raw.length, useCompressed, checksum, useCompressed ? compressed : raw};
+    }
+
+    private static long checksum(byte[] raw) {
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        return crc.getValue();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] content, int rawSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content);
+            byte[] raw = new byte[rawSize];
+            int read = 0;
+            while (read < rawSize && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, rawSize - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated chunk");
+                }
+                read += inflated;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt note body chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.entity.ENoteEventType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pushes note changes to every open SSE connection of the owning user and of the users the note
+ * is shared with.
+ * <p>
+ * Idle connections hold no thread: each connection only owns a bounded queue, and a virtual
+ * thread is started to drain it when an event arrives. A connection whose queue overflows is
+ * treated as a slow consumer and closed; the client reconnects with {@code Last-Event-ID} and
+ * gets the missed events replayed from a small per-user history.
+ * <p>
+ * A user's history doubles as the lock that orders the user's stream: an event is numbered,
+ * recorded and queued to the user's connections under it, and a new connection registers and
+ * queues its replay under it. Live events published meanwhile wait, so they follow the replay
+ * without gaps or duplicates.
+ */
+@Service
+public class NoteEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventBroadcaster.class);
+
+    /** Resume tokens are only meaningful within one process lifetime. */
+    private final String instanceEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final Map<Long, ReplayBuffer> replayBuffers = new ConcurrentHashMap<>();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${notes.events.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${notes.events.replay-size:256}")
+    private int replaySize;
+
+    @Value("${notes.events.replay-retention-ms:600000}")
+    private long replayRetentionMs;
+
+    @Value("${notes.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscription subscription = new Subscription(userId, emitter, bufferSize);
+
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        withStream(userId, buffer -> {
+            subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscription, buffer, lastEventId);
+            }
+        });
+        logger.debug("User {} opened a note event stream (resume token: {})", userId, lastEventId);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChange(NoteChangeEvent event) {
+        for (Long userId : recipients(event)) {
+            withStream(userId, buffer -> {
+                String id = instanceEpoch + "-" + sequence.incrementAndGet();
+                buffer.add(id, event);
+                Set<Subscription> userSubscriptions = subscriptions.get(userId);
+                if (userSubscriptions == null) {
+                    return;
+                }
+                OutboundEvent outbound = OutboundEvent.of(id, event);
+                for (Subscription subscription : userSubscriptions) {
+                    enqueue(subscription, outbound);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.events.heartbeat-ms:20000}")
+    public void sendHeartbeats() {
+        for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                enqueue(subscription, OutboundEvent.HEARTBEAT);
+            }
+        }
+        long cutoff = System.currentTimeMillis() - replayRetentionMs;
+        for (Map.Entry<Long, ReplayBuffer> entry : replayBuffers.entrySet()) {
+            ReplayBuffer buffer = entry.getValue();
+            synchronized (buffer) {
+                if (buffer.lastAppendedAt() < cutoff && !subscriptions.containsKey(entry.getKey())) {
+                    buffer.retired = true;
+                    replayBuffers.remove(entry.getKey(), buffer);
+                }
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(s -> s.emitter.complete()));
+        senders.shutdown();
+    }
+
+    /**
+     * The owner, and for changes to the note itself every reader the event names who has a stream
+     * here. Streams are known by their history, which lives as long as a connection and
+     * {@code notes.events.replay-retention-ms} past it, so a briefly disconnected reader still
+     * gets the change replayed.
+     */
+    private Set<Long> recipients(NoteChangeEvent event) {
+        Set<Long> recipients = new HashSet<>();
+        recipients.add(event.getUserId());
+        if (event.getType() == ENoteEventType.REMINDER || event.getSharedWith() == null) {
+            return recipients;
+        }
+        for (Long userId : event.getSharedWith()) {
+            if (replayBuffers.containsKey(userId)) {
+                recipients.add(userId);
+            }
+        }
+        return recipients;
+    }
+
+    /** Runs the action holding the user's stream lock, see the class comment. */
+    private void withStream(Long userId, Consumer<ReplayBuffer> action) {
+        while (true) {
+            ReplayBuffer buffer = replayBuffers.computeIfAbsent(userId, id -> new ReplayBuffer(replaySize, sequence.get()));
+            synchronized (buffer) {
+                if (!buffer.retired) {
+                    action.accept(buffer);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void replay(Subscription subscription, ReplayBuffer buffer, String lastEventId) {
+        List<ReplayBuffer.Entry> missed = lastEventId.startsWith(instanceEpoch + "-")
+                ? buffer.after(parseSequence(lastEventId))
+                : null;
+
+        if (missed == null) {
+            logger.debug("Resume token {} of user {} is unknown, asking client to resync", lastEventId, subscription.userId);
+            enqueue(subscription, OutboundEvent.RESYNC);
+            return;
+        }
+        for (ReplayBuffer.Entry entry : missed) {
+            enqueue(subscription, OutboundEvent.of(entry.id(), entry.event()));
+        }
+    }
+
+    private void enqueue(Subscription subscription, OutboundEvent event) {
+        if (!subscription.queue.offer(event)) {
+            logger.warn("Evicting slow note event consumer of user {}", subscription.userId);
+            subscription.emitter.complete();
+            unsubscribe(subscription);
+            return;
+        }
+        if (subscription.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        do {
+            OutboundEvent event;
+            while ((event = subscription.queue.poll()) != null) {
+                try {
+                    subscription.emitter.send(event.toSse());
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Note event stream of user {} closed: {}", subscription.userId, e.getMessage());
+                    subscription.queue.clear();
+                    unsubscribe(subscription);
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+        } while (!subscription.queue.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (userId, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+
+    private long parseSequence(String eventId) {
+        try {
+            return Long.parseLong(eventId.substring(eventId.indexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<OutboundEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscription(Long userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    /**
+     * Queued form of an SSE event. {@link SseEmitter.SseEventBuilder} is single use, so a fresh
+     * builder is created for every connection at send time.
+     */
+    private record OutboundEvent(String id, String name, Object data, String comment) {
+        private static final OutboundEvent HEARTBEAT = new OutboundEvent(null, null, null, "heartbeat");
+        private static final OutboundEvent RESYNC = new OutboundEvent(null, "resync", Map.of(), null);
+
+        private static OutboundEvent of(String id, NoteChangeEvent event) {
+            return new OutboundEvent(id, event.getType().name().toLowerCase(), event, null);
+        }
+
+        private SseEmitter.SseEventBuilder toSse() {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (comment != null) {
+                return builder.comment(comment);
+            }
+            if (id != null) {
+                builder.id(id);
+            }
+            return builder.name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * Last events of one user, used to answer reconnects. Returns {@code null} from
+     * {@link #after(long)} when the requested position has already been overwritten.
+     */
+    private static final class ReplayBuffer {
+        private record Entry(String id, long sequence, NoteChangeEvent event) {
+        }
+
+        private final ArrayDeque<Entry> entries;
+        private final int capacity;
+        private long lastEvictedSequence;
+        private volatile long lastAppendedAt = System.currentTimeMillis();
+        /** Dropped from the map; a stream that finds it retired takes the new history instead. */
+        private boolean retired;
+
+        /** Resume tokens from before {@code createdAtSequence} fall outside this history. */
+        private ReplayBuffer(int capacity, long createdAtSequence) {
+            this.capacity = capacity;
+            this.entries = new ArrayDeque<>(capacity);
+            this.lastEvictedSequence = createdAtSequence;
+        }
+
+        private synchronized void add(String id, NoteChangeEvent event) {
+            if (entries.size() == capacity) {
+                lastEvictedSequence = entries.pollFirst().sequence();
+            }
+            long seq = Long.parseLong(id.substring(id.indexOf('-') + 1));
+            entries.addLast(new Entry(id, seq, event));
+            lastAppendedAt = System.currentTimeMillis();
+        }
+
+        private long lastAppendedAt() {
+            return lastAppendedAt;
+        }
+
+        private synchronized List<Entry> after(long sequence) {
+            if (sequence < 0 || sequence < lastEvictedSequence) {
+                return null;
+            }
+            return entries.stream().filter(entry -> entry.sequence() > sequence).toList();
+        }
+    }
+}
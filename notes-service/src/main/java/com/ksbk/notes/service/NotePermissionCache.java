@@ -0,0 +1,212 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteAclChangeEvent;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.ESharePermission;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of the notes shared with each user, as bitmaps of readable and writable note
+ * ids. Checking access to someone else's note is a bitmap lookup, not a join or a query.
+ * <p>
+ * A user's entry is loaded with the user's version from {@code note_acl_versions}, which every
+ * share change bumps for the users it affects. Changes made by this instance drop the entries
+ * right after commit; changes made by other instances are found by polling the versions changed
+ * in the last few seconds and dropping entries loaded at an older version. Entries unused for
+ * {@code notes.shares.cache.idle-ms} are dropped as well.
+ * <p>
+ * With sharding a share lives on the shard of the note's owner, so a user's grants are loaded from
+ * every shard, each with that shard's version, and every shard is polled. The owner of each shared
+ * note is kept with the grant, so the note is looked up on its owner's shard, by its full key.
+ */
+@Service
+public class NotePermissionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotePermissionCache.class);
+
+    private static final String LOAD_VERSION_SQL = "SELECT version FROM note_acl_versions WHERE user_id = ?";
+
+    private static final String LOAD_GRANTS_SQL =
+            "SELECT s.note_id, s.owner_id, s.permission FROM note_shares s " +
+            "WHERE s.grantee_type = 'USER' AND s.grantee_id = ? AND s.owner_id <> ? " +
+            "UNION ALL " +
+            "SELECT s.note_id, s.owner_id, s.permission FROM note_shares s JOIN note_group_members m ON m.group_id = s.grantee_id " +
+            "WHERE s.grantee_type = 'GROUP' AND m.user_id = ? AND s.owner_id <> ?";
+
+    private static final String CHANGED_VERSIONS_SQL =
+            "SELECT user_id, version FROM note_acl_versions WHERE changed_at > now() - ? * interval '1 millisecond'";
+
+    private final Map<Long, UserGrants> grants = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation; a load that overlapped one is returned but not cached. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate loadTemplate;
+
+    private final ShardRouter shardRouter;
+
+    /** Per shard. */
+    private final Map<String, Long> lastPollStartedAt = new ConcurrentHashMap<>();
+
+    @Value("${notes.shares.cache.max-users:50000}")
+    private int maxUsers;
+
+    @Value("${notes.shares.cache.idle-ms:600000}")
+    private long idleMs;
+
+    @Value("${notes.shares.cache.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    public NotePermissionCache(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        // Own transaction per shard, with one snapshot for the version and the grants.
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /** The user's permission on a note owned by someone else, or null when it is not shared with them. */
+    public ESharePermission permission(Long userId, Long noteId) {
+        UserGrants entry = get(userId);
+        if (entry.writable.contains(noteId)) {
+            return ESharePermission.WRITE;
+        }
+        return entry.readable.contains(noteId) ? ESharePermission.READ : null;
+    }
+
+    /** Owner of a note shared with the user, or null when it is not shared with them. */
+    public Long owner(Long userId, Long noteId) {
+        return get(userId).owners.get(noteId);
+    }
+
+    /** Ids of all notes of other users the user can read, writable ones included. Must not be modified. */
+    public Roaring64Bitmap readable(Long userId) {
+        return get(userId).readable;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAclChange(NoteAclChangeEvent event) {
+        invalidations.incrementAndGet();
+        event.getUserIds().forEach(grants::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.shares.cache.poll-interval-ms:1000}")
+    public void pollVersions() {
+        shardRouter.forEachShard(this::pollVersions);
+    }
+
+    private void pollVersions(String shard) {
+        long start = System.currentTimeMillis();
+        try {
+            long window = start - lastPollStartedAt.computeIfAbsent(shard, s -> start) + pollOverlapMs;
+            jdbcTemplate.query(CHANGED_VERSIONS_SQL, rs -> {
+                long userId = rs.getLong("user_id");
+                UserGrants entry = grants.get(userId);
+                if (entry != null && entry.versions.getOrDefault(shard, 0L) < rs.getLong("version")) {
+                    invalidations.incrementAndGet();
+                    grants.remove(userId, entry);
+                }
+            }, window);
+            lastPollStartedAt.put(shard, start);
+        } catch (Exception e) {
+            logger.error("Failed to poll note ACL versions on {}: {}", shard, e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.shares.cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        grants.values().removeIf(entry -> entry.lastAccessAt < cutoff);
+    }
+
+    private UserGrants get(Long userId) {
+        UserGrants entry = grants.get(userId);
+        if (entry == null) {
+            long seen = invalidations.get();
+            entry = load(userId);
+            if (grants.size() >= maxUsers) {
+                evictLeastRecentlyUsed();
+            }
+            if (invalidations.get() == seen) {
+                UserGrants raced = grants.putIfAbsent(userId, entry);
+                entry = raced != null ? raced : entry;
+            }
+        }
+        entry.lastAccessAt = System.currentTimeMillis();
+        return entry;
+    }
+
+    private UserGrants load(Long userId) {
+        UserGrants entry = new UserGrants();
+        for (String shard : shardRouter.shards()) {
+            shardRouter.onShard(shard, () -> loadTemplate.execute(status -> {
+                List<Long> stored = jdbcTemplate.queryForList(LOAD_VERSION_SQL, Long.class, userId);
+                entry.versions.put(shard, stored.isEmpty() ? 0L : stored.get(0));
+                jdbcTemplate.query(LOAD_GRANTS_SQL, rs -> {
+                    long noteId = rs.getLong("note_id");
+                    entry.readable.addLong(noteId);
+                    entry.owners.put(noteId, rs.getLong("owner_id"));
+                    if (ESharePermission.WRITE.name().equals(rs.getString("permission"))) {
+                        entry.writable.addLong(noteId);
+                    }
+                }, userId, userId, userId, userId);
+                return null;
+            }));
+        }
+        entry.readable.runOptimize();
+        entry.writable.runOptimize();
+        logger.debug("Loaded note grants of user {} at versions {}: {} readable, {} writable",
+                userId, entry.versions, entry.readable.getLongCardinality(), entry.writable.getLongCardinality());
+        return entry;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        evictIdle();
+        int excess = grants.size() - maxUsers + 1;
+        if (excess <= 0) {
+            return;
+        }
+        grants.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(grants::remove);
+    }
+
+    /**
+     * Grants of one user. The bitmaps, owners and versions are never changed after the load, so reads need
+     * no locking.
+     */
+    private static final class UserGrants {
+        private final Roaring64Bitmap readable = new Roaring64Bitmap();
+        private final Roaring64Bitmap writable = new Roaring64Bitmap();
+        /** Owner of each readable note. */
+        private final Map<Long, Long> owners = new HashMap<>();
+        /** The user's version on each shard at load time. */
+        private final Map<String, Long> versions = new HashMap<>();
+        private volatile long lastAccessAt = System.currentTimeMillis();
+    }
+}
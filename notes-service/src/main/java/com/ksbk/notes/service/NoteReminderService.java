@@ -0,0 +1,10 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.ReminderRequest;
+import com.ksbk.notes.exception.NoteNotFoundException;
+
+public interface NoteReminderService {
+    NoteResponse setReminder(Long userId, Long noteId, ReminderRequest request) throws NoteNotFoundException;
+    NoteResponse clearReminder(Long userId, Long noteId) throws NoteNotFoundException;
+}
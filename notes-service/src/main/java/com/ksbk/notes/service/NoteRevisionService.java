@@ -0,0 +1,132 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.entity.NoteRevision;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.repository.NoteRevisionRepository;
+import com.ksbk.notes.repository.NoteRevisionRepository.NoteRevisionSummary;
+import com.ksbk.notes.utils.NoteRevisionCodec;
+import com.ksbk.notes.utils.NoteRevisionCodec.Content;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stores and reconstructs note history. Callers invoke {@link #recordRevision} inside their own
+ * transaction, before the new values are applied to the note, so the previous content is taken
+ * from the managed entity instead of being read back from the database.
+ */
+@Service
+public class NoteRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionService.class);
+
+    @Value("${notes.revisions.snapshot-interval:10}")
+    private int snapshotInterval;
+
+    private final NoteRevisionRepository revisionRepository;
+
+    private final NoteBodyStore noteBodyStore;
+
+    public NoteRevisionService(NoteRevisionRepository revisionRepository, NoteBodyStore noteBodyStore) {
+        this.revisionRepository = revisionRepository;
+        this.noteBodyStore = noteBodyStore;
+    }
+
+    /** @param body the body the note was created with */
+    public void recordInitialRevision(Note note, String body) {
+        note.setRevision(0);
+        save(note.getId(), 0, true, NoteRevisionCodec.encodeSnapshot(content(note, body)));
+    }
+
+    /**
+     * Records the transition of {@code note} to the new title, description and body and bumps its
+     * revision counter. Notes created before history existed start with a snapshot.
+     * <p>
+     * The stored body is only read when the revision needs it: for a snapshot that keeps the body,
+     * or for a delta that changes it. Otherwise both sides stay null and the delta records no change.
+     *
+     * @param newBody the new body, or null if it is not changing
+     */
+    public void recordRevision(Note note, String newTitle, String newDescription, String newBody) {
+        int revision = (note.getRevision() != null ? note.getRevision() : 0) + 1;
+        boolean snapshot = revision % snapshotInterval == 0;
+        boolean readBody = note.getRevision() == null || (snapshot ? newBody == null : newBody != null);
+        Content previous = content(note, readBody ? noteBodyStore.read(note.getId(), note.getBodySize()) : null);
+        Content current = new Content(newTitle, newDescription, newBody != null ? newBody : previous.body());
+        if (note.getRevision() == null) {
+            save(note.getId(), 0, true, NoteRevisionCodec.encodeSnapshot(previous));
+        }
+
+        byte[] payload = snapshot
+                ? NoteRevisionCodec.encodeSnapshot(current)
+                : NoteRevisionCodec.encodeDelta(previous, current);
+        save(note.getId(), revision, snapshot, payload);
+        note.setRevision(revision);
+        logger.debug("Recorded revision {} of note {} ({}, {} bytes)",
+                revision, note.getId(), snapshot ? "snapshot" : "delta", payload.length);
+    }
+
+    public List<NoteRevisionSummary> getRevisions(Long noteId) {
+        return revisionRepository.findSummariesByNoteId(noteId);
+    }
+
+    /**
+     * Rebuilds a revision from the closest preceding snapshot. Snapshots are written every
+     * {@code snapshotInterval} revisions, so at most that many rows are read and applied.
+     */
+    public RevisionContent reconstruct(Long noteId, int revision) throws NoteRevisionNotFoundException {
+        List<NoteRevision> window = revisionRepository.findByNoteIdAndRevisionBetweenOrderByRevisionAsc(
+                noteId, Math.max(0, revision - snapshotInterval + 1), revision);
+        if (window.isEmpty() || window.get(window.size() - 1).getRevision() != revision) {
+            throw new NoteRevisionNotFoundException(revision);
+        }
+
+        int start = -1;
+        for (int i = window.size() - 1; i >= 0; i--) {
+            if (window.get(i).isSnapshot()) {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            logger.debug("No snapshot within interval for note {} revision {}, widening lookup", noteId, revision);
+            NoteRevision base = revisionRepository
+                    .findFirstByNoteIdAndSnapshotTrueAndRevisionLessThanEqualOrderByRevisionDesc(noteId, revision)
+                    .orElseThrow(() -> new NoteRevisionNotFoundException(revision));
+            window = revisionRepository.findByNoteIdAndRevisionBetweenOrderByRevisionAsc(noteId, base.getRevision(), revision);
+            start = 0;
+        }
+
+        Content content = NoteRevisionCodec.decodeSnapshot(window.get(start).getPayload());
+        for (int i = start + 1; i < window.size(); i++) {
+            content = NoteRevisionCodec.applyDelta(content, window.get(i).getPayload());
+        }
+        return new RevisionContent(window.get(window.size() - 1), content);
+    }
+
+    public void deleteRevisions(Long noteId) {
+        revisionRepository.deleteByNoteId(noteId);
+    }
+
+    private void save(Long noteId, int revision, boolean snapshot, byte[] payload) {
+        NoteRevision entity = new NoteRevision();
+        entity.setNoteId(noteId);
+        entity.setRevision(revision);
+        entity.setSnapshot(snapshot);
+        entity.setPayload(payload);
+        entity.setCreatedAt(LocalDateTime.now());
+        revisionRepository.save(entity);
+    }
+
+    private Content content(Note note, String body) {
+        return new Content(note.getTitle(), note.getDescription(), body);
+    }
+
+    public record RevisionContent(NoteRevision revision, Content content) {
+    }
+}
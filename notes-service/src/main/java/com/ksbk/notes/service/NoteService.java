@@ -2,15 +2,27 @@ package com.ksbk.notes.service;
 
 import com.ksbk.notes.DTO.NoteRequest;
 import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
 import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
 
 import java.util.List;
 
 public interface NoteService {
-    NoteResponse createNote(Long userId, NoteRequest request);
-    NoteResponse updateNote(Long userId, Long noteId, NoteRequest request) throws NoteNotFoundException;
-    void deleteNote(Long userId, Long noteId) throws NoteNotFoundException;
+    NoteResponse createNote(Long userId, NoteRequest request) throws NoteBodyTooLargeException;
+    NoteResponse updateNote(Long userId, Long noteId, NoteRequest request, Long expectedVersion) throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException;
+    /** Like {@link #updateNote}, but null fields of the patch keep the stored values. */
+    NoteResponse patchNote(Long userId, Long noteId, NoteRequest patch, Long expectedVersion) throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException;
+    void deleteNote(Long userId, Long noteId, Long expectedVersion) throws NoteNotFoundException, NoteVersionConflictException;
     NoteResponse getNoteById(Long userId, Long noteId) throws NoteNotFoundException;
+    long getNoteBodySize(Long userId, Long noteId) throws NoteNotFoundException;
+    byte[] readNoteBody(Long userId, Long noteId, long offset, long length) throws NoteNotFoundException;
     List<NoteResponse> getAllUserNotes(Long userId);
     List<NoteResponse> searchNotes(Long userId, String query);
+    List<NoteRevisionResponse> getNoteRevisions(Long userId, Long noteId) throws NoteNotFoundException;
+    NoteRevisionResponse getNoteRevision(Long userId, Long noteId, Integer revision) throws NoteNotFoundException, NoteRevisionNotFoundException;
+    NoteResponse restoreNoteRevision(Long userId, Long noteId, Integer revision) throws NoteNotFoundException, NoteRevisionNotFoundException;
 }
@@ -0,0 +1,27 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.NoteGroupRequest;
+import com.ksbk.notes.DTO.NoteGroupResponse;
+import com.ksbk.notes.DTO.NoteShareRequest;
+import com.ksbk.notes.DTO.NoteShareResponse;
+import com.ksbk.notes.exception.NoteGroupNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteShareNotFoundException;
+
+import java.util.List;
+import java.util.Set;
+
+public interface NoteShareService {
+    List<NoteShareResponse> getNoteShares(Long userId, Long noteId) throws NoteNotFoundException;
+    NoteShareResponse shareNote(Long userId, Long noteId, NoteShareRequest request) throws NoteNotFoundException, NoteGroupNotFoundException;
+    void unshareNote(Long userId, Long noteId, Long shareId) throws NoteNotFoundException, NoteShareNotFoundException;
+    Set<Long> deleteNoteShares(Long noteId);
+    Set<Long> getNoteReaders(Long noteId);
+    NoteFilterResponse getSharedNotes(Long userId, Long afterId, int limit);
+    List<NoteGroupResponse> getGroups(Long userId);
+    NoteGroupResponse createGroup(Long userId, NoteGroupRequest request);
+    void deleteGroup(Long userId, Long groupId) throws NoteGroupNotFoundException;
+    NoteGroupResponse addGroupMember(Long userId, Long groupId, Long memberId) throws NoteGroupNotFoundException;
+    NoteGroupResponse removeGroupMember(Long userId, Long groupId, Long memberId) throws NoteGroupNotFoundException;
+}
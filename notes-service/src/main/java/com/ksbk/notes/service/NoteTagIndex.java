@@ -0,0 +1,280 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.CacheInvalidationEvent;
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.DTO.NoteTagChangeEvent;
+import com.ksbk.notes.DTO.TagCountResponse;
+import com.ksbk.notes.entity.ECacheEntity;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.repository.NoteTagRepository;
+import com.ksbk.notes.utils.TagExpression;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of each user's notes by tag and by status, as compressed bitmaps of note ids.
+ * Tag filters are answered with bitmap operations instead of joins over {@code note_tags}.
+ * <p>
+ * A user's index is loaded from the database on first use and then kept current from committed
+ * {@link NoteChangeEvent}s and {@link NoteTagChangeEvent}s. Changes that commit while the index is
+ * still loading are queued and applied once the load finishes, so none are lost. Changes made by
+ * other replicas arrive through the {@link CacheInvalidationBus} and drop the owner's index.
+ * Indexes unused for {@code notes.tags.index.idle-ms} are dropped and rebuilt on the next query.
+ */
+@Service
+public class NoteTagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTagIndex.class);
+
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    private final NoteRepository noteRepository;
+
+    private final NoteTagRepository noteTagRepository;
+
+    @Value("${notes.tags.index.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${notes.tags.index.idle-ms:1800000}")
+    private long idleMs;
+
+    public NoteTagIndex(NoteRepository noteRepository, NoteTagRepository noteTagRepository) {
+        this.noteRepository = noteRepository;
+        this.noteTagRepository = noteTagRepository;
+    }
+
+    /**
+     * Ids of the user's notes matching the expression and status; either may be null.
+     * Must not run inside a read-only transaction, the load has to see the primary.
+     */
+    public Roaring64Bitmap filter(Long userId, TagExpression expression, ENoteStatus status) {
+        UserIndex index = get(userId);
+        synchronized (index) {
+            Roaring64Bitmap result = expression != null
+                    ? expression.evaluate(index.byTag::get, index.all)
+                    : index.all.clone();
+            if (status != null) {
+                Roaring64Bitmap withStatus = index.byStatus.get(status);
+                if (withStatus == null) {
+                    return new Roaring64Bitmap();
+                }
+                result.and(withStatus);
+            }
+            return result;
+        }
+    }
+
+    public List<TagCountResponse> tagCounts(Long userId) {
+        UserIndex index = get(userId);
+        synchronized (index) {
+            return index.byTag.entrySet().stream()
+                    .map(entry -> new TagCountResponse(entry.getKey(), entry.getValue().getLongCardinality()))
+                    .sorted(Comparator.comparing(TagCountResponse::getTag))
+                    .toList();
+        }
+    }
+
+    /** Drops the user's index, e.g. after notes were written bypassing {@link NoteChangeEvent}s. */
+    public void invalidate(Long userId) {
+        indexes.remove(userId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChange(NoteChangeEvent event) {
+        long noteId = event.getNoteId();
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                ENoteStatus status = event.getNote() != null ? event.getNote().getNoteStatus() : null;
+                apply(event.getUserId(), index -> index.putNote(noteId, status));
+            }
+            case DELETED -> apply(event.getUserId(), index -> index.removeNote(noteId));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTagChange(NoteTagChangeEvent event) {
+        long noteId = event.getNoteId();
+        if (event.isAdded()) {
+            apply(event.getUserId(), index -> index.addTag(noteId, event.getTag()));
+        } else {
+            apply(event.getUserId(), index -> index.removeTag(noteId, event.getTag()));
+        }
+    }
+
+    /** Notes changed by other replicas: their owners' indexes are dropped and rebuilt on the next query. */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFlush()) {
+            indexes.clear();
+            return;
+        }
+        for (CacheInvalidationEvent.Invalidation invalidation : event.getInvalidations()) {
+            if (invalidation.entity() == ECacheEntity.NOTE) {
+                indexes.remove(invalidation.ownerId());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.tags.index.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        indexes.values().removeIf(index -> index.lastAccessAt < cutoff);
+    }
+
+    private void apply(Long userId, Consumer<UserIndex> change) {
+        UserIndex index = indexes.get(userId);
+        if (index != null) {
+            index.apply(change);
+        }
+    }
+
+    private UserIndex get(Long userId) {
+        UserIndex index = indexes.get(userId);
+        if (index == null) {
+            if (indexes.size() >= maxUsers) {
+                evictLeastRecentlyUsed();
+            }
+            UserIndex fresh = new UserIndex();
+            index = indexes.putIfAbsent(userId, fresh);
+            if (index == null) {
+                load(userId, fresh);
+                index = fresh;
+            }
+        }
+        index.awaitLoaded();
+        index.lastAccessAt = System.currentTimeMillis();
+        return index;
+    }
+
+    private void load(Long userId, UserIndex index) {
+        long start = System.currentTimeMillis();
+        try {
+            List<NoteRepository.NoteStatusRow> notes = noteRepository.findStatusRowsByUserId(userId);
+            for (NoteRepository.NoteStatusRow note : notes) {
+                index.putNote(note.getId(), note.getNoteStatus());
+            }
+            List<NoteTagRepository.NoteTagRow> tags = noteTagRepository.findRowsByUserId(userId);
+            for (NoteTagRepository.NoteTagRow tag : tags) {
+                index.addTag(tag.getNoteId(), tag.getTag());
+            }
+            logger.debug("Loaded tag index of user {}: {} notes, {} tags, {} tag assignments in {} ms",
+                    userId, notes.size(), index.byTag.size(), tags.size(), System.currentTimeMillis() - start);
+            index.finishLoading();
+        } catch (RuntimeException e) {
+            logger.error("Failed to load tag index of user {}: {}", userId, e.getMessage(), e);
+            indexes.remove(userId, index);
+            index.fail();
+            throw e;
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        evictIdle();
+        int excess = indexes.size() - maxUsers + 1;
+        if (excess <= 0) {
+            return;
+        }
+        indexes.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(indexes::remove);
+    }
+
+    /** Bitmaps of one user. Once loaded, all access is synchronized on the instance. */
+    private static final class UserIndex {
+        private final Roaring64Bitmap all = new Roaring64Bitmap();
+        private final Map<ENoteStatus, Roaring64Bitmap> byStatus = new EnumMap<>(ENoteStatus.class);
+        private final Map<String, Roaring64Bitmap> byTag = new HashMap<>();
+        private final CountDownLatch loaded = new CountDownLatch(1);
+        private List<Consumer<UserIndex>> pending = new ArrayList<>();
+        private boolean failed;
+        private volatile long lastAccessAt = System.currentTimeMillis();
+
+        private synchronized void apply(Consumer<UserIndex> change) {
+            if (pending != null) {
+                pending.add(change);
+            } else {
+                change.accept(this);
+            }
+        }
+
+        private synchronized void finishLoading() {
+            all.runOptimize();
+            byStatus.values().forEach(Roaring64Bitmap::runOptimize);
+            byTag.values().forEach(Roaring64Bitmap::runOptimize);
+            pending.forEach(change -> change.accept(this));
+            pending = null;
+            loaded.countDown();
+        }
+
+        private synchronized void fail() {
+            failed = true;
+            loaded.countDown();
+        }
+
+        private void awaitLoaded() {
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the tag index", e);
+            }
+            synchronized (this) {
+                if (failed) {
+                    throw new IllegalStateException("Tag index could not be loaded");
+                }
+            }
+        }
+
+        private void putNote(long noteId, ENoteStatus status) {
+            all.addLong(noteId);
+            byStatus.values().forEach(bitmap -> bitmap.removeLong(noteId));
+            if (status != null) {
+                byStatus.computeIfAbsent(status, s -> new Roaring64Bitmap()).addLong(noteId);
+            }
+        }
+
+        private void removeNote(long noteId) {
+            all.removeLong(noteId);
+            byStatus.values().forEach(bitmap -> bitmap.removeLong(noteId));
+            byTag.values().removeIf(bitmap -> {
+                bitmap.removeLong(noteId);
+                return bitmap.isEmpty();
+            });
+        }
+
+        private void addTag(long noteId, String tag) {
+            byTag.computeIfAbsent(tag, t -> new Roaring64Bitmap()).addLong(noteId);
+        }
+
+        private void removeTag(long noteId, String tag) {
+            Roaring64Bitmap bitmap = byTag.get(tag);
+            if (bitmap != null) {
+                bitmap.removeLong(noteId);
+                if (bitmap.isEmpty()) {
+                    byTag.remove(tag);
+                }
+            }
+        }
+    }
+}
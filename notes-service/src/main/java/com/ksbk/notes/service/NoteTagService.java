@@ -0,0 +1,17 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.TagCountResponse;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteTagLimitExceededException;
+
+import java.util.List;
+
+public interface NoteTagService {
+    List<String> addTag(Long userId, Long noteId, String tag) throws NoteNotFoundException, NoteTagLimitExceededException;
+    List<String> removeTag(Long userId, Long noteId, String tag) throws NoteNotFoundException;
+    List<String> getNoteTags(Long userId, Long noteId) throws NoteNotFoundException;
+    List<TagCountResponse> getUserTags(Long userId);
+    NoteFilterResponse filterNotes(Long userId, String expression, ENoteStatus status, Long afterId, int limit);
+}
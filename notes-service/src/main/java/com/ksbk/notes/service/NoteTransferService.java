@@ -0,0 +1,15 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.ImportJobResponse;
+import com.ksbk.notes.exception.ImportJobNotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface NoteTransferService {
+    void exportNdjson(Long userId, OutputStream outputStream) throws IOException;
+    void exportMarkdownZip(Long userId, OutputStream outputStream) throws IOException;
+    ImportJobResponse importNdjson(Long userId, Long jobId, InputStream inputStream) throws ImportJobNotFoundException;
+    ImportJobResponse getImportJob(Long userId, Long jobId) throws ImportJobNotFoundException;
+}
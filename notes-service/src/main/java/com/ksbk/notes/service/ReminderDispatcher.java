@@ -0,0 +1,98 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.common.utils.GatewayIdentity;
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.ReminderMailRequest;
+import com.ksbk.notes.entity.ENoteEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers reminders that {@link ReminderScheduler} has already marked as fired. Delivery is
+ * best effort: a reminder is claimed exactly once, and a failed mail is logged, not retried.
+ * <p>
+ * Channels ({@code notes.reminders.channels}): {@code push} sends a {@code reminder} event to the
+ * user's open note event streams, {@code email} hands the whole batch to auth-service in one call.
+ */
+@Service
+public class ReminderDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderDispatcher.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    public record FiredReminder(Long noteId, Long userId, String title, LocalDateTime dueAt, LocalDateTime remindAt) {
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReminderMailClient reminderMailClient;
+
+    private final GatewayIdentity gatewayIdentity;
+
+    private final AtomicBoolean mailDisabledLogged = new AtomicBoolean();
+
+    @Value("${notes.reminders.channels:push,email}")
+    private Set<String> channels;
+
+    public ReminderDispatcher(ApplicationEventPublisher eventPublisher, ReminderMailClient reminderMailClient,
+                              GatewayIdentity gatewayIdentity) {
+        this.eventPublisher = eventPublisher;
+        this.reminderMailClient = reminderMailClient;
+        this.gatewayIdentity = gatewayIdentity;
+    }
+
+    public void dispatch(List<FiredReminder> reminders) {
+        if (channels.contains("push")) {
+            for (FiredReminder reminder : reminders) {
+                eventPublisher.publishEvent(new NoteChangeEvent(ENoteEventType.REMINDER, reminder.noteId(),
+                        reminder.userId(), toResponse(reminder)));
+            }
+        }
+        if (channels.contains("email")) {
+            sendMails(reminders);
+        }
+        logger.debug("Dispatched {} reminders via {}", reminders.size(), channels);
+    }
+
+    private void sendMails(List<FiredReminder> reminders) {
+        if (!gatewayIdentity.isEnabled()) {
+            if (mailDisabledLogged.compareAndSet(false, true)) {
+                logger.warn("Reminder mails are disabled: app.gatewayIdentitySecret is not set");
+            }
+            return;
+        }
+        try {
+            reminderMailClient.sendReminderMails(reminders.stream()
+                    .map(reminder -> new ReminderMailRequest(reminder.userId(), reminder.noteId(), reminder.title(),
+                            format(reminder.dueAt()), format(reminder.remindAt())))
+                    .toList());
+        } catch (Exception e) {
+            logger.error("Failed to send {} reminder mails: {}", reminders.size(), e.getMessage(), e);
+        }
+    }
+
+    private NoteResponse toResponse(FiredReminder reminder) {
+        NoteResponse response = new NoteResponse();
+        response.setId(reminder.noteId());
+        response.setUserId(reminder.userId());
+        response.setTitle(reminder.title());
+        response.setDueAt(format(reminder.dueAt()));
+        response.setRemindAt(format(reminder.remindAt()));
+        return response;
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(DATE_FORMAT) : null;
+    }
+}
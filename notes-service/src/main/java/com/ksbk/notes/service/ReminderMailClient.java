@@ -0,0 +1,16 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.ReminderMailRequest;
+import com.ksbk.notes.config.ReminderMailClientConfig;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+@FeignClient(name = "auth-service-reminders", url = "${AUTH_SERVICE_URL:http://auth-service:8082}",
+        configuration = ReminderMailClientConfig.class)
+public interface ReminderMailClient {
+    @PostMapping("/api/admin/reminders/email")
+    void sendReminderMails(@RequestBody List<ReminderMailRequest> reminders);
+}
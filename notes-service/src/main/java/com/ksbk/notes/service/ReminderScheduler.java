@@ -0,0 +1,307 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteReminderChangeEvent;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.utils.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.InetAddress;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fires note reminders from an in-memory {@link TimingWheel} instead of polling the notes table.
+ * <p>
+ * Time is cut into slices of {@code notes.reminders.slice-ms}. Every instance periodically leases
+ * the slices ahead of it up to {@code notes.reminders.lookahead-ms} in {@code reminder_slices};
+ * a slice is loaded from the partial {@code notes_pending_reminder_idx} index only by the instance
+ * holding its lease, and a lease that is not renewed expires so another instance takes the slice.
+ * Reminders set inside the already leased horizon are put on the wheel of the instance that
+ * handled the request.
+ * <p>
+ * Due reminders are claimed in batches with a conditional UPDATE that sets {@code reminded_at}
+ * only where it is still null and {@code remind_at} is unchanged, so a reminder fires exactly
+ * once even if two wheels hold it, and a rescheduled one does not fire at its old time. A slow
+ * sweep picks up reminders whose owner died before firing them.
+ * <p>
+ * With sharding every shard has its own slices, leases and sweep; a reminder remembers the shard
+ * it was loaded from and is claimed there.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    private static final String CLAIM_SLICE_SQL =
+            "INSERT INTO reminder_slices (slice_start, owner, leased_until) " +
+            "VALUES (?, ?, now() + ? * interval '1 millisecond') " +
+            "ON CONFLICT (slice_start) DO UPDATE SET owner = EXCLUDED.owner, leased_until = EXCLUDED.leased_until " +
+            "WHERE reminder_slices.owner = EXCLUDED.owner OR reminder_slices.leased_until < now()";
+
+    private static final String LOAD_SLICE_SQL =
+            "SELECT id, remind_at FROM notes WHERE remind_at >= ? AND remind_at < ? AND reminded_at IS NULL";
+
+    private static final String FIRE_SQL =
+            "UPDATE notes n SET reminded_at = now() " +
+            "FROM unnest(?::bigint[], ?::timestamp[]) AS due(id, remind_at) " +
+            "WHERE n.id = due.id AND n.remind_at = due.remind_at AND n.reminded_at IS NULL " +
+            "RETURNING n.id, n.user_id, n.title, n.due_at, n.remind_at";
+
+    private static final String OVERDUE_SQL =
+            "SELECT id, remind_at FROM notes WHERE remind_at < ? AND reminded_at IS NULL ORDER BY remind_at LIMIT ?";
+
+    private static final String DELETE_OLD_SLICES_SQL = "DELETE FROM reminder_slices WHERE slice_start < ?";
+
+    private record PendingReminder(String shard, long noteId, LocalDateTime remindAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReminderDispatcher reminderDispatcher;
+
+    private final ShardRouter shardRouter;
+
+    private final String instanceId;
+
+    private final ExecutorService firing = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Per shard, the start of every slice this instance holds a lease on, mapped to the slice end. */
+    private final Map<String, Map<Long, Long>> ownedSlices = new ConcurrentHashMap<>();
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private TimingWheel<PendingReminder> wheel;
+
+    @Value("${notes.reminders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notes.reminders.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${notes.reminders.slice-ms:60000}")
+    private long sliceMs;
+
+    @Value("${notes.reminders.lookahead-ms:600000}")
+    private long lookaheadMs;
+
+    @Value("${notes.reminders.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${notes.reminders.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notes.reminders.recovery-grace-ms:60000}")
+    private long recoveryGraceMs;
+
+    public ReminderScheduler(JdbcTemplate jdbcTemplate, ReminderDispatcher reminderDispatcher, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reminderDispatcher = reminderDispatcher;
+        this.shardRouter = shardRouter;
+        this.instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Scheduled(fixedRateString = "${notes.reminders.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<PendingReminder> due = new ArrayList<>();
+        synchronized (this) {
+            wheel().advance(System.currentTimeMillis(), due::add);
+        }
+        if (!due.isEmpty()) {
+            firing.execute(() -> fire(due));
+        }
+    }
+
+    /**
+     * Renews the leases this instance holds and tries to lease every slice up to the lookahead,
+     * on every shard. Newly leased slices are loaded onto the wheel.
+     */
+    @Scheduled(fixedDelayString = "${notes.reminders.lease-interval-ms:10000}")
+    public void leaseSlices() {
+        if (!enabled) {
+            return;
+        }
+        shardRouter.forEachShard(this::leaseSlices);
+    }
+
+    private void leaseSlices(String shard) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> owned = ownedSlices.computeIfAbsent(shard, s -> new ConcurrentHashMap<>());
+        owned.values().removeIf(end -> end <= now);
+
+        long horizon = now + lookaheadMs;
+        for (long sliceStart = now - now % sliceMs; sliceStart < horizon; sliceStart += sliceMs) {
+            try {
+                boolean leased = jdbcTemplate.update(CLAIM_SLICE_SQL, sliceStart, instanceId, leaseMs) > 0;
+                if (!leased) {
+                    owned.remove(sliceStart);
+                } else if (owned.putIfAbsent(sliceStart, sliceStart + sliceMs) == null) {
+                    loadSlice(shard, sliceStart, sliceStart + sliceMs);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to lease reminder slice {} on {}: {}", Instant.ofEpochMilli(sliceStart), shard,
+                        e.getMessage(), e);
+                owned.remove(sliceStart);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fires reminders that are overdue by more than {@code notes.reminders.recovery-grace-ms},
+     * i.e. whose slice owner stopped before firing them. Uses the partial index, so it only
+     * touches reminders that are actually pending.
+     */
+    @Scheduled(fixedDelayString = "${notes.reminders.recovery-interval-ms:60000}")
+    public void recoverOverdue() {
+        if (!enabled) {
+            return;
+        }
+        shardRouter.forEachShard(this::recoverOverdue);
+    }
+
+    private void recoverOverdue(String shard) {
+        try {
+            LocalDateTime cutoff = toLocal(System.currentTimeMillis() - recoveryGraceMs);
+            List<PendingReminder> overdue = jdbcTemplate.query(OVERDUE_SQL,
+                    (rs, rowNum) -> new PendingReminder(shard, rs.getLong("id"), rs.getTimestamp("remind_at").toLocalDateTime()),
+                    Timestamp.valueOf(cutoff), batchSize);
+            if (!overdue.isEmpty()) {
+                logger.info("Recovering {} overdue reminders on {}", overdue.size(), shard);
+                fire(overdue);
+            }
+            jdbcTemplate.update(DELETE_OLD_SLICES_SQL, System.currentTimeMillis() - 24 * 3600_000L);
+        } catch (Exception e) {
+            logger.error("Overdue reminder sweep on {} failed: {}", shard, e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReminderChange(NoteReminderChangeEvent event) {
+        if (!enabled || event.getRemindAt() == null) {
+            return;
+        }
+        // Slices this far ahead are not leased yet and will pick the reminder up when they are.
+        long remindAt = toEpochMilli(event.getRemindAt());
+        if (remindAt < System.currentTimeMillis() + lookaheadMs + sliceMs) {
+            schedule(new PendingReminder(shardRouter.shardOf(event.getUserId()), event.getNoteId(), event.getRemindAt()));
+        }
+    }
+
+    public synchronized long getPendingCount() {
+        return wheel().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        firing.shutdown();
+    }
+
+    private void loadSlice(String shard, long sliceStart, long sliceEnd) {
+        List<PendingReminder> reminders = jdbcTemplate.query(LOAD_SLICE_SQL,
+                (rs, rowNum) -> new PendingReminder(shard, rs.getLong("id"), rs.getTimestamp("remind_at").toLocalDateTime()),
+                Timestamp.valueOf(toLocal(sliceStart)), Timestamp.valueOf(toLocal(sliceEnd)));
+        reminders.forEach(this::schedule);
+        logger.debug("Leased reminder slice {} on {} with {} reminders", Instant.ofEpochMilli(sliceStart), shard,
+                reminders.size());
+    }
+
+    private void schedule(PendingReminder reminder) {
+        boolean scheduled;
+        synchronized (this) {
+            scheduled = wheel().add(toEpochMilli(reminder.remindAt()), reminder);
+        }
+        if (!scheduled) {
+            firing.execute(() -> fire(List.of(reminder)));
+        }
+    }
+
+    private void fire(List<PendingReminder> due) {
+        Map<String, List<PendingReminder>> byShard = new LinkedHashMap<>();
+        due.forEach(reminder -> byShard.computeIfAbsent(reminder.shard(), s -> new ArrayList<>()).add(reminder));
+        byShard.forEach((shard, reminders) -> shardRouter.onShard(shard, () -> {
+            fireOnShard(reminders);
+            return null;
+        }));
+    }
+
+    private void fireOnShard(List<PendingReminder> due) {
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<PendingReminder> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                List<ReminderDispatcher.FiredReminder> fired = claim(batch);
+                if (!fired.isEmpty()) {
+                    reminderDispatcher.dispatch(fired);
+                }
+                logger.debug("Fired {} of {} due reminders", fired.size(), batch.size());
+            } catch (Exception e) {
+                // Unclaimed reminders are still pending and will be picked up by the overdue sweep.
+                logger.error("Failed to fire {} reminders: {}", batch.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<ReminderDispatcher.FiredReminder> claim(List<PendingReminder> batch) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIRE_SQL);
+            Long[] ids = new Long[batch.size()];
+            Timestamp[] remindAts = new Timestamp[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                ids[i] = batch.get(i).noteId();
+                remindAts[i] = Timestamp.valueOf(batch.get(i).remindAt());
+            }
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("timestamp", remindAts));
+            return statement;
+        }, (rs, rowNum) -> new ReminderDispatcher.FiredReminder(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("title"),
+                rs.getTimestamp("due_at") != null ? rs.getTimestamp("due_at").toLocalDateTime() : null,
+                rs.getTimestamp("remind_at").toLocalDateTime()));
+    }
+
+    private TimingWheel<PendingReminder> wheel() {
+        if (wheel == null) {
+            wheel = new TimingWheel<>(tickMs, 64, System.currentTimeMillis());
+        }
+        return wheel;
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocal(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), zone);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "notes-service";
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ksbk.notes.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.SerializationBenchmarkReport;
+import com.ksbk.notes.DTO.UserResponse;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.entity.ESerializationFormat;
+import com.ksbk.notes.entity.ESerializationPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and encode/decode cost of list responses in every encoding the API serves: JSON,
+ * JSON gzipped the way Tomcat's response compression does it, CBOR and Smile. The mappers are the
+ * ones behind the message converters, so the bytes are what a client would receive.
+ * <p>
+ * The lists are generated from a fixed seed, with titles and descriptions mixing Cyrillic and Latin
+ * words of the lengths seen in real notes; every format encodes the same list. Times are wall clock
+ * per list on the calling thread, after an untimed warm-up of a tenth of the iterations.
+ */
+@Service
+public class SerializationBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializationBenchmark.class);
+
+    private static final long SEED = 42;
+
+    private static final String[] WORDS = {
+            "заметка", "встреча", "отчёт", "проект", "задача", "купить", "позвонить", "review", "deploy",
+            "release", "budget", "срочно", "понедельник", "клиент", "договор", "notes", "sprint", "план"
+    };
+
+    private final ObjectMapper jsonMapper;
+
+    private final ObjectMapper cborMapper;
+
+    private final ObjectMapper smileMapper;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SerializationBenchmark(ObjectMapper objectMapper,
+                                  MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+                                  MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = cborHttpMessageConverter.getObjectMapper();
+        this.smileMapper = smileHttpMessageConverter.getObjectMapper();
+    }
+
+    /** One report per format, JSON first; null when another run is in progress. */
+    public List<SerializationBenchmarkReport> run(ESerializationPayload payload, int items, int iterations)
+            throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            List<?> values = payload == ESerializationPayload.NOTES ? sampleNotes(items) : sampleUsers(items);
+            JavaType type = jsonMapper.getTypeFactory().constructCollectionType(List.class,
+                    payload == ESerializationPayload.NOTES ? NoteResponse.class : UserResponse.class);
+
+            List<SerializationBenchmarkReport> reports = new ArrayList<>();
+            int jsonBytes = 0;
+            for (ESerializationFormat format : ESerializationFormat.values()) {
+                byte[] encoded = encode(format, values);
+                if (format == ESerializationFormat.JSON) {
+                    jsonBytes = encoded.length;
+                }
+                for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+                    decode(format, encode(format, values), type);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    encode(format, values);
+                }
+                long serializeNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    decode(format, encoded, type);
+                }
+                long deserializeNanos = System.nanoTime() - start;
+
+                SerializationBenchmarkReport report = new SerializationBenchmarkReport();
+                report.setPayload(payload.name());
+                report.setFormat(format.name());
+                report.setItems(items);
+                report.setIterations(iterations);
+                report.setBytes(encoded.length);
+                report.setBytesPerItem((double) encoded.length / items);
+                report.setSizeToJson((double) encoded.length / jsonBytes);
+                report.setSerializeMicros(serializeNanos / 1000.0 / iterations);
+                report.setDeserializeMicros(deserializeNanos / 1000.0 / iterations);
+                reports.add(report);
+            }
+            logger.info("Serialization benchmark: {}", reports);
+            return reports;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private byte[] encode(ESerializationFormat format, List<?> values) throws IOException {
+        return switch (format) {
+            case JSON -> jsonMapper.writeValueAsBytes(values);
+            case GZIP_JSON -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+                    jsonMapper.writeValue(gzip, values);
+                }
+                yield bytes.toByteArray();
+            }
+            case CBOR -> cborMapper.writeValueAsBytes(values);
+            case SMILE -> smileMapper.writeValueAsBytes(values);
+        };
+    }
+
+    private Object decode(ESerializationFormat format, byte[] encoded, JavaType type) throws IOException {
+        return switch (format) {
+            case JSON -> jsonMapper.readValue(encoded, type);
+            case GZIP_JSON -> {
+                try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+                    yield jsonMapper.readValue(gzip, type);
+                }
+            }
+            case CBOR -> cborMapper.readValue(encoded, type);
+            case SMILE -> smileMapper.readValue(encoded, type);
+        };
+    }
+
+    /** Notes as the list endpoints return them: header fields and bodySize, no body. */
+    private static List<NoteResponse> sampleNotes(int count) {
+        Random random = new Random(SEED);
+        ENoteStatus[] statuses = ENoteStatus.values();
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        List<NoteResponse> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Instant createdAt = now.minus(random.nextInt(365 * 24 * 60), ChronoUnit.MINUTES);
+            NoteResponse note = new NoteResponse();
+            note.setId(100_000L + i);
+            note.setTitle(words(random, 1 + random.nextInt(6)));
+            note.setDescription(random.nextInt(4) == 0 ? null : words(random, random.nextInt(40)));
+            note.setUserId(1L + random.nextInt(1000));
+            note.setCreatedAt(createdAt.toString());
+            note.setUpdatedAt(createdAt.plus(random.nextInt(30 * 24 * 60), ChronoUnit.MINUTES).toString());
+            note.setVersion((long) random.nextInt(20));
+            note.setNoteStatus(statuses[random.nextInt(statuses.length)]);
+            if (random.nextInt(3) == 0) {
+                Instant dueAt = createdAt.plus(1 + random.nextInt(60), ChronoUnit.DAYS);
+                note.setDueAt(dueAt.toString());
+                note.setRemindAt(dueAt.minus(1, ChronoUnit.HOURS).toString());
+            }
+            note.setBodySize((long) random.nextInt(20_000));
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static List<UserResponse> sampleUsers(int count) {
+        Random random = new Random(SEED);
+        List<UserResponse> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "user" + (1000 + random.nextInt(1_000_000));
+            UserResponse user = new UserResponse();
+            user.setId(1L + i);
+            user.setUsername(username);
+            user.setEmail(username + "@example.com");
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
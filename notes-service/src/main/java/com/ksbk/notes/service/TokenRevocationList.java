@@ -0,0 +1,120 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.auth.api.RevocationCursor;
+import com.ksbk.auth.api.RevokedToken;
+import com.ksbk.auth.api.RevokedTokensResponse;
+import com.ksbk.notes.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replica of auth-service's revoked access tokens, checked on every authenticated request.
+ * <p>
+ * The check is a Bloom filter lookup that allocates nothing. Only a probable hit goes on to the
+ * exact set of revoked jtis, so valid tokens, almost all of them, never touch the map. The
+ * replica starts with a full load and then polls for revocations newer than the last poll, minus
+ * {@code notes.revocation.poll-overlap-ms} to catch transactions that committed late. A poll pages
+ * with the cursor of the last token received, so any number of tokens revoked at the same instant
+ * is read in full. Expired tokens
+ * are dropped, and the filter is rebuilt from the exact set, every
+ * {@code notes.revocation.rebuild-interval-ms}, or sooner when it fills up.
+ * <p>
+ * Until the first load succeeds no token counts as revoked, which is how tokens behaved before
+ * revocation existed; the service does not refuse traffic while auth-service is down.
+ */
+@Service
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final AuthServiceClient authServiceClient;
+
+    /** jti to expiry of the token, epoch ms. */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    private volatile boolean loaded;
+
+    /** Only touched under the lock of this object, by the poll and the rebuild. */
+    private long sinceMs;
+
+    @Value("${notes.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${notes.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${notes.revocation.poll-overlap-ms:10000}")
+    private long pollOverlapMs;
+
+    @Value("${notes.revocation.page-size:1000}")
+    private int pageSize;
+
+    public TokenRevocationList(AuthServiceClient authServiceClient) {
+        this.authServiceClient = authServiceClient;
+        this.filter = new BloomFilter(1, 0.01);
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.revocation.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        try {
+            int added = 0;
+            RevocationCursor cursor = null;
+            long nextSinceMs = -1;
+            while (true) {
+                RevokedTokensResponse page = authServiceClient.revokedTokensSince(sinceMs, cursor, pageSize);
+                if (nextSinceMs < 0) {
+                    // The first page's clock: anything committed later is newer than it.
+                    nextSinceMs = Math.max(0, page.getServerTimeMs() - pollOverlapMs);
+                }
+                for (RevokedToken token : page.getTokensList()) {
+                    if (revoked.put(token.getJti(), token.getExpiresAtMs()) == null) {
+                        filter.add(token.getJti());
+                        added++;
+                    }
+                }
+                if (!page.getTruncated() || !page.hasNextCursor()) {
+                    break;
+                }
+                cursor = page.getNextCursor();
+            }
+            sinceMs = nextSinceMs;
+            if (!loaded) {
+                loaded = true;
+                logger.info("Loaded {} revoked access tokens", revoked.size());
+            } else if (added > 0) {
+                logger.debug("{} access tokens revoked since the last poll", added);
+            }
+            if (revoked.size() > filter.capacity()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to poll revoked access tokens: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.revocation.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2L * revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+        logger.debug("Rebuilt the revoked token filter with {} tokens", revoked.size());
+    }
+}
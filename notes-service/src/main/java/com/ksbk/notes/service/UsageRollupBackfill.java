@@ -0,0 +1,210 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.UsageBackfillStatus;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.ERollupGranularity;
+import com.ksbk.notes.entity.EUsageMetric;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds historical rollups from the notes table for the time before the live counters of
+ * {@link UsageRollups} existed.
+ * <p>
+ * The table is scanned in primary key ranges of {@code notes.analytics.backfill.chunk-size} ids,
+ * each chunk a short statement of its own, so the job holds no long transaction and can run next
+ * to normal traffic. Hour counts are summed in memory (one entry per hour and status at most) and
+ * written at the end with {@link UsageRollups#raiseTo}, so a backfill never lowers live counts and
+ * can be repeated.
+ * <p>
+ * Only what the table still shows can be rebuilt: creations of notes that still exist, by their
+ * current status, and each note's last update. Deletions and earlier updates leave no trace.
+ * <p>
+ * With sharding the shards are scanned one after another, each into its own rollups.
+ */
+@Service
+public class UsageRollupBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageRollupBackfill.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String ID_RANGE_SQL = "SELECT min(id) AS min_id, max(id) AS max_id FROM notes";
+
+    private static final String CREATED_CHUNK_SQL =
+            "SELECT date_trunc('hour', created_at) AS hour, note_status, count(*) AS notes FROM notes " +
+            "WHERE id >= ? AND id < ? AND created_at >= ? AND created_at < ? GROUP BY 1, 2";
+
+    private static final String UPDATED_CHUNK_SQL =
+            "SELECT date_trunc('hour', updated_at) AS hour, count(*) AS notes FROM notes " +
+            "WHERE id >= ? AND id < ? AND updated_at >= ? AND updated_at < ? GROUP BY 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UsageRollups usageRollups;
+
+    private final ShardRouter shardRouter;
+
+    private final ExecutorService runner = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicReference<UsageBackfillStatus> current = new AtomicReference<>();
+
+    @Value("${notes.analytics.backfill.chunk-size:50000}")
+    private long chunkSize;
+
+    @Value("${notes.analytics.backfill.pause-ms:20}")
+    private long pauseMs;
+
+    public UsageRollupBackfill(JdbcTemplate jdbcTemplate, UsageRollups usageRollups, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.usageRollups = usageRollups;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Starts a backfill of {@code [from, to)}, widened to whole days so day buckets come out complete.
+     *
+     * @return the status of the new job, or null if another backfill is still running
+     */
+    public UsageBackfillStatus start(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        LocalDateTime start = ERollupGranularity.DAY.bucketStart(from);
+        LocalDateTime end = ERollupGranularity.DAY.bucketStart(to);
+        if (end.isBefore(to)) {
+            end = ERollupGranularity.DAY.next(end);
+        }
+
+        UsageBackfillStatus status = new UsageBackfillStatus();
+        status.setStatus("RUNNING");
+        status.setFrom(start.format(DATE_FORMAT));
+        status.setTo(end.format(DATE_FORMAT));
+        status.setBucketsWritten(0L);
+        status.setStartedAt(LocalDateTime.now().format(DATE_FORMAT));
+        UsageBackfillStatus previous = current.get();
+        if (previous != null && "RUNNING".equals(previous.getStatus()) || !current.compareAndSet(previous, status)) {
+            return null;
+        }
+
+        LocalDateTime rangeStart = start;
+        LocalDateTime rangeEnd = end;
+        runner.execute(() -> run(status, rangeStart, rangeEnd));
+        return copy(status);
+    }
+
+    public UsageBackfillStatus getStatus() {
+        UsageBackfillStatus status = current.get();
+        return status != null ? copy(status) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run(UsageBackfillStatus status, LocalDateTime from, LocalDateTime to) {
+        logger.info("Usage rollup backfill started for {} - {}", from, to);
+        try {
+            int rows = 0;
+            for (String shard : shardRouter.shards()) {
+                rows += shardRouter.onShard(shard, () -> backfill(status, shard, from, to));
+            }
+            synchronized (status) {
+                status.setBucketsWritten((long) rows);
+                status.setStatus("COMPLETED");
+                status.setFinishedAt(LocalDateTime.now().format(DATE_FORMAT));
+            }
+            logger.info("Usage rollup backfill for {} - {} wrote {} rollup rows", from, to, rows);
+        } catch (Exception e) {
+            logger.error("Usage rollup backfill for {} - {} failed: {}", from, to, e.getMessage(), e);
+            synchronized (status) {
+                status.setStatus("FAILED");
+                status.setErrorMessage(e.getMessage());
+                status.setFinishedAt(LocalDateTime.now().format(DATE_FORMAT));
+            }
+        }
+    }
+
+    private int backfill(UsageBackfillStatus status, String shard, LocalDateTime from, LocalDateTime to)
+            throws InterruptedException {
+        Map<String, Object> ids = jdbcTemplate.queryForMap(ID_RANGE_SQL);
+        Number minId = (Number) ids.get("min_id");
+        Number maxId = (Number) ids.get("max_id");
+        synchronized (status) {
+            status.setShard(shard);
+            status.setScannedUpToId(null);
+            status.setMaxId(maxId != null ? maxId.longValue() : null);
+        }
+        Map<UsageRollups.RollupKey, Long> hourly = new HashMap<>();
+        if (minId != null) {
+            scan(status, minId.longValue(), maxId.longValue(), Timestamp.valueOf(from), Timestamp.valueOf(to), hourly);
+        }
+        int rows = usageRollups.raiseTo(hourly);
+        synchronized (status) {
+            status.setBucketsWritten(status.getBucketsWritten() + rows);
+        }
+        return rows;
+    }
+
+    private void scan(UsageBackfillStatus status, long minId, long maxId, Timestamp from, Timestamp to,
+                      Map<UsageRollups.RollupKey, Long> hourly) throws InterruptedException {
+        for (long chunkStart = minId; chunkStart <= maxId; chunkStart += chunkSize) {
+            long chunkEnd = chunkStart + chunkSize;
+            jdbcTemplate.query(CREATED_CHUNK_SQL, rs -> {
+                LocalDateTime hour = rs.getTimestamp("hour").toLocalDateTime();
+                long notes = rs.getLong("notes");
+                hourly.merge(hourKey(EUsageMetric.NOTE_CREATED, hour, ""), notes, Long::sum);
+                String noteStatus = rs.getString("note_status");
+                if (noteStatus != null) {
+                    hourly.merge(hourKey(EUsageMetric.NOTE_STATUS, hour, noteStatus), notes, Long::sum);
+                }
+            }, chunkStart, chunkEnd, from, to);
+            jdbcTemplate.query(UPDATED_CHUNK_SQL, rs -> {
+                hourly.merge(hourKey(EUsageMetric.NOTE_UPDATED, rs.getTimestamp("hour").toLocalDateTime(), ""),
+                        rs.getLong("notes"), Long::sum);
+            }, chunkStart, chunkEnd, from, to);
+
+            synchronized (status) {
+                status.setScannedUpToId(Math.min(chunkEnd - 1, maxId));
+            }
+            if (pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        }
+    }
+
+    private static UsageRollups.RollupKey hourKey(EUsageMetric metric, LocalDateTime hour, String dimension) {
+        return new UsageRollups.RollupKey(ERollupGranularity.HOUR, metric, hour, dimension);
+    }
+
+    private static UsageBackfillStatus copy(UsageBackfillStatus status) {
+        synchronized (status) {
+            UsageBackfillStatus copy = new UsageBackfillStatus();
+            copy.setStatus(status.getStatus());
+            copy.setFrom(status.getFrom());
+            copy.setTo(status.getTo());
+            copy.setShard(status.getShard());
+            copy.setScannedUpToId(status.getScannedUpToId());
+            copy.setMaxId(status.getMaxId());
+            copy.setBucketsWritten(status.getBucketsWritten());
+            copy.setErrorMessage(status.getErrorMessage());
+            copy.setStartedAt(status.getStartedAt());
+            copy.setFinishedAt(status.getFinishedAt());
+            return copy;
+        }
+    }
+}
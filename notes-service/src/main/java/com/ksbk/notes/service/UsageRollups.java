@@ -0,0 +1,234 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.DTO.UsageRollupPoint;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.entity.ERollupGranularity;
+import com.ksbk.notes.entity.EUsageMetric;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hourly and daily usage rollups in {@code usage_rollups}, maintained incrementally from the
+ * write paths instead of being computed from the notes table at query time.
+ * <p>
+ * Writes only bump an in-memory counter per metric, dimension and hour. Every
+ * {@code notes.analytics.flush-interval-ms} the counters are drained and added to both the hour
+ * and the day bucket with one batched upsert; the upsert is additive, so any number of instances
+ * can flush into the same rows. A failed flush puts the drained deltas back for the next attempt.
+ * Counts not flushed yet are lost if the process dies, so rollups are close, not exact.
+ * <p>
+ * With sharding a change is counted on the shard of the note's owner, so every shard holds the
+ * rollups of its own notes and a range query adds the shards up.
+ */
+@Service
+public class UsageRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageRollups.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String ADD_SQL =
+            "INSERT INTO usage_rollups (granularity, metric, bucket_start, dimension, value) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, metric, bucket_start, dimension) DO UPDATE SET value = usage_rollups.value + EXCLUDED.value";
+
+    private static final String RAISE_SQL =
+            "INSERT INTO usage_rollups (granularity, metric, bucket_start, dimension, value) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, metric, bucket_start, dimension) DO UPDATE SET value = GREATEST(usage_rollups.value, EXCLUDED.value)";
+
+    private static final String RANGE_SQL =
+            "SELECT metric, dimension, bucket_start, value FROM usage_rollups " +
+            "WHERE granularity = ? AND metric = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    /** Same order as the primary key, so concurrent flushes lock rows in the same order. */
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::metric)
+            .thenComparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::dimension);
+
+    public record RollupKey(ERollupGranularity granularity, EUsageMetric metric, LocalDateTime bucketStart,
+                            String dimension) {
+    }
+
+    /** Per shard. */
+    private final Map<String, Map<RollupKey, AtomicLong>> counters = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShardRouter shardRouter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notes.analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notes.analytics.max-points:5000}")
+    private long maxPoints;
+
+    public UsageRollups(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Counts a change to notes of {@code ownerId}. */
+    public void record(Long ownerId, EUsageMetric metric, String dimension, long delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        RollupKey key = new RollupKey(ERollupGranularity.HOUR, metric,
+                ERollupGranularity.HOUR.bucketStart(LocalDateTime.now()), dimension != null ? dimension : "");
+        counters.computeIfAbsent(shardRouter.shardOf(ownerId), shard -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChange(NoteChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+                record(event.getUserId(), EUsageMetric.NOTE_CREATED, null, 1);
+                ENoteStatus status = event.getNote() != null ? event.getNote().getNoteStatus() : null;
+                if (status != null) {
+                    record(event.getUserId(), EUsageMetric.NOTE_STATUS, status.name(), 1);
+                }
+            }
+            case UPDATED -> record(event.getUserId(), EUsageMetric.NOTE_UPDATED, null, 1);
+            case DELETED -> record(event.getUserId(), EUsageMetric.NOTE_DELETED, null, 1);
+            case REMINDER -> {
+            }
+        }
+    }
+
+    /**
+     * Buckets of one metric in {@code [from, to)}, oldest first. Reads only {@code usage_rollups}.
+     *
+     * @param dimension restricts the result to one dimension; null returns all of them
+     */
+    public List<UsageRollupPoint> range(EUsageMetric metric, String dimension, ERollupGranularity granularity,
+                                        LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (granularity.bucketsBetween(from, to) > maxPoints) {
+            throw new IllegalArgumentException("Range spans more than " + maxPoints + " " + granularity + " buckets");
+        }
+        List<Object> args = new ArrayList<>(List.of(granularity.name(), metric.name(),
+                Timestamp.valueOf(granularity.bucketStart(from)), Timestamp.valueOf(to)));
+        String sql = RANGE_SQL;
+        if (dimension != null) {
+            sql += " AND dimension = ?";
+            args.add(dimension);
+        }
+        // Bucket start and dimension; the formatted start sorts like the timestamp.
+        Map<List<String>, Long> totals = new TreeMap<>(Comparator
+                .comparing((List<String> key) -> key.get(0))
+                .thenComparing(key -> key.get(1)));
+        String query = sql;
+        shardRouter.forEachShard(shard -> jdbcTemplate.query(query, rs -> {
+            totals.merge(List.of(rs.getTimestamp("bucket_start").toLocalDateTime().format(DATE_FORMAT),
+                    rs.getString("dimension")), rs.getLong("value"), Long::sum);
+        }, args.toArray()));
+        List<UsageRollupPoint> points = new ArrayList<>(totals.size());
+        totals.forEach((key, value) -> points.add(new UsageRollupPoint(metric.name(), key.get(1), key.get(0), value)));
+        return points;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.analytics.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        shardRouter.forEachShard(shard -> {
+            Map<RollupKey, AtomicLong> shardCounters = counters.get(shard);
+            if (shardCounters != null) {
+                flush(shard, shardCounters);
+            }
+        });
+    }
+
+    private void flush(String shard, Map<RollupKey, AtomicLong> counters) {
+        Map<RollupKey, Long> drained = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.getAndSet(0);
+            if (delta != 0) {
+                drained.put(key, delta);
+            }
+        });
+        // Writers only touch the current hour; older counters that stayed empty can go.
+        LocalDateTime staleBefore = ERollupGranularity.HOUR.bucketStart(LocalDateTime.now()).minusHours(1);
+        counters.entrySet().removeIf(entry ->
+                entry.getKey().bucketStart().isBefore(staleBefore) && entry.getValue().get() == 0);
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            int rows = upsert(ADD_SQL, withDayBuckets(drained));
+            logger.debug("Flushed {} usage counters into {} rollup rows on {}", drained.size(), rows, shard);
+        } catch (Exception e) {
+            logger.error("Failed to flush {} usage counters on {}, keeping them for the next flush: {}",
+                    drained.size(), shard, e.getMessage(), e);
+            drained.forEach((key, delta) -> counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta));
+        }
+    }
+
+    /**
+     * Raises stored hour buckets, and the day buckets they roll up into, to at least the given
+     * values. Used by the backfill: it never lowers what the live counters already wrote, and
+     * running it twice over the same range changes nothing. Writes to the current shard, which
+     * must be the one the values were counted on.
+     */
+    public int raiseTo(Map<RollupKey, Long> hourly) {
+        return upsert(RAISE_SQL, withDayBuckets(hourly));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private int upsert(String sql, Map<RollupKey, Long> values) {
+        List<Object[]> rows = values.entrySet().stream()
+                .map(entry -> new Object[]{
+                        entry.getKey().granularity().name(),
+                        entry.getKey().metric().name(),
+                        Timestamp.valueOf(entry.getKey().bucketStart()),
+                        entry.getKey().dimension(),
+                        entry.getValue()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+        return rows.size();
+    }
+
+    private static Map<RollupKey, Long> withDayBuckets(Map<RollupKey, Long> hourly) {
+        Map<RollupKey, Long> all = new TreeMap<>(KEY_ORDER);
+        hourly.forEach((key, value) -> {
+            all.merge(key, value, Long::sum);
+            RollupKey day = new RollupKey(ERollupGranularity.DAY, key.metric(),
+                    ERollupGranularity.DAY.bucketStart(key.bucketStart()), key.dimension());
+            all.merge(day, value, Long::sum);
+        });
+        return all;
+    }
+}
@@ -0,0 +1,264 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.AttachmentInitRequest;
+import com.ksbk.notes.DTO.AttachmentResponse;
+import com.ksbk.notes.DTO.AttachmentUploadStatus;
+import com.ksbk.notes.entity.EAttachmentStatus;
+import com.ksbk.notes.entity.NoteAttachment;
+import com.ksbk.notes.exception.AttachmentNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.mapper.AttachmentMapper;
+import com.ksbk.notes.repository.NoteAttachmentRepository;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.service.AttachmentService;
+import com.ksbk.notes.service.AttachmentStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class AttachmentServiceImpl implements AttachmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentServiceImpl.class);
+
+    /** S3 multipart compose rejects parts smaller than 5 MiB, except for the last one. */
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+
+    /** S3 multipart compose accepts at most 10000 parts. */
+    private static final int MAX_CHUNKS = 10_000;
+
+    @Value("${attachments.chunk-size}")
+    private int chunkSize;
+
+    @Value("${attachments.max-size}")
+    private long maxSize;
+
+    private final NoteAttachmentRepository attachmentRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final AttachmentStorageService storageService;
+
+    private final AttachmentMapper attachmentMapper;
+
+    public AttachmentServiceImpl(NoteAttachmentRepository attachmentRepository, NoteRepository noteRepository,
+                                 AttachmentStorageService storageService, AttachmentMapper attachmentMapper) {
+        this.attachmentRepository = attachmentRepository;
+        this.noteRepository = noteRepository;
+        this.storageService = storageService;
+        this.attachmentMapper = attachmentMapper;
+    }
+
+    @Override
+    @Transactional
+    public AttachmentResponse initUpload(Long userId, Long noteId, AttachmentInitRequest request) throws NoteNotFoundException {
+        logger.info("Starting attachment upload for note ID: {}, user ID: {}, file: {}, size: {}",
+                noteId, userId, request.getFileName(), request.getSize());
+
+        if (noteRepository.findByIdAndUserId(noteId, userId).isEmpty()) {
+            logger.warn("Note not found during attachment upload. Note ID: {}, User ID: {}", noteId, userId);
+            throw new NoteNotFoundException(noteId);
+        }
+        if (request.getSize() == null || request.getSize() <= 0 || request.getSize() > maxSize) {
+            throw new IllegalArgumentException("Attachment size must be between 1 and " + maxSize + " bytes");
+        }
+        int effectiveChunkSize = Math.max(chunkSize, MIN_CHUNK_SIZE);
+        long totalChunks = (request.getSize() + effectiveChunkSize - 1) / effectiveChunkSize;
+        if (totalChunks > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Attachment is too large for chunk size " + effectiveChunkSize);
+        }
+
+        NoteAttachment attachment = new NoteAttachment();
+        attachment.setNoteId(noteId);
+        attachment.setUserId(userId);
+        attachment.setFileName(request.getFileName());
+        attachment.setContentType(request.getContentType());
+        attachment.setSize(request.getSize());
+        attachment.setChunkSize(effectiveChunkSize);
+        attachment.setTotalChunks((int) totalChunks);
+        attachment.setObjectName(String.format("attachments/user_%d/note_%d/%s", userId, noteId, UUID.randomUUID()));
+        attachment.setCreatedAt(LocalDateTime.now());
+
+        NoteAttachment saved = attachmentRepository.save(attachment);
+        logger.info("Attachment upload started. Attachment ID: {}, chunks: {}", saved.getId(), totalChunks);
+        return attachmentMapper.attachmentToAttachmentResponse(saved);
+    }
+
+    @Override
+    public void uploadChunk(Long userId, Long noteId, Long attachmentId, int index, InputStream stream, long length) throws Exception {
+        NoteAttachment attachment = getAttachment(userId, noteId, attachmentId);
+        if (attachment.getStatus() != EAttachmentStatus.UPLOADING) {
+            throw new IllegalStateException("Attachment upload is already completed");
+        }
+        if (index < 0 || index >= attachment.getTotalChunks()) {
+            throw new IllegalArgumentException("Chunk index out of range: " + index);
+        }
+        long expectedLength = expectedChunkLength(attachment, index);
+        if (length != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + index + " must be " + expectedLength + " bytes, got " + length);
+        }
+
+        storageService.putChunk(attachment.getObjectName(), index, stream, length);
+        logger.debug("Stored chunk {} of attachment {}", index, attachmentId);
+    }
+
+    @Override
+    public AttachmentUploadStatus getUploadStatus(Long userId, Long noteId, Long attachmentId) throws Exception {
+        NoteAttachment attachment = getAttachment(userId, noteId, attachmentId);
+
+        List<Integer> received;
+        if (attachment.getStatus() == EAttachmentStatus.COMPLETED) {
+            received = new ArrayList<>(attachment.getTotalChunks());
+            for (int i = 0; i < attachment.getTotalChunks(); i++) {
+                received.add(i);
+            }
+        } else {
+            received = storageService.listChunks(attachment.getObjectName());
+        }
+
+        Set<Integer> receivedSet = new HashSet<>(received);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < attachment.getTotalChunks(); i++) {
+            if (!receivedSet.contains(i)) {
+                missing.add(i);
+            }
+        }
+
+        AttachmentUploadStatus status = new AttachmentUploadStatus();
+        status.setAttachmentId(attachmentId);
+        status.setChunkSize(attachment.getChunkSize());
+        status.setTotalChunks(attachment.getTotalChunks());
+        status.setReceivedChunks(received);
+        status.setMissingChunks(missing);
+        return status;
+    }
+
+    @Override
+    @Transactional
+    public AttachmentResponse completeUpload(Long userId, Long noteId, Long attachmentId) throws Exception {
+        logger.info("Completing attachment upload. Attachment ID: {}, Note ID: {}", attachmentId, noteId);
+        NoteAttachment attachment = getAttachment(userId, noteId, attachmentId);
+        if (attachment.getStatus() == EAttachmentStatus.COMPLETED) {
+            return attachmentMapper.attachmentToAttachmentResponse(attachment);
+        }
+
+        List<Integer> received = storageService.listChunks(attachment.getObjectName());
+        if (received.size() != attachment.getTotalChunks()) {
+            logger.warn("Attachment {} is incomplete: {}/{} chunks received",
+                    attachmentId, received.size(), attachment.getTotalChunks());
+            throw new IllegalStateException("Upload incomplete: " + received.size() + "/"
+                    + attachment.getTotalChunks() + " chunks received");
+        }
+
+        storageService.compose(attachment.getObjectName(), attachment.getTotalChunks(), attachment.getContentType());
+        attachment.setStatus(EAttachmentStatus.COMPLETED);
+        attachment.setCompletedAt(LocalDateTime.now());
+        NoteAttachment saved = attachmentRepository.save(attachment);
+
+        try {
+            storageService.removeChunks(attachment.getObjectName(), attachment.getTotalChunks());
+        } catch (Exception e) {
+            logger.error("Failed to clean up chunks of attachment {}: {}", attachmentId, e.getMessage(), e);
+        }
+        logger.info("Attachment upload completed. Attachment ID: {}", attachmentId);
+        return attachmentMapper.attachmentToAttachmentResponse(saved);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttachmentResponse> getNoteAttachments(Long userId, Long noteId) {
+        logger.debug("Fetching attachments for note ID: {}, user ID: {}", noteId, userId);
+        return attachmentRepository.findByNoteIdAndUserId(noteId, userId).stream()
+                .map(attachmentMapper::attachmentToAttachmentResponse)
+                .toList();
+    }
+
+    @Override
+    public NoteAttachment getCompletedAttachment(Long userId, Long noteId, Long attachmentId) throws AttachmentNotFoundException {
+        NoteAttachment attachment = getAttachment(userId, noteId, attachmentId);
+        if (attachment.getStatus() != EAttachmentStatus.COMPLETED) {
+            logger.warn("Attachment {} requested before upload completed", attachmentId);
+            throw new AttachmentNotFoundException(attachmentId);
+        }
+        return attachment;
+    }
+
+    @Override
+    public InputStream openRange(NoteAttachment attachment, long offset, long length) throws Exception {
+        return storageService.getRange(attachment.getObjectName(), offset, length);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAttachment(Long userId, Long noteId, Long attachmentId) throws Exception {
+        logger.info("Deleting attachment. Attachment ID: {}, Note ID: {}", attachmentId, noteId);
+        NoteAttachment attachment = getAttachment(userId, noteId, attachmentId);
+        storageService.remove(attachment.getObjectName(), attachment.getTotalChunks());
+        attachmentRepository.delete(attachment);
+        logger.info("Attachment deleted successfully. Attachment ID: {}", attachmentId);
+    }
+
+    /**
+     * Drops the rows of every attachment of the note, finished or not. The objects are removed
+     * once the caller's transaction commits, so a rolled back delete keeps its files.
+     */
+    @Override
+    @Transactional
+    public void deleteNoteAttachments(Long userId, Long noteId) {
+        List<NoteAttachment> attachments = attachmentRepository.findByNoteIdAndUserId(noteId, userId);
+        if (attachments.isEmpty()) {
+            return;
+        }
+        attachmentRepository.deleteAll(attachments);
+        logger.info("Deleting {} attachments of note {}", attachments.size(), noteId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeObjects(attachments);
+                }
+            });
+        } else {
+            removeObjects(attachments);
+        }
+    }
+
+    /** A failure only leaves orphaned objects behind; the rows are already gone. */
+    private void removeObjects(List<NoteAttachment> attachments) {
+        for (NoteAttachment attachment : attachments) {
+            try {
+                storageService.remove(attachment.getObjectName(), attachment.getTotalChunks());
+            } catch (Exception e) {
+                logger.error("Failed to remove objects of attachment {}: {}", attachment.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private long expectedChunkLength(NoteAttachment attachment, int index) {
+        if (index < attachment.getTotalChunks() - 1) {
+            return attachment.getChunkSize();
+        }
+        return attachment.getSize() - (long) attachment.getChunkSize() * (attachment.getTotalChunks() - 1);
+    }
+
+    private NoteAttachment getAttachment(Long userId, Long noteId, Long attachmentId) throws AttachmentNotFoundException {
+        return attachmentRepository.findByIdAndNoteIdAndUserId(attachmentId, noteId, userId)
+                .orElseThrow(() -> {
+                    logger.warn("Attachment not found. Attachment ID: {}, Note ID: {}, User ID: {}",
+                            attachmentId, noteId, userId);
+                    return new AttachmentNotFoundException(attachmentId);
+                });
+    }
+}
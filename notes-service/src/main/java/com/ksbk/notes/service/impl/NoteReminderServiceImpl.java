@@ -0,0 +1,107 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.DTO.NoteReminderChangeEvent;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.ReminderRequest;
+import com.ksbk.notes.entity.ENoteEventType;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.mapper.NoteMapper;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.service.NoteReminderService;
+import com.ksbk.notes.service.NoteShareService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+@Service
+public class NoteReminderServiceImpl implements NoteReminderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteReminderServiceImpl.class);
+
+    /** Tolerates clock skew between client and server when a reminder is set for "now". */
+    private static final long PAST_TOLERANCE_SECONDS = 60;
+
+    private final NoteRepository noteRepository;
+
+    private final NoteMapper noteMapper;
+
+    private final NoteShareService noteShareService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public NoteReminderServiceImpl(NoteRepository noteRepository, NoteMapper noteMapper,
+                                   NoteShareService noteShareService, ApplicationEventPublisher eventPublisher) {
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.noteShareService = noteShareService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public NoteResponse setReminder(Long userId, Long noteId, ReminderRequest request) throws NoteNotFoundException {
+        LocalDateTime dueAt = toLocal(request.getDueAt());
+        LocalDateTime remindAt = request.getRemindAt() != null ? toLocal(request.getRemindAt()) : dueAt;
+        if (remindAt == null) {
+            throw new IllegalArgumentException("Either dueAt or remindAt is required");
+        }
+        if (remindAt.isBefore(LocalDateTime.now().minusSeconds(PAST_TOLERANCE_SECONDS))) {
+            throw new IllegalArgumentException("Reminder time is in the past");
+        }
+
+        Note note = getNoteByIdAndUser(noteId, userId);
+        note.setDueAt(dueAt);
+        note.setRemindAt(remindAt);
+        NoteResponse response = save(note);
+        noteRepository.rearmReminder(noteId, userId);
+
+        eventPublisher.publishEvent(new NoteReminderChangeEvent(noteId, userId, remindAt));
+        logger.info("Reminder of note {} (user {}) set to {}, due {}", noteId, userId, remindAt, dueAt);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public NoteResponse clearReminder(Long userId, Long noteId) throws NoteNotFoundException {
+        Note note = getNoteByIdAndUser(noteId, userId);
+        note.setDueAt(null);
+        note.setRemindAt(null);
+        NoteResponse response = save(note);
+
+        eventPublisher.publishEvent(new NoteReminderChangeEvent(noteId, userId, null));
+        logger.info("Reminder of note {} (user {}) cleared", noteId, userId);
+        return response;
+    }
+
+    private NoteResponse save(Note note) {
+        note.setUpdatedAt(LocalDateTime.now());
+        Note saved = noteRepository.saveAndFlush(note);
+        NoteResponse response = noteMapper.noteToNoteResponse(saved);
+        eventPublisher.publishEvent(new NoteChangeEvent(ENoteEventType.UPDATED, saved.getId(), saved.getUserId(), response,
+                noteShareService.getNoteReaders(saved.getId())));
+        return response;
+    }
+
+    /** Reminder times are kept in server-local time like every other timestamp, to the second. */
+    private static LocalDateTime toLocal(OffsetDateTime time) {
+        return time == null ? null : time.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                .truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private Note getNoteByIdAndUser(Long noteId, Long userId) throws NoteNotFoundException {
+        return noteRepository.findByIdAndUserId(noteId, userId)
+                .orElseThrow(() -> {
+                    logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
+                    return new NoteNotFoundException(noteId);
+                });
+    }
+}
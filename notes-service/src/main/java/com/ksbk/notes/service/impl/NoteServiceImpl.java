@@ -1,48 +1,105 @@
 package com.ksbk.notes.service.impl;
 
+import com.ksbk.notes.DTO.NoteChangeEvent;
+import com.ksbk.notes.DTO.NoteRevisionResponse;
 import com.ksbk.notes.DTO.UserResponse;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.ECacheEntity;
+import com.ksbk.notes.entity.ENoteEventType;
+import com.ksbk.notes.entity.ESharePermission;
+import com.ksbk.notes.service.AttachmentService;
 import com.ksbk.notes.service.AuthServiceClient;
+import com.ksbk.notes.service.CacheInvalidationBus;
+import com.ksbk.notes.service.NoteBodyStore;
+import com.ksbk.notes.service.NotePermissionCache;
+import com.ksbk.notes.service.NoteRevisionService;
 import com.ksbk.notes.service.NoteService;
+import com.ksbk.notes.service.NoteShareService;
 import com.ksbk.notes.DTO.NoteRequest;
 import com.ksbk.notes.DTO.NoteResponse;
 import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.NoteAccessDeniedException;
+import com.ksbk.notes.exception.NoteBodyTooLargeException;
 import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteRevisionNotFoundException;
+import com.ksbk.notes.exception.NoteVersionConflictException;
 import com.ksbk.notes.mapper.NoteMapper;
 import com.ksbk.notes.repository.NoteRepository;
-import jakarta.transaction.Transactional;
+import com.ksbk.notes.repository.NoteTagRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class NoteServiceImpl implements NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     private final NoteRepository noteRepository;
 
     private final NoteMapper noteMapper;
 
     private final AuthServiceClient authServiceClient;
 
-    public NoteServiceImpl(NoteRepository noteRepository, NoteMapper noteMapper, AuthServiceClient authServiceClient) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final NoteRevisionService noteRevisionService;
+
+    private final NoteTagRepository noteTagRepository;
+
+    private final NoteShareService noteShareService;
+
+    private final NotePermissionCache notePermissionCache;
+
+    private final NoteBodyStore noteBodyStore;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final AttachmentService attachmentService;
+
+    private final ShardRouter shardRouter;
+
+    public NoteServiceImpl(NoteRepository noteRepository, NoteMapper noteMapper, AuthServiceClient authServiceClient,
+                           ApplicationEventPublisher eventPublisher, NoteRevisionService noteRevisionService,
+                           NoteTagRepository noteTagRepository, NoteShareService noteShareService,
+                           NotePermissionCache notePermissionCache, NoteBodyStore noteBodyStore,
+                           CacheInvalidationBus cacheInvalidationBus, AttachmentService attachmentService,
+                           ShardRouter shardRouter) {
         this.noteRepository = noteRepository;
         this.noteMapper = noteMapper;
         this.authServiceClient = authServiceClient;
+        this.eventPublisher = eventPublisher;
+        this.noteRevisionService = noteRevisionService;
+        this.noteTagRepository = noteTagRepository;
+        this.noteShareService = noteShareService;
+        this.notePermissionCache = notePermissionCache;
+        this.noteBodyStore = noteBodyStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.attachmentService = attachmentService;
+        this.shardRouter = shardRouter;
     }
 
     @Override
     @Transactional
-    public NoteResponse createNote(Long userId, NoteRequest request) {
+    public NoteResponse createNote(Long userId, NoteRequest request) throws NoteBodyTooLargeException {
         logger.info("Creating note for user ID: {}", userId);
         logger.debug("Note request data - title: {}, description: {}",
                 request.getTitle(), request.getDescription());
 
         try {
+            byte[] body = encodeBody(request.getBody());
             UserResponse user = authServiceClient.getUserById(userId);
             if (user == null) {
                 logger.warn("User not found during note creation: {}", userId);
@@ -54,12 +111,20 @@ public class NoteServiceImpl implements NoteService {
             note.setDescription(request.getDescription());
             note.setCreatedAt(LocalDateTime.now());
             note.setUserId(userId);
+            note.setBodySize((long) body.length);
 
             Note savedNote = noteRepository.save(note);
+            if (body.length > 0) {
+                noteBodyStore.write(savedNote.getId(), body);
+            }
+            noteRevisionService.recordInitialRevision(savedNote, new String(body, StandardCharsets.UTF_8));
             logger.info("Note created successfully. Note ID: {}, User ID: {}",
                     savedNote.getId(), userId);
 
-            return noteMapper.noteToNoteResponse(savedNote);
+            NoteResponse response = noteMapper.noteToNoteResponse(savedNote);
+            eventPublisher.publishEvent(new NoteChangeEvent(ENoteEventType.CREATED, savedNote.getId(), userId, response, Set.of()));
+            cacheInvalidationBus.publish(ECacheEntity.NOTE, savedNote.getId(), savedNote.getVersion(), userId);
+            return response;
         } catch (Exception e) {
             logger.error("Failed to create note for user {}: {}", userId, e.getMessage(), e);
             throw e;
@@ -68,26 +133,34 @@ public class NoteServiceImpl implements NoteService {
 
     @Override
     @Transactional
-    public NoteResponse updateNote(Long userId, Long noteId, NoteRequest request) throws NoteNotFoundException {
+    public NoteResponse updateNote(Long userId, Long noteId, NoteRequest request, Long expectedVersion)
+            throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException {
         logger.info("Updating note. Note ID: {}, User ID: {}", noteId, userId);
         logger.debug("Update data - title: {}, description: {}",
                 request.getTitle(), request.getDescription());
 
         try {
-            Note note = getNoteByIdAndUser(noteId, userId);
-            logger.debug("Found note to update: {}", note.getId());
-
-            note.setTitle(request.getTitle());
-            note.setDescription(request.getDescription());
-            note.setUpdatedAt(LocalDateTime.now());
-
-            Note updatedNote = noteRepository.save(note);
-            logger.info("Note updated successfully. Note ID: {}", updatedNote.getId());
-
-            return noteMapper.noteToNoteResponse(updatedNote);
+            Long ownerId = getWritableOwner(noteId, userId);
+            byte[] body = request.getBody() != null ? encodeBody(request.getBody()) : null;
+            NoteResponse response = onNote(noteId, ownerId, false, note -> {
+                logger.debug("Found note to update: {}", note.getId());
+                checkVersion(note, expectedVersion);
+                return applyUpdate(note, request.getTitle(), request.getDescription(), body);
+            });
+            if (response == null) {
+                throw new NoteNotFoundException(noteId);
+            }
+            logger.info("Note updated successfully. Note ID: {}", noteId);
+            return response;
         } catch (NoteNotFoundException e) {
             logger.warn("Note not found during update. Note ID: {}, User ID: {}", noteId, userId);
             throw e;
+        } catch (NoteVersionConflictException e) {
+            logger.info("Stale update rejected. Note ID: {}, expected version: {}", noteId, expectedVersion);
+            throw e;
+        } catch (NoteAccessDeniedException e) {
+            logger.warn("User {} has no write access to note {}", userId, noteId);
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to update note {} for user {}: {}", noteId, userId, e.getMessage(), e);
             throw e;
@@ -96,16 +169,55 @@ public class NoteServiceImpl implements NoteService {
 
     @Override
     @Transactional
-    public void deleteNote(Long userId, Long noteId) throws NoteNotFoundException {
+    public NoteResponse patchNote(Long userId, Long noteId, NoteRequest patch, Long expectedVersion)
+            throws NoteNotFoundException, NoteVersionConflictException, NoteAccessDeniedException, NoteBodyTooLargeException {
+        logger.debug("Patching note. Note ID: {}, User ID: {}", noteId, userId);
+        try {
+            Long ownerId = getWritableOwner(noteId, userId);
+            byte[] body = patch.getBody() != null ? encodeBody(patch.getBody()) : null;
+            NoteResponse response = onNote(noteId, ownerId, false, note -> {
+                checkVersion(note, expectedVersion);
+                return applyUpdate(note,
+                        patch.getTitle() != null ? patch.getTitle() : note.getTitle(),
+                        patch.getDescription() != null ? patch.getDescription() : note.getDescription(),
+                        body);
+            });
+            if (response == null) {
+                throw new NoteNotFoundException(noteId);
+            }
+            return response;
+        } catch (NoteNotFoundException | NoteVersionConflictException | NoteAccessDeniedException | NoteBodyTooLargeException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to patch note {} for user {}: {}", noteId, userId, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteNote(Long userId, Long noteId, Long expectedVersion)
+            throws NoteNotFoundException, NoteVersionConflictException {
         logger.info("Deleting note. Note ID: {}, User ID: {}", noteId, userId);
 
         try {
             Note note = getNoteByIdAndUser(noteId, userId);
+            checkVersion(note, expectedVersion);
+            noteRevisionService.deleteRevisions(noteId);
+            noteTagRepository.deleteByNoteId(noteId);
+            Set<Long> sharedWith = noteShareService.deleteNoteShares(noteId);
+            noteBodyStore.delete(noteId);
+            attachmentService.deleteNoteAttachments(userId, noteId);
             noteRepository.delete(note);
+            eventPublisher.publishEvent(new NoteChangeEvent(ENoteEventType.DELETED, noteId, userId, null, sharedWith));
+            cacheInvalidationBus.publish(ECacheEntity.NOTE, noteId, note.getVersion(), userId);
             logger.info("Note deleted successfully. Note ID: {}", noteId);
         } catch (NoteNotFoundException e) {
             logger.warn("Note not found during deletion. Note ID: {}, User ID: {}", noteId, userId);
             throw e;
+        } catch (NoteVersionConflictException e) {
+            logger.info("Stale delete rejected. Note ID: {}, expected version: {}", noteId, expectedVersion);
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to delete note {} for user {}: {}", noteId, userId, e.getMessage(), e);
             throw e;
@@ -113,13 +225,21 @@ public class NoteServiceImpl implements NoteService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public NoteResponse getNoteById(Long userId, Long noteId) throws NoteNotFoundException {
         logger.debug("Fetching note. Note ID: {}, User ID: {}", noteId, userId);
 
         try {
-            Note note = getNoteByIdAndUser(noteId, userId);
+            NoteResponse response = onNote(noteId, getReadableOwner(noteId, userId), true, note -> {
+                NoteResponse found = noteMapper.noteToNoteResponse(note);
+                found.setBody(noteBodyStore.read(noteId, note.getBodySize()));
+                return found;
+            });
+            if (response == null) {
+                throw new NoteNotFoundException(noteId);
+            }
             logger.info("Note retrieved successfully. Note ID: {}", noteId);
-            return noteMapper.noteToNoteResponse(note);
+            return response;
         } catch (NoteNotFoundException e) {
             logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
             throw e;
@@ -130,6 +250,31 @@ public class NoteServiceImpl implements NoteService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public long getNoteBodySize(Long userId, Long noteId) throws NoteNotFoundException {
+        Long size = onNote(noteId, getReadableOwner(noteId, userId), true, Note::getBodySize);
+        if (size == null) {
+            throw new NoteNotFoundException(noteId);
+        }
+        return size;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] readNoteBody(Long userId, Long noteId, long offset, long length) throws NoteNotFoundException {
+        byte[] range = onNote(noteId, getReadableOwner(noteId, userId), true, note -> {
+            long end = Math.min(offset + length, note.getBodySize());
+            logger.debug("Reading bytes {}-{} of the body of note {}", offset, end, noteId);
+            return noteBodyStore.readRange(noteId, offset, end - offset);
+        });
+        if (range == null) {
+            throw new NoteNotFoundException(noteId);
+        }
+        return range;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<NoteResponse> getAllUserNotes(Long userId) {
         logger.debug("Fetching all notes for user ID: {}", userId);
 
@@ -146,6 +291,7 @@ public class NoteServiceImpl implements NoteService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<NoteResponse> searchNotes(Long userId, String query) {
         logger.debug("Searching notes for user ID: {}, query: '{}'", userId, query);
 
@@ -162,6 +308,138 @@ public class NoteServiceImpl implements NoteService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteRevisionResponse> getNoteRevisions(Long userId, Long noteId) throws NoteNotFoundException {
+        logger.debug("Fetching revisions. Note ID: {}, User ID: {}", noteId, userId);
+        getNoteByIdAndUser(noteId, userId);
+        return noteRevisionService.getRevisions(noteId).stream()
+                .map(summary -> {
+                    NoteRevisionResponse response = new NoteRevisionResponse();
+                    response.setRevision(summary.getRevision());
+                    response.setSnapshot(summary.isSnapshot());
+                    response.setCreatedAt(summary.getCreatedAt().format(DATE_FORMAT));
+                    return response;
+                })
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteRevisionResponse getNoteRevision(Long userId, Long noteId, Integer revision)
+            throws NoteNotFoundException, NoteRevisionNotFoundException {
+        logger.debug("Fetching revision {}. Note ID: {}, User ID: {}", revision, noteId, userId);
+        getNoteByIdAndUser(noteId, userId);
+
+        NoteRevisionService.RevisionContent content = noteRevisionService.reconstruct(noteId, revision);
+        NoteRevisionResponse response = new NoteRevisionResponse();
+        response.setRevision(revision);
+        response.setSnapshot(content.revision().isSnapshot());
+        response.setCreatedAt(content.revision().getCreatedAt().format(DATE_FORMAT));
+        response.setTitle(content.content().title());
+        response.setDescription(content.content().description());
+        response.setBody(content.content().body());
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public NoteResponse restoreNoteRevision(Long userId, Long noteId, Integer revision)
+            throws NoteNotFoundException, NoteRevisionNotFoundException {
+        logger.info("Restoring revision {}. Note ID: {}, User ID: {}", revision, noteId, userId);
+
+        Note note = getNoteByIdAndUser(noteId, userId);
+        NoteRevisionService.RevisionContent content = noteRevisionService.reconstruct(noteId, revision);
+        String body = content.content().body();
+        if (body == null) {
+            logger.info("Revision {} of note {} predates body history, keeping the current body", revision, noteId);
+        }
+        NoteResponse response = applyUpdate(note, content.content().title(), content.content().description(),
+                body != null ? NoteBodyStore.encode(body) : null);
+        logger.info("Note {} restored to revision {} as revision {}", noteId, revision, note.getRevision());
+        return response;
+    }
+
+    /** @param body the new UTF-8 body, or null to keep the stored one */
+    private NoteResponse applyUpdate(Note note, String title, String description, byte[] body) {
+        noteRevisionService.recordRevision(note, title, description,
+                body != null ? new String(body, StandardCharsets.UTF_8) : null);
+        note.setTitle(title);
+        note.setDescription(description);
+        note.setUpdatedAt(LocalDateTime.now());
+        if (body != null) {
+            noteBodyStore.write(note.getId(), body);
+            note.setBodySize((long) body.length);
+        }
+
+        // Flush so the version check runs now and the response carries the new version.
+        Note updatedNote = noteRepository.saveAndFlush(note);
+        NoteResponse response = noteMapper.noteToNoteResponse(updatedNote);
+        eventPublisher.publishEvent(new NoteChangeEvent(ENoteEventType.UPDATED, note.getId(), note.getUserId(), response,
+                noteShareService.getNoteReaders(note.getId())));
+        cacheInvalidationBus.publish(ECacheEntity.NOTE, note.getId(), updatedNote.getVersion(), note.getUserId());
+        return response;
+    }
+
+    private byte[] encodeBody(String body) throws NoteBodyTooLargeException {
+        byte[] encoded = NoteBodyStore.encode(body);
+        if (encoded.length > noteBodyStore.getMaxSize()) {
+            throw new NoteBodyTooLargeException(noteBodyStore.getMaxSize());
+        }
+        return encoded;
+    }
+
+    /**
+     * Fails fast when the client edited an older version. A concurrent writer that slips in
+     * between this check and the flush is still caught by the {@code @Version} column.
+     */
+    private void checkVersion(Note note, Long expectedVersion) throws NoteVersionConflictException {
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            throw new NoteVersionConflictException(note.getVersion());
+        }
+    }
+
+    /**
+     * Owner of a note the user may read: the user, unless the note is shared with them. Sharing is
+     * resolved from {@link NotePermissionCache}, so this costs no query. A note the user may not
+     * read then is not found under its owner, so its existence is not revealed.
+     */
+    private Long getReadableOwner(Long noteId, Long userId) {
+        Long ownerId = notePermissionCache.owner(userId, noteId);
+        return ownerId != null ? ownerId : userId;
+    }
+
+    private Long getWritableOwner(Long noteId, Long userId) throws NoteAccessDeniedException {
+        Long ownerId = notePermissionCache.owner(userId, noteId);
+        if (ownerId == null) {
+            return userId;
+        }
+        if (notePermissionCache.permission(userId, noteId) != ESharePermission.WRITE) {
+            throw new NoteAccessDeniedException(noteId);
+        }
+        return ownerId;
+    }
+
+    @FunctionalInterface
+    private interface NoteWork<T, E extends Exception> {
+        T apply(Note note) throws E;
+    }
+
+    /**
+     * Looks the note up by its full key on its owner's shard and runs the work on it there, in one
+     * transaction. Returns null when the note does not exist.
+     */
+    private <T, E extends Exception> T onNote(Long noteId, Long ownerId, boolean readOnly, NoteWork<T, E> work) throws E {
+        return shardRouter.inUserShardTransaction(ownerId, readOnly, () -> {
+            Optional<Note> note = noteRepository.findByIdAndUserId(noteId, ownerId);
+            if (note.isEmpty()) {
+                logger.warn("Note not found. Note ID: {}, Owner ID: {}", noteId, ownerId);
+                return null;
+            }
+            return work.apply(note.get());
+        });
+    }
+
     private Note getNoteByIdAndUser(Long noteId, Long userId) throws NoteNotFoundException {
         logger.trace("Looking for note ID: {} belonging to user ID: {}", noteId, userId);
         return noteRepository.findByIdAndUserId(noteId, userId)
@@ -0,0 +1,354 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.NoteAclChangeEvent;
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.NoteGroupRequest;
+import com.ksbk.notes.DTO.NoteGroupResponse;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteShareRequest;
+import com.ksbk.notes.DTO.NoteShareResponse;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.EShareGrantee;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.entity.NoteGroup;
+import com.ksbk.notes.entity.NoteShare;
+import com.ksbk.notes.exception.NoteGroupNotFoundException;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteShareNotFoundException;
+import com.ksbk.notes.mapper.NoteMapper;
+import com.ksbk.notes.mapper.NoteShareMapper;
+import com.ksbk.notes.repository.NoteGroupMemberRepository;
+import com.ksbk.notes.repository.NoteGroupRepository;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.repository.NoteShareRepository;
+import com.ksbk.notes.service.AuthServiceClient;
+import com.ksbk.notes.service.NotePermissionCache;
+import com.ksbk.notes.service.NoteShareService;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class NoteShareServiceImpl implements NoteShareService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteShareServiceImpl.class);
+
+    private static final int MAX_GROUP_NAME_LENGTH = 100;
+
+    private static final String READERS_SQL =
+            "SELECT s.grantee_id FROM note_shares s WHERE s.note_id = ? AND s.grantee_type = 'USER' " +
+            "UNION " +
+            "SELECT m.user_id FROM note_shares s JOIN note_group_members m ON m.group_id = s.grantee_id " +
+            "WHERE s.note_id = ? AND s.grantee_type = 'GROUP'";
+
+    private static final String BUMP_VERSIONS_SQL =
+            "INSERT INTO note_acl_versions (user_id, version, changed_at) " +
+            "SELECT u, nextval('note_acl_version_seq'), clock_timestamp() FROM unnest(?::bigint[]) AS u " +
+            "ON CONFLICT (user_id) DO UPDATE SET version = EXCLUDED.version, changed_at = EXCLUDED.changed_at";
+
+    private final NoteShareRepository noteShareRepository;
+
+    private final NoteGroupRepository noteGroupRepository;
+
+    private final NoteGroupMemberRepository noteGroupMemberRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final NoteMapper noteMapper;
+
+    private final NoteShareMapper noteShareMapper;
+
+    private final NotePermissionCache notePermissionCache;
+
+    private final AuthServiceClient authServiceClient;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ShardRouter shardRouter;
+
+    public NoteShareServiceImpl(NoteShareRepository noteShareRepository, NoteGroupRepository noteGroupRepository,
+                                NoteGroupMemberRepository noteGroupMemberRepository, NoteRepository noteRepository,
+                                NoteMapper noteMapper, NoteShareMapper noteShareMapper,
+                                NotePermissionCache notePermissionCache, AuthServiceClient authServiceClient,
+                                JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                ShardRouter shardRouter) {
+        this.noteShareRepository = noteShareRepository;
+        this.noteGroupRepository = noteGroupRepository;
+        this.noteGroupMemberRepository = noteGroupMemberRepository;
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.noteShareMapper = noteShareMapper;
+        this.notePermissionCache = notePermissionCache;
+        this.authServiceClient = authServiceClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteShareResponse> getNoteShares(Long userId, Long noteId) throws NoteNotFoundException {
+        checkNoteOwner(userId, noteId);
+        return noteShareRepository.findByNoteIdOrderById(noteId).stream()
+                .map(noteShareMapper::shareToShareResponse)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public NoteShareResponse shareNote(Long userId, Long noteId, NoteShareRequest request)
+            throws NoteNotFoundException, NoteGroupNotFoundException {
+        if (request.getGranteeType() == null || request.getGranteeId() == null || request.getPermission() == null) {
+            throw new IllegalArgumentException("granteeType, granteeId and permission are required");
+        }
+        checkNoteOwner(userId, noteId);
+        if (request.getGranteeType() == EShareGrantee.USER) {
+            if (request.getGranteeId().equals(userId)) {
+                throw new IllegalArgumentException("A note cannot be shared with its owner");
+            }
+            checkUserExists(request.getGranteeId());
+        } else {
+            getOwnedGroup(userId, request.getGranteeId());
+        }
+
+        NoteShare share = noteShareRepository
+                .findByNoteIdAndGranteeTypeAndGranteeId(noteId, request.getGranteeType(), request.getGranteeId())
+                .orElseGet(() -> {
+                    NoteShare created = new NoteShare();
+                    created.setNoteId(noteId);
+                    created.setOwnerId(userId);
+                    created.setGranteeType(request.getGranteeType());
+                    created.setGranteeId(request.getGranteeId());
+                    created.setCreatedAt(LocalDateTime.now());
+                    return created;
+                });
+        share.setPermission(request.getPermission());
+        NoteShare saved = noteShareRepository.save(share);
+        touch(granteeUsers(List.of(saved)));
+        logger.info("User {} shared note {} with {} {} ({})", userId, noteId,
+                saved.getGranteeType(), saved.getGranteeId(), saved.getPermission());
+        return noteShareMapper.shareToShareResponse(saved);
+    }
+
+    @Override
+    @Transactional
+    public void unshareNote(Long userId, Long noteId, Long shareId)
+            throws NoteNotFoundException, NoteShareNotFoundException {
+        checkNoteOwner(userId, noteId);
+        NoteShare share = noteShareRepository.findByIdAndNoteId(shareId, noteId)
+                .orElseThrow(() -> new NoteShareNotFoundException(shareId));
+        Set<Long> affected = granteeUsers(List.of(share));
+        noteShareRepository.delete(share);
+        touch(affected);
+        logger.info("User {} revoked share {} of note {}", userId, shareId, noteId);
+    }
+
+    /**
+     * Removes every share of a note that is being deleted and returns the users they reached;
+     * runs in the caller's transaction.
+     */
+    @Override
+    @Transactional
+    public Set<Long> deleteNoteShares(Long noteId) {
+        List<NoteShare> shares = noteShareRepository.findByNoteIdOrderById(noteId);
+        if (shares.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> affected = granteeUsers(shares);
+        noteShareRepository.deleteByNoteId(noteId);
+        touch(affected);
+        return affected;
+    }
+
+    /**
+     * The users a note is shared with, directly or through a group, in one query on the shard the
+     * caller's transaction is on, which is the owner's wherever the note is written.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> getNoteReaders(Long noteId) {
+        return new HashSet<>(jdbcTemplate.queryForList(READERS_SQL, Long.class, noteId, noteId));
+    }
+
+    /**
+     * Keyset page over the ids of notes shared with the user, served from the permission cache;
+     * only the page itself is read from the notes table, by owner and id on each owner's shard.
+     */
+    @Override
+    public NoteFilterResponse getSharedNotes(Long userId, Long afterId, int limit) {
+        Roaring64Bitmap shared = notePermissionCache.readable(userId);
+
+        List<Long> page = new ArrayList<>(limit);
+        PeekableLongIterator iterator = shared.getLongIteratorFrom(afterId != null ? afterId + 1 : 0);
+        while (iterator.hasNext() && page.size() < limit) {
+            page.add(iterator.next());
+        }
+
+        // A share revoked since the page was cut has no owner any more and is skipped.
+        Map<Long, List<Long>> pageByOwner = new HashMap<>();
+        for (Long noteId : page) {
+            Long ownerId = notePermissionCache.owner(userId, noteId);
+            if (ownerId != null) {
+                pageByOwner.computeIfAbsent(ownerId, id -> new ArrayList<>()).add(noteId);
+            }
+        }
+        List<Note> found = new ArrayList<>(page.size());
+        pageByOwner.forEach((ownerId, noteIds) -> found.addAll(shardRouter.inUserShardTransaction(ownerId, true,
+                () -> noteRepository.findByUserIdAndIdIn(ownerId, noteIds))));
+        List<NoteResponse> notes = found.stream()
+                .sorted(Comparator.comparing(Note::getId))
+                .map(noteMapper::noteToNoteResponse)
+                .toList();
+
+        NoteFilterResponse response = new NoteFilterResponse();
+        response.setNotes(notes);
+        response.setTotal(shared.getLongCardinality());
+        response.setNextAfterId(iterator.hasNext() ? page.get(page.size() - 1) : null);
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteGroupResponse> getGroups(Long userId) {
+        List<NoteGroup> groups = noteGroupRepository.findByOwnerIdOrderById(userId);
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Long>> members = noteGroupMemberRepository
+                .findRowsByGroupIdIn(groups.stream().map(NoteGroup::getId).toList()).stream()
+                .collect(Collectors.groupingBy(NoteGroupMemberRepository.MemberRow::getGroupId,
+                        Collectors.mapping(NoteGroupMemberRepository.MemberRow::getUserId, Collectors.toList())));
+        return groups.stream()
+                .map(group -> toResponse(group, members.getOrDefault(group.getId(), List.of())))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public NoteGroupResponse createGroup(Long userId, NoteGroupRequest request) {
+        String name = request.getName() != null ? request.getName().strip() : "";
+        if (name.isEmpty() || name.length() > MAX_GROUP_NAME_LENGTH) {
+            throw new IllegalArgumentException("Group name must be 1-" + MAX_GROUP_NAME_LENGTH + " characters");
+        }
+        NoteGroup group = new NoteGroup();
+        group.setOwnerId(userId);
+        group.setName(name);
+        group.setCreatedAt(LocalDateTime.now());
+        NoteGroup saved = noteGroupRepository.save(group);
+        logger.info("User {} created group {} '{}'", userId, saved.getId(), name);
+        return toResponse(saved, List.of());
+    }
+
+    @Override
+    @Transactional
+    public void deleteGroup(Long userId, Long groupId) throws NoteGroupNotFoundException {
+        NoteGroup group = getOwnedGroup(userId, groupId);
+        List<Long> members = noteGroupMemberRepository.findUserIdsByGroupId(groupId);
+        noteShareRepository.deleteByGroupId(groupId);
+        noteGroupMemberRepository.deleteByGroupId(groupId);
+        noteGroupRepository.delete(group);
+        touch(members);
+        logger.info("User {} deleted group {} with {} members", userId, groupId, members.size());
+    }
+
+    @Override
+    @Transactional
+    public NoteGroupResponse addGroupMember(Long userId, Long groupId, Long memberId) throws NoteGroupNotFoundException {
+        NoteGroup group = getOwnedGroup(userId, groupId);
+        checkUserExists(memberId);
+        if (noteGroupMemberRepository.insertIfAbsent(groupId, memberId) > 0) {
+            touch(List.of(memberId));
+            logger.info("User {} added user {} to group {}", userId, memberId, groupId);
+        }
+        return toResponse(group, noteGroupMemberRepository.findUserIdsByGroupId(groupId));
+    }
+
+    @Override
+    @Transactional
+    public NoteGroupResponse removeGroupMember(Long userId, Long groupId, Long memberId) throws NoteGroupNotFoundException {
+        NoteGroup group = getOwnedGroup(userId, groupId);
+        if (noteGroupMemberRepository.deleteMember(groupId, memberId) > 0) {
+            touch(List.of(memberId));
+            logger.info("User {} removed user {} from group {}", userId, memberId, groupId);
+        }
+        return toResponse(group, noteGroupMemberRepository.findUserIdsByGroupId(groupId));
+    }
+
+    /** Users whose accessible notes change with these shares: direct grantees and group members. */
+    private Set<Long> granteeUsers(Collection<NoteShare> shares) {
+        Set<Long> users = new TreeSet<>();
+        for (NoteShare share : shares) {
+            if (share.getGranteeType() == EShareGrantee.USER) {
+                users.add(share.getGranteeId());
+            } else {
+                users.addAll(noteGroupMemberRepository.findUserIdsByGroupId(share.getGranteeId()));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Bumps the ACL version of the users in the current transaction, so other instances drop their
+     * cached grants, and drops them from this instance's cache once the transaction commits.
+     */
+    private void touch(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Long[] sorted = new TreeSet<>(userIds).toArray(Long[]::new);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(BUMP_VERSIONS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", sorted));
+            return statement;
+        });
+        eventPublisher.publishEvent(new NoteAclChangeEvent(Set.of(sorted)));
+    }
+
+    private NoteGroupResponse toResponse(NoteGroup group, List<Long> memberIds) {
+        NoteGroupResponse response = noteShareMapper.groupToGroupResponse(group);
+        response.setMemberIds(memberIds);
+        return response;
+    }
+
+    private NoteGroup getOwnedGroup(Long userId, Long groupId) throws NoteGroupNotFoundException {
+        return noteGroupRepository.findByIdAndOwnerId(groupId, userId)
+                .orElseThrow(() -> {
+                    logger.warn("Group not found. Group ID: {}, User ID: {}", groupId, userId);
+                    return new NoteGroupNotFoundException(groupId);
+                });
+    }
+
+    private void checkNoteOwner(Long userId, Long noteId) throws NoteNotFoundException {
+        if (noteRepository.findByIdAndUserId(noteId, userId).isEmpty()) {
+            logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
+            throw new NoteNotFoundException(noteId);
+        }
+    }
+
+    private void checkUserExists(Long userId) {
+        if (!authServiceClient.userExists(userId)) {
+            throw new UsernameNotFoundException("User not found");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.NoteFilterResponse;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.NoteTagChangeEvent;
+import com.ksbk.notes.DTO.TagCountResponse;
+import com.ksbk.notes.entity.ECacheEntity;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.NoteNotFoundException;
+import com.ksbk.notes.exception.NoteTagLimitExceededException;
+import com.ksbk.notes.mapper.NoteMapper;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.repository.NoteTagRepository;
+import com.ksbk.notes.service.CacheInvalidationBus;
+import com.ksbk.notes.service.NoteTagIndex;
+import com.ksbk.notes.service.NoteTagService;
+import com.ksbk.notes.utils.TagExpression;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class NoteTagServiceImpl implements NoteTagService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTagServiceImpl.class);
+
+    private final NoteTagRepository noteTagRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final NoteMapper noteMapper;
+
+    private final NoteTagIndex noteTagIndex;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${notes.tags.max-per-note:50}")
+    private int maxTagsPerNote;
+
+    public NoteTagServiceImpl(NoteTagRepository noteTagRepository, NoteRepository noteRepository, NoteMapper noteMapper,
+                              NoteTagIndex noteTagIndex, ApplicationEventPublisher eventPublisher,
+                              CacheInvalidationBus cacheInvalidationBus) {
+        this.noteTagRepository = noteTagRepository;
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.noteTagIndex = noteTagIndex;
+        this.eventPublisher = eventPublisher;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    @Transactional
+    public List<String> addTag(Long userId, Long noteId, String tag)
+            throws NoteNotFoundException, NoteTagLimitExceededException {
+        String normalized = TagExpression.normalizeTag(tag);
+        Note note = getOwnedNote(userId, noteId);
+
+        if (noteTagRepository.countByNoteId(noteId) >= maxTagsPerNote) {
+            logger.info("Note {} already has {} tags, rejecting tag '{}'", noteId, maxTagsPerNote, normalized);
+            throw new NoteTagLimitExceededException((long) maxTagsPerNote);
+        }
+        if (noteTagRepository.insertIfAbsent(noteId, normalized, userId) > 0) {
+            eventPublisher.publishEvent(new NoteTagChangeEvent(noteId, userId, normalized, true));
+            cacheInvalidationBus.publish(ECacheEntity.NOTE, noteId, note.getVersion(), userId);
+            logger.info("Tagged note {} of user {} with '{}'", noteId, userId, normalized);
+        }
+        return noteTagRepository.findTagsByNoteId(noteId);
+    }
+
+    @Override
+    @Transactional
+    public List<String> removeTag(Long userId, Long noteId, String tag) throws NoteNotFoundException {
+        String normalized = TagExpression.normalizeTag(tag);
+        Note note = getOwnedNote(userId, noteId);
+
+        if (noteTagRepository.deleteTag(noteId, normalized) > 0) {
+            eventPublisher.publishEvent(new NoteTagChangeEvent(noteId, userId, normalized, false));
+            cacheInvalidationBus.publish(ECacheEntity.NOTE, noteId, note.getVersion(), userId);
+            logger.info("Removed tag '{}' from note {} of user {}", normalized, noteId, userId);
+        }
+        return noteTagRepository.findTagsByNoteId(noteId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getNoteTags(Long userId, Long noteId) throws NoteNotFoundException {
+        getOwnedNote(userId, noteId);
+        return noteTagRepository.findTagsByNoteId(noteId);
+    }
+
+    @Override
+    public List<TagCountResponse> getUserTags(Long userId) {
+        return noteTagIndex.tagCounts(userId);
+    }
+
+    /**
+     * Not transactional on purpose: a cold index is loaded by its own queries on the primary,
+     * and only the page of matching notes is read afterwards.
+     */
+    @Override
+    public NoteFilterResponse filterNotes(Long userId, String expression, ENoteStatus status, Long afterId, int limit) {
+        TagExpression parsed = expression != null && !expression.isBlank() ? TagExpression.parse(expression) : null;
+        long start = System.nanoTime();
+        Roaring64Bitmap matches = noteTagIndex.filter(userId, parsed, status);
+
+        List<Long> page = new ArrayList<>(limit);
+        PeekableLongIterator iterator = matches.getLongIteratorFrom(afterId != null ? afterId + 1 : 0);
+        while (iterator.hasNext() && page.size() < limit) {
+            page.add(iterator.next());
+        }
+        logger.debug("Tag filter '{}' (status {}) for user {} matched {} notes in {} us",
+                expression, status, userId, matches.getLongCardinality(), (System.nanoTime() - start) / 1000);
+
+        List<NoteResponse> notes = page.isEmpty()
+                ? List.of()
+                : noteRepository.findByUserIdAndIdIn(userId, page).stream()
+                        .map(noteMapper::noteToNoteResponse)
+                        .toList();
+
+        NoteFilterResponse response = new NoteFilterResponse();
+        response.setNotes(notes);
+        response.setTotal(matches.getLongCardinality());
+        response.setNextAfterId(iterator.hasNext() ? page.get(page.size() - 1) : null);
+        return response;
+    }
+
+    private Note getOwnedNote(Long userId, Long noteId) throws NoteNotFoundException {
+        return noteRepository.findByIdAndUserId(noteId, userId).orElseThrow(() -> {
+            logger.warn("Note not found. Note ID: {}, User ID: {}", noteId, userId);
+            return new NoteNotFoundException(noteId);
+        });
+    }
+}
@@ -0,0 +1,399 @@
+package com.ksbk.notes.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ksbk.notes.DTO.ImportJobResponse;
+import com.ksbk.notes.DTO.NoteTransferRecord;
+import com.ksbk.notes.entity.ECacheEntity;
+import com.ksbk.notes.entity.ENoteStatus;
+import com.ksbk.notes.entity.EImportStatus;
+import com.ksbk.notes.entity.EUsageMetric;
+import com.ksbk.notes.entity.ImportJob;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.ImportCapacityExceededException;
+import com.ksbk.notes.exception.ImportJobNotFoundException;
+import com.ksbk.notes.mapper.ImportJobMapper;
+import com.ksbk.notes.repository.ImportJobRepository;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.service.NoteBodyStore;
+import com.ksbk.notes.service.CacheInvalidationBus;
+import com.ksbk.notes.service.NoteTagIndex;
+import com.ksbk.notes.service.NoteTransferService;
+import com.ksbk.notes.service.UsageRollups;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class NoteTransferServiceImpl implements NoteTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTransferServiceImpl.class);
+
+    private static final String INSERT_NOTE_SQL =
+            "INSERT INTO notes (id, title, description, note_status, created_at, updated_at, user_id, body_size) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** Takes a batch worth of note ids from the sequence behind notes.id in one round trip. */
+    private static final String NEXT_NOTE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('notes', 'id')) FROM generate_series(1, ?)";
+
+    private static final int STATUS_COLUMN = 2;
+
+    private static final int BODY_COLUMN = 7;
+
+    private static final String UPDATE_PROGRESS_SQL =
+            "UPDATE import_jobs SET processed_lines = processed_lines + ?, imported_count = imported_count + ?, " +
+                    "skipped_count = skipped_count + ?, updated_at = ? WHERE id = ?";
+
+    private static final int MAX_TITLE_LENGTH = 200;
+    private static final int MAX_DESCRIPTION_LENGTH = 250;
+
+    @Value("${notes.import.batch-size:500}")
+    private int batchSize;
+
+    private final NoteRepository noteRepository;
+
+    private final ImportJobRepository importJobRepository;
+
+    private final ImportJobMapper importJobMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Semaphore importPermits;
+
+    private final NoteTagIndex noteTagIndex;
+
+    private final UsageRollups usageRollups;
+
+    private final NoteBodyStore noteBodyStore;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public NoteTransferServiceImpl(NoteRepository noteRepository, ImportJobRepository importJobRepository,
+                                   ImportJobMapper importJobMapper, JdbcTemplate jdbcTemplate,
+                                   EntityManager entityManager, ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager, NoteTagIndex noteTagIndex,
+                                   UsageRollups usageRollups, NoteBodyStore noteBodyStore,
+                                   CacheInvalidationBus cacheInvalidationBus,
+                                   @Value("${notes.import.max-concurrent:4}") int maxConcurrentImports) {
+        this.noteRepository = noteRepository;
+        this.importJobRepository = importJobRepository;
+        this.importJobMapper = importJobMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.importPermits = new Semaphore(maxConcurrentImports);
+        this.noteTagIndex = noteTagIndex;
+        this.usageRollups = usageRollups;
+        this.noteBodyStore = noteBodyStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    public void exportNdjson(Long userId, OutputStream outputStream) throws IOException {
+        logger.info("Exporting notes as NDJSON for user ID: {}", userId);
+        long count = streamNotes(userId, note -> {
+            NoteTransferRecord record = toRecord(note);
+            record.setBody(noteBodyStore.read(note.getId(), note.getBodySize()));
+            outputStream.write(objectMapper.writeValueAsBytes(record));
+            outputStream.write('\n');
+        });
+        outputStream.flush();
+        logger.info("Exported {} notes as NDJSON for user ID: {}", count, userId);
+    }
+
+    @Override
+    public void exportMarkdownZip(Long userId, OutputStream outputStream) throws IOException {
+        logger.info("Exporting notes as Markdown archive for user ID: {}", userId);
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        long count = streamNotes(userId, note -> {
+            zip.putNextEntry(new ZipEntry(markdownPath(note)));
+            zip.write(toMarkdown(note).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        });
+        zip.finish();
+        zip.flush();
+        logger.info("Exported {} notes as Markdown archive for user ID: {}", count, userId);
+    }
+
+    @Override
+    public ImportJobResponse importNdjson(Long userId, Long jobId, InputStream inputStream) throws ImportJobNotFoundException {
+        ImportJob job = jobId == null ? createJob(userId) : getJob(userId, jobId);
+        if (job.getStatus() == EImportStatus.COMPLETED) {
+            logger.info("Import job {} is already completed, nothing to resume", job.getId());
+            return importJobMapper.importJobToImportJobResponse(job);
+        }
+        if (!importPermits.tryAcquire()) {
+            logger.warn("Rejecting import for user {}: too many concurrent imports", userId);
+            throw new ImportCapacityExceededException("Too many imports in progress, retry later");
+        }
+
+        logger.info("Running import job {} for user ID: {}, resuming after line {}",
+                job.getId(), userId, job.getProcessedLines());
+        try {
+            updateStatus(job.getId(), EImportStatus.RUNNING, null);
+            runImport(userId, job, inputStream);
+            updateStatus(job.getId(), EImportStatus.COMPLETED, null);
+            logger.info("Import job {} completed for user ID: {}", job.getId(), userId);
+        } catch (UncheckedIOException e) {
+            logger.warn("Import job {} interrupted, it can be resumed: {}", job.getId(), e.getMessage());
+            updateStatus(job.getId(), EImportStatus.PAUSED, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Import job {} failed for user {}: {}", job.getId(), userId, e.getMessage(), e);
+            updateStatus(job.getId(), EImportStatus.FAILED, e.getMessage());
+        } finally {
+            importPermits.release();
+        }
+        return getImportJob(userId, job.getId());
+    }
+
+    @Override
+    public ImportJobResponse getImportJob(Long userId, Long jobId) throws ImportJobNotFoundException {
+        return importJobMapper.importJobToImportJobResponse(getJob(userId, jobId));
+    }
+
+    /**
+     * Reads the upload line by line and inserts it in JDBC batches. Each batch and the job
+     * progress are committed in one transaction, and the request thread only reads the next
+     * lines once the batch is stored, so a fast client is throttled by the database.
+     */
+    private void runImport(Long userId, ImportJob job, InputStream inputStream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long alreadyProcessed = job.getProcessedLines();
+        long lineNumber = 0;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long batchLines = 0;
+        long batchSkipped = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= alreadyProcessed) {
+                    continue;
+                }
+                batchLines++;
+                Object[] row = parseLine(userId, line, lineNumber);
+                if (row == null) {
+                    batchSkipped++;
+                } else {
+                    batch.add(row);
+                }
+                if (batchLines >= batchSize) {
+                    flushBatch(userId, job.getId(), batch, batchLines, batchSkipped);
+                    batch.clear();
+                    batchLines = 0;
+                    batchSkipped = 0;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (batchLines > 0) {
+                flushBatch(userId, job.getId(), batch, batchLines, batchSkipped);
+            }
+            // Batched inserts publish no NoteChangeEvents, so the tag index is rebuilt on next use.
+            noteTagIndex.invalidate(userId);
+            // Note id 0: any number of the user's notes changed.
+            cacheInvalidationBus.publish(ECacheEntity.NOTE, 0, 0, userId);
+        }
+    }
+
+    private Object[] parseLine(Long userId, String line, long lineNumber) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            NoteTransferRecord record = objectMapper.readValue(line, NoteTransferRecord.class);
+            if (record.getTitle() == null || record.getTitle().isBlank()
+                    || record.getTitle().length() > MAX_TITLE_LENGTH
+                    || (record.getDescription() != null && record.getDescription().length() > MAX_DESCRIPTION_LENGTH)) {
+                logger.debug("Skipping invalid note on line {}", lineNumber);
+                return null;
+            }
+            ENoteStatus status = record.getStatus() != null ? ENoteStatus.valueOf(record.getStatus()) : ENoteStatus.CREATED;
+            LocalDateTime createdAt = record.getCreatedAt() != null ? record.getCreatedAt() : LocalDateTime.now();
+            byte[] body = NoteBodyStore.encode(record.getBody());
+            if (body.length > noteBodyStore.getMaxSize()) {
+                logger.debug("Skipping note with a {} byte body on line {}", body.length, lineNumber);
+                return null;
+            }
+            return new Object[]{
+                    record.getTitle(),
+                    record.getDescription(),
+                    status.name(),
+                    Timestamp.valueOf(createdAt),
+                    record.getUpdatedAt() != null ? Timestamp.valueOf(record.getUpdatedAt()) : null,
+                    userId,
+                    (long) body.length,
+                    body.length > 0 ? body : null
+            };
+        } catch (Exception e) {
+            logger.debug("Skipping unparsable line {}: {}", lineNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The ids of the batch are taken from the sequence up front, so the headers go in one JDBC
+     * batch and the body chunks of all of them in another. Both are committed with the job progress.
+     */
+    private void flushBatch(Long userId, Long jobId, List<Object[]> batch, long lines, long skipped) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!batch.isEmpty()) {
+                List<Long> ids = jdbcTemplate.queryForList(NEXT_NOTE_IDS_SQL, Long.class, batch.size());
+                List<Object[]> headers = new ArrayList<>(batch.size());
+                Map<Long, byte[]> bodies = new LinkedHashMap<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    Object[] row = batch.get(i);
+                    Object[] params = new Object[BODY_COLUMN + 1];
+                    params[0] = ids.get(i);
+                    System.arraycopy(row, 0, params, 1, BODY_COLUMN);
+                    headers.add(params);
+                    if (row[BODY_COLUMN] != null) {
+                        bodies.put(ids.get(i), (byte[]) row[BODY_COLUMN]);
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_NOTE_SQL, headers);
+                noteBodyStore.writeNew(bodies);
+            }
+            jdbcTemplate.update(UPDATE_PROGRESS_SQL, lines, batch.size(), skipped,
+                    Timestamp.valueOf(LocalDateTime.now()), jobId);
+        });
+        logger.debug("Import job {}: stored {} notes, skipped {}", jobId, batch.size(), skipped);
+        if (batch.isEmpty()) {
+            return;
+        }
+        usageRollups.record(userId, EUsageMetric.NOTE_CREATED, null, batch.size());
+        Map<String, Long> byStatus = new HashMap<>();
+        for (Object[] row : batch) {
+            byStatus.merge((String) row[STATUS_COLUMN], 1L, Long::sum);
+        }
+        byStatus.forEach((noteStatus, count) -> usageRollups.record(userId, EUsageMetric.NOTE_STATUS, noteStatus, count));
+    }
+
+    private long streamNotes(Long userId, NoteWriter writer) throws IOException {
+        try {
+            Long count = readOnlyTransactionTemplate.execute(status -> {
+                long written = 0;
+                try (Stream<Note> notes = noteRepository.streamByUserId(userId)) {
+                    for (Note note : (Iterable<Note>) notes::iterator) {
+                        writer.write(note);
+                        entityManager.detach(note);
+                        written++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+            return count != null ? count : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ImportJob createJob(Long userId) {
+        ImportJob job = new ImportJob();
+        job.setUserId(userId);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        return transactionTemplate.execute(status -> importJobRepository.save(job));
+    }
+
+    private ImportJob getJob(Long userId, Long jobId) throws ImportJobNotFoundException {
+        return importJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> {
+                    logger.warn("Import job not found. Job ID: {}, User ID: {}", jobId, userId);
+                    return new ImportJobNotFoundException(jobId);
+                });
+    }
+
+    private void updateStatus(Long jobId, EImportStatus status, String errorMessage) {
+        transactionTemplate.executeWithoutResult(tx -> importJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            job.setUpdatedAt(LocalDateTime.now());
+        }));
+    }
+
+    private NoteTransferRecord toRecord(Note note) {
+        NoteTransferRecord record = new NoteTransferRecord();
+        record.setId(note.getId());
+        record.setTitle(note.getTitle());
+        record.setDescription(note.getDescription());
+        record.setStatus(note.getNoteStatus() != null ? note.getNoteStatus().name() : null);
+        record.setCreatedAt(note.getCreatedAt());
+        record.setUpdatedAt(note.getUpdatedAt());
+        return record;
+    }
+
+    private String markdownPath(Note note) {
+        String status = note.getNoteStatus() != null ? note.getNoteStatus().name().toLowerCase() : "created";
+        String slug = note.getTitle().toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", "-").replaceAll("(^-|-$)", "");
+        if (slug.length() > 40) {
+            slug = slug.substring(0, 40);
+        }
+        return "notes/" + status + "/" + note.getId() + (slug.isEmpty() ? "" : "-" + slug) + ".md";
+    }
+
+    private String toMarkdown(Note note) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("---\n");
+        sb.append("id: ").append(note.getId()).append('\n');
+        sb.append("title: \"").append(note.getTitle().replace("\"", "\\\"")).append("\"\n");
+        sb.append("status: ").append(note.getNoteStatus()).append('\n');
+        sb.append("created_at: ").append(note.getCreatedAt()).append('\n');
+        if (note.getUpdatedAt() != null) {
+            sb.append("updated_at: ").append(note.getUpdatedAt()).append('\n');
+        }
+        sb.append("---\n\n");
+        sb.append("# ").append(note.getTitle()).append("\n\n");
+        if (note.getDescription() != null) {
+            sb.append(note.getDescription()).append('\n');
+        }
+        if (note.getBodySize() > 0) {
+            sb.append('\n').append(noteBodyStore.read(note.getId(), note.getBodySize())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    private interface NoteWriter {
+        void write(Note note) throws IOException;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ksbk.notes.utils;
+
+/**
+ * Count-based circuit breaker. It counts the outcomes of the last {@code windowSize} calls, and
+ * once at least {@code minimumCalls} are in, it opens when {@code failureRateThreshold} percent
+ * of them failed. An open circuit rejects calls for {@code openMs}. After that it lets
+ * {@code halfOpenCalls} trial calls through. It closes, with an empty window, when all of them
+ * succeed, and opens again on the first failure.
+ * <p>
+ * Thread-safe. Every permitted call must be followed by exactly one {@link #onResult}.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] failures;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long openMs;
+
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+
+    private int next;
+
+    private int recorded;
+
+    private int failed;
+
+    private long openUntil;
+
+    private int trialsStarted;
+
+    private int trialsSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openMs, int halfOpenCalls) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(boolean failure) {
+        switch (state) {
+            case OPEN -> {
+                // A call permitted before the circuit opened; it no longer counts.
+            }
+            case HALF_OPEN -> {
+                if (failure) {
+                    open();
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == failures.length) {
+                    failed -= failures[next] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                failures[next] = failure;
+                failed += failure ? 1 : 0;
+                next = (next + 1) % failures.length;
+                if (recorded >= minimumCalls && failed * 100L >= (long) failureRateThreshold * recorded) {
+                    open();
+                }
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openMs;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+    }
+}
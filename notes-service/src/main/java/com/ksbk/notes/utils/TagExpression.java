@@ -0,0 +1,205 @@
+package com.ksbk.notes.utils;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Boolean expression over tag names, e.g. {@code work & (urgent | review) & !done}.
+ * {@code AND}, {@code OR} and {@code NOT} may be written instead of {@code &}, {@code |} and
+ * {@code !}; NOT binds tighter than AND, which binds tighter than OR.
+ * <p>
+ * An expression is evaluated against bitmaps of note ids: tags become lookups, operators become
+ * bitmap intersections, unions and differences, so no per-note work is done.
+ */
+public final class TagExpression {
+
+    public static final int MAX_TAG_LENGTH = 50;
+
+    private static final int MAX_EXPRESSION_LENGTH = 1000;
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final Pattern TAG_PATTERN = Pattern.compile("[\\p{L}\\p{N}_-]{1," + MAX_TAG_LENGTH + "}");
+
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not");
+
+    private final Node root;
+
+    private TagExpression(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Trims and lower-cases a tag. Throws {@link IllegalArgumentException} for tags with
+     * characters other than letters, digits, {@code _} and {@code -}, or that spell an operator.
+     */
+    public static String normalizeTag(String tag) {
+        String normalized = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        if (!TAG_PATTERN.matcher(normalized).matches() || KEYWORDS.contains(normalized)) {
+            throw new IllegalArgumentException("Invalid tag: " + tag);
+        }
+        return normalized;
+    }
+
+    public static TagExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Tag expression is empty");
+        }
+        if (expression.length() > MAX_EXPRESSION_LENGTH) {
+            throw new IllegalArgumentException("Tag expression is longer than " + MAX_EXPRESSION_LENGTH + " characters");
+        }
+        Parser parser = new Parser(tokenize(expression));
+        Node root = parser.parseOr(0);
+        if (parser.position != parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "' in tag expression");
+        }
+        return new TagExpression(root);
+    }
+
+    /**
+     * @param tagBitmap returns the note ids carrying a tag, or null when no note does; the
+     *                  returned bitmaps are only read
+     * @param universe  all note ids, used as the base of negations
+     * @return a new bitmap owned by the caller
+     */
+    public Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe) {
+        return root.evaluate(tagBitmap, universe);
+    }
+
+    private sealed interface Node permits Tag, And, Or, Not {
+        Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe);
+    }
+
+    private record Tag(String name) implements Node {
+        @Override
+        public Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe) {
+            Roaring64Bitmap bitmap = tagBitmap.apply(name);
+            return bitmap != null ? bitmap.clone() : new Roaring64Bitmap();
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+        @Override
+        public Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe) {
+            // "a & !b" is a difference; evaluating !b on its own would materialize the complement.
+            if (right instanceof Not not) {
+                Roaring64Bitmap result = left.evaluate(tagBitmap, universe);
+                result.andNot(not.operand().evaluate(tagBitmap, universe));
+                return result;
+            }
+            Roaring64Bitmap result = left.evaluate(tagBitmap, universe);
+            if (!result.isEmpty()) {
+                result.and(right.evaluate(tagBitmap, universe));
+            }
+            return result;
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+        @Override
+        public Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe) {
+            Roaring64Bitmap result = left.evaluate(tagBitmap, universe);
+            result.or(right.evaluate(tagBitmap, universe));
+            return result;
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+        @Override
+        public Roaring64Bitmap evaluate(Function<String, Roaring64Bitmap> tagBitmap, Roaring64Bitmap universe) {
+            return Roaring64Bitmap.andNot(universe, operand.evaluate(tagBitmap, universe));
+        }
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '&' || c == '|' || c == '!' || c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                int start = i;
+                while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+                        && "&|!()".indexOf(expression.charAt(i)) < 0) {
+                    i++;
+                }
+                String word = expression.substring(start, i);
+                switch (word.toLowerCase(Locale.ROOT)) {
+                    case "and" -> tokens.add("&");
+                    case "or" -> tokens.add("|");
+                    case "not" -> tokens.add("!");
+                    default -> tokens.add(word);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        private Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        private Node parseOr(int depth) {
+            Node node = parseAnd(depth);
+            while (accept("|")) {
+                node = new Or(node, parseAnd(depth));
+            }
+            return node;
+        }
+
+        private Node parseAnd(int depth) {
+            Node node = parseUnary(depth);
+            while (accept("&")) {
+                node = new And(node, parseUnary(depth));
+            }
+            return node;
+        }
+
+        private Node parseUnary(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Tag expression is nested deeper than " + MAX_DEPTH + " levels");
+            }
+            if (accept("!")) {
+                return new Not(parseUnary(depth + 1));
+            }
+            if (accept("(")) {
+                Node node = parseOr(depth + 1);
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in tag expression");
+                }
+                return node;
+            }
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("Tag expression ends unexpectedly");
+            }
+            String token = tokens.get(position);
+            if (token.length() == 1 && "&|)".contains(token)) {
+                throw new IllegalArgumentException("Unexpected '" + token + "' in tag expression");
+            }
+            position++;
+            return new Tag(normalizeTag(token));
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ksbk.notes.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Level 0 has {@code wheelSize} buckets of {@code tickMs}; every
+ * further level has buckets as wide as the whole level below and is only created once an item
+ * lands that far in the future. Adding is O(1), and so is each tick: a tick empties one bucket of
+ * level 0 and, whenever a higher level's bucket boundary is reached, redistributes that single
+ * bucket one level down.
+ * <p>
+ * Items fire at the end of the tick that contains their expiration, i.e. up to one tick late and
+ * never early. Not thread-safe; callers synchronize.
+ */
+public final class TimingWheel<T> {
+
+    private record Entry<T>(long expiration, T item) {
+    }
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    /** Start of the level-0 tick that has not fired yet. */
+    private long currentTime;
+
+    private long size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - startMs % tickMs;
+        levels.add(new Level<>(tickMs, wheelSize));
+    }
+
+    /**
+     * @return {@code false} when the expiration lies in an already fired tick; the item is not
+     * stored and the caller should handle it as due
+     */
+    public boolean add(long expiration, T item) {
+        if (expiration < currentTime) {
+            return false;
+        }
+        insert(new Entry<>(expiration, item));
+        size++;
+        return true;
+    }
+
+    /** Fires, in expiration order per tick, everything whose tick has ended by {@code now}. */
+    public void advance(long now, Consumer<T> expired) {
+        while (currentTime + tickMs <= now) {
+            List<Entry<T>> due = levels.get(0).drain(currentTime);
+            size -= due.size();
+            due.stream()
+                    .sorted((a, b) -> Long.compare(a.expiration(), b.expiration()))
+                    .forEach(entry -> expired.accept(entry.item()));
+            currentTime += tickMs;
+
+            // Highest level first, so its items pass through the levels below before those drain.
+            for (int i = levels.size() - 1; i > 0; i--) {
+                Level<T> level = levels.get(i);
+                if (currentTime % level.tickMs == 0) {
+                    level.drain(currentTime).forEach(this::insert);
+                }
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Start of the earliest tick that has not fired yet; {@link #add} rejects anything before it. */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    private void insert(Entry<T> entry) {
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> top = levels.get(i - 1);
+                levels.add(new Level<>(top.tickMs * wheelSize, wheelSize));
+            }
+            Level<T> level = levels.get(i);
+            long levelStart = currentTime - currentTime % level.tickMs;
+            if (entry.expiration() < levelStart + level.tickMs * wheelSize) {
+                level.bucket(entry.expiration()).add(entry);
+                return;
+            }
+        }
+    }
+
+    private static final class Level<T> {
+        private final long tickMs;
+        private final List<Entry<T>>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize) {
+            this.tickMs = tickMs;
+            this.buckets = new List[wheelSize];
+        }
+
+        private List<Entry<T>> bucket(long time) {
+            int index = (int) ((time / tickMs) % buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>();
+            }
+            return buckets[index];
+        }
+
+        private List<Entry<T>> drain(long time) {
+            int index = (int) ((time / tickMs) % buckets.length);
+            List<Entry<T>> bucket = buckets[index];
+            if (bucket == null) {
+                return List.of();
+            }
+            buckets[index] = null;
+            return bucket;
+        }
+    }
+}
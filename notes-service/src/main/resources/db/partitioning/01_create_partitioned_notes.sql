@@ -0,0 +1,79 @@
+-- Step 1 of the online migration of "notes" to hash partitioning on user_id.
+-- Creates the partitioned table next to the live one and mirrors every write into it.
+-- Safe to run while the service is serving traffic.
+
+CREATE SEQUENCE IF NOT EXISTS notes_partitioned_id_seq;
+-- Same id range as the live sequence, which is the shard's own range when sharded (009-shard-note-ids).
+DO $$
+DECLARE
+    live pg_sequence%ROWTYPE;
+    next_id BIGINT;
+BEGIN
+    SELECT * INTO live FROM pg_sequence WHERE seqrelid = pg_get_serial_sequence('notes', 'id')::regclass;
+    SELECT GREATEST(live.seqmin, COALESCE(MAX(id), 0) + 1000) INTO next_id
+    FROM notes WHERE id BETWEEN live.seqmin AND live.seqmax;
+    EXECUTE format('ALTER SEQUENCE notes_partitioned_id_seq MINVALUE %s MAXVALUE %s START WITH %s RESTART WITH %s',
+                   live.seqmin, live.seqmax, live.seqmin, next_id);
+END $$;
+
+CREATE TABLE notes_partitioned (
+    id          BIGINT       NOT NULL DEFAULT nextval('notes_partitioned_id_seq'),
+    title       VARCHAR(200) NOT NULL,
+    description VARCHAR(250),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    note_status VARCHAR(255),
+    user_id     BIGINT       NOT NULL,
+    revision    INTEGER,
+    version     BIGINT       NOT NULL DEFAULT 0,
+    due_at      TIMESTAMP(6),
+    remind_at   TIMESTAMP(6),
+    reminded_at TIMESTAMP(6),
+    body_size   BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, user_id)
+) PARTITION BY HASH (user_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE notes_p%s PARTITION OF notes_partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            i, i);
+    END LOOP;
+END $$;
+
+-- Partitioned index: created once, materialised as a local index on every partition.
+CREATE INDEX notes_partitioned_user_id_idx ON notes_partitioned (user_id, id);
+CREATE INDEX notes_partitioned_pending_reminder_idx ON notes_partitioned (remind_at)
+    WHERE remind_at IS NOT NULL AND reminded_at IS NULL;
+
+CREATE OR REPLACE FUNCTION notes_mirror_to_partitioned() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM notes_partitioned WHERE id = OLD.id AND user_id = OLD.user_id;
+        RETURN OLD;
+    END IF;
+    IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+        DELETE FROM notes_partitioned WHERE id = OLD.id AND user_id = OLD.user_id;
+    END IF;
+    INSERT INTO notes_partitioned (id, title, description, created_at, updated_at, note_status, user_id, revision, version,
+                                   due_at, remind_at, reminded_at, body_size)
+    VALUES (NEW.id, NEW.title, NEW.description, NEW.created_at, NEW.updated_at, NEW.note_status, NEW.user_id, NEW.revision, NEW.version,
+            NEW.due_at, NEW.remind_at, NEW.reminded_at, NEW.body_size)
+    ON CONFLICT (id, user_id) DO UPDATE SET
+        title = EXCLUDED.title,
+        description = EXCLUDED.description,
+        updated_at = EXCLUDED.updated_at,
+        note_status = EXCLUDED.note_status,
+        revision = EXCLUDED.revision,
+        version = EXCLUDED.version,
+        due_at = EXCLUDED.due_at,
+        remind_at = EXCLUDED.remind_at,
+        reminded_at = EXCLUDED.reminded_at,
+        body_size = EXCLUDED.body_size;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notes_mirror_to_partitioned
+    AFTER INSERT OR UPDATE OR DELETE ON notes
+    FOR EACH ROW EXECUTE FUNCTION notes_mirror_to_partitioned();
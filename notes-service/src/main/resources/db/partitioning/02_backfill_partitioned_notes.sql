@@ -0,0 +1,26 @@
+-- Step 2: copies existing rows in small id ranges, committing after every batch so that
+-- locks stay short and autovacuum can keep up. Rows already mirrored by the trigger are skipped.
+-- Re-runnable: it simply skips ids that are already present.
+
+CREATE OR REPLACE PROCEDURE notes_backfill_partitioned(batch_size INTEGER DEFAULT 10000)
+LANGUAGE plpgsql AS $$
+DECLARE
+    last_id BIGINT := 0;
+    max_id  BIGINT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM notes;
+    WHILE last_id < max_id LOOP
+        INSERT INTO notes_partitioned (id, title, description, created_at, updated_at, note_status, user_id, revision, version,
+                                       due_at, remind_at, reminded_at, body_size)
+        SELECT id, title, description, created_at, updated_at, note_status, user_id, revision, version,
+               due_at, remind_at, reminded_at, body_size
+        FROM notes
+        WHERE id > last_id AND id <= last_id + batch_size
+        ON CONFLICT (id, user_id) DO NOTHING;
+
+        last_id := last_id + batch_size;
+        COMMIT;
+    END LOOP;
+END $$;
+
+CALL notes_backfill_partitioned();
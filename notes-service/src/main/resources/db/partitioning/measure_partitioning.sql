@@ -0,0 +1,17 @@
+-- Run before and after the migration (psql) to compare index size, vacuum time and pruning.
+
+\timing on
+
+SELECT relname,
+       pg_size_pretty(pg_relation_size(oid))       AS heap_size,
+       pg_size_pretty(pg_indexes_size(oid))        AS index_size
+FROM pg_class
+WHERE relname = 'notes' OR relname LIKE 'notes\_p%' OR relname = 'notes_unpartitioned'
+ORDER BY relname;
+
+-- Whole-table vacuum on the unpartitioned heap vs. one partition at a time.
+VACUUM (VERBOSE, ANALYZE) notes;
+
+-- Must show a single partition being scanned.
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM notes WHERE user_id = 42;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM notes WHERE id = 1 AND user_id = 42;
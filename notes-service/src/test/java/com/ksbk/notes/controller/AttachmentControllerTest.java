@@ -0,0 +1,215 @@
+package com.ksbk.notes.controller;
+
+import com.ksbk.notes.DTO.AttachmentInitRequest;
+import com.ksbk.notes.DTO.AttachmentResponse;
+import com.ksbk.notes.DTO.AttachmentUploadStatus;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.entity.NoteAttachment;
+import com.ksbk.notes.mapper.AttachmentMapperImpl;
+import com.ksbk.notes.repository.NoteAttachmentRepository;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.service.AttachmentStorageService;
+import com.ksbk.notes.service.impl.AttachmentServiceImpl;
+import com.ksbk.notes.support.InMemoryS3Server;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chunked upload, resume and ranged download through the controller, the service and the MinIO
+ * client, against an in-process S3 stand-in. Attachment rows are kept in a map.
+ */
+class AttachmentControllerTest {
+
+    private static final String BUCKET = "note-attachments";
+
+    private static final int CHUNK_SIZE = 5 * 1024 * 1024;
+
+    private static final long USER_ID = 7L;
+
+    private static final long NOTE_ID = 11L;
+
+    private InMemoryS3Server s3;
+
+    private AttachmentController controller;
+
+    private final Map<Long, NoteAttachment> rows = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new InMemoryS3Server();
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(s3.endpoint())
+                .region("us-east-1")
+                .credentials("test-access", "test-secret")
+                .build();
+        AttachmentStorageService storageService = new AttachmentStorageService(minioClient);
+        ReflectionTestUtils.setField(storageService, "bucket", BUCKET);
+        storageService.ensureBucket();
+
+        NoteAttachmentRepository attachmentRepository = mock(NoteAttachmentRepository.class);
+        when(attachmentRepository.save(any())).thenAnswer(invocation -> {
+            NoteAttachment attachment = invocation.getArgument(0);
+            if (attachment.getId() == null) {
+                attachment.setId(rows.size() + 1L);
+            }
+            rows.put(attachment.getId(), attachment);
+            return attachment;
+        });
+        when(attachmentRepository.findByIdAndNoteIdAndUserId(anyLong(), anyLong(), anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<Long>getArgument(0)))
+                        .filter(attachment -> attachment.getNoteId().equals(invocation.getArgument(1))
+                                && attachment.getUserId().equals(invocation.getArgument(2))));
+        NoteRepository noteRepository = mock(NoteRepository.class);
+        when(noteRepository.findByIdAndUserId(NOTE_ID, USER_ID)).thenReturn(Optional.of(new Note()));
+
+        AttachmentServiceImpl attachmentService = new AttachmentServiceImpl(attachmentRepository, noteRepository,
+                storageService, new AttachmentMapperImpl());
+        ReflectionTestUtils.setField(attachmentService, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(attachmentService, "maxSize", 100L * CHUNK_SIZE);
+        controller = new AttachmentController(attachmentService);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        s3.close();
+    }
+
+    @Test
+    void resumesAfterMissingChunk() throws Exception {
+        byte[] content = content(CHUNK_SIZE + 1000);
+        AttachmentResponse attachment = init(content.length);
+        assertEquals(2, attachment.getTotalChunks());
+
+        assertEquals(HttpStatus.NO_CONTENT, uploadChunk(attachment, 1, content).getStatusCode());
+        AttachmentUploadStatus status = controller.getUploadStatus(NOTE_ID, attachment.getId()).getBody();
+        assertEquals(List.of(1), status.getReceivedChunks());
+        assertEquals(List.of(0), status.getMissingChunks());
+        assertEquals(HttpStatus.CONFLICT, controller.completeUpload(NOTE_ID, attachment.getId()).getStatusCode());
+
+        assertEquals(HttpStatus.NO_CONTENT, uploadChunk(attachment, 0, content).getStatusCode());
+        status = controller.getUploadStatus(NOTE_ID, attachment.getId()).getBody();
+        assertEquals(List.of(0, 1), status.getReceivedChunks());
+        assertEquals(List.of(), status.getMissingChunks());
+
+        ResponseEntity<AttachmentResponse> completed = controller.completeUpload(NOTE_ID, attachment.getId());
+        assertEquals(HttpStatus.OK, completed.getStatusCode());
+        assertEquals("COMPLETED", completed.getBody().getStatus());
+        String objectName = rows.get(attachment.getId()).getObjectName();
+        assertArrayEquals(content, s3.object(BUCKET, objectName));
+        assertEquals(List.of(objectName), s3.keys(BUCKET));
+
+        ResponseEntity<StreamingResponseBody> download = controller.download(NOTE_ID, attachment.getId(), null);
+        assertEquals(HttpStatus.OK, download.getStatusCode());
+        assertArrayEquals(content, read(download));
+    }
+
+    @Test
+    void rejectsChunkOfWrongLength() throws Exception {
+        byte[] content = content(CHUNK_SIZE + 1000);
+        AttachmentResponse attachment = init(content.length);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(Arrays.copyOf(content, CHUNK_SIZE - 1));
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.uploadChunk(NOTE_ID, attachment.getId(), 0, request).getStatusCode());
+        assertEquals(List.of(0, 1), controller.getUploadStatus(NOTE_ID, attachment.getId()).getBody().getMissingChunks());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        byte[] content = content(CHUNK_SIZE + 1000);
+        AttachmentResponse attachment = init(content.length);
+        uploadChunk(attachment, 0, content);
+        uploadChunk(attachment, 1, content);
+        controller.completeUpload(NOTE_ID, attachment.getId());
+
+        assertRange(attachment, content, "bytes=100-199", 100, 199);
+        assertRange(attachment, content, "bytes=" + (CHUNK_SIZE - 5) + "-" + (CHUNK_SIZE + 4), CHUNK_SIZE - 5, CHUNK_SIZE + 4);
+        assertRange(attachment, content, "bytes=-10", content.length - 10, content.length - 1);
+        assertRange(attachment, content, "bytes=" + CHUNK_SIZE + "-", CHUNK_SIZE, content.length - 1);
+
+        ResponseEntity<StreamingResponseBody> unsatisfiable =
+                controller.download(NOTE_ID, attachment.getId(), "bytes=" + content.length + "-");
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, unsatisfiable.getStatusCode());
+        assertEquals("bytes */" + content.length, unsatisfiable.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertNull(unsatisfiable.getBody());
+    }
+
+    @Test
+    void hidesUnfinishedUpload() throws Exception {
+        byte[] content = content(CHUNK_SIZE + 1000);
+        AttachmentResponse attachment = init(content.length);
+        uploadChunk(attachment, 0, content);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.download(NOTE_ID, attachment.getId(), "bytes=0-9").getStatusCode());
+    }
+
+    private void assertRange(AttachmentResponse attachment, byte[] content, String range, int start, int end) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.download(NOTE_ID, attachment.getId(), range);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes " + start + "-" + end + "/" + content.length,
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(end - start + 1, response.getHeaders().getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(content, start, end + 1), read(response));
+    }
+
+    private AttachmentResponse init(long size) {
+        AttachmentInitRequest request = new AttachmentInitRequest();
+        request.setFileName("report.bin");
+        request.setContentType("application/octet-stream");
+        request.setSize(size);
+        ResponseEntity<AttachmentResponse> response = controller.initUpload(NOTE_ID, request);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private ResponseEntity<Void> uploadChunk(AttachmentResponse attachment, int index, byte[] content) {
+        int start = index * attachment.getChunkSize();
+        int end = (int) Math.min(start + (long) attachment.getChunkSize(), content.length);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(Arrays.copyOfRange(content, start, end));
+        return controller.uploadChunk(NOTE_ID, attachment.getId(), index, request);
+    }
+
+    private static byte[] read(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,167 @@
+package com.ksbk.notes.service;
+
+import com.ksbk.notes.config.ResilienceProperties;
+import com.ksbk.notes.exception.DependencyUnavailableException;
+import com.ksbk.notes.utils.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private DependencyGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        guard.close();
+    }
+
+    @Test
+    void rejectsCallsBeyondTheBulkhead() throws Exception {
+        ResilienceProperties.Dependency settings = settings();
+        settings.setMaxConcurrentCalls(1);
+        guard = new DependencyGuard("stub", settings, meterRegistry);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CompletableFuture<String> blocked = CompletableFuture.supplyAsync(() -> guard.call(() -> {
+            entered.countDown();
+            awaitIgnoringInterrupts(release);
+            return "done";
+        }));
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call(() -> "never runs"));
+        assertTrue(e.getMessage().contains("too many calls in flight"));
+        assertEquals(1, count("resilience.calls", "rejected"));
+
+        release.countDown();
+        assertEquals("done", blocked.get(1, TimeUnit.SECONDS));
+        assertEquals("again", guard.call(() -> "again"));
+    }
+
+    @Test
+    void hedgeWinsAgainstDelayedAttempt() {
+        guard = new DependencyGuard("stub", settings(), meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = guard.callHedged(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertEquals("fast", result);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(2, attempts.get());
+        assertEquals(1, count("resilience.hedges", "fired"));
+        assertEquals(1, count("resilience.hedges", "won"));
+        assertEquals(1, count("resilience.calls", "success"));
+    }
+
+    @Test
+    void losingAttemptKeepsItsSlotUntilItFinishes() throws Exception {
+        ResilienceProperties.Dependency settings = settings();
+        settings.setMaxConcurrentCalls(2);
+        guard = new DependencyGuard("stub", settings, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = guard.callHedged(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                awaitIgnoringInterrupts(release);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertEquals("fast", result);
+        // The cancelled first attempt ignores the interrupt and still holds its slot.
+        assertEquals(1, availableSlots());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (availableSlots() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, availableSlots());
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheDependency() {
+        ResilienceProperties.Dependency settings = settings();
+        settings.setWindowSize(4);
+        settings.setMinimumCalls(4);
+        guard = new DependencyGuard("stub", settings, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(DependencyUnavailableException.class, () -> guard.call(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("injected failure");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call(attempts::incrementAndGet));
+        assertTrue(e.getMessage().contains("circuit open"));
+        assertEquals(4, attempts.get());
+        assertEquals(1, count("resilience.calls", "short_circuited"));
+        assertEquals(settings.getMaxConcurrentCalls(), availableSlots(), "short-circuited calls give their slot back");
+    }
+
+    private static ResilienceProperties.Dependency settings() {
+        ResilienceProperties.Dependency settings = new ResilienceProperties.Dependency();
+        settings.setMaxWaitMs(20);
+        settings.setInitialHedgeDelayMs(50);
+        settings.setCallTimeoutMs(3000);
+        return settings;
+    }
+
+    private double count(String meter, String outcome) {
+        return meterRegistry.get(meter).tag("dependency", "stub").tag("outcome", outcome).counter().count();
+    }
+
+    private int availableSlots() {
+        return (int) meterRegistry.get("resilience.bulkhead.available").gauge().value();
+    }
+
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
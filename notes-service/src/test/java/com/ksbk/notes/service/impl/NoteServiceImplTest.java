@@ -0,0 +1,149 @@
+package com.ksbk.notes.service.impl;
+
+import com.ksbk.notes.DTO.NoteRequest;
+import com.ksbk.notes.DTO.NoteResponse;
+import com.ksbk.notes.DTO.UserResponse;
+import com.ksbk.notes.config.ResilienceProperties;
+import com.ksbk.notes.config.ShardRouter;
+import com.ksbk.notes.entity.EAuthTransport;
+import com.ksbk.notes.entity.Note;
+import com.ksbk.notes.exception.DependencyUnavailableException;
+import com.ksbk.notes.mapper.NoteMapperImpl;
+import com.ksbk.notes.repository.NoteRepository;
+import com.ksbk.notes.repository.NoteTagRepository;
+import com.ksbk.notes.service.AttachmentService;
+import com.ksbk.notes.service.AuthServiceClient;
+import com.ksbk.notes.service.AuthServiceRestClient;
+import com.ksbk.notes.service.CacheInvalidationBus;
+import com.ksbk.notes.service.DependencyGuard;
+import com.ksbk.notes.service.NoteBodyStore;
+import com.ksbk.notes.service.NotePermissionCache;
+import com.ksbk.notes.service.NoteRevisionService;
+import com.ksbk.notes.service.NoteShareService;
+import com.ksbk.notes.support.FaultInjectingUserDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Note creation against a local gRPC UserDirectory stub with injected faults, through the real
+ * AuthServiceClient and its DependencyGuard. Persistence is mocked.
+ */
+class NoteServiceImplTest {
+
+    private static final long USER_ID = 7L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FaultInjectingUserDirectory userDirectory;
+
+    private DependencyGuard guard;
+
+    private AuthServiceClient authServiceClient;
+
+    private NoteRepository noteRepository;
+
+    private NoteServiceImpl noteService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userDirectory = new FaultInjectingUserDirectory();
+        userDirectory.addUser(USER_ID, "alice");
+
+        ResilienceProperties.Dependency settings = new ResilienceProperties.Dependency();
+        settings.setInitialHedgeDelayMs(50);
+        settings.setCallTimeoutMs(3000);
+        guard = new DependencyGuard("auth-service", settings, meterRegistry);
+        authServiceClient = new AuthServiceClient(mock(AuthServiceRestClient.class), guard, EAuthTransport.GRPC,
+                userDirectory.target(), 30000, 250);
+        ReflectionTestUtils.setField(authServiceClient, "deadlineMs", 2000L);
+
+        noteRepository = mock(NoteRepository.class);
+        when(noteRepository.save(any())).thenAnswer(invocation -> {
+            Note note = invocation.getArgument(0);
+            note.setId(11L);
+            return note;
+        });
+        NoteBodyStore noteBodyStore = mock(NoteBodyStore.class);
+        when(noteBodyStore.getMaxSize()).thenReturn(1024L);
+        noteService = new NoteServiceImpl(noteRepository, new NoteMapperImpl(), authServiceClient,
+                mock(ApplicationEventPublisher.class), mock(NoteRevisionService.class), mock(NoteTagRepository.class),
+                mock(NoteShareService.class), mock(NotePermissionCache.class), noteBodyStore,
+                mock(CacheInvalidationBus.class), mock(AttachmentService.class), mock(ShardRouter.class));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        authServiceClient.shutdown();
+        guard.close();
+        userDirectory.close();
+    }
+
+    @Test
+    void createsNoteWithTokenIdentityWhenAuthServiceIsDown() throws Exception {
+        userDirectory.setUnavailable(true);
+
+        NoteResponse response = noteService.createNote(USER_ID, request());
+
+        assertEquals(11L, response.getId());
+        verify(noteRepository).save(any());
+        assertEquals(1, meterRegistry.get("resilience.calls").tag("outcome", "fallback").counter().count());
+        assertEquals(1, meterRegistry.get("resilience.calls").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void failsForAnotherUserWhenAuthServiceIsDown() {
+        userDirectory.setUnavailable(true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER_ID + 1, null, List.of()));
+
+        assertThrows(DependencyUnavailableException.class, () -> noteService.createNote(USER_ID, request()));
+        verify(noteRepository, never()).save(any());
+        assertEquals(0, meterRegistry.get("resilience.calls").tag("outcome", "fallback").counter().count());
+    }
+
+    @Test
+    void hedgedLookupWinsAgainstDelayedInstance() {
+        // Connect first, so the delayed call is the one that reaches the stub first.
+        authServiceClient.getUserById(USER_ID);
+        int callsBefore = userDirectory.calls();
+        double wonBefore = meterRegistry.get("resilience.hedges").tag("outcome", "won").counter().count();
+        userDirectory.delayNextCall(1500);
+
+        long start = System.nanoTime();
+        UserResponse user = authServiceClient.getUserById(USER_ID);
+
+        assertEquals("alice", user.getUsername());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(callsBefore + 2, userDirectory.calls());
+        assertEquals(wonBefore + 1, meterRegistry.get("resilience.hedges").tag("outcome", "won").counter().count());
+    }
+
+    private static NoteRequest request() {
+        NoteRequest request = new NoteRequest();
+        request.setTitle("Groceries");
+        request.setDescription("Milk and bread");
+        return request;
+    }
+}
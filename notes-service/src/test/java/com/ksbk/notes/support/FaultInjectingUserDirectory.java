@@ -0,0 +1,94 @@
+package com.ksbk.notes.support;
+
+import com.ksbk.auth.api.GetUserRequest;
+import com.ksbk.auth.api.User;
+import com.ksbk.auth.api.UserDirectoryGrpc;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for auth-service's UserDirectory over real gRPC on a loopback port, with faults
+ * injected per call the way auth-service's GrpcFaultInjector does: queued delays for the next
+ * calls, and a switch that fails every call with UNAVAILABLE.
+ */
+public class FaultInjectingUserDirectory implements AutoCloseable {
+
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Long> delaysMs = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private volatile boolean unavailable;
+
+    private final Server server;
+
+    public FaultInjectingUserDirectory() throws IOException {
+        server = NettyServerBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .addService(new UserDirectoryGrpc.UserDirectoryImplBase() {
+                    @Override
+                    public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+                        calls.incrementAndGet();
+                        if (unavailable) {
+                            responseObserver.onError(Status.UNAVAILABLE.withDescription("Injected fault").asRuntimeException());
+                            return;
+                        }
+                        Long delayMs = delaysMs.poll();
+                        if (delayMs != null) {
+                            try {
+                                Thread.sleep(delayMs);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        User user = users.get(request.getUserId());
+                        if (user == null) {
+                            responseObserver.onError(Status.NOT_FOUND.asRuntimeException());
+                            return;
+                        }
+                        responseObserver.onNext(user);
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /** gRPC target of the stub, for {@code notes.auth.grpc.target}. */
+    public String target() {
+        return "127.0.0.1:" + server.getPort();
+    }
+
+    public void addUser(long id, String username) {
+        users.put(id, User.newBuilder().setId(id).setUsername(username).setEmail(username + "@example.com").build());
+    }
+
+    /** Delays the next call that is not failed by {@code delayMs}; queued delays apply in order. */
+    public void delayNextCall(long delayMs) {
+        delaysMs.add(delayMs);
+    }
+
+    public void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
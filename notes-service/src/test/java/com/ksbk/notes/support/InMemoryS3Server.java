@@ -0,0 +1,284 @@
+package com.ksbk.notes.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the S3 calls the MinIO client makes for attachments: bucket checks,
+ * object put, stat, ranged get and delete, ListObjectsV2, multipart compose via upload part copy,
+ * and multi-object delete. Path-style requests only; signatures are not checked.
+ */
+public class InMemoryS3Server implements AutoCloseable {
+
+    private static final String LAST_MODIFIED = "Mon, 01 Jan 2024 00:00:00 GMT";
+
+    private static final String LAST_MODIFIED_ISO = "2024-01-01T00:00:00.000Z";
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private static final String NAMESPACE = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    /** Objects by bucket + "/" + key. */
+    private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final HttpServer server;
+
+    private record Upload(String path, NavigableMap<Integer, byte[]> parts) {
+    }
+
+    public InMemoryS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handle(exchange);
+            } catch (Exception e) {
+                sendXml(exchange, 500, error("InternalError", e.toString()));
+            }
+        });
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public byte[] object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public List<String> keys(String bucket) {
+        List<String> keys = new ArrayList<>();
+        for (String path : objects.subMap(bucket + "/", bucket + "0").keySet()) {
+            keys.add(path.substring(bucket.length() + 1));
+        }
+        return keys;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(1);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        int slash = path.indexOf('/');
+        if (slash < 0 || slash == path.length() - 1) {
+            handleBucket(exchange, method, slash < 0 ? path : path.substring(0, slash), query, body);
+        } else {
+            handleObject(exchange, method, path, query, body);
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket, Map<String, String> query,
+                              byte[] body) throws IOException {
+        if (method.equals("GET") && query.containsKey("location")) {
+            sendXml(exchange, 200, "<LocationConstraint" + NAMESPACE + "></LocationConstraint>");
+        } else if (method.equals("GET")) {
+            String prefix = query.getOrDefault("prefix", "");
+            StringBuilder xml = new StringBuilder("<ListBucketResult" + NAMESPACE + "><Name>" + bucket + "</Name><Prefix>"
+                    + prefix + "</Prefix><MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>");
+            for (String key : keys(bucket)) {
+                if (key.startsWith(prefix)) {
+                    byte[] data = object(bucket, key);
+                    xml.append("<Contents><Key>").append(key).append("</Key><LastModified>").append(LAST_MODIFIED_ISO)
+                            .append("</LastModified><ETag>").append(etag(data)).append("</ETag><Size>").append(data.length)
+                            .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+                }
+            }
+            sendXml(exchange, 200, xml.append("</ListBucketResult>").toString());
+        } else if (method.equals("POST") && query.containsKey("delete")) {
+            Matcher matcher = DELETE_KEY.matcher(new String(body, StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                objects.remove(bucket + "/" + matcher.group(1));
+            }
+            sendXml(exchange, 200, "<DeleteResult" + NAMESPACE + "></DeleteResult>");
+        } else {
+            // HEAD and PUT: every bucket exists.
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String path, Map<String, String> query,
+                              byte[] body) throws IOException {
+        String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+        switch (method) {
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    String uploadId = UUID.randomUUID().toString();
+                    uploads.put(uploadId, new Upload(path, new TreeMap<>()));
+                    sendXml(exchange, 200, "<InitiateMultipartUploadResult" + NAMESPACE + "><Bucket>" + bucketOf(path)
+                            + "</Bucket><Key>" + keyOf(path) + "</Key><UploadId>" + uploadId
+                            + "</UploadId></InitiateMultipartUploadResult>");
+                } else {
+                    Upload upload = uploads.remove(query.get("uploadId"));
+                    if (upload == null) {
+                        sendXml(exchange, 404, error("NoSuchUpload", path));
+                        return;
+                    }
+                    int size = upload.parts().values().stream().mapToInt(part -> part.length).sum();
+                    byte[] data = new byte[size];
+                    int offset = 0;
+                    for (byte[] part : upload.parts().values()) {
+                        System.arraycopy(part, 0, data, offset, part.length);
+                        offset += part.length;
+                    }
+                    objects.put(path, data);
+                    sendXml(exchange, 200, "<CompleteMultipartUploadResult" + NAMESPACE + "><Bucket>" + bucketOf(path)
+                            + "</Bucket><Key>" + keyOf(path) + "</Key><ETag>" + etag(data)
+                            + "</ETag></CompleteMultipartUploadResult>");
+                }
+            }
+            case "PUT" -> {
+                byte[] data = body;
+                if (copySource != null) {
+                    data = objects.get(URLDecoder.decode(copySource, StandardCharsets.UTF_8).replaceFirst("^/", ""));
+                    if (data == null) {
+                        sendXml(exchange, 404, error("NoSuchKey", copySource));
+                        return;
+                    }
+                }
+                if (query.containsKey("uploadId")) {
+                    Upload upload = uploads.get(query.get("uploadId"));
+                    if (upload == null) {
+                        sendXml(exchange, 404, error("NoSuchUpload", path));
+                        return;
+                    }
+                    upload.parts().put(Integer.parseInt(query.get("partNumber")), data);
+                } else {
+                    objects.put(path, data);
+                }
+                if (copySource != null) {
+                    String result = query.containsKey("uploadId") ? "CopyPartResult" : "CopyObjectResult";
+                    sendXml(exchange, 200, "<" + result + NAMESPACE + "><LastModified>" + LAST_MODIFIED_ISO
+                            + "</LastModified><ETag>" + etag(data) + "</ETag></" + result + ">");
+                } else {
+                    exchange.getResponseHeaders().set("ETag", etag(data));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+            }
+            case "HEAD", "GET" -> {
+                byte[] data = objects.get(path);
+                if (data == null) {
+                    if (method.equals("HEAD")) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        sendXml(exchange, 404, error("NoSuchKey", path));
+                    }
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", etag(data));
+                exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                if (method.equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Content-Length", Long.toString(data.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                int status = 200;
+                int start = 0;
+                int end = data.length - 1;
+                if (range != null) {
+                    Matcher matcher = RANGE.matcher(range);
+                    if (!matcher.matches() || Integer.parseInt(matcher.group(1)) >= data.length) {
+                        sendXml(exchange, 416, error("InvalidRange", range));
+                        return;
+                    }
+                    status = 206;
+                    start = Integer.parseInt(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                    }
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+                }
+                exchange.sendResponseHeaders(status, end - start + 1);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(data, start, end - start + 1);
+                }
+            }
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    objects.remove(path);
+                }
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> sendXml(exchange, 405, error("MethodNotAllowed", method));
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String bucketOf(String path) {
+        return path.substring(0, path.indexOf('/'));
+    }
+
+    private static String keyOf(String path) {
+        return path.substring(path.indexOf('/') + 1);
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String error(String code, String resource) {
+        return "<Error><Code>" + code + "</Code><Message>" + code + "</Message><Resource>" + resource
+                + "</Resource><RequestId>0</RequestId><HostId>0</HostId></Error>";
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = (XML_HEADER + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ksbk.notes.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MS = 50;
+
+    /** Window of 4, opens at 50% failures once 4 calls are in, 2 trial calls. */
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 4, 50, OPEN_MS, 2);
+
+    @Test
+    void opensOnlyOnceEnoughCallsFailed() {
+        record(false, false, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        record(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        record(true, false, false, false);
+        record(false, false, false, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void closesWhenAllTrialCallsSucceed() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only the trial calls are let through");
+
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // The window starts empty again: three failures are not enough to reopen it.
+        record(true, true, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void reopensOnAFailedTrialCall() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void open() {
+        record(true, true, true, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void record(boolean... failures) {
+        for (boolean failure : failures) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(failure);
+        }
+    }
+}
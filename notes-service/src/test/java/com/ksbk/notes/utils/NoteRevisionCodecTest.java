@@ -0,0 +1,57 @@
+package com.ksbk.notes.utils;
+
+import com.ksbk.notes.utils.NoteRevisionCodec.Content;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NoteRevisionCodecTest {
+
+    @Test
+    void bodyRoundTripsThroughSnapshotAndDeltas() {
+        Content first = new Content("Plan", "Week", "Monday: gym\nTuesday: rest");
+        Content second = new Content("Plan", "Week", "Monday: gym\nTuesday: swim");
+        Content third = new Content("Plan v2", "Week", "Monday: gym\nTuesday: swim");
+
+        Content rebuilt = NoteRevisionCodec.decodeSnapshot(NoteRevisionCodec.encodeSnapshot(first));
+        assertEquals(first, rebuilt);
+        rebuilt = NoteRevisionCodec.applyDelta(rebuilt, NoteRevisionCodec.encodeDelta(first, second));
+        assertEquals(second, rebuilt);
+        rebuilt = NoteRevisionCodec.applyDelta(rebuilt, NoteRevisionCodec.encodeDelta(second, third));
+        assertEquals(third, rebuilt);
+    }
+
+    @Test
+    void revisionsWithoutBodyDecodeAsUnknown() throws Exception {
+        Content legacy = NoteRevisionCodec.decodeSnapshot(legacySnapshot("Plan", "Week"));
+        assertEquals(new Content("Plan", "Week", null), legacy);
+
+        // A delta written against the real body cannot be applied to an unknown one.
+        byte[] delta = NoteRevisionCodec.encodeDelta(new Content("Plan", "Week", "old body"),
+                new Content("Plan", "Week", "new body"));
+        assertNull(NoteRevisionCodec.applyDelta(legacy, delta).body());
+
+        byte[] replace = NoteRevisionCodec.encodeDelta(new Content("Plan", "Week", null),
+                new Content("Plan", "Week", "body"));
+        assertEquals("body", NoteRevisionCodec.applyDelta(legacy, replace).body());
+    }
+
+    /** A snapshot as written before bodies were part of note history. */
+    private static byte[] legacySnapshot(String title, String description) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            for (String value : new String[]{title, description}) {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ksbk.common.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SqlDiagnosticsReport {
+    private boolean enabled;
+    private long slowQueryThresholdMs;
+    private int repeatedQueryThreshold;
+    private int maxStatementsPerRequest;
+    private List<SqlStatementStats> statements;
+    private List<String> flaggedRequests;
+}
@@ -0,0 +1,11 @@
+package com.ksbk.common.DTO;
+
+import lombok.Data;
+
+@Data
+public class SqlDiagnosticsSettings {
+    private Boolean enabled;
+    private Long slowQueryThresholdMs;
+    private Integer repeatedQueryThreshold;
+    private Integer maxStatementsPerRequest;
+}
@@ -0,0 +1,14 @@
+package com.ksbk.common.DTO;
+
+import lombok.Data;
+
+@Data
+public class SqlStatementStats {
+    private String sql;
+    private long count;
+    private long totalMs;
+    private double maxMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+}
@@ -0,0 +1,40 @@
+package com.ksbk.common.config;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings next to JSON. Clients that send {@code Accept: application/cbor} or
+ * {@code Accept: application/x-jackson-smile} get the same DTOs in a compact form; everyone
+ * else keeps getting JSON. The mappers are built from Boot's Jackson builder so dates and
+ * modules are configured exactly like the JSON ones.
+ * <p>
+ * Applies to servlet services that have jackson-dataformat-cbor and -smile on the classpath.
+ */
+@AutoConfiguration(after = JacksonAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass({CBORMapper.class, SmileMapper.class})
+public class ContentNegotiationConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        CBORMapper mapper = new CBORMapper();
+        builder.configure(mapper);
+        return new MappingJackson2CborHttpMessageConverter(mapper);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileMapper mapper = new SmileMapper();
+        builder.configure(mapper);
+        return new MappingJackson2SmileHttpMessageConverter(mapper);
+    }
+}
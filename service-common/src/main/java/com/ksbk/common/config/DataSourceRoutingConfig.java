@@ -0,0 +1,101 @@
+package com.ksbk.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enabled with {@code app.datasource.replicas.enabled=true}. The primary pool is configured by
+ * the regular {@code spring.datasource.*} properties, the replicas by a comma separated list of
+ * JDBC URLs sharing the primary's credentials unless overridden.
+ * <p>
+ * Applies to every service with Hikari and Spring JDBC on the classpath; read-your-writes only
+ * holds within one instance, see {@link ReadYourWritesTracker}.
+ */
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnClass({HikariDataSource.class, LazyConnectionDataSourceProxy.class})
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Value("${app.datasource.replicas.urls}")
+    private String[] replicaUrls;
+
+    @Value("${app.datasource.replicas.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replicas.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replicas.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    @Value("${app.datasource.replicas.sticky-window-ms:5000}")
+    private long stickyWindowMs;
+
+    @Value("${app.datasource.replicas.pool-size:10}")
+    private int replicaPoolSize;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls[i].trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+            replicaPools.add(replica);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                new ReadYourWritesTracker(stickyWindowMs), maxLagMs);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.check-interval-ms:2000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ksbk.common.config;
+
+import com.ksbk.common.utils.GatewayIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The gateway identity signer and verifier, for the gateway and every service behind it. Both
+ * sides read the same {@code app.gatewayIdentitySecret}; without it forwarded identities are
+ * neither signed nor accepted.
+ */
+@AutoConfiguration
+public class GatewayIdentityConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public GatewayIdentity gatewayIdentity(@Value("${app.gatewayIdentitySecret:}") String secret,
+                                           @Value("${app.gatewayIdentityMaxAgeMs:30000}") long maxAgeMs) {
+        return new GatewayIdentity(secret, maxAgeMs);
+    }
+}
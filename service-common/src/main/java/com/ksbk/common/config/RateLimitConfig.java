@@ -0,0 +1,32 @@
+package com.ksbk.common.config;
+
+import com.ksbk.common.service.RateLimiter;
+import com.ksbk.common.service.impl.InMemoryRateLimiter;
+import com.ksbk.common.service.impl.JdbcRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The limiter behind each servlet service's {@code RateLimitFilter}. The services only differ in
+ * how they key a request, so the filters stay with them.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimiter rateLimiter(RateLimitProperties properties, ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                   ObjectProvider<JdbcRateLimiter.SweepScope> sweepScope) {
+        if ("jdbc".equalsIgnoreCase(properties.getBackend())) {
+            return new JdbcRateLimiter(jdbcTemplate.getObject(), sweepScope.getIfAvailable(), properties);
+        }
+        return new InMemoryRateLimiter(properties);
+    }
+}
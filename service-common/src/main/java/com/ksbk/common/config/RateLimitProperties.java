@@ -0,0 +1,44 @@
+package com.ksbk.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>
+ * app.rate-limit.capacity=60
+ * app.rate-limit.refill-per-second=10
+ * app.rate-limit.rules[0].method=POST
+ * app.rate-limit.rules[0].path=/api/auth/login
+ * app.rate-limit.rules[0].cost=20
+ * </pre>
+ * Every client gets a bucket of {@code capacity} tokens refilled at {@code refill-per-second};
+ * a request takes the cost of the first matching rule, or one token.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** {@code memory} keeps buckets in this instance, {@code jdbc} shares them through Postgres. */
+    private String backend = "memory";
+
+    private int capacity = 60;
+
+    private double refillPerSecond = 10;
+
+    /** Keys the in-memory backend tracks exactly; past this, new keys share hashed overflow buckets. */
+    private int maxKeys = 100_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String method;
+        private String path;
+        private int cost = 1;
+    }
+}
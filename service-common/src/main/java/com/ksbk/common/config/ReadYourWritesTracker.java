@@ -0,0 +1,60 @@
+package com.ksbk.common.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers users that wrote recently so their reads stay on the primary until replicas
+ * have had time to catch up.
+ * <p>
+ * The memory is per instance: a user whose next request lands on another instance of the
+ * service reads from a replica right away and may not see their own write yet. Route a user's
+ * requests to one instance, or keep {@code app.datasource.replicas.max-lag-ms} within what
+ * clients tolerate, where that matters.
+ */
+public class ReadYourWritesTracker {
+
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    private final long windowMs;
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void markWrite() {
+        String user = currentUser();
+        if (user != null) {
+            stickyUntil.put(user, System.currentTimeMillis() + windowMs);
+        }
+    }
+
+    public boolean isSticky() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(user);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            stickyUntil.remove(user, until);
+            return false;
+        }
+        return true;
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until < now);
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+}
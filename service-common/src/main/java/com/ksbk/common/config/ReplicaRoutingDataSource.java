@@ -0,0 +1,244 @@
+package com.ksbk.common.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Replicas lagging behind more than the configured limit are taken out of rotation until they
+ * catch up, and users who wrote within the stickiness window keep reading from the primary.
+ * <p>
+ * A user counts as having written once a transaction that ran a writing statement on the
+ * primary commits. Read-write transactions that only read, such as cache loads, leave the user
+ * on the replicas.
+ * <p>
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy} so the routing decision is made
+ * after the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    /** Commands that never change rows; anything else run on the primary counts as a write. */
+    private static final Set<String> READ_COMMANDS = Set.of("SELECT", "SHOW", "EXPLAIN", "SET", "RESET", "VALUES",
+            "TABLE", "FETCH", "BEGIN", "START", "COMMIT", "ROLLBACK", "SAVEPOINT", "RELEASE", "LISTEN", "UNLISTEN");
+
+    private static final Pattern DML = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Set<String> STATEMENT_SQL_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    private final Map<String, DataSource> replicas;
+
+    private final List<String> healthyReplicas = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    private final long maxLagMs;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker, long maxLagMs) {
+        this.replicas = replicas;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMs = maxLagMs;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        healthyReplicas.addAll(replicas.keySet());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.isSticky()) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        try {
+            return candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+        } catch (IndexOutOfBoundsException e) {
+            return PRIMARY;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return detectWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return detectWrites(super.getConnection(username, password));
+    }
+
+    /**
+     * Measures replication lag of every replica and updates the rotation.
+     */
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            boolean healthy;
+            try {
+                Double lagMs = new JdbcTemplate(replica.getValue()).queryForObject(LAG_QUERY, Double.class);
+                healthy = lagMs != null && lagMs <= maxLagMs;
+                if (!healthy) {
+                    logger.warn("Replica {} lags {} ms behind primary, routing reads away from it", replica.getKey(), lagMs);
+                }
+            } catch (Exception e) {
+                logger.warn("Replica {} is unreachable: {}", replica.getKey(), e.getMessage());
+                healthy = false;
+            }
+
+            if (healthy && !healthyReplicas.contains(replica.getKey())) {
+                logger.info("Replica {} is back in rotation", replica.getKey());
+                healthyReplicas.add(replica.getKey());
+            } else if (!healthy) {
+                healthyReplicas.remove(replica.getKey());
+            }
+        }
+        readYourWritesTracker.purgeExpired();
+    }
+
+    /** Whether the statement may change rows. Errs towards yes for anything it does not know. */
+    static boolean isWrite(String sql) {
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        String command = sql.substring(start, i).toUpperCase(Locale.ROOT);
+        if (command.equals("WITH")) {
+            return DML.matcher(sql).find();
+        }
+        return !READ_COMMANDS.contains(command);
+    }
+
+    /** Primary connections outside read-only transactions report their first writing statement. */
+    private Connection detectWrites(Connection connection) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return connection;
+        }
+        WriteDetector detector = new WriteDetector(connection);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, detector);
+    }
+
+    /**
+     * Marks the user when the transaction commits, so a rolled back write does not pin them to the
+     * primary; without a transaction the statement has already committed.
+     */
+    private void onWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            readYourWritesTracker.markWrite();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.markWrite();
+            }
+        });
+    }
+
+    /**
+     * Checks the SQL of statements prepared on, or run through plain statements of, one
+     * connection. Reports once per connection.
+     */
+    private final class WriteDetector implements InvocationHandler {
+        private final Connection connection;
+        private boolean reported;
+
+        private WriteDetector(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (!reported && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                check((String) args[0]);
+            }
+            Object result = call(connection, method, args);
+            if (!reported && name.equals("createStatement")) {
+                Statement statement = (Statement) result;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                        (statementProxy, statementMethod, statementArgs) -> {
+                            if (!reported && STATEMENT_SQL_METHODS.contains(statementMethod.getName())
+                                    && statementArgs != null && statementArgs.length > 0 && statementArgs[0] instanceof String sql) {
+                                check(sql);
+                            }
+                            return call(statement, statementMethod, statementArgs);
+                        });
+            }
+            return result;
+        }
+
+        private void check(String sql) {
+            if (isWrite(sql)) {
+                reported = true;
+                onWrite();
+            }
+        }
+
+        private static Object call(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
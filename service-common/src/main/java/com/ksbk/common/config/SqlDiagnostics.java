@@ -0,0 +1,260 @@
+package com.ksbk.common.config;
+
+import com.ksbk.common.DTO.SqlDiagnosticsReport;
+import com.ksbk.common.DTO.SqlStatementStats;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Query-level diagnostics fed by the JDBC proxy around the application {@code DataSource}.
+ * <p>
+ * Off by default and switched at runtime through {@code /api/admin/sql-diagnostics}. While off,
+ * the listener returns before doing any work. While on it keeps a latency histogram per
+ * statement, logs statements slower than the threshold with their bind parameters, and counts
+ * statements per HTTP request to flag repeated identical SELECTs (N+1 patterns).
+ */
+public class SqlDiagnostics implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlDiagnostics.class);
+
+    /** Bucket i holds executions of up to 2^i microseconds; the last one is open-ended. */
+    private static final int BUCKETS = 26;
+
+    private static final int MAX_TRACKED_STATEMENTS = 500;
+
+    private static final int MAX_FLAGGED_REQUESTS = 50;
+
+    private static final String OTHER_STATEMENTS = "<other statements>";
+
+    private final Map<String, StatementHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final Deque<String> flaggedRequests = new ArrayDeque<>();
+
+    private final ThreadLocal<Long> queryStart = new ThreadLocal<>();
+
+    private final ThreadLocal<RequestStats> requestStats = new ThreadLocal<>();
+
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    private volatile boolean enabled;
+
+    private volatile long slowQueryThresholdMs;
+
+    private volatile int repeatedQueryThreshold;
+
+    private volatile int maxStatementsPerRequest;
+
+    public SqlDiagnostics(@Value("${app.sql-diagnostics.enabled:false}") boolean enabled,
+                          @Value("${app.sql-diagnostics.slow-query-threshold-ms:200}") long slowQueryThresholdMs,
+                          @Value("${app.sql-diagnostics.repeated-query-threshold:5}") int repeatedQueryThreshold,
+                          @Value("${app.sql-diagnostics.max-statements-per-request:30}") int maxStatementsPerRequest) {
+        this.enabled = enabled;
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+        this.repeatedQueryThreshold = repeatedQueryThreshold;
+        this.maxStatementsPerRequest = maxStatementsPerRequest;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (enabled) {
+            queryStart.set(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = queryStart.get();
+        if (start == null) {
+            return;
+        }
+        queryStart.remove();
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+
+        histogramFor(sql).record(elapsedMicros);
+
+        if (elapsedMicros >= slowQueryThresholdMs * 1_000) {
+            logger.warn("Slow query ({} ms): {}", elapsedMicros / 1_000,
+                    logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+        }
+
+        RequestStats stats = requestStats.get();
+        if (stats != null) {
+            stats.record(sql, elapsedMicros);
+        }
+    }
+
+    public void beginRequest() {
+        if (enabled) {
+            requestStats.set(new RequestStats());
+        }
+    }
+
+    public void endRequest(String request) {
+        RequestStats stats = requestStats.get();
+        if (stats == null) {
+            return;
+        }
+        requestStats.remove();
+
+        List<String> repeated = stats.countsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= repeatedQueryThreshold && isSelect(entry.getKey()))
+                .map(entry -> entry.getValue() + "x " + entry.getKey())
+                .toList();
+        if (!repeated.isEmpty()) {
+            logger.warn("Possible N+1 in {}: {}", request, repeated);
+            flag(request + " repeated " + repeated);
+        }
+        if (stats.statements > maxStatementsPerRequest) {
+            logger.warn("{} executed {} statements ({} ms in JDBC)", request, stats.statements, stats.totalMicros / 1_000);
+            flag(request + " executed " + stats.statements + " statements");
+        } else if (stats.statements > 0) {
+            logger.info("{} executed {} statements ({} ms in JDBC)", request, stats.statements, stats.totalMicros / 1_000);
+        }
+    }
+
+    public void configure(Boolean enabled, Long slowQueryThresholdMs, Integer repeatedQueryThreshold, Integer maxStatementsPerRequest) {
+        if (slowQueryThresholdMs != null) {
+            this.slowQueryThresholdMs = slowQueryThresholdMs;
+        }
+        if (repeatedQueryThreshold != null) {
+            this.repeatedQueryThreshold = repeatedQueryThreshold;
+        }
+        if (maxStatementsPerRequest != null) {
+            this.maxStatementsPerRequest = maxStatementsPerRequest;
+        }
+        if (enabled != null && enabled != this.enabled) {
+            this.enabled = enabled;
+            logger.info("SQL diagnostics switched {}", enabled ? "on" : "off");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SqlDiagnosticsReport report() {
+        SqlDiagnosticsReport report = new SqlDiagnosticsReport();
+        report.setEnabled(enabled);
+        report.setSlowQueryThresholdMs(slowQueryThresholdMs);
+        report.setRepeatedQueryThreshold(repeatedQueryThreshold);
+        report.setMaxStatementsPerRequest(maxStatementsPerRequest);
+        report.setStatements(histograms.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(SqlStatementStats::getTotalMs).reversed())
+                .toList());
+        synchronized (flaggedRequests) {
+            report.setFlaggedRequests(new ArrayList<>(flaggedRequests));
+        }
+        return report;
+    }
+
+    public void reset() {
+        histograms.clear();
+        synchronized (flaggedRequests) {
+            flaggedRequests.clear();
+        }
+    }
+
+    private StatementHistogram histogramFor(String sql) {
+        StatementHistogram histogram = histograms.get(sql);
+        if (histogram != null) {
+            return histogram;
+        }
+        String key = histograms.size() < MAX_TRACKED_STATEMENTS ? sql : OTHER_STATEMENTS;
+        return histograms.computeIfAbsent(key, k -> new StatementHistogram());
+    }
+
+    private void flag(String entry) {
+        synchronized (flaggedRequests) {
+            if (flaggedRequests.size() == MAX_FLAGGED_REQUESTS) {
+                flaggedRequests.removeFirst();
+            }
+            flaggedRequests.addLast(entry);
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static final class RequestStats {
+        private final Map<String, Integer> countsBySql = new HashMap<>();
+        private int statements;
+        private long totalMicros;
+
+        void record(String sql, long micros) {
+            countsBySql.merge(sql, 1, Integer::sum);
+            statements++;
+            totalMicros += micros;
+        }
+    }
+
+    private static final class StatementHistogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+        StatementHistogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long micros) {
+            int bucket = micros <= 1 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+            buckets[bucket].increment();
+            count.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulate(micros);
+        }
+
+        SqlStatementStats toStats(String sql) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            SqlStatementStats stats = new SqlStatementStats();
+            stats.setSql(sql);
+            stats.setCount(count.sum());
+            stats.setTotalMs(totalMicros.sum() / 1_000);
+            stats.setMaxMs(maxMicros.get() / 1_000.0);
+            stats.setP50Ms(percentile(counts, total, 0.50));
+            stats.setP95Ms(percentile(counts, total, 0.95));
+            stats.setP99Ms(percentile(counts, total, 0.99));
+            return stats;
+        }
+
+        /** Upper bound of the bucket holding the requested rank, capped at the observed maximum. */
+        private double percentile(long[] counts, long total, double quantile) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(1L << i, maxMicros.get()) / 1_000.0;
+                }
+            }
+            return maxMicros.get() / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ksbk.common.config;
+
+import com.ksbk.common.controller.SqlDiagnosticsController;
+import com.ksbk.common.filter.SqlDiagnosticsFilter;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application {@code DataSource} (the bean every repository uses, whether it is the
+ * plain pool or one of the routing data sources) in a datasource-proxy that reports to
+ * {@link SqlDiagnostics}. Replica and shard pools behind a router are not wrapped again.
+ * <p>
+ * Applies to every service with datasource-proxy on the classpath; servlet services also get the
+ * per-request statement counts and {@code /api/admin/sql-diagnostics}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(ProxyDataSourceBuilder.class)
+@Import(SqlDiagnostics.class)
+public class SqlDiagnosticsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlDiagnosticsDataSourceWrapper(ObjectProvider<SqlDiagnostics> diagnostics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(diagnostics.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @Import({SqlDiagnosticsFilter.class, SqlDiagnosticsController.class})
+    static class ServletDiagnostics {
+    }
+}
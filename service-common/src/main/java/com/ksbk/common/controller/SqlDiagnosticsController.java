@@ -0,0 +1,49 @@
+package com.ksbk.common.controller;
+
+import com.ksbk.common.DTO.SqlDiagnosticsReport;
+import com.ksbk.common.DTO.SqlDiagnosticsSettings;
+import com.ksbk.common.config.SqlDiagnostics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/sql-diagnostics")
+@Tag(name = "SQL Diagnostics Controller", description = "Runtime switch and report of query-level diagnostics (admin only)")
+public class SqlDiagnosticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlDiagnosticsController.class);
+
+    private final SqlDiagnostics sqlDiagnostics;
+
+    public SqlDiagnosticsController(SqlDiagnostics sqlDiagnostics) {
+        this.sqlDiagnostics = sqlDiagnostics;
+    }
+
+    @Operation(summary = "Get report", description = "Per-statement latency histograms and flagged requests")
+    @GetMapping
+    public ResponseEntity<SqlDiagnosticsReport> getReport() {
+        return ResponseEntity.ok(sqlDiagnostics.report());
+    }
+
+    @Operation(summary = "Update settings", description = "Switch diagnostics on or off and adjust thresholds; omitted fields are kept")
+    @PutMapping
+    public ResponseEntity<SqlDiagnosticsReport> updateSettings(@RequestBody SqlDiagnosticsSettings settings) {
+        logger.info("Admin {} updated SQL diagnostics settings: {}",
+                SecurityContextHolder.getContext().getAuthentication().getName(), settings);
+        sqlDiagnostics.configure(settings.getEnabled(), settings.getSlowQueryThresholdMs(),
+                settings.getRepeatedQueryThreshold(), settings.getMaxStatementsPerRequest());
+        return ResponseEntity.ok(sqlDiagnostics.report());
+    }
+
+    @Operation(summary = "Reset statistics")
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlDiagnostics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.ksbk.common.filter;
+
+import com.ksbk.common.config.SqlDiagnostics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+public class SqlDiagnosticsFilter extends OncePerRequestFilter {
+
+    private final SqlDiagnostics sqlDiagnostics;
+
+    public SqlDiagnosticsFilter(SqlDiagnostics sqlDiagnostics) {
+        this.sqlDiagnostics = sqlDiagnostics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!sqlDiagnostics.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        sqlDiagnostics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlDiagnostics.endRequest(request.getMethod() + " " + request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ksbk.common.service;
+
+public interface RateLimiter {
+    /**
+     * Takes {@code cost} tokens from the bucket of {@code key}.
+     *
+     * @return 0 when the request is admitted, otherwise the milliseconds until it would be
+     */
+    long tryAcquire(String key, int cost);
+}
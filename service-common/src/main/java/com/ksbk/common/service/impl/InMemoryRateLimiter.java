@@ -0,0 +1,103 @@
+package com.ksbk.common.service.impl;
+
+import com.ksbk.common.config.RateLimitProperties;
+import com.ksbk.common.service.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets kept as a single "theoretical arrival time" per key (GCRA), so taking tokens is
+ * one compare-and-set on an {@code AtomicLong} with no locks and no refill thread.
+ * <p>
+ * A key whose arrival time has passed has a full bucket and carries no information, so the
+ * scheduled sweep simply drops it; requests never scan the table. While the table holds
+ * {@code max-keys} entries, new keys are tracked approximately in a fixed array of buckets picked
+ * by key hash, so a flood of distinct clients costs no memory and only colliding keys share a limit.
+ */
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryRateLimiter.class);
+
+    private static final int OVERFLOW_BUCKETS = 4096;
+
+    private static final long OVERFLOW_WARN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong[] overflow = new AtomicLong[OVERFLOW_BUCKETS];
+
+    private final AtomicLong overflowed = new AtomicLong();
+
+    private final AtomicLong nextOverflowWarning = new AtomicLong(System.nanoTime());
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private final int capacity;
+
+    private final int maxKeys;
+
+    public InMemoryRateLimiter(RateLimitProperties properties) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRefillPerSecond());
+        this.burstToleranceNanos = emissionIntervalNanos * properties.getCapacity();
+        this.capacity = properties.getCapacity();
+        this.maxKeys = properties.getMaxKeys();
+        long now = System.nanoTime();
+        for (int i = 0; i < overflow.length; i++) {
+            overflow[i] = new AtomicLong(now);
+        }
+    }
+
+    @Override
+    public long tryAcquire(String key, int cost) {
+        long now = System.nanoTime();
+        long increment = Math.min(cost, capacity) * emissionIntervalNanos;
+        AtomicLong arrival = bucket(key, now);
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + increment;
+            long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(arrival -> arrival.get() - now <= 0);
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival != null) {
+            return arrival;
+        }
+        if (buckets.size() >= maxKeys) {
+            warnOverflow(now);
+            return overflow[Math.floorMod(key.hashCode() * 0x9E3779B9, OVERFLOW_BUCKETS)];
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    /** At most one warning a minute, counting the keys tracked approximately since the last one. */
+    private void warnOverflow(long now) {
+        overflowed.incrementAndGet();
+        long due = nextOverflowWarning.get();
+        if (now - due >= 0 && nextOverflowWarning.compareAndSet(due, now + OVERFLOW_WARN_INTERVAL_NANOS)) {
+            logger.warn("Rate limit table is full ({} keys); {} requests from new keys used shared overflow buckets",
+                    maxKeys, overflowed.getAndSet(0));
+        }
+    }
+}
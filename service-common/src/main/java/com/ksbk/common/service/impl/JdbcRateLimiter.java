@@ -0,0 +1,85 @@
+package com.ksbk.common.service.impl;
+
+import com.ksbk.common.config.RateLimitProperties;
+import com.ksbk.common.service.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The same GCRA buckets as {@link InMemoryRateLimiter}, stored in the unlogged
+ * {@code rate_limit_buckets} table so the limit holds across all instances. Admission is a single
+ * conditional upsert; a database failure admits the request rather than failing it.
+ * <p>
+ * A service that spreads buckets over several databases supplies a {@link SweepScope} that runs
+ * the sweep on each of them; otherwise it runs once, on whatever the {@code JdbcTemplate} reaches.
+ */
+public class JdbcRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcRateLimiter.class);
+
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tat) VALUES (?, ?)
+            ON CONFLICT (bucket_key) DO UPDATE SET tat = GREATEST(b.tat, ?) + ?
+            WHERE GREATEST(b.tat, ?) + ? - ? <= ?
+            RETURNING tat""";
+
+    /** Runs the sweep once per database holding buckets, passing a name for logging. */
+    @FunctionalInterface
+    public interface SweepScope {
+        void forEach(Consumer<String> sweep);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SweepScope sweepScope;
+
+    private final double emissionIntervalMs;
+
+    private final long burstToleranceMs;
+
+    private final int capacity;
+
+    public JdbcRateLimiter(JdbcTemplate jdbcTemplate, SweepScope sweepScope, RateLimitProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sweepScope = sweepScope != null ? sweepScope : sweep -> sweep.accept("database");
+        this.emissionIntervalMs = 1000.0 / properties.getRefillPerSecond();
+        this.burstToleranceMs = (long) (emissionIntervalMs * properties.getCapacity());
+        this.capacity = properties.getCapacity();
+    }
+
+    @Override
+    public long tryAcquire(String key, int cost) {
+        long now = System.currentTimeMillis();
+        long increment = (long) Math.ceil(Math.min(cost, capacity) * emissionIntervalMs);
+        try {
+            List<Long> admitted = jdbcTemplate.queryForList(ACQUIRE_SQL, Long.class,
+                    key, now + increment, now, increment, now, increment, now, burstToleranceMs);
+            if (!admitted.isEmpty()) {
+                return 0;
+            }
+            List<Long> arrival = jdbcTemplate.queryForList(
+                    "SELECT tat FROM rate_limit_buckets WHERE bucket_key = ?", Long.class, key);
+            return arrival.isEmpty() ? 0 : Math.max(1, Math.max(arrival.get(0), now) + increment - now - burstToleranceMs);
+        } catch (DataAccessException e) {
+            logger.warn("Shared rate limit check failed for {}, admitting request: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:30000}")
+    public void evictIdle() {
+        sweepScope.forEach(target -> {
+            try {
+                jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE tat < ?", System.currentTimeMillis());
+            } catch (DataAccessException e) {
+                logger.warn("Failed to sweep idle rate limit buckets on {}: {}", target, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.ksbk.common.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Identity the gateway forwards after verifying the access token, so the services behind it
+ * don't parse the JWT again. The headers are HMAC-signed with {@code app.gatewayIdentitySecret}
+ * and only accepted for {@code app.gatewayIdentityMaxAgeMs} after signing; a request that
+ * bypasses the gateway cannot forge them. The gateway signs, every service verifies; the bean is
+ * registered by {@link com.ksbk.common.config.GatewayIdentityConfig}.
+ */
+public class GatewayIdentity {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_NAME = "X-User-Name";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String TOKEN_ID = "X-Token-Id";
+    public static final String ISSUED_AT = "X-Identity-Issued-At";
+    public static final String SIGNATURE = "X-Identity-Signature";
+
+    public static final List<String> HEADERS = List.of(USER_ID, USER_NAME, USER_ROLES, TOKEN_ID, ISSUED_AT, SIGNATURE);
+
+    /** {@code tokenId} is the jti of the verified access token, null for service identities. */
+    public record Identity(Long userId, String username, List<String> roles, String tokenId) {
+        public Identity(Long userId, String username, List<String> roles) {
+            this(userId, username, roles, null);
+        }
+    }
+
+    private final byte[] secret;
+
+    private final long maxAgeMs;
+
+    public GatewayIdentity(String secret, long maxAgeMs) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public boolean isEnabled() {
+        return secret.length > 0;
+    }
+
+    public Map<String, String> sign(Identity identity) {
+        String userId = String.valueOf(identity.userId());
+        String username = identity.username() != null ? identity.username() : "";
+        String roles = String.join(",", identity.roles());
+        String tokenId = identity.tokenId() != null ? identity.tokenId() : "";
+        String issuedAt = String.valueOf(System.currentTimeMillis());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(USER_ID, userId);
+        headers.put(USER_NAME, username);
+        headers.put(USER_ROLES, roles);
+        headers.put(TOKEN_ID, tokenId);
+        headers.put(ISSUED_AT, issuedAt);
+        headers.put(SIGNATURE, Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac(userId, username, roles, tokenId, issuedAt)));
+        return headers;
+    }
+
+    /** @return the forwarded identity, or {@code null} when it is absent, stale or not signed by the gateway */
+    public Identity verify(Function<String, String> headers) {
+        String userId = headers.apply(USER_ID);
+        String signature = headers.apply(SIGNATURE);
+        String issuedAt = headers.apply(ISSUED_AT);
+        if (!isEnabled() || userId == null || signature == null || issuedAt == null) {
+            return null;
+        }
+        String username = headers.apply(USER_NAME) != null ? headers.apply(USER_NAME) : "";
+        String roles = headers.apply(USER_ROLES) != null ? headers.apply(USER_ROLES) : "";
+        String tokenId = headers.apply(TOKEN_ID) != null ? headers.apply(TOKEN_ID) : "";
+        try {
+            if (Math.abs(System.currentTimeMillis() - Long.parseLong(issuedAt)) > maxAgeMs) {
+                return null;
+            }
+            byte[] expected = mac(userId, username, roles, tokenId, issuedAt);
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature))) {
+                return null;
+            }
+            List<String> roleList = roles.isEmpty() ? List.of() : Arrays.asList(roles.split(","));
+            return new Identity(Long.valueOf(userId), username, roleList, tokenId.isEmpty() ? null : tokenId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(String userId, String username, String roles, String tokenId, String issuedAt) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(String.join("\n", userId, username, roles, tokenId, issuedAt).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -28,6 +28,7 @@ MAIL_PASSWORD=
 MINIO_URL=http://minio:9000
 MINIO_ACCESS_KEY=minioadmin
 MINIO_SECRET_KEY=minioadmin
+GATEWAY_IDENTITY_SECRET=myGatewayIdentitySecret123456789
 EOF
 fi
 
@@ -39,6 +40,17 @@ NOTES_DB_USER=notes_user
 NOTES_DB_PASSWORD=notes_password
 JWT_SECRET=mySecretKey123456789
 AUTH_SERVICE_URL=http://auth-service:8082
+GATEWAY_IDENTITY_SECRET=myGatewayIdentitySecret123456789
+EOF
+fi
+
+if [ ! -f "gateway/.env" ]; then
+    echo "📝 Создание gateway/.env..."
+    cat > gateway/.env << EOF
+JWT_ACCESS_SECRET=mySecretKey123456789
+GATEWAY_IDENTITY_SECRET=myGatewayIdentitySecret123456789
+AUTH_SERVICE_URL=http://auth-service:8082
+NOTES_SERVICE_URL=http://notes-service:8081
 EOF
 fi
 
@@ -52,6 +64,7 @@ echo "✅ Приложение запущено!"
 echo ""
 echo "🌐 Доступные сервисы:"
 echo "   Frontend:    http://localhost:3000"
+echo "   Gateway:     http://localhost:8080"
 echo "   Auth API:    http://localhost:8082"
 echo "   Notes API:   http://localhost:8081"
 echo "   MailHog:     http://localhost:8025"